@@ -1061,16 +1061,12 @@ public class CmsContainerpageService extends CmsGwtService implements I_CmsConta
         try {
             CmsObject cms = getCmsObject();
             Set<CmsUUID> result = new HashSet<>();
-            for (CmsUUID id : idsToCheck) {
-                try {
-                    CmsResource resource = cms.readResource(id, CmsResourceFilter.ALL);
-                    CmsLock lock = cms.getLock(resource);
-                    if (!lock.getSystemLock().isUnlocked()
-                        && lock.getUserId().equals(cms.getRequestContext().getCurrentUser().getId())) {
-                        result.add(resource.getStructureId());
-                    }
-                } catch (CmsVfsResourceNotFoundException e) {
-                    LOG.debug(e.getLocalizedMessage(), e);
+            // resources which do not exist are skipped by the batched read
+            for (CmsResource resource : cms.readResources(idsToCheck, CmsResourceFilter.ALL)) {
+                CmsLock lock = cms.getLock(resource);
+                if (!lock.getSystemLock().isUnlocked()
+                    && lock.getUserId().equals(cms.getRequestContext().getCurrentUser().getId())) {
+                    result.add(resource.getStructureId());
                 }
             }
             return result;
@@ -2690,9 +2686,13 @@ public class CmsContainerpageService extends CmsGwtService implements I_CmsConta
                 element = element.clone();
                 getSessionCache().setCacheContainerElement(element.editorHash(), element);
             }
-            element.initResource(cms);
             idMapping.put(elemId, element);
         }
+        // read the resources of all elements with one query, instead of one query per element
+        CmsContainerElementBean.prefetchResources(cms, idMapping.values());
+        for (CmsContainerElementBean element : idMapping.values()) {
+            element.initResource(cms);
+        }
         List<String> foundGroups = new ArrayList<String>();
         if (CmsContainerElement.MENU_CONTAINER_ID.equals(dndOriginContainer)) {
             // this indicates the element is added to the page and not being repositioned, check for model group data
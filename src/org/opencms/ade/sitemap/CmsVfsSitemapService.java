@@ -792,8 +792,11 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
             result.setDefaultFileId(defaultFile != null ? defaultFile.getStructureId() : null);
             result.setId(id);
             result.setFolder(resource.isFolder());
-            List<CmsProperty> props = cms.readPropertyObjects(resource, false);
-            List<CmsProperty> defaultFileProps = cms.readPropertyObjects(defaultFile, false);
+            Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(cms, resource, defaultFile);
+            List<CmsProperty> props = properties.get(resource.getStructureId());
+            List<CmsProperty> defaultFileProps = defaultFile != null
+            ? properties.get(defaultFile.getStructureId())
+            : Collections.<CmsProperty> emptyList();
             Map<String, CmsClientProperty> clientProps = createClientProperties(props, true);
             Map<String, CmsClientProperty> clientDefaultFileProps = createClientProperties(defaultFileProps, true);
 
@@ -2335,14 +2338,43 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
      */
     private List<CmsClientSitemapEntry> getChildren(String root, int levels, String targetPath) {
 
+        CmsObject cms = getCmsObject();
         List<CmsClientSitemapEntry> children = new ArrayList<CmsClientSitemapEntry>();
-        int i = 0;
+        List<CmsJspNavElement> navElements = new ArrayList<CmsJspNavElement>();
+        Map<CmsUUID, CmsResource> defaultFiles = new HashMap<CmsUUID, CmsResource>();
+        List<CmsResource> resources = new ArrayList<CmsResource>();
         for (CmsJspNavElement navElement : getNavBuilder().getNavigationForFolder(
             root,
             Visibility.all,
             CmsResourceFilter.ONLY_VISIBLE_NO_DELETED)) {
             try {
-                CmsClientSitemapEntry child = toClientEntry(navElement, false);
+                CmsResource defaultFile = readEntryDefaultFile(cms, navElement);
+                if (defaultFile != null) {
+                    defaultFiles.put(navElement.getResource().getStructureId(), defaultFile);
+                    resources.add(defaultFile);
+                }
+                resources.add(navElement.getResource());
+                navElements.add(navElement);
+            } catch (CmsException e) {
+                LOG.error("Could not read sitemap entry.", e);
+            }
+        }
+        // read the properties of all entries and their default files at once, instead of two reads per entry
+        Map<CmsUUID, List<CmsProperty>> properties = Collections.emptyMap();
+        try {
+            properties = cms.readPropertyObjects(resources, false);
+        } catch (CmsException e) {
+            // the properties are read for every single entry then
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        int i = 0;
+        for (CmsJspNavElement navElement : navElements) {
+            try {
+                CmsClientSitemapEntry child = toClientEntry(
+                    navElement,
+                    false,
+                    defaultFiles.get(navElement.getResource().getStructureId()),
+                    properties);
                 if (child != null) {
                     child.setPosition(i);
                     children.add(child);
@@ -2364,6 +2396,32 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return children;
     }
 
+    /**
+     * Gets the properties of a resource as a map of client properties.<p>
+     *
+     * The already read properties are used if they contain the resource.<p>
+     *
+     * @param cms the CMS context to use
+     * @param res the resource whose properties to read
+     * @param properties the already read properties by structure id
+     *
+     * @return the client properties as a map
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<String, CmsClientProperty> getClientProperties(
+        CmsObject cms,
+        CmsResource res,
+        Map<CmsUUID, List<CmsProperty>> properties)
+    throws CmsException {
+
+        List<CmsProperty> props = properties.get(res.getStructureId());
+        if (props == null) {
+            return getClientProperties(cms, res, false);
+        }
+        return createClientProperties(props, false);
+    }
+
     /**
      * Returns the clipboard data from the current user.<p>
      *
@@ -3073,6 +3131,25 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         }
     }
 
+    /**
+     * Reads the default file of a sitemap entry.<p>
+     *
+     * @param cms the CMS context to use
+     * @param navElement the navigation element of the entry
+     *
+     * @return the default file, or <code>null</code> if the entry is no folder or a navigation level
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsResource readEntryDefaultFile(CmsObject cms, CmsJspNavElement navElement) throws CmsException {
+
+        CmsResource resource = navElement.getResource();
+        if (resource.isFolder() && !navElement.isNavigationLevel()) {
+            return cms.readDefaultFile(resource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+        }
+        return null;
+    }
+
     /**
      * Reads the gallery folder properties.<p>
      *
@@ -3095,6 +3172,31 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return folderEntry;
     }
 
+    /**
+     * Reads the properties of a resource and of its default file with one bulk read.<p>
+     *
+     * @param cms the CMS context to use
+     * @param resource the resource
+     * @param defaultFile the default file of the resource, may be <code>null</code>
+     *
+     * @return the properties of the resources by structure id
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsObject cms,
+        CmsResource resource,
+        CmsResource defaultFile)
+    throws CmsException {
+
+        List<CmsResource> resources = new ArrayList<CmsResource>();
+        resources.add(resource);
+        if (defaultFile != null) {
+            resources.add(defaultFile);
+        }
+        return cms.readPropertyObjects(resources, false);
+    }
+
     /**
      * Helper method for removing all locales except one from a container page.<p>
      *
@@ -3250,6 +3352,36 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
      */
     private CmsClientSitemapEntry toClientEntry(CmsJspNavElement navElement, boolean isRoot) throws CmsException {
 
+        CmsObject cms = getCmsObject();
+        CmsResource defaultFileResource = readEntryDefaultFile(cms, navElement);
+        return toClientEntry(
+            navElement,
+            isRoot,
+            defaultFileResource,
+            readPropertyObjects(cms, navElement.getResource(), defaultFileResource));
+    }
+
+    /**
+     * Converts a jsp navigation element into a client sitemap entry.<p>
+     *
+     * Uses the already read default file and properties of the entry.<p>
+     *
+     * @param navElement the jsp navigation element
+     * @param isRoot true if the entry is a root entry
+     * @param defaultFileResource the default file of the entry, may be <code>null</code>
+     * @param properties the already read properties by structure id, properties missing here are read
+     *
+     * @return the client sitemap entry
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsClientSitemapEntry toClientEntry(
+        CmsJspNavElement navElement,
+        boolean isRoot,
+        CmsResource defaultFileResource,
+        Map<CmsUUID, List<CmsProperty>> properties)
+    throws CmsException {
+
         CmsResource entryPage = null;
         CmsObject cms = getCmsObject();
         CmsClientSitemapEntry clientEntry = new CmsClientSitemapEntry();
@@ -3257,16 +3389,12 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
 
         CmsResource ownResource = navElement.getResource();
         clientEntry.setResourceState(ownResource.getState());
-        CmsResource defaultFileResource = null;
-        if (ownResource.isFolder() && !navElement.isNavigationLevel()) {
-            defaultFileResource = cms.readDefaultFile(ownResource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
-        }
 
-        Map<String, CmsClientProperty> ownProps = getClientProperties(cms, ownResource, false);
+        Map<String, CmsClientProperty> ownProps = getClientProperties(cms, ownResource, properties);
 
         Map<String, CmsClientProperty> defaultFileProps = null;
         if (defaultFileResource != null) {
-            defaultFileProps = getClientProperties(cms, defaultFileResource, false);
+            defaultFileProps = getClientProperties(cms, defaultFileResource, properties);
             clientEntry.setDefaultFileId(defaultFileResource.getStructureId());
             clientEntry.setDefaultFileType(
                 OpenCms.getResourceManager().getResourceType(defaultFileResource.getTypeId()).getTypeName());
@@ -3425,14 +3553,15 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         List<CmsPropertyModification> propertyModifications)
     throws CmsException {
 
-        Map<String, CmsProperty> ownProps = getPropertiesByName(cms.readPropertyObjects(ownRes, false));
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(cms, ownRes, defaultFileRes);
+        Map<String, CmsProperty> ownProps = getPropertiesByName(properties.get(ownRes.getStructureId()));
         // determine if the title property should be changed in case of a 'NavText' change
         boolean changeOwnTitle = shouldChangeTitle(ownProps);
 
         boolean changeDefaultFileTitle = false;
         Map<String, CmsProperty> defaultFileProps = Maps.newHashMap();
         if (defaultFileRes != null) {
-            defaultFileProps = getPropertiesByName(cms.readPropertyObjects(defaultFileRes, false));
+            defaultFileProps = getPropertiesByName(properties.get(defaultFileRes.getStructureId()));
             // determine if the title property of the default file should be changed
             changeDefaultFileTitle = shouldChangeDefaultFileTitle(
                 defaultFileProps,
@@ -0,0 +1,550 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.loader.CmsLoaderException;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.main.OpenCmsCore;
+import org.opencms.site.CmsSite;
+import org.opencms.site.CmsSiteMatcher;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Re-renders the most requested pages of each site in the background, so that the
+ * online caches are filled before the first users request these pages again.<p>
+ *
+ * The warmer records the top requested paths per site. After a publish job, the paths of all
+ * sites that contain published resources are requested again. If resources outside of
+ * all sites have been published, e.g. modules or shared content, the paths of all sites are requested.
+ * The recorded paths are written to disk on shut down, and requested again after the next startup.<p>
+ *
+ * Only anonymous GET requests without query string for resources rendered by a template
+ * loader are recorded, and only if the request was made for the server of a configured site.
+ * The URLs to request are built from the configured server of the site, never from the
+ * host of the recorded request. The request counts are halved regularly, so that pages which
+ * were popular in the past do not stay on top forever.<p>
+ *
+ * The warmer is configured with the runtime properties {@link #PARAM_ENABLED}, {@link #PARAM_SIZE},
+ * {@link #PARAM_THREADS}, {@link #PARAM_STARTUP_DELAY} and {@link #PARAM_AGING_INTERVAL}.<p>
+ *
+ * @since 17.0
+ */
+public class CmsCacheWarmer implements I_CmsEventListener {
+
+    /** Request header sent with the requests of the cache warmer, these requests are not recorded. */
+    public static final String HEADER_CACHE_WARMER = "X-OpenCms-Cache-Warmer";
+
+    /** Name of the runtime property for the interval in minutes after which the request counts are halved. */
+    public static final String PARAM_AGING_INTERVAL = "cache.warmer.aging.interval";
+
+    /** Name of the runtime property used to enable the cache warmer. */
+    public static final String PARAM_ENABLED = "cache.warmer.enabled";
+
+    /** Name of the runtime property for the number of URLs to keep per site. */
+    public static final String PARAM_SIZE = "cache.warmer.size";
+
+    /** Name of the runtime property for the delay in seconds before the recorded URLs are requested after startup. */
+    public static final String PARAM_STARTUP_DELAY = "cache.warmer.startup.delay";
+
+    /** Name of the runtime property for the number of threads requesting URLs. */
+    public static final String PARAM_THREADS = "cache.warmer.threads";
+
+    /** The default interval in minutes after which the request counts are halved. */
+    private static final int DEFAULT_AGING_INTERVAL = 60;
+
+    /** The default number of URLs to keep per site. */
+    private static final int DEFAULT_SIZE = 50;
+
+    /** The default delay in seconds before the recorded URLs are requested after startup. */
+    private static final int DEFAULT_STARTUP_DELAY = 60;
+
+    /** The default number of threads requesting URLs. */
+    private static final int DEFAULT_THREADS = 2;
+
+    /** The delay in seconds before requesting URLs after a publish job, so that the caches have been cleared. */
+    private static final int PUBLISH_DELAY = 5;
+
+    /** The file the recorded URLs are written to, relative to the WEB-INF folder. */
+    private static final String STATE_FILE = "cachewarmer/urls.txt";
+
+    /** The timeout for connecting to and reading from the server, in milliseconds. */
+    private static final int TIMEOUT = 60000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheWarmer.class);
+
+    /** The admin CmsObject used to read publish lists. */
+    private CmsObject m_adminCms;
+
+    /** The request counts per site path, by site root. */
+    private Map<String, Map<String, AtomicLong>> m_counts = new ConcurrentHashMap<>();
+
+    /** The executor requesting the URLs. */
+    private ScheduledThreadPoolExecutor m_executor;
+
+    /** The URLs that are queued to be requested. */
+    private Set<String> m_pending = ConcurrentHashMap.newKeySet();
+
+    /** The number of URLs to keep per site. */
+    private int m_size;
+
+    /** The delay in seconds before the recorded URLs are requested after startup. */
+    private int m_startupDelay;
+
+    /** The file the recorded URLs are written to. */
+    private File m_stateFile;
+
+    /**
+     * Creates a new cache warmer configured by the runtime properties.<p>
+     */
+    public CmsCacheWarmer() {
+
+        this(
+            getIntProperty(PARAM_SIZE, DEFAULT_SIZE),
+            getIntProperty(PARAM_THREADS, DEFAULT_THREADS),
+            getIntProperty(PARAM_STARTUP_DELAY, DEFAULT_STARTUP_DELAY),
+            new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(STATE_FILE)));
+    }
+
+    /**
+     * Creates a new cache warmer.<p>
+     *
+     * @param size the number of URLs to keep per site
+     * @param threads the number of threads requesting URLs
+     * @param startupDelay the delay in seconds before the recorded URLs are requested after startup
+     * @param stateFile the file the recorded URLs are written to, or <code>null</code> if they should not be kept
+     */
+    public CmsCacheWarmer(int size, int threads, int startupDelay, File stateFile) {
+
+        m_size = Math.max(1, size);
+        m_startupDelay = Math.max(0, startupDelay);
+        m_stateFile = stateFile;
+        m_executor = new ScheduledThreadPoolExecutor(
+            Math.max(1, threads),
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Cache warmer %d").setDaemon(true).build());
+    }
+
+    /**
+     * Checks if the cache warmer is enabled by the runtime properties.<p>
+     *
+     * @return <code>true</code> if the cache warmer is enabled
+     */
+    public static boolean isEnabled() {
+
+        return Boolean.parseBoolean(String.valueOf(OpenCms.getRuntimeProperty(PARAM_ENABLED)));
+    }
+
+    /**
+     * Reads an integer runtime property.<p>
+     *
+     * @param name the name of the runtime property
+     * @param defaultValue the value to use if the property is not set
+     *
+     * @return the value of the runtime property
+     */
+    private static int getIntProperty(String name, int defaultValue) {
+
+        Object value = OpenCms.getRuntimeProperty(name);
+        return value == null ? defaultValue : CmsStringUtil.getIntValue(value.toString(), defaultValue, name);
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        if ((event.getType() != I_CmsEventListener.EVENT_PUBLISH_PROJECT)
+            || (event.getData() == null)
+            || (m_adminCms == null)) {
+            return;
+        }
+        Object publishId = event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if (!(publishId instanceof String)) {
+            return;
+        }
+        Set<String> siteRoots = new HashSet<String>();
+        try {
+            CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+            List<CmsPublishedResource> publishedResources = cms.readPublishedResources(
+                new CmsUUID((String)publishId));
+            for (CmsPublishedResource published : publishedResources) {
+                String siteRoot = OpenCms.getSiteManager().getSiteRoot(published.getRootPath());
+                if (siteRoot == null) {
+                    // published resources outside of the sites may be used by every site
+                    siteRoots = m_counts.keySet();
+                    break;
+                }
+                siteRoots.add(siteRoot);
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        warm(siteRoots, PUBLISH_DELAY);
+    }
+
+    /**
+     * Returns the most requested paths of a site, the most requested path first.<p>
+     *
+     * @param siteRoot the site root
+     *
+     * @return the most requested paths of the site
+     */
+    public List<String> getTopPaths(String siteRoot) {
+
+        Map<String, AtomicLong> counts = m_counts.get(siteRoot);
+        if (counts == null) {
+            return Collections.emptyList();
+        }
+        return getTopPaths(counts, m_size);
+    }
+
+    /**
+     * Initializes the cache warmer.<p>
+     *
+     * Reads the URLs recorded before the last shut down, and requests them after the configured delay.<p>
+     *
+     * @param adminCms an admin CmsObject used to read publish lists
+     */
+    public void initialize(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+        readState();
+        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+        int urls = warm(m_counts.keySet(), m_startupDelay);
+        int agingInterval = getIntProperty(PARAM_AGING_INTERVAL, DEFAULT_AGING_INTERVAL);
+        if (agingInterval > 0) {
+            m_executor.scheduleWithFixedDelay(() -> age(), agingInterval, agingInterval, TimeUnit.MINUTES);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_CACHE_WARMER_3,
+                    Integer.valueOf(m_size),
+                    Integer.valueOf(m_executor.getCorePoolSize()),
+                    Integer.valueOf(urls)));
+        }
+    }
+
+    /**
+     * Records a request for a resource.<p>
+     *
+     * Only anonymous GET requests without query string in the Online project are recorded,
+     * and only for resources that are rendered by a template loader. The request must have
+     * been made for the server of the configured site the resource is delivered from.<p>
+     *
+     * @param cms the OpenCms user context of the request
+     * @param resource the requested resource
+     * @param req the current request
+     */
+    public void record(CmsObject cms, CmsResource resource, HttpServletRequest req) {
+
+        if (!"GET".equals(req.getMethod())
+            || (req.getQueryString() != null)
+            || (req.getHeader(HEADER_CACHE_WARMER) != null)
+            || !cms.getRequestContext().getCurrentProject().isOnlineProject()
+            || !cms.getRequestContext().getCurrentUser().isGuestUser()) {
+            return;
+        }
+        String siteRoot = cms.getRequestContext().getSiteRoot();
+        CmsSiteMatcher matcher = cms.getRequestContext().getRequestMatcher();
+        CmsSite site = matcher != null ? OpenCms.getSiteManager().getSites().get(matcher) : null;
+        if ((site == null) || !site.getSiteRoot().equals(siteRoot)) {
+            // the server of the request does not belong to a configured site, or to another site
+            return;
+        }
+        try {
+            if (!OpenCms.getResourceManager().getLoader(resource).isStaticExportProcessable()) {
+                return;
+            }
+        } catch (CmsLoaderException e) {
+            return;
+        }
+        record(siteRoot, OpenCmsCore.getPathInfo(req), 1);
+    }
+
+    /**
+     * The cache warmer only reads the publish history id from the event data and requests the URLs
+     * in the background anyway, so it does not need to hold up the publish thread.<p>
+     *
+     * @see org.opencms.main.I_CmsEventListener#requiresSynchronousDelivery()
+     */
+    public boolean requiresSynchronousDelivery() {
+
+        return false;
+    }
+
+    /**
+     * Stops requesting URLs and writes the recorded URLs to disk.<p>
+     */
+    public void shutDown() {
+
+        m_executor.shutdownNow();
+        writeState();
+    }
+
+    /**
+     * Halves the request counts of all recorded paths, and drops the paths whose count reaches zero.<p>
+     */
+    void age() {
+
+        for (Map<String, AtomicLong> counts : m_counts.values()) {
+            for (AtomicLong count : counts.values()) {
+                count.updateAndGet(value -> value / 2);
+            }
+            counts.values().removeIf(count -> count.get() <= 0);
+        }
+    }
+
+    /**
+     * Returns the URL to request for a path of a site.<p>
+     *
+     * The URL is built from the configured server of the site, the OpenCms context and the path.<p>
+     *
+     * @param siteRoot the site root
+     * @param sitePath the path in the site
+     *
+     * @return the URL, or <code>null</code> if the site is not configured any more or the path is invalid
+     */
+    String getUrl(String siteRoot, String sitePath) {
+
+        CmsSite site = OpenCms.getSiteManager().getSiteForSiteRoot(siteRoot);
+        if ((site == null) || !sitePath.startsWith("/")) {
+            return null;
+        }
+        try {
+            URI server = new URI(site.getUrl());
+            return new URI(
+                server.getScheme(),
+                server.getAuthority(),
+                OpenCms.getSystemInfo().getOpenCmsContext() + sitePath,
+                null,
+                null).toASCIIString();
+        } catch (URISyntaxException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds requests for a path to the counts of a site.<p>
+     *
+     * If the counts of the site get too large, all paths except the most requested ones are dropped.<p>
+     *
+     * @param siteRoot the site root
+     * @param sitePath the requested path in the site
+     * @param requests the number of requests to add
+     */
+    void record(String siteRoot, String sitePath, long requests) {
+
+        Map<String, AtomicLong> counts = m_counts.computeIfAbsent(siteRoot, key -> new ConcurrentHashMap<>());
+        counts.computeIfAbsent(sitePath, key -> new AtomicLong()).addAndGet(requests);
+        if (counts.size() > (4 * m_size)) {
+            synchronized (counts) {
+                if (counts.size() > (4 * m_size)) {
+                    // keep some more paths than required so new pages can rise to the top
+                    Set<String> keep = new HashSet<String>(getTopPaths(counts, 2 * m_size));
+                    counts.keySet().retainAll(keep);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the most requested paths of the given counts.<p>
+     *
+     * @param counts the request counts by path
+     * @param size the maximum number of paths to return
+     *
+     * @return the most requested paths, the most requested path first
+     */
+    private List<String> getTopPaths(Map<String, AtomicLong> counts, int size) {
+
+        return counts.entrySet().stream().sorted(
+            (a, b) -> Long.compare(b.getValue().get(), a.getValue().get())).limit(size).map(
+                Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the URLs recorded before the last shut down.<p>
+     */
+    private void readState() {
+
+        if ((m_stateFile == null) || !m_stateFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(m_stateFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                // older state files contain full URLs instead of site paths, these are skipped
+                if ((parts.length == 3) && parts[2].startsWith("/")) {
+                    record(parts[1], parts[2], CmsStringUtil.getIntValue(parts[0], 1, STATE_FILE));
+                }
+            }
+        } catch (IOException e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_CACHE_WARMER_STATE_FAILED_1, m_stateFile.getAbsolutePath()),
+                e);
+        }
+    }
+
+    /**
+     * Requests a URL and reads the complete response.<p>
+     *
+     * @param url the URL to request
+     */
+    private void request(String url) {
+
+        m_pending.remove(url);
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection)new URL(url).openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            connection.setRequestProperty(HEADER_CACHE_WARMER, CmsStringUtil.TRUE);
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_OK) {
+                try (InputStream in = connection.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) {
+                        // just read the response, it is not used
+                    }
+                }
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(Messages.LOG_CACHE_WARMER_REQUEST_2, url, Integer.valueOf(status)));
+            }
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CACHE_WARMER_REQUEST_FAILED_1, url), e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Queues the most requested paths of the given sites to be requested after a delay.<p>
+     *
+     * URLs that are already queued are not queued again.<p>
+     *
+     * @param siteRoots the site roots
+     * @param delay the delay in seconds
+     *
+     * @return the number of queued URLs
+     */
+    private int warm(Collection<String> siteRoots, int delay) {
+
+        if (m_executor.isShutdown()) {
+            return 0;
+        }
+        List<String> urls = new ArrayList<String>();
+        for (String siteRoot : siteRoots) {
+            for (String sitePath : getTopPaths(siteRoot)) {
+                String url = getUrl(siteRoot, sitePath);
+                if (url != null) {
+                    urls.add(url);
+                }
+            }
+        }
+        for (final String url : urls) {
+            if (m_pending.add(url)) {
+                m_executor.schedule(() -> request(url), delay, TimeUnit.SECONDS);
+            }
+        }
+        return urls.size();
+    }
+
+    /**
+     * Writes the recorded URLs to disk.<p>
+     */
+    private void writeState() {
+
+        if (m_stateFile == null) {
+            return;
+        }
+        try {
+            m_stateFile.getParentFile().mkdirs();
+            try (BufferedWriter writer = Files.newBufferedWriter(m_stateFile.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Map<String, AtomicLong>> site : m_counts.entrySet()) {
+                    for (String sitePath : getTopPaths(site.getValue(), m_size)) {
+                        AtomicLong count = site.getValue().get(sitePath);
+                        writer.write((count != null ? count.get() : 1) + "\t" + site.getKey() + "\t" + sitePath);
+                        writer.newLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_CACHE_WARMER_STATE_FAILED_1, m_stateFile.getAbsolutePath()),
+                e);
+        }
+    }
+}
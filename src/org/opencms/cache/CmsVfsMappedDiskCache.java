@@ -0,0 +1,559 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A name based disk cache that keeps the cached versions in a few large memory mapped segment files.<p>
+ *
+ * Instead of writing one RFS file per cached version, the versions are appended to the active segment file.
+ * An index in memory maps the cache names generated by {@link #getCacheName(org.opencms.file.CmsResource, String)}
+ * to the location of the content, and is rebuilt from the segment files when the cache is opened.
+ * Cached content can be read without copying with {@link #getCachedContent(String)}.<p>
+ *
+ * The total size of the segment files is limited. When a new segment is required and the limit is reached,
+ * the oldest segment is dropped together with all versions it contains. Versions in the oldest segment that are
+ * read are copied to the active segment first, so frequently used versions are not evicted.<p>
+ *
+ * @since 17.0
+ */
+public class CmsVfsMappedDiskCache extends CmsVfsNameBasedDiskCache {
+
+    /**
+     * The location of a cached version in a segment file.<p>
+     */
+    public static class CmsCachedContent {
+
+        /** The mapped content. */
+        private ByteBuffer m_buffer;
+
+        /** The segment file. */
+        private File m_file;
+
+        /** The offset of the content in the segment file. */
+        private long m_offset;
+
+        /**
+         * Creates a new content location.<p>
+         *
+         * @param file the segment file
+         * @param offset the offset of the content in the segment file
+         * @param buffer the mapped content
+         */
+        CmsCachedContent(File file, long offset, ByteBuffer buffer) {
+
+            m_file = file;
+            m_offset = offset;
+            m_buffer = buffer;
+        }
+
+        /**
+         * Returns a read only buffer with the content, positioned at the start of the content.<p>
+         *
+         * @return a read only buffer with the content
+         */
+        public ByteBuffer getBuffer() {
+
+            return m_buffer.duplicate();
+        }
+
+        /**
+         * Returns the segment file containing the content.<p>
+         *
+         * @return the segment file containing the content
+         */
+        public File getFile() {
+
+            return m_file;
+        }
+
+        /**
+         * Returns the length of the content.<p>
+         *
+         * @return the length of the content
+         */
+        public int getLength() {
+
+            return m_buffer.remaining();
+        }
+
+        /**
+         * Returns the offset of the content in the segment file.<p>
+         *
+         * @return the offset of the content in the segment file
+         */
+        public long getOffset() {
+
+            return m_offset;
+        }
+    }
+
+    /**
+     * A memory mapped segment file.<p>
+     */
+    private static class Segment {
+
+        /** The mapped file. */
+        MappedByteBuffer m_buffer;
+
+        /** The segment file. */
+        File m_file;
+
+        /** The sequence number of the segment. */
+        long m_id;
+
+        /** The offset at which the next record is written. */
+        int m_position;
+    }
+
+    /**
+     * The location of a record in a segment.<p>
+     */
+    private static class Slot {
+
+        /** The date the version was last read or written. */
+        long m_dateLastUsed;
+
+        /** The length of the content. */
+        int m_length;
+
+        /** The offset of the content. */
+        int m_offset;
+
+        /** The segment containing the record. */
+        Segment m_segment;
+
+        /**
+         * Creates a new slot.<p>
+         *
+         * @param segment the segment containing the record
+         * @param offset the offset of the content
+         * @param length the length of the content
+         * @param dateLastUsed the date the version was last read or written
+         */
+        Slot(Segment segment, int offset, int length, long dateLastUsed) {
+
+            m_segment = segment;
+            m_offset = offset;
+            m_length = length;
+            m_dateLastUsed = dateLastUsed;
+        }
+    }
+
+    /** The default size of a segment file. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /** Logger instance for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsVfsMappedDiskCache.class);
+
+    /** Marker at the start of every record. */
+    private static final int RECORD_MAGIC = 0x494D4731;
+
+    /** The file name prefix of the segment files. */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /** The file name suffix of the segment files. */
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    /** The index of the cached versions, in order of their last use. */
+    private LinkedHashMap<String, Slot> m_index;
+
+    /** The maximum number of segment files. */
+    private int m_maxSegments;
+
+    /** The segment file that was dropped last, deleted only with the next eviction since it may still be sent. */
+    private File m_retiredFile;
+
+    /** The size of a segment file. */
+    private int m_segmentSize;
+
+    /** The segment files, oldest first. */
+    private List<Segment> m_segments;
+
+    /**
+     * Creates a new memory mapped disk cache.<p>
+     *
+     * @param basepath the base path for the cache in the RFS
+     * @param foldername the folder name for this cache, to be used a sub-folder for the base folder
+     * @param maxSize the maximum total size of the segment files in bytes
+     * @param segmentSize the size of a single segment file in bytes
+     */
+    public CmsVfsMappedDiskCache(String basepath, String foldername, long maxSize, int segmentSize) {
+
+        super(basepath, foldername);
+        m_segmentSize = segmentSize;
+        m_maxSegments = (int)Math.max(2, maxSize / segmentSize);
+        m_index = new LinkedHashMap<String, Slot>(1024, 0.75f, true);
+        m_segments = new ArrayList<Segment>();
+        open();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsNameBasedDiskCache#getCacheContent(java.lang.String)
+     */
+    @Override
+    public byte[] getCacheContent(String rfsName) {
+
+        CmsCachedContent content = getCachedContent(rfsName);
+        if (content == null) {
+            return null;
+        }
+        byte[] result = new byte[content.getLength()];
+        content.getBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * Returns the location of the cached content with the given name.<p>
+     *
+     * The returned buffer stays valid even if the segment containing the content is evicted later.<p>
+     *
+     * @param rfsName the cache name
+     *
+     * @return the location of the cached content, or <code>null</code> if the content is not cached
+     */
+    public synchronized CmsCachedContent getCachedContent(String rfsName) {
+
+        Slot slot = m_index.get(rfsName);
+        if (slot == null) {
+            return null;
+        }
+        slot.m_dateLastUsed = System.currentTimeMillis();
+        if ((m_segments.size() >= m_maxSegments) && (slot.m_segment == m_segments.get(0))) {
+            // the content would be dropped with the next eviction, copy it to the active segment
+            Slot moved = append(rfsName, slice(slot), false);
+            if (moved != null) {
+                slot = moved;
+                m_index.put(rfsName, slot);
+            }
+        }
+        return new CmsCachedContent(slot.m_segment.m_file, slot.m_offset, slice(slot));
+    }
+
+    /**
+     * Returns the number of cached versions.<p>
+     *
+     * @return the number of cached versions
+     */
+    public synchronized int getSize() {
+
+        return m_index.size();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsNameBasedDiskCache#hasCacheContent(java.lang.String)
+     */
+    @Override
+    public synchronized boolean hasCacheContent(String rfsName) {
+
+        return m_index.containsKey(rfsName);
+    }
+
+    /**
+     * Removes all versions from the index that have not been used since the given date.<p>
+     *
+     * The space of the removed versions is released when their segment is evicted.<p>
+     *
+     * @param dateLastUsed the date before which versions are removed
+     *
+     * @return the number of removed versions
+     */
+    public synchronized int removeUnused(long dateLastUsed) {
+
+        int count = 0;
+        Iterator<Slot> it = m_index.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().m_dateLastUsed < dateLastUsed) {
+                it.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsNameBasedDiskCache#saveCacheFile(java.lang.String, byte[])
+     */
+    @Override
+    public synchronized void saveCacheFile(String rfsName, byte[] content) {
+
+        Slot slot = append(rfsName, ByteBuffer.wrap(content), true);
+        if (slot != null) {
+            m_index.put(rfsName, slot);
+        }
+    }
+
+    /**
+     * Writes the mapped segments to disk.<p>
+     */
+    public synchronized void shutDown() {
+
+        for (Segment segment : m_segments) {
+            segment.m_buffer.force();
+        }
+    }
+
+    /**
+     * Appends a record to the active segment.<p>
+     *
+     * @param rfsName the cache name
+     * @param content the content, from its position to its limit
+     * @param allowNewSegment if a new segment may be started when the active segment is full
+     *
+     * @return the slot of the new record, or <code>null</code> if the record could not be written
+     */
+    private Slot append(String rfsName, ByteBuffer content, boolean allowNewSegment) {
+
+        byte[] name = rfsName.getBytes(StandardCharsets.UTF_8);
+        int contentLength = content.remaining();
+        int length = 12 + name.length + contentLength;
+        if (length > (m_segmentSize / 4)) {
+            // too large for this cache
+            return null;
+        }
+        Segment segment = m_segments.isEmpty() ? null : m_segments.get(m_segments.size() - 1);
+        if ((segment == null) || ((segment.m_position + length + 4) > m_segmentSize)) {
+            if (!allowNewSegment) {
+                return null;
+            }
+            try {
+                segment = createSegment();
+            } catch (IOException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                return null;
+            }
+        }
+        int offset = segment.m_position;
+        ByteBuffer buffer = segment.m_buffer.duplicate();
+        buffer.putInt(offset + length, 0);
+        buffer.position(offset + 4);
+        buffer.putInt(name.length);
+        buffer.put(name);
+        buffer.putInt(contentLength);
+        int contentOffset = buffer.position();
+        buffer.put(content);
+        // the marker is written last, so an interrupted write leaves no readable record
+        buffer.putInt(offset, RECORD_MAGIC);
+        segment.m_position = offset + length;
+        return new Slot(segment, contentOffset, contentLength, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts a new active segment, evicting the oldest segment if the size limit is reached.<p>
+     *
+     * @return the new segment
+     *
+     * @throws IOException if the segment file can not be created
+     */
+    private Segment createSegment() throws IOException {
+
+        while (m_segments.size() >= m_maxSegments) {
+            evictOldestSegment();
+        }
+        long id = m_segments.isEmpty() ? 1 : m_segments.get(m_segments.size() - 1).m_id + 1;
+        File file = new File(getRepositoryPath(), SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        file.getParentFile().mkdirs();
+        Segment segment = mapSegment(file, id);
+        segment.m_buffer.putInt(0, 0);
+        segment.m_position = 0;
+        m_segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Drops the oldest segment together with all versions it contains.<p>
+     */
+    private void evictOldestSegment() {
+
+        Segment oldest = m_segments.remove(0);
+        Iterator<Slot> it = m_index.values().iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            if (it.next().m_segment == oldest) {
+                it.remove();
+                count++;
+            }
+        }
+        if (m_retiredFile != null) {
+            m_retiredFile.delete();
+        }
+        m_retiredFile = oldest.m_file;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MAPPED_DISK_CACHE_SEGMENT_EVICTED_2,
+                    oldest.m_file.getAbsolutePath(),
+                    Integer.valueOf(count)));
+        }
+    }
+
+    /**
+     * Maps a segment file.<p>
+     *
+     * @param file the segment file
+     * @param id the sequence number of the segment
+     *
+     * @return the mapped segment
+     *
+     * @throws IOException if the file can not be mapped
+     */
+    private Segment mapSegment(File file, long id) throws IOException {
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() != m_segmentSize) {
+                raf.setLength(m_segmentSize);
+                raf.seek(0);
+                raf.writeInt(0);
+            }
+            Segment segment = new Segment();
+            segment.m_file = file;
+            segment.m_id = id;
+            // the mapping stays valid after the file is closed
+            segment.m_buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, m_segmentSize);
+            return segment;
+        }
+    }
+
+    /**
+     * Opens the existing segment files and rebuilds the index from them.<p>
+     */
+    private void open() {
+
+        File folder = new File(getRepositoryPath());
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<Long> ids = new ArrayList<Long>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    ids.add(
+                        Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment file
+                }
+            }
+        }
+        Long[] sorted = ids.toArray(new Long[ids.size()]);
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            File file = new File(folder, SEGMENT_PREFIX + sorted[i] + SEGMENT_SUFFIX);
+            if ((sorted.length - i) > m_maxSegments) {
+                // the size limit has been reduced
+                file.delete();
+                continue;
+            }
+            try {
+                Segment segment = mapSegment(file, sorted[i].longValue());
+                m_segments.add(segment);
+                readSegment(segment);
+            } catch (IOException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                file.delete();
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MAPPED_DISK_CACHE_OPENED_3,
+                    getRepositoryPath(),
+                    Integer.valueOf(m_index.size()),
+                    Integer.valueOf(m_segments.size())));
+        }
+    }
+
+    /**
+     * Adds the records of a segment to the index.<p>
+     *
+     * @param segment the segment to read
+     */
+    private void readSegment(Segment segment) {
+
+        ByteBuffer buffer = segment.m_buffer.duplicate();
+        long now = System.currentTimeMillis();
+        int offset = 0;
+        while ((offset + 12) <= m_segmentSize) {
+            if (buffer.getInt(offset) != RECORD_MAGIC) {
+                break;
+            }
+            int nameLength = buffer.getInt(offset + 4);
+            if ((nameLength < 0) || ((offset + 12 + nameLength) > m_segmentSize)) {
+                break;
+            }
+            byte[] name = new byte[nameLength];
+            buffer.position(offset + 8);
+            buffer.get(name);
+            int length = buffer.getInt();
+            int contentOffset = buffer.position();
+            if ((length < 0) || ((contentOffset + length) > m_segmentSize)) {
+                break;
+            }
+            m_index.put(new String(name, StandardCharsets.UTF_8), new Slot(segment, contentOffset, length, now));
+            offset = contentOffset + length;
+        }
+        segment.m_position = offset;
+        if ((offset + 4) <= m_segmentSize) {
+            buffer.putInt(offset, 0);
+        }
+    }
+
+    /**
+     * Returns a read only buffer with the content of a slot.<p>
+     *
+     * @param slot the slot
+     *
+     * @return a read only buffer with the content
+     */
+    private ByteBuffer slice(Slot slot) {
+
+        ByteBuffer buffer = slot.m_segment.m_buffer.asReadOnlyBuffer();
+        buffer.position(slot.m_offset);
+        buffer.limit(slot.m_offset + slot.m_length);
+        return buffer.slice();
+    }
+}
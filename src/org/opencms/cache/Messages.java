@@ -37,9 +37,27 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CACHE_WARMER_3 = "INIT_CACHE_WARMER_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CACHE_COSTS_TOO_HIGH_2 = "LOG_CACHE_COSTS_TOO_HIGH_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_WARMER_REQUEST_2 = "LOG_CACHE_WARMER_REQUEST_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_WARMER_REQUEST_FAILED_1 = "LOG_CACHE_WARMER_REQUEST_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_WARMER_STATE_FAILED_1 = "LOG_CACHE_WARMER_STATE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MAPPED_DISK_CACHE_OPENED_3 = "LOG_MAPPED_DISK_CACHE_OPENED_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MAPPED_DISK_CACHE_SEGMENT_EVICTED_2 = "LOG_MAPPED_DISK_CACHE_SEGMENT_EVICTED_2";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.cache.messages";
 
@@ -421,6 +421,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the prevent-response-flush node. */
     public static final String N_PREVENTRESPONSEFLUSH = "prevent-response-flush";
 
+    /** The node name for the number of publish lanes. */
+    public static final String N_PUBLISH_LANES = "publish-lanes";
+
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
@@ -535,6 +538,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The main system configuration node name. */
     public static final String N_SYSTEM = "system";
 
+    /** The node name for the flex cache targeted invalidation flag. */
+    public static final String N_TARGETED_INVALIDATION = "targeted-invalidation";
+
     /** Node name for declaring a single text encryption. */
     public static final String N_TEXT_ENCRYPTION = "text-encryption";
 
@@ -1134,6 +1140,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setDeviceSelectorConfiguration",
             1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR, 0, A_CLASS);
+        // add flexcache targeted invalidation flag
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_TARGETED_INVALIDATION,
+            "setTargetedInvalidation",
+            0);
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -1270,6 +1281,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_AUTO_CLEANUP_HISTORY_ENTRIES,
             "setAutoCleanupHistoryEntries",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_LANES,
+            "setPublishLanes",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1659,6 +1674,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 A_CLASS,
                 m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration());
         }
+        if (m_cmsFlexCacheConfiguration.isTargetedInvalidation()) {
+            flexcacheElement.addElement(N_TARGETED_INVALIDATION).addText(String.valueOf(true));
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1745,6 +1763,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
             pubHistElement.addElement(N_AUTO_CLEANUP_HISTORY_ENTRIES).setText(
                 String.valueOf(m_publishManager.isAutoCleanupHistoryEntries()));
+            if (m_publishManager.getPublishLanes() != CmsPublishManager.DEFAULT_PUBLISH_LANES) {
+                pubHistElement.addElement(N_PUBLISH_LANES).setText(
+                    String.valueOf(m_publishManager.getPublishLanes()));
+            }
         }
 
         // session storage provider
@@ -39,6 +39,9 @@ import org.opencms.security.CmsPermissionSet;
  */
 public class CmsCacheKey implements I_CmsCacheKey {
 
+    /** Cache key prefix for resources cached by structure id. */
+    public static final String CACHE_KEY_STRUCTURE_ID = "_id_";
+
     /** Cache key for a list of sub-resources (files and folders) of a folder. */
     public static final String CACHE_KEY_SUBALL = "_all_";
 
@@ -71,6 +74,34 @@ public class CmsCacheKey implements I_CmsCacheKey {
         return cacheBuffer.toString();
     }
 
+    /**
+     * Returns a structured cache key for the permission cache, built from the ids of the current user and the resource,
+     * the online state and the permission bits.<p>
+     *
+     * @see org.opencms.db.I_CmsCacheKey#getCacheKeyObjectForUserPermissions(java.lang.String, org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet)
+     */
+    public Object getCacheKeyObjectForUserPermissions(
+        String prefix,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions) {
+
+        if (!context.getProjectId().isNullUUID()) {
+            return "";
+        }
+        long flags = (requiredPermissions.getAllowedPermissions() & 0x3FFFFFFFL)
+            | ((requiredPermissions.getDeniedPermissions() & 0x3FFFFFFFL) << 30);
+        if (context.currentProject().isOnlineProject()) {
+            flags |= CmsStructuredCacheKey.FLAG_ONLINE;
+        }
+        return new CmsStructuredCacheKey(
+            prefix,
+            flags,
+            context.currentUser().getId(),
+            resource.getStructureId(),
+            null);
+    }
+
     /**
      * @see org.opencms.db.I_CmsCacheKey#getCacheKeyForUserGroups(java.lang.String, org.opencms.db.CmsDbContext, org.opencms.file.CmsUser)
      */
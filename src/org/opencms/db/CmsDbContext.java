@@ -39,6 +39,7 @@ import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsUUID;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -129,6 +130,19 @@ public class CmsDbContext {
         return m_attributes.get(key);
     }
 
+    /**
+     * Returns the attributes of the DB context.<p>
+     *
+     * @return an unmodifiable view of the attributes, which is empty if no attribute is set
+     */
+    public Map<String, Object> getAttributes() {
+
+        if (m_attributes == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(m_attributes);
+    }
+
     /**
      * Returns the current Flex request context info.<p>
      *
@@ -51,6 +51,9 @@ import com.zaxxer.hikari.HikariDataSource;
  */
 public final class CmsDbPoolV11 {
 
+    /** The default size of the per-connection prepared statement cache. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 250;
+
     /** Prefix for database keys. */
     public static final String KEY_DATABASE = "db.";
 
@@ -93,6 +96,9 @@ public final class CmsDbPoolV11 {
     /** Key for vfs pool. */
     public static final String KEY_POOL_VFS = "vfs";
 
+    /** Key for the size of the per-connection prepared statement cache of the JDBC driver, 0 disables it. */
+    public static final String KEY_STATEMENT_CACHE_SIZE = "statementCacheSize";
+
     /** Key for user name. */
     public static final String KEY_USERNAME = "user";
 
@@ -240,6 +246,20 @@ public final class CmsDbPoolV11 {
             }
         }
 
+        // HikariCP does not pool prepared statements, so we enable the statement cache of the JDBC driver
+        int statementCacheSize = config.getInteger(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_STATEMENT_CACHE_SIZE,
+            DEFAULT_STATEMENT_CACHE_SIZE);
+        if (statementCacheSize > 0) {
+            for (Map.Entry<String, String> entry : getStatementCacheProperties(driver, statementCacheSize).entrySet()) {
+                String hikariKey = "dataSource." + entry.getKey();
+                // explicitly configured data source properties take precedence
+                if (!hikariProps.containsKey(hikariKey)) {
+                    hikariProps.put(hikariKey, entry.getValue());
+                }
+            }
+        }
+
         String configuredTestQuery = (String)(hikariProps.get("connectionTestQuery"));
         String testQueryForDriver = testQueries.get(driver);
         if ((testQueryForDriver != null) && CmsStringUtil.isEmptyOrWhitespaceOnly(configuredTestQuery)) {
@@ -278,6 +298,42 @@ public final class CmsDbPoolV11 {
         return null;
     }
 
+    /**
+     * Returns the JDBC driver properties that enable the prepared statement cache of the given driver.<p>
+     *
+     * @param driver the JDBC driver class name
+     * @param size the number of statements to cache per connection
+     *
+     * @return the driver properties, empty if the driver is not known
+     */
+    private static Map<String, String> getStatementCacheProperties(String driver, int size) {
+
+        Map<String, String> result = Maps.newHashMap();
+        if (driver == null) {
+            return result;
+        }
+        String sizeStr = String.valueOf(size);
+        switch (driver) {
+            case "com.mysql.jdbc.Driver":
+            case "com.mysql.cj.jdbc.Driver":
+            case "org.mariadb.jdbc.Driver":
+                result.put("cachePrepStmts", "true");
+                result.put("prepStmtCacheSize", sizeStr);
+                result.put("prepStmtCacheSqlLimit", "2048");
+                break;
+            case "org.postgresql.Driver":
+                result.put("preparedStatementCacheQueries", sizeStr);
+                break;
+            case "oracle.jdbc.driver.OracleDriver":
+            case "oracle.jdbc.OracleDriver":
+                result.put("oracle.jdbc.implicitStatementCacheSize", sizeStr);
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
     /**
      * Closes the pool.<p>
      *
@@ -90,6 +90,7 @@ import org.opencms.main.CmsMultiException;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.module.CmsModule;
+import org.opencms.monitor.CmsInheritedPropertyCache;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.publish.CmsPublishEngine;
@@ -139,6 +140,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -148,6 +151,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -485,6 +489,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** DBC attribute key needed to fix publishing behavior involving siblings. */
     public static final String KEY_CHANGED_AND_DELETED = "changedAndDeleted";
 
+    /** DBC attribute key for the resource ids with a resource operation of the running publish job. */
+    public static final String KEY_PUBLISH_RESOURCE_OPERATIONS = "publishResourceOperations";
+
     /** The vfs path of the loast and found folder. */
     public static final String LOST_AND_FOUND_FOLDER = "/system/lost-found";
 
@@ -497,6 +504,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Name of the configuration parameter to enable/disable logging to the CMS_LOG table. */
     public static final String PARAM_LOG_TABLE_ENABLED = "log.table.enabled";
 
+    /** Name of the configuration parameter for the number of threads used to publish the resources of a publish list. */
+    public static final String PARAM_PUBLISH_THREADS = "publish.threads";
+
     /** Indicates to ignore the resource path when matching resources. */
     public static final String READ_IGNORE_PARENT = null;
 
@@ -587,11 +597,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The last publish tag handed out, to keep the tags of concurrently running publish jobs unique. */
+    private final AtomicInteger m_lastPublishTag = new AtomicInteger();
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -4496,7 +4509,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public int getNextPublishTag(CmsDbContext dbc) {
 
-        return getHistoryDriver(dbc).readNextPublishTag(dbc);
+        int publishTag = getHistoryDriver(dbc).readNextPublishTag(dbc);
+        // a concurrently running publish job may not have written its tag to the database yet
+        return m_lastPublishTag.accumulateAndGet(publishTag, (last, next) -> Math.max(last + 1, next));
     }
 
     /**
@@ -7601,7 +7616,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsUUID projectId = getProjectIdForContext(dbc);
 
         // key to cache the resources
-        String cacheKey = getCacheKey(null, false, projectId, cp);
+        CmsStructuredCacheKey cacheKey = getCacheKey(null, false, projectId, cp);
         // the current resource
         CmsResource currentResource = m_monitor.getCachedResource(cacheKey);
         if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
@@ -7888,9 +7903,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsResource resource, boolean search)
     throws CmsException {
 
+        if (search) {
+            updateContextForInheritedProperties(dbc, resource);
+        }
+        if (search
+            && dbc.getProjectId().isNullUUID()
+            && m_monitor.isEnabled(CmsMemoryMonitor.CacheType.PROPERTY_LIST)) {
+            // inherited properties are cached in a path tree, so a lookup is a single walk along the path
+            return new ArrayList<CmsProperty>(readInheritedPropertyObjects(dbc, resource));
+        }
+
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        CmsStructuredCacheKey cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
@@ -7944,6 +7969,66 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects of the given resources.<p>
+     *
+     * The properties directly attached to the resources are read with a single batched query
+     * for all resources not found in the property list cache, and the cache is filled with the result.
+     * If the <code>search</code> parameter is <code>true</code>, the inherited properties are
+     * merged in as described in {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)}.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     * @param search <code>true</code>, if the properties should be searched on all parent folders if not found on the resource
+     *
+     * @return a map from structure ids to lists of <code>{@link CmsProperty}</code> objects
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        boolean search)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            if (!useCache
+                || (m_monitor.getCachedPropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath())) == null)) {
+                missing.add(resource);
+            }
+        }
+        Map<CmsUUID, List<CmsProperty>> ownProperties = Collections.emptyMap();
+        if (!missing.isEmpty()) {
+            ownProperties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), missing);
+            for (CmsResource resource : missing) {
+                List<CmsProperty> properties = ownProperties.get(resource.getStructureId());
+                // set all properties in the result list as frozen
+                CmsProperty.setFrozen(properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                        properties);
+                }
+            }
+        }
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = ownProperties.get(resource.getStructureId());
+            if (search || (properties == null)) {
+                // served from the property caches, which were filled above
+                properties = readPropertyObjects(dbc, resource, search);
+            } else {
+                properties = new ArrayList<CmsProperty>(properties);
+            }
+            result.put(resource.getStructureId(), properties);
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -8074,8 +8159,21 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsDataAccessException {
 
         CmsUUID projectId = getProjectIdForContext(dbc);
-        // please note: the filter will be applied in the security manager later
-        CmsResource resource = getVfsDriver(dbc).readResource(dbc, projectId, structureID, filter.includeDeleted());
+        CmsStructuredCacheKey cacheKey = getStructureIdCacheKey(projectId, structureID);
+        CmsResource cachedResource = m_monitor.getCachedResource(cacheKey);
+        CmsResource resource;
+        if ((cachedResource == null)
+            || !dbc.getProjectId().isNullUUID()
+            || (cachedResource.getState().isDeleted() && !filter.includeDeleted())) {
+            // please note: the filter will be applied in the security manager later
+            resource = getVfsDriver(dbc).readResource(dbc, projectId, structureID, filter.includeDeleted());
+            if (dbc.getProjectId().isNullUUID()) {
+                m_monitor.cacheResource(cacheKey, resource.getCopy());
+            }
+        } else {
+            // the cached resource is shared, and callers may change the returned resource
+            resource = cachedResource.getCopy();
+        }
 
         // context dates need to be updated
         updateContextDates(dbc, resource);
@@ -8113,6 +8211,73 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return resource;
     }
 
+    /**
+     * Reads the resources with the given structure IDs, using the specified resource filter.<p>
+     *
+     * In the online project, resources are looked up in the resource cache first, so that only
+     * the missing resources are read from the database, using a single batched query.<p>
+     *
+     * Resources which do not exist, which do not match the filter or which the current user
+     * is not allowed to read are silently skipped. The order of the result corresponds
+     * to the order of the given structure IDs.<p>
+     *
+     * @param dbc the current database context
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        Collection<CmsUUID> structureIds,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, CmsResource> resourcesById = new HashMap<CmsUUID, CmsResource>();
+        Set<CmsUUID> missingIds = new LinkedHashSet<CmsUUID>();
+        for (CmsUUID structureId : structureIds) {
+            CmsResource resource = null;
+            if (useCache) {
+                resource = m_monitor.getCachedResource(getStructureIdCacheKey(projectId, structureId));
+            }
+            if (resource != null) {
+                // the cached resource is shared, and callers may change the returned resource
+                resourcesById.put(structureId, resource.getCopy());
+            } else {
+                missingIds.add(structureId);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            // deleted resources are read as well, so they can be cached, the filter is applied later
+            for (CmsResource resource : getVfsDriver(dbc).readResources(dbc, projectId, missingIds, true)) {
+                resourcesById.put(resource.getStructureId(), resource);
+                if (useCache) {
+                    m_monitor.cacheResource(
+                        getStructureIdCacheKey(projectId, resource.getStructureId()),
+                        resource.getCopy());
+                }
+            }
+        }
+        List<CmsResource> resources = new ArrayList<CmsResource>(resourcesById.size());
+        Set<CmsUUID> added = new HashSet<CmsUUID>();
+        for (CmsUUID structureId : structureIds) {
+            CmsResource resource = resourcesById.get(structureId);
+            if ((resource != null) && added.add(structureId)) {
+                resources.add(resource);
+            }
+        }
+        // apply permission filter, this also removes deleted resources if required by the filter
+        resources = filterPermissions(dbc, resources, filter);
+        // we must always apply the result filter and update the context dates
+        return updateContextDates(dbc, resources, filter);
+    }
+
     /**
      * Reads all resources below the given path matching the filter criteria,
      * including the full tree below the path only in case the <code>readTree</code>
@@ -9913,8 +10078,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 return;
             }
 
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
+            }
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
                 m_projectDriver.log(dbc, log);
@@ -10489,7 +10657,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            uncacheProperties(dbc, resource, Collections.singletonList(property));
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -10573,7 +10741,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            uncacheProperties(dbc, resource, properties);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(
@@ -11589,13 +11757,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
         int depth)
     throws CmsException {
 
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
+        long flags = (inheritedOnly ? 1 : 0) | (forFolder ? 2 : 0) | ((depth & 0xFFFFFFFFL) << 2);
+        if (dbc.currentProject().isOnlineProject()) {
+            flags |= CmsStructuredCacheKey.FLAG_ONLINE;
+        }
+        CmsStructuredCacheKey cacheKey = new CmsStructuredCacheKey(null, flags, resource.getStructureId(), null, null);
 
         CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
 
@@ -11686,17 +11852,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * @param projectId the project for which to generate the key
      * @param resource the resource for which to generate the key
      *
-     * @return String a cache key build from the provided information
+     * @return a cache key build from the provided information
      */
-    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
+    private CmsStructuredCacheKey getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
 
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
+        long flags = ((prefix != null) && flag) ? 1 : 0;
+        if (CmsProject.isOnlineProject(projectId)) {
+            flags |= CmsStructuredCacheKey.FLAG_ONLINE;
         }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
+        return new CmsStructuredCacheKey(prefix, flags, null, null, resource);
     }
 
     /**
@@ -11765,6 +11929,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return projectId;
     }
 
+    /**
+     * Returns the key used to cache a resource by its structure id.<p>
+     *
+     * @param projectId the project for which to generate the key
+     * @param structureId the structure id of the resource
+     *
+     * @return the cache key
+     */
+    private CmsStructuredCacheKey getStructureIdCacheKey(CmsUUID projectId, CmsUUID structureId) {
+
+        long flags = CmsProject.isOnlineProject(projectId) ? CmsStructuredCacheKey.FLAG_ONLINE : 0;
+        return new CmsStructuredCacheKey(CmsCacheKey.CACHE_KEY_STRUCTURE_ID, flags, structureId, null, null);
+    }
+
     /**
      * Returns if and what state needs to be updated.<p>
      *
@@ -12055,6 +12233,52 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads the effective properties of a resource, including the properties inherited from its parent folders,
+     * using the inherited property cache of the memory monitor.<p>
+     *
+     * On a cache miss, only the properties of the resource itself are read and merged with the effective
+     * properties of the parent folder, which are usually cached already.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     *
+     * @return the frozen list of effective properties
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsProperty> readInheritedPropertyObjects(CmsDbContext dbc, CmsResource resource)
+    throws CmsException {
+
+        CmsInheritedPropertyCache cache = m_monitor.getInheritedPropertyCache();
+        boolean online = CmsProject.isOnlineProject(getProjectIdForContext(dbc));
+        String rootPath = resource.getRootPath();
+        long generation = cache.getGeneration();
+        List<CmsProperty> result = cache.get(online, rootPath);
+        if (result != null) {
+            return result;
+        }
+        List<CmsProperty> ownProperties = readPropertyObjects(dbc, resource, false);
+        List<CmsProperty> parentProperties = Collections.emptyList();
+        if (rootPath.length() > 1) {
+            try {
+                // no permission check on parent folder is required since we must have "read"
+                // permissions to read the child resource anyway
+                CmsResource parent = readResource(dbc, CmsResource.getParentFolder(rootPath), CmsResourceFilter.ALL);
+                parentProperties = readInheritedPropertyObjects(dbc, parent);
+            } catch (CmsSecurityException se) {
+                // a security exception (probably no read permission), use the properties found so far
+            }
+        }
+        result = new ArrayList<CmsProperty>(parentProperties);
+        // make sure properties from lower folders "overwrite" properties from upper folders
+        result.removeAll(ownProperties);
+        result.addAll(ownProperties);
+        CmsProperty.setFrozen(result);
+        cache.put(online, rootPath, result, generation);
+        return result;
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -12161,6 +12385,38 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes the cached property lists which are affected by writing the given properties of a resource.<p>
+     *
+     * These are the property list of the resource itself and the inherited property lists of the
+     * resource and all resources below it in the current project. If a shared resource value of a resource
+     * with siblings is written, all property lists are flushed.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource whose properties were written
+     * @param properties the written properties
+     */
+    private void uncacheProperties(CmsDbContext dbc, CmsResource resource, List<CmsProperty> properties) {
+
+        boolean flushAll = false;
+        if (resource.getSiblingCount() > 1) {
+            for (CmsProperty property : properties) {
+                if (property.getResourceValue() != null) {
+                    flushAll = true;
+                    break;
+                }
+            }
+        }
+        if (flushAll) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            return;
+        }
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY);
+        m_monitor.uncachePropertyList(getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()));
+        m_monitor.getInheritedPropertyCache().remove(CmsProject.isOnlineProject(projectId), resource.getRootPath());
+    }
+
     /**
      * Undoes all content changes of a resource.<p>
      *
@@ -12475,6 +12731,37 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Updates the current users context with the parent folders of a resource whose inherited properties are read.<p>
+     *
+     * Inherited properties are usually served from the inherited property cache without reading the parent folders,
+     * so the folders would be missing from the resources tracked for the Flex cache. A Flex cache entry that uses an
+     * inherited property must be invalidated if the property is changed on one of the folders.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource whose inherited properties are read
+     */
+    private void updateContextForInheritedProperties(CmsDbContext dbc, CmsResource resource) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if ((info == null) || !info.isTrackingResources()) {
+            return;
+        }
+        info.updateFromResource(resource);
+        String path = resource.getRootPath();
+        while ((path.length() > 1) && info.isTrackingResources()) {
+            path = CmsResource.getParentFolder(path);
+            try {
+                // reading the folder updates the context with it
+                readResource(dbc, path, CmsResourceFilter.ALL);
+            } catch (CmsException e) {
+                // the folder can not be read, so the properties are not inherited from it
+                LOG.debug(e.getLocalizedMessage(), e);
+                break;
+            }
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
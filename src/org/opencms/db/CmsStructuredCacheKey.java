@@ -0,0 +1,152 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.util.CmsUUID;
+
+import java.util.Objects;
+
+/**
+ * Immutable cache key built from its parts without string concatenation.<p>
+ *
+ * A key consists of an optional prefix, a bit field for flags like the online state or permission bits,
+ * up to two ids and an optional name, e.g. a root path. The hash code is computed once from the parts,
+ * so looking up a key in a cache does not need to format any UUIDs.<p>
+ *
+ * @since 17.0
+ */
+public final class CmsStructuredCacheKey implements I_CmsMemoryMonitorable {
+
+    /** The bit used for the online state in the flags of keys created by {@link CmsCacheKey} and the driver manager. */
+    public static final long FLAG_ONLINE = 1L << 62;
+
+    /** The flag bits. */
+    private final long m_flags;
+
+    /** The cached hash code. */
+    private final int m_hashCode;
+
+    /** The first id, may be null. */
+    private final CmsUUID m_id1;
+
+    /** The second id, may be null. */
+    private final CmsUUID m_id2;
+
+    /** The name, may be null. */
+    private final String m_name;
+
+    /** The prefix, may be null. */
+    private final String m_prefix;
+
+    /**
+     * Creates a new cache key.<p>
+     *
+     * @param prefix a prefix to distinguish keys of different kinds, may be null
+     * @param flags the flag bits
+     * @param id1 the first id, may be null
+     * @param id2 the second id, may be null
+     * @param name the name, may be null
+     */
+    public CmsStructuredCacheKey(String prefix, long flags, CmsUUID id1, CmsUUID id2, String name) {
+
+        m_prefix = prefix;
+        m_flags = flags;
+        m_id1 = id1;
+        m_id2 = id2;
+        m_name = name;
+        int hash = Long.hashCode(flags);
+        hash = (31 * hash) + Objects.hashCode(prefix);
+        hash = (31 * hash) + Objects.hashCode(id1);
+        hash = (31 * hash) + Objects.hashCode(id2);
+        hash = (31 * hash) + Objects.hashCode(name);
+        m_hashCode = hash;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsStructuredCacheKey)) {
+            return false;
+        }
+        CmsStructuredCacheKey other = (CmsStructuredCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && Objects.equals(m_id1, other.m_id1)
+            && Objects.equals(m_id2, other.m_id2)
+            && Objects.equals(m_name, other.m_name)
+            && Objects.equals(m_prefix, other.m_prefix);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // object header, fields and the two UUIDs; prefix and name are usually shared with other objects
+        return 48 + (m_id1 != null ? 32 : 0) + (m_id2 != null ? 32 : 0);
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(64);
+        if (m_prefix != null) {
+            result.append(m_prefix);
+        }
+        result.append('_').append(Long.toHexString(m_flags));
+        if (m_id1 != null) {
+            result.append('_').append(m_id1);
+        }
+        if (m_id2 != null) {
+            result.append('_').append(m_id2);
+        }
+        if (m_name != null) {
+            result.append('_').append(m_name);
+        }
+        return result.toString();
+    }
+}
@@ -76,4 +76,27 @@ public interface I_CmsCacheKey {
         CmsDbContext context,
         CmsResource resource,
         CmsPermissionSet requiredPermissions);
+
+    /**
+     * Returns the cache key object for the permission cache.<p>
+     *
+     * The returned object must implement <code>equals</code> and <code>hashCode</code> so that it is equal
+     * for the same set of parameters. The default implementation returns the
+     * {@link #getCacheKeyForUserPermissions(String, CmsDbContext, CmsResource, CmsPermissionSet) string key}.<p>
+     *
+     * @param prefix to distinguish keys additionally
+     * @param context the context
+     * @param resource the resource
+     * @param requiredPermissions the permissions to check
+     *
+     * @return a cache key that is unique for the set of parameters
+     */
+    default Object getCacheKeyObjectForUserPermissions(
+        String prefix,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions) {
+
+        return getCacheKeyForUserPermissions(prefix, context, resource, requiredPermissions);
+    }
 }
@@ -570,6 +570,26 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources from the database, using as few queries as possible.<p>
+     *
+     * The returned map contains an entry for each of the given resources, keyed by structure id.
+     * The entry is an empty list if no properties are found for the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from structure ids to lists of CmsProperty objects containing both the structure and resource value of the property
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources)
+    throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -613,6 +633,29 @@ public interface I_CmsVfsDriver {
     CmsResource readResource(CmsDbContext dbc, CmsUUID projectId, String filename, boolean includeDeleted)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all resources with the given structure IDs using as few database round trips as possible.<p>
+     *
+     * Resources which do not exist are silently skipped, as are deleted resources
+     * if <code>includeDeleted</code> is <code>false</code>. The order of the returned
+     * list is not specified.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param structureIds the structure ids of the resources to read
+     * @param includeDeleted true if already deleted files are included
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException;
+
     /**
      * Reads all resources inside a given project and with a given state.<p>
      *
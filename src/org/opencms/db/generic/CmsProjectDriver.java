@@ -75,6 +75,7 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.I_CmsPrincipal;
@@ -101,10 +102,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Generic (ANSI-SQL) implementation of the project driver methods.<p>
@@ -188,6 +197,26 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /**
+     * Publishes a single resource of a publish list.<p>
+     */
+    protected interface I_CmsPublishTask {
+
+        /**
+         * Publishes the given resource.<p>
+         *
+         * @param dbc the database context to use
+         * @param report the report to write to
+         * @param resource the resource to publish
+         * @param m the number of the resource in the publish list
+         *
+         * @return the log entry to write for the resource, or <code>null</code> if nothing was published
+         *
+         * @throws Throwable if something goes wrong
+         */
+        CmsLogEntry publish(CmsDbContext dbc, I_CmsReport report, CmsResource resource, int m) throws Throwable;
+    }
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
@@ -1685,8 +1714,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
         int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        ExecutorService executor = null;
+        // keep the version computation state of this publish job apart from concurrently running publish jobs
+        dbc.setAttribute(
+            CmsDriverManager.KEY_PUBLISH_RESOURCE_OPERATIONS,
+            Collections.synchronizedSet(new HashSet<CmsUUID>()));
 
         try {
 
@@ -1727,82 +1760,45 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     I_CmsReport.FORMAT_HEADLINE);
             }
 
-            Iterator<CmsResource> itFolders = publishList.getFolderList().iterator();
+            int publishThreads = getPublishThreads();
+            if ((publishThreads > 1) && dbc.isDefaultDbContext()) {
+                executor = Executors.newFixedThreadPool(
+                    publishThreads,
+                    new ThreadFactoryBuilder().setNameFormat("OpenCms: Publish worker %d").setDaemon(true).build());
+            }
+
             I_CmsProjectDriver projectDriver = m_driverManager.getProjectDriver(dbc);
             I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
-            while (itFolders.hasNext()) {
-                CmsResource currentFolder = itFolders.next();
-                try {
-                    if (currentFolder.getState().isNew() || currentFolder.getState().isChanged()) {
-                        // bounce the current publish task through all project drivers
-                        projectDriver.publishFolder(
-                            dbc,
-                            report,
-                            ++publishedFolderCount,
-                            foldersSize,
-                            onlineProject,
-                            new CmsFolder(currentFolder),
-                            publishList.getPublishHistoryId(),
-                            publishTag);
-
-                        dbc.pop();
-
-                        publishedIds.add(currentFolder.getStructureId());
-                        // log it
-                        CmsLogEntryType type = currentFolder.getState().isNew()
-                        ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
-                        : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED;
-                        m_driverManager.log(
-                            dbc,
-                            new CmsLogEntry(
-                                dbc,
-                                currentFolder.getStructureId(),
-                                type,
-                                new String[] {currentFolder.getRootPath()}),
-                            true);
-
-                        // delete old historical entries
-                        historyDriver.deleteEntries(
-                            dbc,
-                            new CmsHistoryFile(currentFolder),
-                            OpenCms.getSystemInfo().getHistoryVersions(),
-                            -1);
-
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentFolder);
-
-                        m_driverManager.unlockResource(dbc, currentFolder, true, true);
-                    } else {
-                        // state == unchanged !!?? something went really wrong
-                        report.print(Messages.get().container(Messages.RPT_PUBLISH_FOLDER_0), I_CmsReport.FORMAT_NOTE);
-                        report.print(
-                            org.opencms.report.Messages.get().container(
-                                org.opencms.report.Messages.RPT_ARGUMENT_1,
-                                dbc.removeSiteRoot(currentFolder.getRootPath())));
-                        report.print(
-                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                        report.println(
-                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                            I_CmsReport.FORMAT_ERROR);
-
-                        if (LOG.isErrorEnabled()) {
-                            // the whole resource is printed out here
-                            LOG.error(
-                                Messages.get().getBundle().key(
-                                    Messages.LOG_PUBLISHING_FILE_3,
-                                    String.valueOf(++publishedFolderCount),
-                                    String.valueOf(foldersSize),
-                                    currentFolder));
-                        }
-                    }
-
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
+            I_CmsPublishTask folderTask = (taskDbc, taskReport, currentFolder, m) -> publishFolderTask(
+                taskDbc,
+                taskReport,
+                projectDriver,
+                historyDriver,
+                m,
+                foldersSize,
+                onlineProject,
+                currentFolder,
+                publishList.getPublishHistoryId(),
+                publishTag);
+            AtomicInteger folderCounter = new AtomicInteger();
+            try {
+                for (CmsPair<List<CmsResource>, Boolean> folders : partitionFolders(
+                    dbc,
+                    onlineProject,
+                    publishList.getFolderList(),
+                    executor != null)) {
+                    runPublishTasks(
+                        dbc,
                         report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
-                        t);
+                        folders.getSecond().booleanValue() ? executor : null,
+                        folders.getFirst(),
+                        folderCounter,
+                        folderTask,
+                        publishedIds,
+                        Messages.ERR_ERROR_PUBLISHING_FOLDER_1);
                 }
+            } finally {
+                publishedFolderCount = folderCounter.get();
             }
 
             if (foldersSize > 0) {
@@ -1835,53 +1831,39 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
-            Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
-            while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
-                        dbc,
-                        report,
-                        ++publishedFileCount,
-                        filesSize,
-                        onlineProject,
-                        currentResource,
-                        publishedContentIds,
-                        publishList.getPublishHistoryId(),
-                        publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
-                    : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(
+            Set<CmsUUID> publishedContentIds = executor != null
+            ? Collections.synchronizedSet(new HashSet<CmsUUID>())
+            : new HashSet<CmsUUID>();
+            I_CmsPublishTask fileTask = (taskDbc, taskReport, currentResource, m) -> publishFileTask(
+                taskDbc,
+                taskReport,
+                projectDriver,
+                m,
+                filesSize,
+                onlineProject,
+                currentResource,
+                publishedContentIds,
+                publishList.getPublishHistoryId(),
+                publishTag);
+            AtomicInteger fileCounter = new AtomicInteger();
+            try {
+                for (CmsPair<List<CmsResource>, Boolean> files : partitionFiles(
+                    dbc,
+                    onlineProject,
+                    publishList.getFileList(),
+                    executor != null)) {
+                    runPublishTasks(
                         dbc,
-                        new CmsLogEntry(
-                            dbc,
-                            currentResource.getStructureId(),
-                            type,
-                            new String[] {currentResource.getRootPath()}),
-                        true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
                         report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
+                        files.getSecond().booleanValue() ? executor : null,
+                        files.getFirst(),
+                        fileCounter,
+                        fileTask,
+                        publishedIds,
+                        Messages.ERR_ERROR_PUBLISHING_FILE_1);
                 }
+            } finally {
+                publishedFileCount = fileCounter.get();
             }
 
             if (filesSize > 0) {
@@ -1968,8 +1950,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
+            dbc.removeAttribute(CmsDriverManager.KEY_PUBLISH_RESOURCE_OPERATIONS);
             Object[] msgArgs = new Object[] {
                 String.valueOf(publishedFileCount),
                 String.valueOf(publishedFolderCount),
@@ -3091,6 +3077,28 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return conditions.toString();
     }
 
+    /**
+     * Returns the number of threads used to publish the resources of a publish list.<p>
+     *
+     * The value is read from the runtime property {@link CmsDriverManager#PARAM_PUBLISH_THREADS},
+     * the default is 1, i.e. all resources are published by the publish thread.<p>
+     *
+     * @return the number of publish threads
+     */
+    protected int getPublishThreads() {
+
+        String value = (String)OpenCms.getRuntimeProperty(CmsDriverManager.PARAM_PUBLISH_THREADS);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return 1;
+        }
+    }
+
     /**
      * Implementation of reading the user publish list which uses the log table.<p>
      *
@@ -3287,6 +3295,134 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Checks if the given offline resource has a different path in the online project.<p>
+     *
+     * @param dbc the current database context
+     * @param onlineProject the online project
+     * @param offlineResource the offline resource to check
+     *
+     * @return <code>true</code> if the resource has been moved since it was last published
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected boolean isMoved(CmsDbContext dbc, CmsProject onlineProject, CmsResource offlineResource)
+    throws CmsDataAccessException {
+
+        try {
+            CmsResource onlineResource = m_driverManager.getVfsDriver(
+                dbc).readResource(dbc, onlineProject.getUuid(), offlineResource.getStructureId(), true);
+            return !onlineResource.getRootPath().equals(offlineResource.getRootPath());
+        } catch (CmsVfsResourceNotFoundException e) {
+            // resource new, not moved
+            return false;
+        }
+    }
+
+    /**
+     * Splits the file list of a publish list into batches that are published one after the other.<p>
+     *
+     * If parallel publishing is enabled, the first batch contains all files that must be published in the original order,
+     * i.e. deleted and moved files, siblings and files sharing a path with another file in the list.
+     * These are published sequentially. The second batch contains the remaining, independent files, which are published concurrently.<p>
+     *
+     * @param dbc the current database context
+     * @param onlineProject the online project
+     * @param files the files of the publish list
+     * @param parallel if the files may be published concurrently
+     *
+     * @return the batches, each with a flag whether its files can be published concurrently
+     *
+     * @throws CmsDataAccessException if something goes wrong reading the online resources
+     */
+    protected List<CmsPair<List<CmsResource>, Boolean>> partitionFiles(
+        CmsDbContext dbc,
+        CmsProject onlineProject,
+        List<CmsResource> files,
+        boolean parallel)
+    throws CmsDataAccessException {
+
+        List<CmsPair<List<CmsResource>, Boolean>> result = new ArrayList<CmsPair<List<CmsResource>, Boolean>>();
+        if (!parallel) {
+            result.add(CmsPair.create(files, Boolean.FALSE));
+            return result;
+        }
+        Map<CmsUUID, Integer> resourceIdCount = new HashMap<CmsUUID, Integer>();
+        Map<String, Integer> pathCount = new HashMap<String, Integer>();
+        for (CmsResource file : files) {
+            resourceIdCount.merge(file.getResourceId(), Integer.valueOf(1), (a, b) -> Integer.valueOf(a.intValue() + b.intValue()));
+            pathCount.merge(file.getRootPath(), Integer.valueOf(1), (a, b) -> Integer.valueOf(a.intValue() + b.intValue()));
+        }
+        List<CmsResource> sequential = new ArrayList<CmsResource>();
+        List<CmsResource> concurrent = new ArrayList<CmsResource>();
+        for (CmsResource file : files) {
+            boolean dependent = file.getState().isDeleted()
+                || (file.getSiblingCount() > 1)
+                || (resourceIdCount.get(file.getResourceId()).intValue() > 1)
+                || (pathCount.get(file.getRootPath()).intValue() > 1);
+            if (!dependent && file.getState().isChanged()) {
+                // a moved file frees its old online path, so it must be published before files using that path
+                dependent = isMoved(dbc, onlineProject, file);
+            }
+            if (dependent) {
+                sequential.add(file);
+            } else {
+                concurrent.add(file);
+            }
+        }
+        result.add(CmsPair.create(sequential, Boolean.FALSE));
+        result.add(CmsPair.create(concurrent, Boolean.TRUE));
+        return result;
+    }
+
+    /**
+     * Splits the folder list of a publish list into batches that are published one after the other.<p>
+     *
+     * If parallel publishing is enabled, the folders are grouped by their depth in the VFS, so parent folders are always
+     * published before their children, while the folders on the same level are published concurrently.
+     * If the list contains moved folders, all folders are published sequentially.<p>
+     *
+     * @param dbc the current database context
+     * @param onlineProject the online project
+     * @param folders the folders of the publish list
+     * @param parallel if the folders may be published concurrently
+     *
+     * @return the batches, each with a flag whether its folders can be published concurrently
+     *
+     * @throws CmsDataAccessException if something goes wrong reading the online resources
+     */
+    protected List<CmsPair<List<CmsResource>, Boolean>> partitionFolders(
+        CmsDbContext dbc,
+        CmsProject onlineProject,
+        List<CmsResource> folders,
+        boolean parallel)
+    throws CmsDataAccessException {
+
+        List<CmsPair<List<CmsResource>, Boolean>> result = new ArrayList<CmsPair<List<CmsResource>, Boolean>>();
+        boolean hasMovedFolders = false;
+        if (parallel) {
+            for (CmsResource folder : folders) {
+                if (folder.getState().isChanged() && isMoved(dbc, onlineProject, folder)) {
+                    hasMovedFolders = true;
+                    break;
+                }
+            }
+        }
+        if (!parallel || hasMovedFolders) {
+            result.add(CmsPair.create(folders, Boolean.FALSE));
+            return result;
+        }
+        Map<Integer, List<CmsResource>> levels = new TreeMap<Integer, List<CmsResource>>();
+        for (CmsResource folder : folders) {
+            Integer level = Integer.valueOf(CmsResource.getPathLevel(folder.getRootPath()));
+            levels.computeIfAbsent(level, l -> new ArrayList<CmsResource>()).add(folder);
+        }
+        for (List<CmsResource> level : levels.values()) {
+            result.add(CmsPair.create(level, Boolean.TRUE));
+        }
+        return result;
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given log entry filter.<p>
      *
@@ -3739,6 +3875,164 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Publishes a single file of a publish list.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param projectDriver the project driver to bounce the publish task through
+     * @param m the number of the file in the publish list
+     * @param n the number of files in the publish list
+     * @param onlineProject the online project
+     * @param currentResource the file to publish
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     *
+     * @return the log entry to write for the file
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected CmsLogEntry publishFileTask(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        I_CmsProjectDriver projectDriver,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource currentResource,
+        Set<CmsUUID> publishedContentIds,
+        CmsUUID publishHistoryId,
+        int publishTag)
+    throws CmsException {
+
+        // bounce the current publish task through all project drivers
+        projectDriver.publishFile(
+            dbc,
+            report,
+            m,
+            n,
+            onlineProject,
+            currentResource,
+            publishedContentIds,
+            publishHistoryId,
+            publishTag);
+
+        CmsResourceState state = currentResource.getState();
+        if (!state.isDeleted()) {
+            // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+            internalResetResourceState(dbc, currentResource);
+        }
+
+        // unlock it
+        m_driverManager.unlockResource(dbc, currentResource, true, true);
+        CmsLogEntryType type = state.isNew()
+        ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
+        : (state.isDeleted()
+        ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
+        : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+        CmsLogEntry result = new CmsLogEntry(
+            dbc,
+            currentResource.getStructureId(),
+            type,
+            new String[] {currentResource.getRootPath()});
+        dbc.pop();
+        return result;
+    }
+
+    /**
+     * Publishes a single new or changed folder of a publish list.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param projectDriver the project driver to bounce the publish task through
+     * @param historyDriver the history driver
+     * @param m the number of the folder in the publish list
+     * @param n the number of folders in the publish list
+     * @param onlineProject the online project
+     * @param currentFolder the folder to publish
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     *
+     * @return the log entry to write for the folder, or <code>null</code> if the folder was not published
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected CmsLogEntry publishFolderTask(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        I_CmsProjectDriver projectDriver,
+        I_CmsHistoryDriver historyDriver,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource currentFolder,
+        CmsUUID publishHistoryId,
+        int publishTag)
+    throws CmsException {
+
+        CmsLogEntry result = null;
+        if (currentFolder.getState().isNew() || currentFolder.getState().isChanged()) {
+            // bounce the current publish task through all project drivers
+            projectDriver.publishFolder(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                new CmsFolder(currentFolder),
+                publishHistoryId,
+                publishTag);
+
+            dbc.pop();
+
+            CmsLogEntryType type = currentFolder.getState().isNew()
+            ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
+            : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED;
+            result = new CmsLogEntry(
+                dbc,
+                currentFolder.getStructureId(),
+                type,
+                new String[] {currentFolder.getRootPath()});
+
+            // delete old historical entries
+            historyDriver.deleteEntries(
+                dbc,
+                new CmsHistoryFile(currentFolder),
+                OpenCms.getSystemInfo().getHistoryVersions(),
+                -1);
+
+            // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+            internalResetResourceState(dbc, currentFolder);
+
+            m_driverManager.unlockResource(dbc, currentFolder, true, true);
+        } else {
+            // state == unchanged !!?? something went really wrong
+            report.print(Messages.get().container(Messages.RPT_PUBLISH_FOLDER_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    dbc.removeSiteRoot(currentFolder.getRootPath())));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_ERROR);
+
+            if (LOG.isErrorEnabled()) {
+                // the whole resource is printed out here
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_PUBLISHING_FILE_3,
+                        String.valueOf(m),
+                        String.valueOf(n),
+                        currentFolder));
+            }
+        }
+
+        dbc.pop();
+        return result;
+    }
+
     /**
      * Publishes a new file.<p>
      *
@@ -3859,4 +4153,134 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
 
+    /**
+     * Publishes the given resources using the given publish task.<p>
+     *
+     * Without an executor, the resources are published one after the other with the given database context and report.
+     * Otherwise each resource is published by a worker thread with its own database context, which gets the attributes
+     * of the given context, and the report output of the workers is buffered and written to the report in the order
+     * of the resource list. Like in sequential mode, no further resources are published once a resource has failed;
+     * the tasks that are already running are completed before the error is thrown.
+     * The log entries returned by the tasks are always written by the calling thread.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param executor the executor for concurrent publishing, or <code>null</code> to publish sequentially
+     * @param resources the resources to publish
+     * @param counter the counter for the number of the resource in the publish list
+     * @param task the publish task
+     * @param publishedIds the set to add the structure ids of the published resources to
+     * @param errorKey the key of the error message, with the root path of the failed resource as parameter
+     *
+     * @throws CmsException if publishing a resource fails
+     */
+    protected void runPublishTasks(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        ExecutorService executor,
+        List<CmsResource> resources,
+        AtomicInteger counter,
+        I_CmsPublishTask task,
+        Set<CmsUUID> publishedIds,
+        String errorKey)
+    throws CmsException {
+
+        if (executor == null) {
+            for (CmsResource resource : resources) {
+                try {
+                    CmsLogEntry entry = task.publish(dbc, report, resource, counter.incrementAndGet());
+                    if (entry != null) {
+                        m_driverManager.log(dbc, entry, true);
+                        publishedIds.add(resource.getStructureId());
+                    }
+                } catch (Throwable t) {
+                    dbc.report(report, Messages.get().container(errorKey, resource.getRootPath()), t);
+                }
+            }
+            return;
+        }
+
+        List<CmsBufferedReport> reports = new ArrayList<CmsBufferedReport>(resources.size());
+        List<Future<CmsLogEntry>> results = new ArrayList<Future<CmsLogEntry>>(resources.size());
+        // the workers get a copy of all attributes of the publish context
+        Map<String, Object> attributes = new HashMap<String, Object>(dbc.getAttributes());
+        // like in sequential mode, no further resources are published after an error
+        AtomicBoolean failed = new AtomicBoolean();
+        for (CmsResource resource : resources) {
+            CmsBufferedReport taskReport = new CmsBufferedReport(report);
+            int m = counter.incrementAndGet();
+            reports.add(taskReport);
+            results.add(executor.submit(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                CmsDbContext taskDbc = new CmsDbContext(dbc.getRequestContext());
+                taskDbc.setProjectId(dbc.getProjectId());
+                for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                    taskDbc.setAttribute(attribute.getKey(), attribute.getValue());
+                }
+                try {
+                    return task.publish(taskDbc, taskReport, resource, m);
+                } catch (Exception e) {
+                    failed.set(true);
+                    throw e;
+                } catch (Throwable t) {
+                    failed.set(true);
+                    throw new ExecutionException(t);
+                } finally {
+                    taskDbc.clear();
+                }
+            }));
+        }
+
+        // wait for all tasks, so no worker is still publishing when this method returns
+        CmsMessageContainer error = null;
+        Throwable errorCause = null;
+        boolean interrupted = false;
+        for (int i = 0; i < resources.size(); i++) {
+            CmsResource resource = resources.get(i);
+            CmsLogEntry entry = null;
+            Throwable cause = null;
+            while (true) {
+                try {
+                    entry = results.get(i).get();
+                    break;
+                } catch (InterruptedException e) {
+                    // stop the remaining tasks, but still wait for the running ones
+                    failed.set(true);
+                    interrupted = true;
+                    if (error == null) {
+                        error = Messages.get().container(errorKey, resource.getRootPath());
+                        errorCause = e;
+                    }
+                } catch (ExecutionException e) {
+                    cause = e.getCause();
+                    if ((cause instanceof ExecutionException) && (cause.getCause() != null)) {
+                        cause = cause.getCause();
+                    }
+                    break;
+                }
+            }
+            reports.get(i).flush();
+            if (cause != null) {
+                CmsMessageContainer message = Messages.get().container(errorKey, resource.getRootPath());
+                report.println(message, I_CmsReport.FORMAT_ERROR);
+                report.println(cause);
+                if (error == null) {
+                    error = message;
+                    errorCause = cause;
+                }
+            } else if (entry != null) {
+                m_driverManager.log(dbc, entry, true);
+                publishedIds.add(resource.getStructureId());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            dbc.report(null, error, errorCause);
+        }
+    }
+
 }
\ No newline at end of file
@@ -28,6 +28,7 @@
 package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
+import org.opencms.db.timing.CmsQueryStatistics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -142,8 +143,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public void closeAll(CmsDbContext dbc, Connection con, Statement stmnt, ResultSet res) {
 
         // NOTE: The following note is outdated, since we are now using HikariCP as a connection pool,
-        // which doesn't have prepared statement pooling. Closing the connection in a finally block or using
-        // the try-with-resources syntax is sufficient.
+        // which leaves prepared statement caching to the JDBC driver (see CmsDbPoolV11). Closing the connection
+        // in a finally block or using the try-with-resources syntax is sufficient.
 
         // NOTE: (outdated) we have to close Connections/Statements that way, because a dbcp PoolablePreparedStatement
         // is not a DelegatedStatement; for that reason its not removed from the trace of the connection when it is closed.
@@ -262,7 +263,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return CmsQueryStatistics.INSTANCE.wrap(getPreparedStatementForSql(con, rawSql), queryKey);
     }
 
     /**
@@ -276,7 +277,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return CmsQueryStatistics.INSTANCE.wrap(getPreparedStatementForSql(con, rawSql), queryKey);
     }
 
     /**
@@ -47,6 +47,7 @@ import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsPreparedStatementParameter;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.db.I_CmsVfsDriver;
+import org.opencms.db.timing.CmsQueryStatistics;
 import org.opencms.db.urlname.CmsUrlNameMappingEntry;
 import org.opencms.db.urlname.CmsUrlNameMappingFilter;
 import org.opencms.file.CmsDataAccessException;
@@ -90,12 +91,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.Striped;
+
 /**
  * Generic (ANSI-SQL) database server implementation of the VFS driver methods.<p>
  *
@@ -109,6 +115,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Contains the macro replacement value for the online project. */
     protected static final String ONLINE = "ONLINE";
 
+    /** The maximum number of structure ids used in a single IN list when reading resources by id. */
+    protected static final int READ_BY_IDS_CHUNK_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
@@ -116,11 +125,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     protected CmsDriverManager m_driverManager;
 
     /**
-     * This field is temporarily used to compute the versions during publishing.<p>
+     * This field is temporarily used to compute the versions during publishing,
+     * if the database context does not provide a collection for the publish job.<p>
      *
      * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     * @see #getResourceOperations(CmsDbContext)
      */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
+    protected List<CmsUUID> m_resOp = Collections.synchronizedList(new ArrayList<CmsUUID>());
+
+    /** The locks that make the update of the resource operation flag and the versions atomic for a resource id. */
+    protected Striped<Lock> m_resOpLocks = Striped.lock(64);
 
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
@@ -1662,7 +1676,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            getResourceOperations(dbc).clear();
             return;
         }
 
@@ -1671,89 +1685,13 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
-        if (firstSibling) {
-            // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
-        }
-
-        boolean resOp = false; // assume structure operation
-
-        CmsResourceState resState = internalReadResourceState(dbc, dbc.currentProject().getUuid(), resource);
-        CmsResourceState strState = internalReadStructureState(dbc, dbc.currentProject().getUuid(), resource);
-
-        if (!resState.isUnchanged()) {
-            if (strState.isDeleted()) {
-                resOp = (resState.isDeleted()
-                    || (resource.getSiblingCount() == 1)
-                    || (countSiblings(dbc, dbc.currentProject().getUuid(), resource.getResourceId()) == 1));
-            } else {
-                resOp = true;
-            }
-        }
-
-        if (!firstSibling) {
-            if (resOp) {
-                return;
-            }
-            if (m_resOp.contains(resource.getResourceId())) {
-                return;
-            }
-        }
-
-        // read the offline version numbers
-        Map<String, Integer> versions = readVersions(
-            dbc,
-            dbc.currentProject().getUuid(),
-            resource.getResourceId(),
-            resource.getStructureId());
-        int strVersion = versions.get("structure").intValue();
-        int resVersion = versions.get("resource").intValue();
-
-        if (resOp) {
-            if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
-            }
-            resVersion++;
-        }
-        if (!resOp) {
-            strVersion++;
-        }
-
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet res = null;
-
+        // checking and updating the resource operation flag and the versions must be atomic for a resource
+        Lock lock = m_resOpLocks.get(resource.getResourceId());
+        lock.lock();
         try {
-            conn = m_sqlManager.getConnection(dbc);
-
-            if (resOp) {
-                // update the resource version
-                stmt = m_sqlManager.getPreparedStatement(
-                    conn,
-                    CmsProject.ONLINE_PROJECT_ID,
-                    "C_RESOURCES_UPDATE_RESOURCE_VERSION");
-                stmt.setInt(1, resVersion);
-                stmt.setString(2, resource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
-            if (!resOp || strState.isNew()) {
-                // update the structure version
-                stmt = m_sqlManager.getPreparedStatement(
-                    conn,
-                    CmsProject.ONLINE_PROJECT_ID,
-                    "C_RESOURCES_UPDATE_STRUCTURE_VERSION");
-                stmt.setInt(1, strVersion);
-                stmt.setString(2, resource.getStructureId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
+            internalPublishVersions(dbc, resource, firstSibling);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
+            lock.unlock();
         }
     }
 
@@ -2222,6 +2160,113 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources)
+    throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // properties may be mapped to the structure or to the resource record, and siblings share the latter
+        Map<CmsUUID, CmsResource> resourcesByStructureId = new HashMap<CmsUUID, CmsResource>();
+        Map<CmsUUID, List<CmsResource>> resourcesByResourceId = new HashMap<CmsUUID, List<CmsResource>>();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new LinkedHashMap<CmsUUID, Map<String, CmsProperty>>();
+        Set<CmsUUID> mappingIds = new LinkedHashSet<CmsUUID>();
+        for (CmsResource resource : resources) {
+            if (propertyMaps.containsKey(resource.getStructureId())) {
+                continue;
+            }
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+            resourcesByStructureId.put(resource.getStructureId(), resource);
+            resourcesByResourceId.computeIfAbsent(resource.getResourceId(), id -> new ArrayList<CmsResource>()).add(
+                resource);
+            mappingIds.add(resource.getStructureId());
+            mappingIds.add(resource.getResourceId());
+        }
+
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(mappingIds);
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            String query = m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_FOR_IDS");
+            for (int start = 0; start < ids.size(); start += READ_BY_IDS_CHUNK_SIZE) {
+                List<CmsUUID> chunk = ids.subList(start, Math.min(start + READ_BY_IDS_CHUNK_SIZE, ids.size()));
+                String sql = CmsStringUtil.substitute(query, "%(IDS)", internalCreateParameterList(chunk.size()));
+                stmt = CmsQueryStatistics.INSTANCE.wrap(
+                    m_sqlManager.getPreparedStatementForSql(conn, sql),
+                    "C_PROPERTIES_READALL_FOR_IDS");
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String propertyKey = res.getString(1);
+                    String propertyValue = res.getString(2);
+                    int mappingType = res.getInt(3);
+                    CmsUUID mappingId = new CmsUUID(res.getString(4));
+
+                    List<CmsResource> mapped;
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        CmsResource resource = resourcesByStructureId.get(mappingId);
+                        mapped = resource != null ? Collections.singletonList(resource) : null;
+                    } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                        mapped = resourcesByResourceId.get(mappingId);
+                    } else {
+                        throw new CmsDbConsistencyException(
+                            Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                mappingId,
+                                Integer.valueOf(mappingType),
+                                propertyKey));
+                    }
+                    if (mapped == null) {
+                        continue;
+                    }
+                    for (CmsResource resource : mapped) {
+                        Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                        CmsProperty property = propertyMap.get(propertyKey);
+                        if (property == null) {
+                            // there doesn't exist a property object for this key yet
+                            property = new CmsProperty();
+                            property.setName(propertyKey);
+                            propertyMap.put(propertyKey, property);
+                        }
+                        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                            property.setStructureValue(propertyValue);
+                        } else {
+                            property.setResourceValue(propertyValue);
+                        }
+                        property.setOrigin(resource.getRootPath());
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2406,6 +2451,58 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return resource;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(structureIds.size());
+        if (structureIds.isEmpty()) {
+            return result;
+        }
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(new LinkedHashSet<CmsUUID>(structureIds));
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READBYIDS");
+            for (int start = 0; start < ids.size(); start += READ_BY_IDS_CHUNK_SIZE) {
+                List<CmsUUID> chunk = ids.subList(start, Math.min(start + READ_BY_IDS_CHUNK_SIZE, ids.size()));
+                String sql = CmsStringUtil.substitute(query, "%(IDS)", internalCreateParameterList(chunk.size()));
+                stmt = CmsQueryStatistics.INSTANCE.wrap(
+                    m_sqlManager.getPreparedStatementForSql(conn, sql),
+                    "C_RESOURCES_READBYIDS");
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsResource resource = createResource(res, projectId);
+                    if (includeDeleted || !resource.getState().isDeleted()) {
+                        result.add(resource);
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, CmsUUID, CmsResourceState, int)
      */
@@ -3232,182 +3329,77 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ? project.getUuid()
         : dbc.getProjectId();
 
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
-        try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
-                    dbc,
-                    projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(
-                    new CmsEvent(
-                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+        CmsPropertyDefinition propertyDefinition = internalReadPropertyDefinition(dbc, projectId, property);
 
-            } else {
-                throw new CmsDbEntryNotFoundException(
-                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
+        // read the existing property to test if we need the
+        // insert or update query to write a property value
+        CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+
+        internalWritePropertyObjects(
+            dbc,
+            projectId,
+            resource,
+            Collections.singletonList(property),
+            Collections.singletonList(propertyDefinition),
+            Collections.singletonMap(propertyDefinition.getName(), existingProperty));
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, java.util.List)
+     */
+    public void writePropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource resource,
+        List<CmsProperty> properties)
+    throws CmsDataAccessException {
+
+        if (properties.size() < 2) {
+            for (CmsProperty property : properties) {
+                writePropertyObject(dbc, project, resource, property);
             }
+            return;
         }
 
-        PreparedStatement stmt = null;
-        Connection conn = null;
-
-        try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
 
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
+        List<CmsPropertyDefinition> propertyDefinitions = new ArrayList<CmsPropertyDefinition>(properties.size());
+        Set<String> names = new HashSet<String>();
+        for (CmsProperty property : properties) {
+            if (!names.add(property.getName())) {
+                // the same property is written more than once, so every write has to see the result of the previous one
+                for (CmsProperty prop : properties) {
+                    writePropertyObject(dbc, project, resource, prop);
+                }
                 return;
             }
+            propertyDefinitions.add(internalReadPropertyDefinition(dbc, projectId, property));
+        }
 
-            conn = m_sqlManager.getConnection(dbc);
+        // read all existing properties at once instead of one by one
+        Map<String, CmsProperty> existingProperties = CmsProperty.getPropertyMap(
+            readPropertyObjects(dbc, project, resource));
 
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
+        internalWritePropertyObjects(dbc, projectId, resource, properties, propertyDefinitions, existingProperties);
+    }
 
-                // 1) take any required decisions to choose and fill the correct SQL query
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writeResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, int)
+     */
+    public void writeResource(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, int changed)
+    throws CmsDataAccessException {
 
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
-                        }
-                    }
+        // validate the resource length
+        internalValidateResourceLength(resource);
 
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
-                        }
-                    }
+        String resourcePath = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
 
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
-
-                // 2) execute the SQL query
-                try {
-                    if (!deletePropertyValue) {
-                        // insert/update the property value
-                        if (existsPropertyValue) {
-                            // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
-                        } else {
-                            // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
-                        }
-                    } else {
-                        // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
-                    }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
-                }
-            }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
-    }
-
-    /**
-     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, java.util.List)
-     */
-    public void writePropertyObjects(
-        CmsDbContext dbc,
-        CmsProject project,
-        CmsResource resource,
-        List<CmsProperty> properties)
-    throws CmsDataAccessException {
-
-        CmsProperty property = null;
-
-        for (int i = 0; i < properties.size(); i++) {
-            property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
-        }
-    }
-
-    /**
-     * @see org.opencms.db.I_CmsVfsDriver#writeResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, int)
-     */
-    public void writeResource(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, int changed)
-    throws CmsDataAccessException {
-
-        // validate the resource length
-        internalValidateResourceLength(resource);
-
-        String resourcePath = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
-
-        // this task is split into two statements because some DBs (e.g. Oracle) doesn't support multi-table updates
-        PreparedStatement stmt = null;
-        Connection conn = null;
-        long resourceDateModified;
+        // this task is split into two statements because some DBs (e.g. Oracle) doesn't support multi-table updates
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        long resourceDateModified;
 
         if (resource.isTouched()) {
             resourceDateModified = resource.getDateLastModified();
@@ -3659,6 +3651,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the ids of the resources with a resource operation for computing the versions during publishing.<p>
+     *
+     * A publish job keeps its own collection in the database context, so concurrently running publish jobs
+     * do not see or clear each other's entries. Without it, the collection of this driver is used.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the ids of the resources with a resource operation
+     */
+    @SuppressWarnings("unchecked")
+    protected Collection<CmsUUID> getResourceOperations(CmsDbContext dbc) {
+
+        Object resOp = dbc.getAttribute(CmsDriverManager.KEY_PUBLISH_RESOURCE_OPERATIONS);
+        if (resOp instanceof Collection) {
+            return (Collection<CmsUUID>)resOp;
+        }
+        return m_resOp;
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -3730,6 +3742,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Creates a comma separated list of the given number of JDBC parameter placeholders.<p>
+     *
+     * @param count the number of placeholders
+     *
+     * @return the placeholder list, e.g. "?,?,?" for a count of 3
+     */
+    protected String internalCreateParameterList(int count) {
+
+        StringBuffer result = new StringBuffer(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append('?');
+        }
+        return result.toString();
+    }
+
     /**
      * Creates an URL name mapping entry from a result set.<p>
      *
@@ -3748,6 +3779,35 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Returns the prepared statement for the given query from the given statement map, creating it if necessary.<p>
+     *
+     * This is used to collect the statements of a JDBC batch.<p>
+     *
+     * @param conn the db connection
+     * @param projectId the project id
+     * @param queryKey the query key
+     * @param statements the already prepared statements, by query key
+     *
+     * @return the prepared statement
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected PreparedStatement internalGetBatchStatement(
+        Connection conn,
+        CmsUUID projectId,
+        String queryKey,
+        Map<String, PreparedStatement> statements)
+    throws SQLException {
+
+        PreparedStatement stmt = statements.get(queryKey);
+        if (stmt == null) {
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            statements.put(queryKey, stmt);
+        }
+        return stmt;
+    }
+
     /**
      * Increments a counter.<p>
      *
@@ -3774,6 +3834,108 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Updates the online version numbers of the given resource during publishing.<p>
+     *
+     * The caller must hold the resource operation lock for the resource id.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to update the version number for
+     * @param firstSibling if <code>true</code>, the resource is the first sibling of its resource to be published
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected void internalPublishVersions(CmsDbContext dbc, CmsResource resource, boolean firstSibling)
+    throws CmsDataAccessException {
+
+        if (firstSibling) {
+            // reset the resource operation flag
+            getResourceOperations(dbc).remove(resource.getResourceId());
+        }
+
+        boolean resOp = false; // assume structure operation
+
+        CmsResourceState resState = internalReadResourceState(dbc, dbc.currentProject().getUuid(), resource);
+        CmsResourceState strState = internalReadStructureState(dbc, dbc.currentProject().getUuid(), resource);
+
+        if (!resState.isUnchanged()) {
+            if (strState.isDeleted()) {
+                resOp = (resState.isDeleted()
+                    || (resource.getSiblingCount() == 1)
+                    || (countSiblings(dbc, dbc.currentProject().getUuid(), resource.getResourceId()) == 1));
+            } else {
+                resOp = true;
+            }
+        }
+
+        if (!firstSibling) {
+            if (resOp) {
+                return;
+            }
+            if (getResourceOperations(dbc).contains(resource.getResourceId())) {
+                return;
+            }
+        }
+
+        // read the offline version numbers
+        Map<String, Integer> versions = readVersions(
+            dbc,
+            dbc.currentProject().getUuid(),
+            resource.getResourceId(),
+            resource.getStructureId());
+        int strVersion = versions.get("structure").intValue();
+        int resVersion = versions.get("resource").intValue();
+
+        if (resOp) {
+            if (resource.getSiblingCount() > 1) {
+                getResourceOperations(dbc).add(resource.getResourceId());
+            }
+            resVersion++;
+        }
+        if (!resOp) {
+            strVersion++;
+        }
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+
+            if (resOp) {
+                // update the resource version
+                stmt = m_sqlManager.getPreparedStatement(
+                    conn,
+                    CmsProject.ONLINE_PROJECT_ID,
+                    "C_RESOURCES_UPDATE_RESOURCE_VERSION");
+                stmt.setInt(1, resVersion);
+                stmt.setString(2, resource.getResourceId().toString());
+                stmt.executeUpdate();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+            }
+            if (!resOp || strState.isNew()) {
+                // update the structure version
+                stmt = m_sqlManager.getPreparedStatement(
+                    conn,
+                    CmsProject.ONLINE_PROJECT_ID,
+                    "C_RESOURCES_UPDATE_STRUCTURE_VERSION");
+                stmt.setInt(1, strVersion);
+                stmt.setString(2, resource.getStructureId().toString());
+                stmt.executeUpdate();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * Helper method to create an alias object from a result set.<p>
      *
@@ -3878,6 +4040,66 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return parentId;
     }
 
+    /**
+     * Reads the property definition for the given property, creating it if required and allowed by the property.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the project id
+     * @param property the property to read the definition for
+     *
+     * @return the property definition
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected CmsPropertyDefinition internalReadPropertyDefinition(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsProperty property)
+    throws CmsDataAccessException {
+
+        // TODO: check if we need autocreation for link property definition types too
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(
+                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
+            }
+        }
+
+        return propertyDefinition;
+    }
+
     /**
      * Creates a new {@link CmsRelation} object from the given result set entry.<p>
      *
@@ -4102,6 +4324,142 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 resource.getRootPath()));
     }
 
+    /**
+     * Writes the values of the given properties of a resource.<p>
+     *
+     * The insert, update and delete statements for all properties are collected in JDBC batches,
+     * so the values are written with one database round trip per statement type.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the project id
+     * @param resource the resource to write the properties for
+     * @param properties the properties to write, with unique names
+     * @param propertyDefinitions the definitions of the properties, in the same order as the properties
+     * @param existingProperties the currently stored properties of the resource, by name
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalWritePropertyObjects(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsResource resource,
+        List<CmsProperty> properties,
+        List<CmsPropertyDefinition> propertyDefinitions,
+        Map<String, CmsProperty> existingProperties)
+    throws CmsDataAccessException {
+
+        Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>();
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            for (int j = 0; j < properties.size(); j++) {
+                CmsProperty property = properties.get(j);
+                CmsPropertyDefinition propertyDefinition = propertyDefinitions.get(j);
+                CmsProperty existingProperty = existingProperties.get(propertyDefinition.getName());
+                if (existingProperty == null) {
+                    existingProperty = CmsProperty.getNullProperty();
+                }
+                if (existingProperty.isIdentical(property)) {
+                    // property already has the identical values set, no write required
+                    continue;
+                }
+                if (conn == null) {
+                    conn = m_sqlManager.getConnection(dbc);
+                }
+
+                for (int i = 0; i < 2; i++) {
+                    int mappingType = -1;
+                    String value = null;
+                    CmsUUID id = null;
+                    boolean existsPropertyValue = false;
+                    boolean deletePropertyValue = false;
+
+                    // 1) take any required decisions to choose and fill the correct SQL query
+
+                    if (i == 0) {
+                        // write/delete the *structure value* on the first cycle
+                        if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getStructureValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no structure value set or the structure value is an empty string,
+                                // continue with the resource value
+                                continue;
+                            }
+                        }
+
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                        id = resource.getStructureId();
+                        existsPropertyValue = existingProperty.getStructureValue() != null;
+                    } else {
+                        // write/delete the *resource value* on the second cycle
+                        if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getResourceValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no resource value set or the resource value is an empty string,
+                                // break out of the loop
+                                break;
+                            }
+                        }
+
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                        id = resource.getResourceId();
+                        existsPropertyValue = existingProperty.getResourceValue() != null;
+                    }
+
+                    // 2) add the SQL query to the batch
+                    if (!deletePropertyValue) {
+                        // insert/update the property value
+                        if (existsPropertyValue) {
+                            // {structure|resource} property value already exists- use update statement
+                            stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_UPDATE", statements);
+                            stmt.setString(1, m_sqlManager.validateEmpty(value));
+                            stmt.setString(2, id.toString());
+                            stmt.setInt(3, mappingType);
+                            stmt.setString(4, propertyDefinition.getId().toString());
+                        } else {
+                            // {structure|resource} property value doesn't exist- use create statement
+                            stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_CREATE", statements);
+                            stmt.setString(1, new CmsUUID().toString());
+                            stmt.setString(2, propertyDefinition.getId().toString());
+                            stmt.setString(3, id.toString());
+                            stmt.setInt(4, mappingType);
+                            stmt.setString(5, m_sqlManager.validateEmpty(value));
+                        }
+                    } else {
+                        // {structure|resource} property value marked as deleted- use delete statement
+                        stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_DELETE", statements);
+                        stmt.setString(1, propertyDefinition.getId().toString());
+                        stmt.setString(2, id.toString());
+                        stmt.setInt(3, mappingType);
+                    }
+                    stmt.addBatch();
+                }
+            }
+            for (PreparedStatement batch : statements.values()) {
+                stmt = batch;
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            for (PreparedStatement batch : statements.values()) {
+                m_sqlManager.closeAll(dbc, null, batch, null);
+            }
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+    }
+
     /**
      * Moves all relations of a resource to the new path.<p>
      *
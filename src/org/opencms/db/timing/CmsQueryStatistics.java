@@ -0,0 +1,293 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.timing;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects execution statistics for the SQL queries of the database drivers, by query key.<p>
+ *
+ * The statistics are only collected while they are enabled, either at startup with the system property
+ * <code>opencms.profile.queries=true</code> or later on, via JMX or the SQL console of the workplace.<p>
+ */
+public final class CmsQueryStatistics {
+
+    /**
+     * The statistics for a single query key.<p>
+     */
+    public static final class CmsQueryStats {
+
+        /** The number of executions. */
+        private final LongAdder m_count = new LongAdder();
+
+        /** The number of failed executions. */
+        private final LongAdder m_errors = new LongAdder();
+
+        /** The execution counts by latency bucket. */
+        private final AtomicLongArray m_histogram = new AtomicLongArray(HISTOGRAM_LIMITS.length + 1);
+
+        /** The query key. */
+        private final String m_key;
+
+        /** The longest execution, in nanoseconds. */
+        private final AtomicLong m_maxNanos = new AtomicLong();
+
+        /** The number of rows fetched or updated. */
+        private final LongAdder m_rows = new LongAdder();
+
+        /** The total execution time, in nanoseconds. */
+        private final LongAdder m_totalNanos = new LongAdder();
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param key the query key
+         */
+        CmsQueryStats(String key) {
+
+            m_key = key;
+        }
+
+        /**
+         * Returns the average execution time in milliseconds.<p>
+         *
+         * @return the average execution time in milliseconds
+         */
+        public double getAverageMillis() {
+
+            long count = m_count.sum();
+            return count == 0 ? 0 : (m_totalNanos.sum() / (double)count) / 1000000;
+        }
+
+        /**
+         * Returns the number of executions.<p>
+         *
+         * @return the number of executions
+         */
+        public long getCount() {
+
+            return m_count.sum();
+        }
+
+        /**
+         * Returns the number of failed executions.<p>
+         *
+         * @return the number of failed executions
+         */
+        public long getErrors() {
+
+            return m_errors.sum();
+        }
+
+        /**
+         * Returns the execution counts by latency bucket.<p>
+         *
+         * The i-th entry counts the executions that took less than <code>HISTOGRAM_LIMITS[i]</code> milliseconds
+         * (and at least the previous limit); the last entry counts all slower executions.<p>
+         *
+         * @return the execution counts by latency bucket
+         */
+        public long[] getHistogram() {
+
+            long[] result = new long[m_histogram.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = m_histogram.get(i);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the query key.<p>
+         *
+         * @return the query key
+         */
+        public String getKey() {
+
+            return m_key;
+        }
+
+        /**
+         * Returns the longest execution time in milliseconds.<p>
+         *
+         * @return the longest execution time in milliseconds
+         */
+        public double getMaxMillis() {
+
+            return m_maxNanos.get() / 1000000d;
+        }
+
+        /**
+         * Returns the number of rows fetched by the queries or changed by the updates.<p>
+         *
+         * @return the number of rows
+         */
+        public long getRows() {
+
+            return m_rows.sum();
+        }
+
+        /**
+         * Returns the total execution time in milliseconds.<p>
+         *
+         * @return the total execution time in milliseconds
+         */
+        public double getTotalMillis() {
+
+            return m_totalNanos.sum() / 1000000d;
+        }
+
+        /**
+         * Records an execution.<p>
+         *
+         * @param nanos the execution time in nanoseconds
+         * @param success false if the execution failed
+         */
+        void addExecution(long nanos, boolean success) {
+
+            m_count.increment();
+            if (!success) {
+                m_errors.increment();
+            }
+            m_totalNanos.add(nanos);
+            m_maxNanos.accumulateAndGet(nanos, Math::max);
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while ((bucket < HISTOGRAM_LIMITS.length) && (millis >= HISTOGRAM_LIMITS[bucket])) {
+                bucket++;
+            }
+            m_histogram.incrementAndGet(bucket);
+        }
+
+        /**
+         * Records fetched or updated rows.<p>
+         *
+         * @param rows the number of rows
+         */
+        void addRows(long rows) {
+
+            m_rows.add(rows);
+        }
+    }
+
+    /** The upper limits of the latency histogram buckets, in milliseconds. */
+    public static final long[] HISTOGRAM_LIMITS = {1, 5, 10, 50, 100, 500, 1000};
+
+    /** The singleton instance. */
+    public static final CmsQueryStatistics INSTANCE = new CmsQueryStatistics();
+
+    /** Flag which controls whether statistics are collected. */
+    private volatile boolean m_enabled = "true".equalsIgnoreCase(System.getProperty("opencms.profile.queries"));
+
+    /** The statistics by query key. */
+    private Map<String, CmsQueryStats> m_stats = new ConcurrentHashMap<>();
+
+    /**
+     * Hidden default constructor.<p>
+     */
+    private CmsQueryStatistics() {
+        // do nothing
+    }
+
+    /**
+     * Returns the statistics for all query keys, sorted by total execution time in descending order.<p>
+     *
+     * @return the statistics for all query keys
+     */
+    public List<CmsQueryStats> getStatistics() {
+
+        List<CmsQueryStats> result = new ArrayList<>(m_stats.values());
+        result.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return result;
+    }
+
+    /**
+     * Returns the statistics for a query key.<p>
+     *
+     * @param key the query key
+     *
+     * @return the statistics for the query key
+     */
+    public CmsQueryStats getStatistics(String key) {
+
+        return m_stats.computeIfAbsent(key, CmsQueryStats::new);
+    }
+
+    /**
+     * Returns true if statistics are collected.<p>
+     *
+     * @return true if statistics are collected
+     */
+    public boolean isEnabled() {
+
+        return m_enabled;
+    }
+
+    /**
+     * Discards all collected statistics.<p>
+     */
+    public void reset() {
+
+        m_stats.clear();
+    }
+
+    /**
+     * Enables or disables the collection of statistics.<p>
+     *
+     * @param enabled true if statistics should be collected
+     */
+    public void setEnabled(boolean enabled) {
+
+        m_enabled = enabled;
+    }
+
+    /**
+     * Wraps a prepared statement so that its executions are recorded for the given query key.<p>
+     *
+     * If statistics are disabled, the statement is returned unchanged.<p>
+     *
+     * @param statement the statement to wrap
+     * @param key the query key
+     *
+     * @return the wrapped statement
+     */
+    public PreparedStatement wrap(PreparedStatement statement, String key) {
+
+        if (!m_enabled || (statement == null)) {
+            return statement;
+        }
+        return CmsQueryStatisticsInvocationHandler.wrap(statement, getStatistics(key));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.timing;
+
+import org.opencms.db.timing.CmsQueryStatistics.CmsQueryStats;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Invocation handler for prepared statements and their result sets which records
+ * execution times and row counts in the query statistics.<p>
+ */
+public class CmsQueryStatisticsInvocationHandler implements InvocationHandler {
+
+    /** The statistics to update. */
+    private CmsQueryStats m_stats;
+
+    /** The target object which we are proxying. */
+    private Object m_target;
+
+    /**
+     * Creates a new handler instance.<p>
+     *
+     * @param target the object we are proxying
+     * @param stats the statistics to update
+     */
+    protected CmsQueryStatisticsInvocationHandler(Object target, CmsQueryStats stats) {
+
+        m_target = target;
+        m_stats = stats;
+    }
+
+    /**
+     * Wraps a prepared statement in a proxy which records its executions.<p>
+     *
+     * @param statement the statement to wrap
+     * @param stats the statistics to update
+     *
+     * @return the proxy
+     */
+    public static PreparedStatement wrap(PreparedStatement statement, CmsQueryStats stats) {
+
+        return (PreparedStatement)Proxy.newProxyInstance(
+            CmsQueryStatisticsInvocationHandler.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new CmsQueryStatisticsInvocationHandler(statement, stats));
+    }
+
+    /**
+     * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        String name = method.getName();
+        if (m_target instanceof ResultSet) {
+            Object result = invokeTarget(method, args);
+            if ("next".equals(name) && ((Boolean)result).booleanValue()) {
+                m_stats.addRows(1);
+            }
+            return result;
+        }
+        if (!name.startsWith("execute")) {
+            Object result = invokeTarget(method, args);
+            // also count the rows of result sets retrieved after execute()
+            return result instanceof ResultSet ? wrapResultSet((ResultSet)result) : result;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invokeTarget(method, args);
+            success = true;
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet)result);
+            } else if (result instanceof Integer) {
+                m_stats.addRows(((Integer)result).intValue());
+            } else if (result instanceof Long) {
+                m_stats.addRows(((Long)result).longValue());
+            } else if (result instanceof int[]) {
+                for (int count : (int[])result) {
+                    if (count > 0) {
+                        m_stats.addRows(count);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            m_stats.addExecution(System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Invokes a method on the target object, unwrapping the exceptions thrown by it.<p>
+     *
+     * @param method the method to invoke
+     * @param args the method arguments
+     *
+     * @return the result of the method
+     *
+     * @throws Throwable if the method throws an exception
+     */
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(m_target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause != null) {
+                throw cause;
+            } else {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Wraps a result set in a proxy which counts the fetched rows.<p>
+     *
+     * @param res the result set to wrap
+     *
+     * @return the proxy
+     */
+    private ResultSet wrapResultSet(ResultSet res) {
+
+        return (ResultSet)Proxy.newProxyInstance(
+            CmsQueryStatisticsInvocationHandler.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            new CmsQueryStatisticsInvocationHandler(res, m_stats));
+    }
+}
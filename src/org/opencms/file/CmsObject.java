@@ -69,6 +69,7 @@ import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -1950,12 +1951,7 @@ public final class CmsObject {
      */
     public boolean hasPermissions(CmsResource resource, CmsPermissionSet requiredPermissions) throws CmsException {
 
-        return m_securityManager.hasPermissions(
-            m_context,
-            resource,
-            requiredPermissions,
-            true,
-            CmsResourceFilter.ALL).isAllowed();
+        return hasPermissions(resource, requiredPermissions, true, CmsResourceFilter.ALL);
     }
 
     /**
@@ -1979,6 +1975,22 @@ public final class CmsObject {
         CmsResourceFilter filter)
     throws CmsException {
 
+        CmsRequestReadCache readCache = CmsRequestReadCache.get(m_context);
+        if (readCache != null) {
+            return readCache.hasPermissions(
+                m_context,
+                resource,
+                requiredPermissions,
+                checkLock,
+                filter,
+                () -> Boolean.valueOf(
+                    I_CmsPermissionHandler.PERM_ALLOWED == m_securityManager.hasPermissions(
+                        m_context,
+                        resource,
+                        requiredPermissions,
+                        checkLock,
+                        filter))).booleanValue();
+        }
         return I_CmsPermissionHandler.PERM_ALLOWED == m_securityManager.hasPermissions(
             m_context,
             resource,
@@ -3013,6 +3025,15 @@ public final class CmsObject {
      */
     public CmsProperty readPropertyObject(CmsResource resource, String property, boolean search) throws CmsException {
 
+        CmsRequestReadCache readCache = CmsRequestReadCache.get(m_context);
+        if (readCache != null) {
+            return readCache.readPropertyObject(
+                m_context,
+                resource,
+                property,
+                search,
+                () -> m_securityManager.readPropertyObject(m_context, resource, property, search));
+        }
         return m_securityManager.readPropertyObject(m_context, resource, property, search);
     }
 
@@ -3057,7 +3078,7 @@ public final class CmsObject {
     public CmsProperty readPropertyObject(String resourcePath, String property, boolean search) throws CmsException {
 
         CmsResource resource = readResource(resourcePath, CmsResourceFilter.ALL);
-        return m_securityManager.readPropertyObject(m_context, resource, property, search);
+        return readPropertyObject(resource, property, search);
     }
 
     /**
@@ -3111,6 +3132,27 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects of the given resources.<p>
+     *
+     * This is considerably faster than calling <code>{@link CmsObject#readPropertyObjects(CmsResource, boolean)}</code>
+     * for each resource, since the properties are read with a minimal number of database queries.
+     * The result also fills the property caches, so later single reads for these resources are cheap.<p>
+     *
+     * @param resources the resources to read the properties for
+     * @param search if <code>true</code>, the properties of all parent folders of the resources
+     *      are merged with the resource properties.
+     *
+     * @return a map from structure ids to lists of <code>{@link CmsProperty}</code> objects
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources, boolean search)
+    throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources, search);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
@@ -3227,6 +3269,14 @@ public final class CmsObject {
      */
     public CmsResource readResource(CmsUUID structureID, CmsResourceFilter filter) throws CmsException {
 
+        CmsRequestReadCache readCache = CmsRequestReadCache.get(m_context);
+        if (readCache != null) {
+            return readCache.readResource(
+                m_context,
+                structureID,
+                filter,
+                () -> m_securityManager.readResource(m_context, structureID, filter));
+        }
         return m_securityManager.readResource(m_context, structureID, filter);
     }
 
@@ -3321,7 +3371,40 @@ public final class CmsObject {
      */
     public CmsResource readResource(String resourcename, CmsResourceFilter filter) throws CmsException {
 
-        return m_securityManager.readResource(m_context, addSiteRoot(resourcename), filter);
+        String rootPath = addSiteRoot(resourcename);
+        CmsRequestReadCache readCache = CmsRequestReadCache.get(m_context);
+        if (readCache != null) {
+            return readCache.readResource(
+                m_context,
+                rootPath,
+                filter,
+                () -> m_securityManager.readResource(m_context, rootPath, filter));
+        }
+        return m_securityManager.readResource(m_context, rootPath, filter);
+    }
+
+    /**
+     * Reads the resources with the given structure IDs, using the specified resource filter.<p>
+     *
+     * This is considerably faster than reading the resources one by one with
+     * {@link #readResource(CmsUUID, CmsResourceFilter)}, since all resources are
+     * read with a minimal number of database queries.<p>
+     *
+     * In contrast to {@link #readResource(CmsUUID, CmsResourceFilter)}, resources which do not exist,
+     * which do not match the filter or which the current user is not allowed to read
+     * are silently skipped instead of causing an exception.<p>
+     *
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given structure IDs
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(Collection<CmsUUID> structureIds, CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_securityManager.readResources(m_context, structureIds, filter);
     }
 
     /**
@@ -0,0 +1,409 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.file;
+
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Request scoped cache for the results of frequently repeated read operations of a {@link CmsObject}.<p>
+ *
+ * While a page is rendered, the same resources, properties and permissions are read many times from
+ * different tags and beans. If a read cache is attached to the request context of a CmsObject with
+ * {@link #attach(CmsRequestContext)}, the results of <code>readResource</code>, <code>readPropertyObject</code>
+ * and <code>hasPermissions</code> are memoized for the lifetime of that request context.
+ * Only successful reads are cached, and the cache is only used as long as the context is in the Online project.<p>
+ *
+ * A read normally updates the {@link CmsFlexRequestContextInfo} of the request context with the dates and ids
+ * of the resources it touched, which the Flex cache uses for its entries. To keep this working, the cache records
+ * these updates in a separate context info when it performs a read, and merges them into the current context info
+ * whenever it answers the same read from the cache.<p>
+ *
+ * The cache is disabled by default and can be enabled with the runtime property {@link #PARAM_ENABLED}.<p>
+ *
+ * @since 17.0
+ */
+public class CmsRequestReadCache {
+
+    /**
+     * A read operation whose result can be memoized.<p>
+     *
+     * @param <T> the result type
+     */
+    public interface I_CmsReadOperation<T> {
+
+        /**
+         * Performs the read operation.<p>
+         *
+         * @return the result of the read operation
+         *
+         * @throws CmsException if something goes wrong
+         */
+        T read() throws CmsException;
+    }
+
+    /**
+     * A cached read result, together with the context info updates of the read.<p>
+     */
+    private static class CmsReadResult {
+
+        /** The context info updates of the read, or <code>null</code> if there was no context info. */
+        final CmsFlexRequestContextInfo m_info;
+
+        /** The result of the read. */
+        final Object m_result;
+
+        /**
+         * Creates a new cached read result.<p>
+         *
+         * @param result the result of the read
+         * @param info the context info updates of the read, or <code>null</code>
+         */
+        CmsReadResult(Object result, CmsFlexRequestContextInfo info) {
+
+            m_result = result;
+            m_info = info;
+        }
+    }
+
+    /** The request context attribute under which the read cache is stored. */
+    public static final String ATTRIBUTE_NAME = "__org.opencms.file.CmsRequestReadCache";
+
+    /** Name of the runtime property used to enable the request read cache. */
+    public static final String PARAM_ENABLED = "flex.request.readcache.enabled";
+
+    /** Key prefix for permission checks. */
+    private static final String KEY_PERMISSIONS = "h";
+
+    /** Key prefix for single property reads. */
+    private static final String KEY_PROPERTY = "p";
+
+    /** Key prefix for resources read by id. */
+    private static final String KEY_RESOURCE_ID = "i";
+
+    /** Key prefix for resources read by path. */
+    private static final String KEY_RESOURCE_PATH = "r";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsRequestReadCache.class);
+
+    /** The cached results. */
+    private Map<List<Object>, CmsReadResult> m_entries = new ConcurrentHashMap<List<Object>, CmsReadResult>();
+
+    /** The number of reads answered from the cache. */
+    private AtomicInteger m_hits = new AtomicInteger();
+
+    /** The number of reads not answered from the cache. */
+    private AtomicInteger m_misses = new AtomicInteger();
+
+    /**
+     * Attaches a new read cache to the given request context if the cache is enabled
+     * and the context is in the Online project.<p>
+     *
+     * @param context the request context
+     *
+     * @return the attached cache, or <code>null</code> if no cache was attached
+     */
+    public static CmsRequestReadCache attach(CmsRequestContext context) {
+
+        if (!isEnabled() || !context.getCurrentProject().isOnlineProject()) {
+            return null;
+        }
+        CmsRequestReadCache cache = new CmsRequestReadCache();
+        context.setAttribute(ATTRIBUTE_NAME, cache);
+        return cache;
+    }
+
+    /**
+     * Returns the read cache attached to the given request context.<p>
+     *
+     * @param context the request context
+     *
+     * @return the read cache, or <code>null</code> if no cache is attached or the context is not in the Online project
+     */
+    public static CmsRequestReadCache get(CmsRequestContext context) {
+
+        Object cache = context.getAttribute(ATTRIBUTE_NAME);
+        if ((cache != null) && context.getCurrentProject().isOnlineProject()) {
+            return (CmsRequestReadCache)cache;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the request read cache is enabled by the runtime properties.<p>
+     *
+     * @return <code>true</code> if the request read cache is enabled
+     */
+    public static boolean isEnabled() {
+
+        return Boolean.parseBoolean(String.valueOf(OpenCms.getRuntimeProperty(PARAM_ENABLED)));
+    }
+
+    /**
+     * Removes the read cache from the given request context and logs its hit counters.<p>
+     *
+     * @param context the request context
+     */
+    public static void remove(CmsRequestContext context) {
+
+        CmsRequestReadCache cache = (CmsRequestReadCache)context.removeAttribute(ATTRIBUTE_NAME);
+        if ((cache != null) && LOG.isDebugEnabled()) {
+            LOG.debug(
+                "Request read cache for "
+                    + context.getSiteRoot()
+                    + context.getUri()
+                    + ": "
+                    + cache.getHits()
+                    + " hits, "
+                    + cache.getMisses()
+                    + " misses, "
+                    + cache.m_entries.size()
+                    + " entries");
+        }
+    }
+
+    /**
+     * Creates the cache key for a read operation.<p>
+     *
+     * @param context the request context
+     * @param kind the kind of the read operation
+     * @param parts the parameters of the read operation
+     *
+     * @return the cache key
+     */
+    private static List<Object> createKey(CmsRequestContext context, String kind, Object... parts) {
+
+        Object[] key = new Object[parts.length + 3];
+        key[0] = kind;
+        key[1] = context.getCurrentUser().getId();
+        key[2] = context.getCurrentProject().getUuid();
+        System.arraycopy(parts, 0, key, 3, parts.length);
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Returns the number of reads answered from the cache.<p>
+     *
+     * @return the number of cache hits
+     */
+    public int getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of reads not answered from the cache.<p>
+     *
+     * @return the number of cache misses
+     */
+    public int getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Memoizes a permission check.<p>
+     *
+     * @param context the request context
+     * @param resource the resource to check
+     * @param permissions the required permissions
+     * @param checkLock if the lock state should be checked
+     * @param filter the resource filter
+     * @param operation the operation performing the check
+     *
+     * @return the result of the permission check
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Boolean hasPermissions(
+        CmsRequestContext context,
+        CmsResource resource,
+        CmsPermissionSet permissions,
+        boolean checkLock,
+        CmsResourceFilter filter,
+        I_CmsReadOperation<Boolean> operation)
+    throws CmsException {
+
+        return lookup(
+            context,
+            createKey(
+                context,
+                KEY_PERMISSIONS,
+                resource.getStructureId(),
+                resource.getRootPath(),
+                permissions,
+                Boolean.valueOf(checkLock),
+                filter.getCacheId()),
+            operation);
+    }
+
+    /**
+     * Memoizes a property read.<p>
+     *
+     * @param context the request context
+     * @param resource the resource to read the property from
+     * @param property the property name
+     * @param search if the property should be searched on the parent folders
+     * @param operation the operation reading the property
+     *
+     * @return the property
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsProperty readPropertyObject(
+        CmsRequestContext context,
+        CmsResource resource,
+        String property,
+        boolean search,
+        I_CmsReadOperation<CmsProperty> operation)
+    throws CmsException {
+
+        return lookup(
+            context,
+            createKey(
+                context,
+                KEY_PROPERTY,
+                resource.getStructureId(),
+                resource.getRootPath(),
+                property,
+                Boolean.valueOf(search)),
+            operation);
+    }
+
+    /**
+     * Memoizes a resource read by structure id.<p>
+     *
+     * @param context the request context
+     * @param structureId the structure id of the resource
+     * @param filter the resource filter
+     * @param operation the operation reading the resource
+     *
+     * @return the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsResource readResource(
+        CmsRequestContext context,
+        CmsUUID structureId,
+        CmsResourceFilter filter,
+        I_CmsReadOperation<CmsResource> operation)
+    throws CmsException {
+
+        return lookup(context, createKey(context, KEY_RESOURCE_ID, structureId, filter.getCacheId()), operation);
+    }
+
+    /**
+     * Memoizes a resource read by root path.<p>
+     *
+     * @param context the request context
+     * @param rootPath the root path of the resource
+     * @param filter the resource filter
+     * @param operation the operation reading the resource
+     *
+     * @return the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsResource readResource(
+        CmsRequestContext context,
+        String rootPath,
+        CmsResourceFilter filter,
+        I_CmsReadOperation<CmsResource> operation)
+    throws CmsException {
+
+        return lookup(context, createKey(context, KEY_RESOURCE_PATH, rootPath, filter.getCacheId()), operation);
+    }
+
+    /**
+     * Returns the cached result for the given key, or performs the operation and caches its result.<p>
+     *
+     * If the request context has a Flex context info, it is updated in the same way as the read operation would do.
+     * A cached result is not used if it was read without tracking resources, but the current context info tracks them.<p>
+     *
+     * @param context the request context
+     * @param key the cache key
+     * @param operation the read operation
+     *
+     * @return the result
+     *
+     * @throws CmsException if the read operation fails
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(CmsRequestContext context, List<Object> key, I_CmsReadOperation<T> operation)
+    throws CmsException {
+
+        CmsFlexRequestContextInfo info = (CmsFlexRequestContextInfo)context.getAttribute(
+            CmsRequestUtil.HEADER_LAST_MODIFIED);
+        CmsReadResult cached = m_entries.get(key);
+        if ((cached != null)
+            && ((info == null)
+                || ((cached.m_info != null)
+                    && (cached.m_info.isTrackingResources() || !info.isTrackingResources())))) {
+            m_hits.incrementAndGet();
+            if (info != null) {
+                info.merge(cached.m_info);
+            }
+            return (T)cached.m_result;
+        }
+        m_misses.incrementAndGet();
+        T result;
+        CmsFlexRequestContextInfo recorded = null;
+        if (info == null) {
+            result = operation.read();
+        } else {
+            // record the context info updates of the read, so they can be repeated for cache hits
+            recorded = new CmsFlexRequestContextInfo(info.isTrackingResources());
+            context.setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, recorded);
+            try {
+                result = operation.read();
+            } finally {
+                context.setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+                info.merge(recorded);
+            }
+        }
+        if (result != null) {
+            m_entries.put(key, new CmsReadResult(result, recorded));
+        }
+        return result;
+    }
+}
@@ -31,29 +31,29 @@ import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.flex.CmsFlexBucketConfiguration.BucketSet;
 import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMonitoredCacheMap;
+import org.opencms.publish.CmsPublishJobFinished;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 import com.google.common.collect.Lists;
@@ -116,7 +116,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map<String, I_CmsLruCacheObject> m_map;
+        public volatile Map<String, I_CmsLruCacheObject> m_map;
+
+        /** Indicates the key was removed from the key cache, so no more entries may be added. */
+        private boolean m_removed;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -126,17 +129,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
     }
 
     /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
+     * Concurrent key map that handles the variations in case a key is evicted.<p>
      */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
+    class CmsFlexKeyMap extends CmsMonitoredCacheMap<String, CmsFlexCacheVariation> {
 
         /**
          * Initialize the map with the given size.<p>
@@ -150,37 +150,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         /**
          * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         *
-         * @param entry the entry to remove
+         * if the key is evicted.<p>
          *
-         * @return <code>true</code> to actually delete the entry
-         *
-         * @see LRUMap#removeLRU(LinkEntry)
+         * @see org.opencms.monitor.CmsMonitoredCacheMap#onEviction(java.lang.Object, java.lang.Object)
          */
         @Override
-        protected boolean removeLRU(LinkEntry entry) {
+        protected void onEviction(String key, CmsFlexCacheVariation value) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-
-            // make a copy to safely iterate over because the line "m_variationCache.remove(e)" modifies the variation map for the key
-            Collection<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
+            removeKeyVariations(value);
         }
     }
 
@@ -220,6 +197,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Initial size for variation lists, should be a power of 2. */
     public static final int INITIAL_CAPACITY_VARIATIONS = 8;
 
+    /** Runtime property for the class name of the second level store, no store is used if not set. */
+    public static final String PARAM_STORE_CLASS = "flex.cache.store.class";
+
     /** Offline repository constant. */
     public static final String REPOSITORY_OFFLINE = "offline";
 
@@ -241,14 +221,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The CMS object used for VFS operations. */
     private CmsObject m_cmsObject;
 
+    /** Index of the cache entries by the resource ids of the resources they were built from. */
+    private Map<CmsUUID, Set<CmsFlexCacheEntry>> m_dependencyIndex;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
-    /** Counter for the size. */
-    private int m_size;
+    /** The optional second level store for the cache entries. */
+    private volatile I_CmsFlexCacheStore m_store;
+
+    /** Indicates if only the entries built from published resources are removed on publish. */
+    private boolean m_targetedInvalidation;
 
     /**
      * Constructor for class CmsFlexCache.<p>
@@ -265,6 +251,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         m_enabled = configuration.isCacheEnabled();
         m_cacheOffline = configuration.isCacheOffline();
+        m_targetedInvalidation = configuration.isTargetedInvalidation();
+        m_dependencyIndex = new ConcurrentHashMap<CmsUUID, Set<CmsFlexCacheEntry>>();
 
         long maxCacheBytes = configuration.getMaxCacheBytes();
         long avgCacheBytes = configuration.getAvgCacheBytes();
@@ -275,10 +263,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            m_keyCache = new CmsFlexKeyMap(maxKeys);
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
 
             OpenCms.addCmsEventListener(
                 this,
@@ -299,37 +285,41 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     }
 
     /**
-     * Copies the key set of a map while synchronizing on the map.<p>
+     * Removes a cache entry from the dependency index.<p>
      *
-     * @param map the map whose key set should be copied
-     * @return the copied key set
+     * @param dependencyIndex the dependency index
+     * @param entry the entry to remove
      */
-    private static <K, V> Set<K> synchronizedCopyKeys(Map<K, V> map) {
+    static void unregisterDependencies(
+        Map<CmsUUID, Set<CmsFlexCacheEntry>> dependencyIndex,
+        CmsFlexCacheEntry entry) {
 
-        if (map == null) {
-            return new HashSet<K>();
+        Set<CmsUUID> resourceIds = entry.getResourceIds();
+        if (resourceIds == null) {
+            resourceIds = Collections.singleton(CmsUUID.getNullUUID());
         }
-        synchronized (map) {
-            return new HashSet<K>(map.keySet());
+        for (CmsUUID resourceId : resourceIds) {
+            dependencyIndex.computeIfPresent(resourceId, (id, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
         }
     }
 
     /**
-     * Copies a map while synchronizing on it.<p>
+     * Copies the key set of a map.<p>
      *
-     * @param map the map to copy
-     * @return the copied map
+     * The maps used by the cache are concurrent, so no locking is required while copying.<p>
+     *
+     * @param map the map whose key set should be copied
+     * @return the copied key set
      */
-    private static <K, V> Map<K, V> synchronizedCopyMap(Map<K, V> map) {
+    private static <K, V> Set<K> copyKeys(Map<K, V> map) {
 
         if (map == null) {
-            return new HashMap<K, V>();
-        }
-
-        synchronized (map) {
-
-            return new HashMap<K, V>(map);
+            return new HashSet<K>();
         }
+        return new HashSet<K>(map.keySet());
     }
 
     /**
@@ -385,6 +375,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                             }
                             // Make sure no entries built for the old configuration remain in the cache
                             clear();
+                        } else if (m_targetedInvalidation) {
+                            if (!clearForPublishList(publishId, publishedResources)) {
+                                clear();
+                            }
                         } else if (bucketConfig != null) {
                             boolean bucketClearOk = clearBucketsForPublishList(
                                 bucketConfig,
@@ -470,21 +464,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     public void dumpKeys(StringBuffer buffer) {
 
-        synchronized (this) {
-            for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
-                String key = entry.getKey();
-                CmsFlexCacheVariation variations = entry.getValue();
-                Map<String, I_CmsLruCacheObject> variationMap = variations.m_map;
-                for (Map.Entry<String, I_CmsLruCacheObject> varEntry : variationMap.entrySet()) {
-                    String varKey = varEntry.getKey();
-                    I_CmsLruCacheObject value = varEntry.getValue();
-                    buffer.append(key + " VAR " + varKey + "\n");
-                    if (value instanceof CmsFlexCacheEntry) {
-                        CmsFlexCacheEntry singleCacheEntry = (CmsFlexCacheEntry)value;
-                        BucketSet buckets = singleCacheEntry.getBucketSet();
-                        if (buckets != null) {
-                            buffer.append("buckets = " + buckets.toString() + "\n");
-                        }
+        for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+            String key = entry.getKey();
+            CmsFlexCacheVariation variations = entry.getValue();
+            Map<String, I_CmsLruCacheObject> variationMap = variations.m_map;
+            for (Map.Entry<String, I_CmsLruCacheObject> varEntry : variationMap.entrySet()) {
+                String varKey = varEntry.getKey();
+                I_CmsLruCacheObject value = varEntry.getValue();
+                buffer.append(key + " VAR " + varKey + "\n");
+                if (value instanceof CmsFlexCacheEntry) {
+                    CmsFlexCacheEntry singleCacheEntry = (CmsFlexCacheEntry)value;
+                    BucketSet buckets = singleCacheEntry.getBucketSet();
+                    if (buckets != null) {
+                        buffer.append("buckets = " + buckets.toString() + "\n");
                     }
                 }
             }
@@ -534,7 +526,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        return synchronizedCopyKeys(m_keyCache);
+        return copyKeys(m_keyCache);
     }
 
     /**
@@ -558,7 +550,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         Object o = m_keyCache.get(key);
         if (o != null) {
-            return synchronizedCopyKeys(((CmsFlexCacheVariation)o).m_map);
+            return copyKeys(((CmsFlexCacheVariation)o).m_map);
         }
         return null;
     }
@@ -596,6 +588,50 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Initializes the second level store configured with the runtime property {@link #PARAM_STORE_CLASS}.<p>
+     *
+     * This has to be called after the publish manager has been initialized,
+     * since stored entries written before the last publish job are discarded.<p>
+     */
+    public void initializeStore() {
+
+        if (!isEnabled()) {
+            return;
+        }
+        String className = (String)OpenCms.getRuntimeProperty(PARAM_STORE_CLASS);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(className)) {
+            return;
+        }
+        try {
+            long dateLastPublished = 0;
+            for (CmsPublishJobFinished publishJob : OpenCms.getPublishManager().getPublishHistory()) {
+                dateLastPublished = Math.max(dateLastPublished, publishJob.getFinishTime());
+            }
+            I_CmsFlexCacheStore store = (I_CmsFlexCacheStore)Class.forName(
+                className.trim()).getDeclaredConstructor().newInstance();
+            store.initialize(dateLastPublished);
+            m_store = store;
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_STORE_INITIALIZED_1, className));
+            }
+        } catch (ReflectiveOperationException | IOException | RuntimeException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_STORE_INIT_FAILED_1, className), e);
+        }
+    }
+
+    /**
+     * Indicates if only the entries built from published resources are removed from the cache on publish.<p>
+     *
+     * If this is enabled, the resources read while generating an entry are recorded.<p>
+     *
+     * @return true if the targeted invalidation is enabled
+     */
+    public boolean isTargetedInvalidation() {
+
+        return m_enabled && m_targetedInvalidation;
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -630,6 +666,18 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_variationCache.size();
     }
 
+    /**
+     * Releases the second level store of the cache, if one is used.<p>
+     */
+    public void shutDown() {
+
+        I_CmsFlexCacheStore store = m_store;
+        m_store = null;
+        if (store != null) {
+            store.shutDown();
+        }
+    }
+
     /**
      * Looks up a specific entry in the cache.<p>
      *
@@ -658,8 +706,11 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             }
             CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
             if (entry == null) {
-                // no cache entry available for variation
-                return null;
+                // no cache entry available for variation, check the second level store
+                entry = getFromStore(v.m_key, variation);
+                if (entry == null) {
+                    return null;
+                }
             }
             if (entry.getDateExpires() < System.currentTimeMillis()) {
                 // cache entry avaiable but expired, remove entry
@@ -757,6 +808,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                     LOG.error(e.getLocalizedMessage(), e);
                 }
             }
+            I_CmsFlexCacheStore store = m_store;
+            if ((store != null) && key.getResource().endsWith(CACHE_ONLINESUFFIX)) {
+                store.put(key.getResource(), variation, entry);
+            }
             // Note that duplicates are NOT checked, it it assumed that this is done beforehand,
             // while checking if the entry is already in the cache or not.
             return true;
@@ -783,8 +838,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (o == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
-            if (LOG.isDebugEnabled()) {
+            if ((m_keyCache.putIfAbsent(key.getResource(), variationMap) == null) && LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
             }
         }
@@ -794,15 +848,17 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /**
      * Empties the cache completely.<p>
      */
-    private synchronized void clear() {
+    private void clear() {
 
         if (!isEnabled()) {
             return;
         }
+        for (CmsFlexCacheVariation v : m_keyCache.values()) {
+            markRemoved(v);
+        }
         m_keyCache.clear();
-        m_size = 0;
-
         m_variationCache.clear();
+        clearStore();
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -821,37 +877,18 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * @param entriesOnly if <code>true</code>, only entries will be cleared, otherwise
      *         the entries and the keys will be cleared
      */
-    private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
-
-        Set<String> keys = synchronizedCopyKeys(m_keyCache);
-        Iterator<String> i = keys.iterator();
-        while (i.hasNext()) {
-            String s = i.next();
-            if (s.endsWith(suffix)) {
-                CmsFlexCacheVariation v = m_keyCache.get(s);
-                if (entriesOnly) {
-                    // Clear only entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+    private void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
+
+        // the key map is concurrent, so it can be iterated without a copy while lookups continue
+        for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+            if (entry.getKey().endsWith(suffix)) {
+                CmsFlexCacheVariation v = entry.getValue();
+                if (!entriesOnly) {
+                    // Clear key and entry, remove the key first so no new variations are added to it
+                    m_keyCache.remove(entry.getKey(), v);
+                    removeKeyVariations(v);
                 } else {
-                    // Clear key and entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-
-                    v.m_map = null;
-                    v.m_key = null;
-                    m_keyCache.remove(s);
+                    removeVariations(v);
                 }
             }
         }
@@ -898,49 +935,123 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 if (LOG.isInfoEnabled()) {
                     LOG.info(p + "Flex cache buckets for publish list: " + publishListBucketSet.toString());
                 }
-                synchronized (this) {
-                    List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
-                    for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
-                        CmsFlexCacheVariation variation = entry.getValue();
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(p + "Processing entries for " + entry.getKey());
-                        }
-                        entriesToDelete.clear();
-
-                        for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : synchronizedCopyMap(
-                            variation.m_map).entrySet()) {
-                            CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
-                            totalEntries += 1;
-                            BucketSet entryBucketSet = flexEntry.getBucketSet();
-                            if (publishListBucketSet.matchForDeletion(entryBucketSet)) {
-                                entriesToDelete.add(flexEntry);
-                                if (LOG.isInfoEnabled()) {
-                                    LOG.info(p + "Match: " + variationEntry.getKey());
-                                }
-                            } else {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug(p + "No match: " + variationEntry.getKey());
-                                }
+                List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
+                for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+                    CmsFlexCacheVariation variation = entry.getValue();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(p + "Processing entries for " + entry.getKey());
+                    }
+                    entriesToDelete.clear();
+
+                    for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : variation.m_map.entrySet()) {
+                        CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
+                        totalEntries += 1;
+                        BucketSet entryBucketSet = flexEntry.getBucketSet();
+                        if (publishListBucketSet.matchForDeletion(entryBucketSet)) {
+                            entriesToDelete.add(flexEntry);
+                            if (LOG.isInfoEnabled()) {
+                                LOG.info(p + "Match: " + variationEntry.getKey());
+                            }
+                        } else {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug(p + "No match: " + variationEntry.getKey());
                             }
                         }
-                        for (CmsFlexCacheEntry entryToDelete : entriesToDelete) {
-                            m_variationCache.remove(entryToDelete);
+                    }
+                    for (CmsFlexCacheEntry entryToDelete : entriesToDelete) {
+                        m_variationCache.remove(entryToDelete);
+                        removedEntries += 1;
+                    }
+                }
+                long endTime = System.currentTimeMillis();
+                LOG.info(
+                    p
+                        + "Removed "
+                        + removedEntries
+                        + " of "
+                        + totalEntries
+                        + " Flex cache entries, took "
+                        + (endTime - startTime)
+                        + " milliseconds");
+                // the second level store does not know the buckets of its entries
+                clearStore();
+                return true;
+            }
+        } catch (Exception e) {
+            LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Removes the cache entries built from the resources in the given publish list.<p>
+     *
+     * Besides the published resources themselves, the parent folders of new, deleted and moved
+     * resources are treated as changed, since entries listing the folder content are affected as well.
+     * Entries for which the used resources are unknown are always removed.<p>
+     *
+     * @param publishId the publish id
+     * @param publishedResources the published resources
+     *
+     * @return true if the entries could be removed selectively, false if the complete cache has to be cleared
+     */
+    private boolean clearForPublishList(CmsUUID publishId, List<CmsPublishedResource> publishedResources) {
+
+        long startTime = System.currentTimeMillis();
+        String p = "[" + publishId + "] "; // Prefix for log messages
+        try {
+            Set<CmsUUID> changedIds = new HashSet<CmsUUID>();
+            // entries with unknown dependencies are registered with the null id
+            changedIds.add(CmsUUID.getNullUUID());
+            Set<String> parentFolders = new HashSet<String>();
+            for (CmsPublishedResource pubRes : publishedResources) {
+                if (CmsResourceTypeJsp.isJspTypeId(pubRes.getType())) {
+                    // JSP code may influence any entry
+                    LOG.info(p + "JSP published, clearing Flex cache completely: " + pubRes.getRootPath());
+                    return false;
+                }
+                changedIds.add(pubRes.getResourceId());
+                if (pubRes.getState().isNew() || pubRes.getState().isDeleted() || pubRes.isMoved()) {
+                    String parentFolder = CmsResource.getParentFolder(pubRes.getRootPath());
+                    if (parentFolder != null) {
+                        parentFolders.add(parentFolder);
+                    }
+                }
+            }
+            if (!parentFolders.isEmpty()) {
+                CmsObject rootCms = OpenCms.initCmsObject(m_cmsObject);
+                rootCms.getRequestContext().setSiteRoot("");
+                for (String parentFolder : parentFolders) {
+                    changedIds.add(rootCms.readResource(parentFolder, CmsResourceFilter.ALL).getResourceId());
+                }
+            }
+            long removedEntries = 0;
+            for (CmsUUID changedId : changedIds) {
+                Set<CmsFlexCacheEntry> entries = m_dependencyIndex.get(changedId);
+                if (entries != null) {
+                    // removing an entry from the LRU cache also removes it from the index, the set is concurrent
+                    for (CmsFlexCacheEntry entry : entries) {
+                        if (m_variationCache.remove(entry) != null) {
                             removedEntries += 1;
                         }
                     }
-                    long endTime = System.currentTimeMillis();
-                    LOG.info(
-                        p
-                            + "Removed "
-                            + removedEntries
-                            + " of "
-                            + totalEntries
-                            + " Flex cache entries, took "
-                            + (endTime - startTime)
-                            + " milliseconds");
-                    return true;
                 }
             }
+            I_CmsFlexCacheStore store = m_store;
+            if (store != null) {
+                store.remove(changedIds);
+            }
+            long endTime = System.currentTimeMillis();
+            LOG.info(
+                p
+                    + "Removed "
+                    + removedEntries
+                    + " Flex cache entries depending on "
+                    + changedIds.size()
+                    + " published resources, took "
+                    + (endTime - startTime)
+                    + " milliseconds");
+            return true;
         } catch (Exception e) {
             LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
             return false;
@@ -955,7 +1066,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * Only users with administrator permissions are allowed
      * to perform this operation.<p>
      */
-    private synchronized void clearEntries() {
+    private void clearEntries() {
 
         if (!isEnabled()) {
             return;
@@ -963,20 +1074,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
-        // create new set to avoid ConcurrentModificationExceptions
-        Set<String> cacheKeys = synchronizedCopyKeys(m_keyCache);
-        Iterator<String> i = cacheKeys.iterator();
-        while (i.hasNext()) {
-            CmsFlexCacheVariation v = m_keyCache.get(i.next());
-            Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-            while (allEntries.hasNext()) {
-                I_CmsLruCacheObject nextObject = allEntries.next();
-                allEntries.remove();
-                m_variationCache.remove(nextObject);
-            }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        for (CmsFlexCacheVariation v : m_keyCache.values()) {
+            removeVariations(v);
         }
-        m_size = 0;
+        clearStore();
     }
 
     /**
@@ -1035,6 +1136,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ONLINE_KEYS_AND_ENTRIES_0));
         }
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, false);
+        clearStore();
     }
 
     /**
@@ -1055,6 +1157,39 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ONLINE_ENTRIES_0));
         }
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
+        clearStore();
+    }
+
+    /**
+     * Removes all entries from the second level store, if one is used.<p>
+     */
+    private void clearStore() {
+
+        I_CmsFlexCacheStore store = m_store;
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    /**
+     * Reads an entry from the second level store and adds it to the cache.<p>
+     *
+     * @param key the key of the resource
+     * @param variation the variation of the entry
+     *
+     * @return the entry, or <code>null</code> if the store does not contain a matching entry
+     */
+    private CmsFlexCacheEntry getFromStore(CmsFlexCacheKey key, String variation) {
+
+        I_CmsFlexCacheStore store = m_store;
+        if ((store == null) || !key.getResource().endsWith(CACHE_ONLINESUFFIX)) {
+            return null;
+        }
+        CmsFlexCacheEntry entry = store.get(key.getResource(), variation);
+        if (entry != null) {
+            put(key, entry, variation);
+        }
+        return entry;
     }
 
     /**
@@ -1067,7 +1202,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * a complete purge of all JSP pages on a machine after
      * a major update of JSP templates was made.<p>
      */
-    private synchronized void purgeJspRepository() {
+    private void purgeJspRepository() {
 
         CmsJspLoader cmsJspLoader = (CmsJspLoader)OpenCms.getResourceManager().getLoader(
             CmsJspLoader.RESOURCE_LOADER_ID);
@@ -1082,6 +1217,75 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         });
     }
 
+    /**
+     * Adds a cache entry to the dependency index.<p>
+     *
+     * @param entry the cache entry
+     */
+    private void registerDependencies(CmsFlexCacheEntry entry) {
+
+        Set<CmsUUID> resourceIds = entry.getResourceIds();
+        if (resourceIds == null) {
+            resourceIds = Collections.singleton(CmsUUID.getNullUUID());
+        }
+        for (CmsUUID resourceId : resourceIds) {
+            m_dependencyIndex.computeIfAbsent(resourceId, id -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+        entry.setDependencyIndex(m_dependencyIndex);
+    }
+
+    /**
+     * Marks a variation whose key was removed from the key cache, so no more entries are added to it.<p>
+     *
+     * @param v the variation of the removed key
+     */
+    private void markRemoved(CmsFlexCacheVariation v) {
+
+        synchronized (v) {
+            v.m_removed = true;
+        }
+    }
+
+    /**
+     * Removes all cached entries of a variation whose key was removed from the key cache.<p>
+     *
+     * @param v the variation of the removed key
+     */
+    private void removeKeyVariations(CmsFlexCacheVariation v) {
+
+        if (v == null) {
+            return;
+        }
+        markRemoved(v);
+        removeVariations(v);
+    }
+
+    /**
+     * Removes all cached entries of a variation from the LRU cache.<p>
+     *
+     * A fresh variation map is installed before the old entries are removed, so concurrent lookups
+     * never see a half cleared map and new entries can be added while the old ones are released.
+     * The map is swapped under the lock of the variation, which is also held while an entry is added,
+     * so an entry always ends up in the map that is cleared, or in the fresh one.<p>
+     *
+     * @param v the variation to clear
+     */
+    private void removeVariations(CmsFlexCacheVariation v) {
+
+        if (v == null) {
+            return;
+        }
+        Map<String, I_CmsLruCacheObject> oldMap;
+        synchronized (v) {
+            oldMap = v.m_map;
+            v.m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        }
+        for (I_CmsLruCacheObject entry : oldMap.values()) {
+            m_variationCache.remove(entry);
+        }
+        oldMap.clear();
+    }
+
     /**
      * Save a value to the cache.<p>
      *
@@ -1092,8 +1296,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry, String variation) {
 
         CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
-        if (o != null) {
-            // We already have a variation map for this resource
+        if (o == null) {
+            // No variation map for this resource yet, so create one
+            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
+            o = m_keyCache.putIfAbsent(key.getResource(), list);
+            if (o == null) {
+                o = list;
+            }
+        }
+        synchronized (o) {
+            if (o.m_removed) {
+                // the key was evicted or removed in the meantime, the entry would never be found
+                return;
+            }
             Map<String, I_CmsLruCacheObject> m = o.m_map;
             boolean wasAdded = true;
             if (!m.containsKey(variation)) {
@@ -1105,17 +1320,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             if (wasAdded) {
                 theCacheEntry.setVariationData(variation, m);
                 m.put(variation, theCacheEntry);
-            }
-        } else {
-            // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
-
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(variation, list.m_map);
-                list.m_map.put(variation, theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+                if (m_targetedInvalidation) {
+                    registerDependencies(theCacheEntry);
+                }
             }
         }
 
@@ -1123,7 +1330,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(
                 Messages.get().getBundle().key(
                     Messages.LOG_FLEXCACHE_ADDED_ENTRY_FOR_RESOURCE_WITH_VARIATION_3,
-                    Integer.valueOf(m_size),
+                    Integer.valueOf(m_variationCache.size()),
                     key.getResource(),
                     variation));
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
@@ -74,6 +74,9 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** Indicates if only the entries affected by a publish should be removed from the cache. */
+    private boolean m_targetedInvalidation;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -191,6 +194,16 @@ public class CmsFlexCacheConfiguration {
         return m_cacheOffline;
     }
 
+    /**
+     * Checks if only the cache entries built from published resources are removed on publish.<p>
+     *
+     * @return true if targeted invalidation is enabled; otherwise false
+     */
+    public boolean isTargetedInvalidation() {
+
+        return m_targetedInvalidation;
+    }
+
     /**
      * Sets the avgCacheBytes.<p>
      *
@@ -287,4 +300,14 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Enables or disables the targeted invalidation on publish.<p>
+     *
+     * @param targetedInvalidation "true" to enable the targeted invalidation
+     */
+    public void setTargetedInvalidation(String targetedInvalidation) {
+
+        m_targetedInvalidation = Boolean.valueOf(targetedInvalidation.trim()).booleanValue();
+    }
 }
@@ -36,6 +36,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.servlet.ServletException;
 
@@ -94,6 +96,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "expires" date for this Flex cache entry. */
     private long m_dateExpires;
 
+    /** The index of resource dependencies where this cache entry is registered. */
+    private Map<CmsUUID, Set<CmsFlexCacheEntry>> m_dependencyIndex;
+
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
@@ -115,6 +120,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A redirection target (if redirection is set). */
     private String m_redirectTarget;
 
+    /** The resource ids of the resources this cache entry was built from, <code>null</code> if unknown. */
+    private Set<CmsUUID> m_resourceIds;
+
     /** The key under which this cache entry is stored in the variation map. */
     private String m_variationKey;
 
@@ -284,6 +292,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the headers of this cache entry.<p>
+     *
+     * @return the headers of this cache entry, or <code>null</code> if no headers have been added
+     */
+    public Map<String, List<String>> getHeaders() {
+
+        return m_headers;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -316,6 +334,26 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_previous;
     }
 
+    /**
+     * Returns the redirect target of this cache entry.<p>
+     *
+     * @return the redirect target, or <code>null</code> if this entry is not a redirect
+     */
+    public String getRedirectTarget() {
+
+        return m_redirectTarget;
+    }
+
+    /**
+     * Returns the resource ids of the resources this cache entry was built from.<p>
+     *
+     * @return the resource ids of the resources, or <code>null</code> if they are unknown
+     */
+    public Set<CmsUUID> getResourceIds() {
+
+        return m_resourceIds;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
      */
@@ -324,6 +362,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns if the redirect of this cache entry is permanent.<p>
+     *
+     * @return true if the redirect of this cache entry is permanent
+     */
+    public boolean isRedirectPermanent() {
+
+        return m_redirectPermanent;
+    }
+
     /**
      * Ensures that the expiration date is at most 'limit'.
      *
@@ -342,7 +390,12 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     public void removeFromLruCache() {
 
         if ((m_variationMap != null) && (m_variationKey != null)) {
-            m_variationMap.remove(m_variationKey);
+            // only remove the mapping if it was not replaced by a newer entry in the meantime
+            m_variationMap.remove(m_variationKey, this);
+        }
+        if (m_dependencyIndex != null) {
+            CmsFlexCache.unregisterDependencies(m_dependencyIndex, this);
+            m_dependencyIndex = null;
         }
         if (LOG.isDebugEnabled()) {
             LOG.debug(
@@ -554,6 +607,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         m_headers = null;
     }
 
+    /**
+     * Sets the resource ids of the resources this cache entry was built from.<p>
+     *
+     * @param resourceIds the resource ids of the resources, or <code>null</code> if they are unknown
+     */
+    public void setResourceIds(Set<CmsUUID> resourceIds) {
+
+        m_resourceIds = resourceIds;
+    }
+
     /**
      * Stores a backward reference to the map and key where this cache entry is stored.<p>
      *
@@ -568,6 +631,18 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         m_variationMap = theVariationMap;
     }
 
+    /**
+     * Stores a backward reference to the dependency index where this cache entry is registered.<p>
+     *
+     * This is required for the FlexCache.<p>
+     *
+     * @param dependencyIndex the dependency index
+     */
+    void setDependencyIndex(Map<CmsUUID, Set<CmsFlexCacheEntry>> dependencyIndex) {
+
+        m_dependencyIndex = dependencyIndex;
+    }
+
     /**
      * @see java.lang.Object#toString()
      *
@@ -0,0 +1,696 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Second level store for the Flex cache which keeps the entries in a memory mapped file in the RFS.<p>
+ *
+ * Entries are appended as records to a file of fixed size, removals are appended as marker records.
+ * Since the file survives a restart, the index of the stored entries is rebuilt from the records
+ * when the store is opened, unless the last publish job finished after the last write.
+ * When the file is full, it is reset and filled again with the following entries.<p>
+ *
+ * Only entries without include calls are stored, since the parameters and attributes
+ * of include calls can not be written to a file.<p>
+ *
+ * The location and size of the file are configured with the runtime properties
+ * {@link #PARAM_DIRECTORY} and {@link #PARAM_SIZE}.<p>
+ *
+ * @since 17.0
+ */
+public class CmsFlexCacheFileStore implements I_CmsFlexCacheStore {
+
+    /** Runtime property for the directory of the store file, relative to the WEB-INF folder. */
+    public static final String PARAM_DIRECTORY = "flex.cache.store.directory";
+
+    /** Runtime property for the size of the store file in megabytes. */
+    public static final String PARAM_SIZE = "flex.cache.store.size";
+
+    /** The default directory of the store file. */
+    private static final String DEFAULT_DIRECTORY = "flexstore";
+
+    /** The default size of the store file in megabytes. */
+    private static final int DEFAULT_SIZE = 128;
+
+    /** Marker at the start of the store file. */
+    private static final int FILE_MAGIC = 0x464C4558;
+
+    /** The name of the store file. */
+    private static final String FILE_NAME = "flexcache.dat";
+
+    /** Size of the file header, containing the marker, the version and the date of the last write. */
+    private static final int HEADER_SIZE = 16;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheFileStore.class);
+
+    /** Marker at the start of every record. */
+    private static final int RECORD_MAGIC = 0x52454331;
+
+    /** Size of the record header, containing the marker, the length and the type of the record. */
+    private static final int RECORD_HEADER_SIZE = 9;
+
+    /** Record type for a stored entry. */
+    private static final byte TYPE_ENTRY = 1;
+
+    /** Record type for the removal of all variations of a resource. */
+    private static final byte TYPE_REMOVED = 2;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** The mapped store file. */
+    private MappedByteBuffer m_buffer;
+
+    /** The channel of the store file. */
+    private FileChannel m_channel;
+
+    /** The resources of the stored entries, by the ids of the resources the entries depend on. */
+    private Map<CmsUUID, Set<String>> m_dependencies;
+
+    /** The store file. */
+    private File m_file;
+
+    /** The offsets of the stored records, by resource and variation. */
+    private Map<String, Map<String, Integer>> m_index;
+
+    /** The lock protecting the mapped file and the index. */
+    private ReadWriteLock m_lock;
+
+    /** The offset at which the next record is written. */
+    private int m_position;
+
+    /** The random access file used to map the store file. */
+    private RandomAccessFile m_randomAccessFile;
+
+    /**
+     * Creates a new file store.<p>
+     *
+     * The store has to be initialized with {@link #initialize(long)} before it is used.<p>
+     */
+    public CmsFlexCacheFileStore() {
+
+        m_index = new HashMap<String, Map<String, Integer>>();
+        m_dependencies = new HashMap<CmsUUID, Set<String>>();
+        m_lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Checks if an entry can be written to the file store.<p>
+     *
+     * @param entry the entry to check
+     *
+     * @return true if the entry is a redirect or contains only output
+     */
+    private static boolean isStorable(CmsFlexCacheEntry entry) {
+
+        if (entry.getRedirectTarget() != null) {
+            return true;
+        }
+        if (entry.elements() == null) {
+            return false;
+        }
+        for (Object element : entry.elements()) {
+            if (!(element instanceof byte[])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.<p>
+     *
+     * @param in the input to read from
+     *
+     * @return the string, may be <code>null</code>
+     *
+     * @throws IOException if reading fails
+     */
+    private static String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a string with its length, <code>null</code> is allowed.<p>
+     *
+     * @param out the output to write to
+     * @param value the string to write
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#clear()
+     */
+    public void clear() {
+
+        m_lock.writeLock().lock();
+        try {
+            if (m_buffer != null) {
+                format();
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#get(java.lang.String, java.lang.String)
+     */
+    public CmsFlexCacheEntry get(String resource, String variation) {
+
+        byte[] payload;
+        m_lock.readLock().lock();
+        try {
+            if (m_buffer == null) {
+                return null;
+            }
+            Map<String, Integer> variations = m_index.get(resource);
+            Integer offset = (variations != null) ? variations.get(variation) : null;
+            if (offset == null) {
+                return null;
+            }
+            payload = readPayload(m_buffer.duplicate(), offset.intValue());
+        } finally {
+            m_lock.readLock().unlock();
+        }
+        try {
+            CmsFlexCacheEntry entry = readEntry(payload);
+            if (entry.getDateExpires() < System.currentTimeMillis()) {
+                return null;
+            }
+            return entry;
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#initialize(long)
+     */
+    public void initialize(long dateLastPublished) throws IOException {
+
+        String directory = (String)OpenCms.getRuntimeProperty(PARAM_DIRECTORY);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(directory)) {
+            directory = DEFAULT_DIRECTORY;
+        }
+        int size = DEFAULT_SIZE;
+        String sizeValue = (String)OpenCms.getRuntimeProperty(PARAM_SIZE);
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(sizeValue)) {
+            size = Integer.parseInt(sizeValue.trim());
+        }
+        // a mapped buffer is limited to 2 GB
+        size = Math.max(1, Math.min(size, 2047));
+        File folder = new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(directory));
+        open(new File(folder, FILE_NAME), size * 1024 * 1024, dateLastPublished);
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#put(java.lang.String, java.lang.String, org.opencms.flex.CmsFlexCacheEntry)
+     */
+    public void put(String resource, String variation, CmsFlexCacheEntry entry) {
+
+        if ((m_buffer == null) || !isStorable(entry)) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = writeEntry(resource, variation, entry);
+        } catch (IOException e) {
+            // can not happen when writing to a byte array
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        Set<CmsUUID> resourceIds = entry.getResourceIds();
+        if (resourceIds == null) {
+            resourceIds = Collections.singleton(CmsUUID.getNullUUID());
+        }
+        m_lock.writeLock().lock();
+        try {
+            if (m_buffer == null) {
+                return;
+            }
+            int offset = append(TYPE_ENTRY, payload);
+            if (offset < 0) {
+                return;
+            }
+            Map<String, Integer> variations = m_index.get(resource);
+            if (variations == null) {
+                variations = new HashMap<String, Integer>();
+                m_index.put(resource, variations);
+            }
+            variations.put(variation, Integer.valueOf(offset));
+            for (CmsUUID resourceId : resourceIds) {
+                addDependency(resourceId, resource);
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#remove(java.util.Set)
+     */
+    public void remove(Set<CmsUUID> resourceIds) {
+
+        m_lock.writeLock().lock();
+        try {
+            if (m_buffer == null) {
+                return;
+            }
+            Set<String> resources = new HashSet<String>();
+            for (CmsUUID resourceId : resourceIds) {
+                Set<String> dependent = m_dependencies.remove(resourceId);
+                if (dependent != null) {
+                    resources.addAll(dependent);
+                }
+            }
+            Set<String> unknown = m_dependencies.remove(CmsUUID.getNullUUID());
+            if (unknown != null) {
+                resources.addAll(unknown);
+            }
+            for (String resource : resources) {
+                if (m_index.remove(resource) != null) {
+                    append(TYPE_REMOVED, writeRemoval(resource));
+                }
+            }
+        } catch (IOException e) {
+            // can not happen when writing to a byte array
+            LOG.error(e.getLocalizedMessage(), e);
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.flex.I_CmsFlexCacheStore#shutDown()
+     */
+    public void shutDown() {
+
+        m_lock.writeLock().lock();
+        try {
+            if (m_buffer != null) {
+                m_buffer.force();
+                m_buffer = null;
+            }
+            if (m_randomAccessFile != null) {
+                m_randomAccessFile.close();
+                m_randomAccessFile = null;
+                m_channel = null;
+            }
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens the given store file, creating or resetting it if required.<p>
+     *
+     * @param file the store file
+     * @param capacity the size of the store file in bytes
+     * @param dateLastPublished the time the last publish job finished
+     *
+     * @throws IOException if the file can not be opened
+     */
+    protected void open(File file, int capacity, long dateLastPublished) throws IOException {
+
+        m_lock.writeLock().lock();
+        try {
+            file.getParentFile().mkdirs();
+            m_file = file;
+            m_randomAccessFile = new RandomAccessFile(file, "rw");
+            boolean resized = m_randomAccessFile.length() != capacity;
+            if (resized) {
+                m_randomAccessFile.setLength(capacity);
+            }
+            m_channel = m_randomAccessFile.getChannel();
+            m_buffer = m_channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            if (resized || (m_buffer.getInt(0) != FILE_MAGIC) || (m_buffer.getInt(4) != VERSION)) {
+                format();
+            } else if (m_buffer.getLong(8) < dateLastPublished) {
+                // resources may have been published while this store was not in use
+                format();
+            } else {
+                load();
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_STORE_OPENED_3,
+                        m_file.getAbsolutePath(),
+                        Integer.valueOf(m_index.size()),
+                        Integer.valueOf(m_position)));
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a stored resource for a resource id it depends on.<p>
+     *
+     * @param resourceId the resource id
+     * @param resource the resource name of the stored entry
+     */
+    private void addDependency(CmsUUID resourceId, String resource) {
+
+        Set<String> resources = m_dependencies.get(resourceId);
+        if (resources == null) {
+            resources = new HashSet<String>();
+            m_dependencies.put(resourceId, resources);
+        }
+        resources.add(resource);
+    }
+
+    /**
+     * Appends a record to the store file, resetting the file if it is full.<p>
+     *
+     * The record marker is written last, so an interrupted write leaves no readable record.<p>
+     *
+     * @param type the record type
+     * @param payload the record payload
+     *
+     * @return the offset of the record, or -1 if the record is too large for the store
+     */
+    private int append(byte type, byte[] payload) {
+
+        int length = RECORD_HEADER_SIZE + payload.length;
+        if ((m_position + length + 4) > m_buffer.capacity()) {
+            if ((HEADER_SIZE + length + 4) > (m_buffer.capacity() / 2)) {
+                // do not reset the store for a single large entry
+                return -1;
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_STORE_FULL_1, m_file.getAbsolutePath()));
+            }
+            format();
+        }
+        int offset = m_position;
+        ByteBuffer buffer = m_buffer.duplicate();
+        buffer.putInt(offset + length, 0);
+        buffer.position(offset + 4);
+        buffer.putInt(payload.length);
+        buffer.put(type);
+        buffer.put(payload);
+        buffer.putInt(offset, RECORD_MAGIC);
+        buffer.putLong(8, System.currentTimeMillis());
+        m_position = offset + length;
+        return offset;
+    }
+
+    /**
+     * Resets the store file and the index.<p>
+     */
+    private void format() {
+
+        m_buffer.putInt(0, FILE_MAGIC);
+        m_buffer.putInt(4, VERSION);
+        m_buffer.putLong(8, System.currentTimeMillis());
+        m_buffer.putInt(HEADER_SIZE, 0);
+        m_position = HEADER_SIZE;
+        m_index.clear();
+        m_dependencies.clear();
+    }
+
+    /**
+     * Rebuilds the index from the records in the store file.<p>
+     */
+    private void load() {
+
+        ByteBuffer buffer = m_buffer.duplicate();
+        int offset = HEADER_SIZE;
+        while ((offset + RECORD_HEADER_SIZE) <= buffer.capacity()) {
+            if (buffer.getInt(offset) != RECORD_MAGIC) {
+                break;
+            }
+            int length = buffer.getInt(offset + 4);
+            if ((length < 0) || ((offset + RECORD_HEADER_SIZE + length) > buffer.capacity())) {
+                break;
+            }
+            byte type = buffer.get(offset + 8);
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(readPayload(buffer, offset)));
+                String resource = readString(in);
+                String variation = readString(in);
+                if (type == TYPE_REMOVED) {
+                    m_index.remove(resource);
+                } else {
+                    Map<String, Integer> variations = m_index.get(resource);
+                    if (variations == null) {
+                        variations = new HashMap<String, Integer>();
+                        m_index.put(resource, variations);
+                    }
+                    variations.put(variation, Integer.valueOf(offset));
+                    // skip the dates
+                    in.readLong();
+                    in.readLong();
+                    int count = in.readInt();
+                    if (count < 0) {
+                        addDependency(CmsUUID.getNullUUID(), resource);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        byte[] id = new byte[16];
+                        in.readFully(id);
+                        addDependency(new CmsUUID(id), resource);
+                    }
+                }
+            } catch (Exception e) {
+                // a damaged record, keep the records read so far
+                LOG.warn(e.getLocalizedMessage(), e);
+                break;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        m_position = offset;
+        if ((offset + 4) <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+    }
+
+    /**
+     * Decodes a stored entry.<p>
+     *
+     * @param payload the record payload
+     *
+     * @return the completed entry
+     *
+     * @throws IOException if the payload is damaged
+     */
+    private CmsFlexCacheEntry readEntry(byte[] payload) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        // skip resource and variation
+        readString(in);
+        readString(in);
+        long dateExpires = in.readLong();
+        long dateLastModified = in.readLong();
+        Set<CmsUUID> resourceIds = null;
+        int count = in.readInt();
+        if (count >= 0) {
+            resourceIds = new HashSet<CmsUUID>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[16];
+                in.readFully(id);
+                resourceIds.add(new CmsUUID(id));
+            }
+        }
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        String redirectTarget = readString(in);
+        boolean redirectPermanent = in.readBoolean();
+        if (redirectTarget != null) {
+            entry.setRedirect(redirectTarget, redirectPermanent);
+        } else {
+            count = in.readInt();
+            if (count >= 0) {
+                Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>(count);
+                for (int i = 0; i < count; i++) {
+                    String name = readString(in);
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<String>(valueCount);
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(readString(in));
+                    }
+                    headers.put(name, values);
+                }
+                entry.addHeaders(headers);
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                entry.add(bytes);
+            }
+        }
+        entry.setResourceIds(resourceIds);
+        entry.setDateExpires(dateExpires);
+        entry.setDateLastModified(dateLastModified);
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Copies the payload of the record at the given offset.<p>
+     *
+     * @param buffer the buffer to read from
+     * @param offset the offset of the record
+     *
+     * @return the payload of the record
+     */
+    private byte[] readPayload(ByteBuffer buffer, int offset) {
+
+        byte[] payload = new byte[buffer.getInt(offset + 4)];
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.get(payload);
+        return payload;
+    }
+
+    /**
+     * Encodes an entry as record payload.<p>
+     *
+     * @param resource the resource name of the Flex cache key
+     * @param variation the variation of the entry
+     * @param entry the entry to encode
+     *
+     * @return the record payload
+     *
+     * @throws IOException if writing fails
+     */
+    private byte[] writeEntry(String resource, String variation, CmsFlexCacheEntry entry) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.getLruCacheCosts());
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, resource);
+        writeString(out, variation);
+        out.writeLong(entry.getDateExpires());
+        out.writeLong(entry.getDateLastModified());
+        Set<CmsUUID> resourceIds = entry.getResourceIds();
+        if (resourceIds == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(resourceIds.size());
+            for (CmsUUID resourceId : resourceIds) {
+                out.write(resourceId.toByteArray());
+            }
+        }
+        writeString(out, entry.getRedirectTarget());
+        out.writeBoolean(entry.isRedirectPermanent());
+        if (entry.getRedirectTarget() == null) {
+            Map<String, List<String>> headers = entry.getHeaders();
+            if (headers == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(headers.size());
+                for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                    writeString(out, header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        writeString(out, value);
+                    }
+                }
+            }
+            out.writeInt(entry.elements().size());
+            for (Object element : entry.elements()) {
+                byte[] data = (byte[])element;
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes the removal of all variations of a resource as record payload.<p>
+     *
+     * @param resource the resource name of the Flex cache key
+     *
+     * @return the record payload
+     *
+     * @throws IOException if writing fails
+     */
+    private byte[] writeRemoval(String resource) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, resource);
+        writeString(out, "");
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
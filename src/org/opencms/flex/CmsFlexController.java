@@ -29,9 +29,11 @@ package org.opencms.flex;
 
 import org.opencms.ade.detailpage.CmsDetailPageResourceHandler;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestReadCache;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.HashSet;
 import java.util.List;
@@ -155,6 +157,10 @@ public class CmsFlexController {
         m_flexContextInfoList = new Vector<CmsFlexRequestContextInfo>();
         m_forwardMode = false;
         m_throwableResourceUri = null;
+        if (top) {
+            // memoize repeated reads while rendering this request, if enabled
+            CmsRequestReadCache.attach(cms.getRequestContext());
+        }
     }
 
     /**
@@ -397,6 +403,9 @@ public class CmsFlexController {
         }
         m_req = null;
         m_res = null;
+        if (m_cmsObject != null) {
+            CmsRequestReadCache.remove(m_cmsObject.getRequestContext());
+        }
         m_cmsObject = null;
         m_resource = null;
         m_cache = null;
@@ -489,6 +498,22 @@ public class CmsFlexController {
         return (m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the resource ids of all resources read during the current include.<p>
+     *
+     * @return the resource ids of the resources read, or <code>null</code> if the resources were not tracked
+     *
+     * @see CmsFlexRequestContextInfo#getResourceIds()
+     */
+    public Set<CmsUUID> getResourceIds() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return (m_flexContextInfoList.get(pos)).getResourceIds();
+    }
+
     /**
      * Returns the size of the response stack.<p>
      *
@@ -618,7 +643,8 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        m_flexContextInfoList.add(
+            new CmsFlexRequestContextInfo((m_cache != null) && m_cache.isTargetedInvalidation()));
         updateRequestContextInfo();
     }
 
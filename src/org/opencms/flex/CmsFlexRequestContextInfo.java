@@ -28,6 +28,10 @@
 package org.opencms.flex;
 
 import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Contains information about the OpenCms request context required by the
@@ -38,23 +42,45 @@ import org.opencms.file.CmsResource;
  * Information about the "last modified" and "expire" times of VFS resources are
  * stored in this Object.<p>
  *
+ * If resource tracking is enabled, the resource ids of all VFS resources read in the context
+ * are collected as well. The Flex cache uses these to invalidate only the affected entries on publish.<p>
+ *
  * @since 6.0.0
  */
 public class CmsFlexRequestContextInfo {
 
+    /** The maximum number of tracked resources, if more resources are read the context is treated as untracked. */
+    public static final int MAX_TRACKED_RESOURCES = 1024;
+
     /** The currently calculated "expires" date for this request context .*/
     private long m_dateExpires;
 
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The resource ids of the resources read in this context, <code>null</code> if not tracked. */
+    private Set<CmsUUID> m_resourceIds;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Creates a new context info.<p>
+     *
+     * @param trackResources if <code>true</code>, the resource ids of the resources read in this context are collected
+     */
+    public CmsFlexRequestContextInfo(boolean trackResources) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (trackResources) {
+            m_resourceIds = new HashSet<CmsUUID>();
+        }
     }
 
     /**
@@ -77,15 +103,49 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the resource ids of all resources read in this context.<p>
+     *
+     * @return the resource ids of the resources read, or <code>null</code> if the resources were not tracked
+     *      or too many resources were read
+     */
+    public Set<CmsUUID> getResourceIds() {
+
+        return m_resourceIds;
+    }
+
+    /**
+     * Checks if the resource ids of the resources read in this context are collected.<p>
+     *
+     * @return <code>true</code> if the resource ids are collected
+     */
+    public boolean isTrackingResources() {
+
+        return m_resourceIds != null;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
+     * The resource ids collected by the other context are added to the ids of this context.
+     * If the other context did not collect its resources completely, this context is treated as untracked as well.<p>
+     *
      * @param other the context info to merge with
      */
     public void merge(CmsFlexRequestContextInfo other) {
 
         updateDateLastModified(other.getDateLastModified());
         updateDateExpires(other.getDateExpires());
+        if (m_resourceIds != null) {
+            Set<CmsUUID> otherIds = other.getResourceIds();
+            if (otherIds == null) {
+                // the dependencies of the other context are unknown, so they are unknown for this context as well
+                m_resourceIds = null;
+            } else {
+                m_resourceIds.addAll(otherIds);
+                checkTrackedResources();
+            }
+        }
     }
 
     /**
@@ -150,5 +210,20 @@ public class CmsFlexRequestContextInfo {
         // now use both release and expiration date from the resource to update the expires info
         updateDateExpires(resource.getDateReleased());
         updateDateExpires(resource.getDateExpired());
+        if (m_resourceIds != null) {
+            m_resourceIds.add(resource.getResourceId());
+            checkTrackedResources();
+        }
+    }
+
+    /**
+     * Stops collecting resource ids if too many resources were read.<p>
+     */
+    private void checkTrackedResources() {
+
+        if (m_resourceIds.size() > MAX_TRACKED_RESOURCES) {
+            // too many dependencies, the cache entry will be treated as depending on everything
+            m_resourceIds = null;
+        }
     }
 }
@@ -35,10 +35,13 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
@@ -307,32 +310,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             if (f_req.isCacheable()) {
                 // caching is on, check if requested resource is already in cache
                 entry = cache.get(w_req.getCmsCacheKey());
-                if (entry != null) {
-                    // the target is already in the cache
-                    try {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(
-                                Messages.get().getBundle().key(
-                                    Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
-                                    m_vfsTarget));
-                        }
-                        controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
-                        entry.service(w_req, w_res);
-                    } catch (CmsException e) {
-                        Throwable t;
-                        if (e.getCause() != null) {
-                            t = e.getCause();
-                        } else {
-                            t = e;
-                        }
-                        t = controller.setThrowable(e, m_vfsTarget);
-                        throw new ServletException(
-                            Messages.get().getBundle().key(
-                                Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
-                                m_vfsTarget),
-                            t);
-                    }
-                } else {
+                if (entry == null) {
                     // cache is on and resource is not yet cached, so we need to read the cache key for the response
                     CmsFlexCacheKey res_key = cache.getKey(CmsFlexCacheKey.getKeyName(m_vfsTarget, w_req.isOnline()));
                     if (res_key != null) {
@@ -389,6 +367,34 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                     m_vfsTarget,
                                     cacheProperty));
                         }
+                        // the key is known now, so the entry may be available from the second level store
+                        entry = cache.get(w_req.getCmsCacheKey());
+                    }
+                }
+                if (entry != null) {
+                    // the target is already in the cache
+                    try {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
+                                    m_vfsTarget));
+                        }
+                        controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+                        entry.service(w_req, w_res);
+                    } catch (CmsException e) {
+                        Throwable t;
+                        if (e.getCause() != null) {
+                            t = e.getCause();
+                        } else {
+                            t = e;
+                        }
+                        t = controller.setThrowable(e, m_vfsTarget);
+                        throw new ServletException(
+                            Messages.get().getBundle().key(
+                                Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
+                                m_vfsTarget),
+                            t);
                     }
                 }
             }
@@ -468,6 +474,16 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    if (cache.isTargetedInvalidation()) {
+                        Set<CmsUUID> resourceIds = controller.getResourceIds();
+                        if (resourceIds != null) {
+                            resourceIds = new HashSet<CmsUUID>(resourceIds);
+                            if (resource != null) {
+                                resourceIds.add(resource.getResourceId());
+                            }
+                        }
+                        entry.setResourceIds(resourceIds);
+                    }
                     cache.put(w_res.getCmsCacheKey(), entry, variation, w_req.getCmsCacheKey());
                 } else if (!ignore) {
                     // result can not be cached, do not use "last modified" optimization
@@ -478,7 +494,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             if (f_res.hasIncludeList()) {
                 // special case: this indicates that the output was not yet displayed
                 Map<String, List<String>> headers = w_res.getHeaders();
-                byte[] result = w_res.getWriterBytes();
+                // the include results are only read, so the buffer array can be shared
+                byte[] result = w_res.getSharedWriterBytes();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(
                         Messages.get().getBundle().key(
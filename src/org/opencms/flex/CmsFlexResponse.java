@@ -42,6 +42,7 @@ import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -65,6 +66,69 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexResponse extends HttpServletResponseWrapper {
 
+    /**
+     * Byte buffer that gives access to its internal array, to avoid copying the buffered output.<p>
+     */
+    private static class CmsFlexByteBuffer extends ByteArrayOutputStream {
+
+        /** Indicates if the internal array has been handed out by {@link #getSharedBytes()}. */
+        private boolean m_shared;
+
+        /**
+         * Creates a new buffer with the given initial capacity.<p>
+         *
+         * @param size the initial capacity
+         */
+        CmsFlexByteBuffer(int size) {
+
+            super(size);
+        }
+
+        /**
+         * Returns the internal array of this buffer, only the first {@link #size()} bytes are valid.<p>
+         *
+         * @return the internal array of this buffer
+         */
+        byte[] getBuffer() {
+
+            return buf;
+        }
+
+        /**
+         * Returns the buffered bytes for read-only use.<p>
+         *
+         * If the buffer is filled exactly, the internal array is returned without copying it,
+         * otherwise a copy is made like in {@link #toByteArray()}.
+         * The returned array is never modified by this buffer afterwards, since further output
+         * always goes to a new array, and a reset buffer does not reuse a shared array.
+         * Callers must not modify the returned array.<p>
+         *
+         * @return the buffered bytes, which must not be modified
+         */
+        synchronized byte[] getSharedBytes() {
+
+            if (count == buf.length) {
+                m_shared = true;
+                return buf;
+            }
+            return toByteArray();
+        }
+
+        /**
+         * @see java.io.ByteArrayOutputStream#reset()
+         */
+        @Override
+        public synchronized void reset() {
+
+            if (m_shared) {
+                // never write into an array that has been handed out
+                buf = new byte[buf.length];
+                m_shared = false;
+            }
+            super.reset();
+        }
+    }
+
     /**
      * Wrapped implementation of the ServletOutputStream.<p>
      *
@@ -79,7 +143,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         private ServletOutputStream m_servletStream;
 
         /** The internal stream buffer. */
-        private ByteArrayOutputStream m_stream;
+        private CmsFlexByteBuffer m_stream;
 
         /**
          * Constructor that must be used if the stream should write
@@ -108,7 +172,17 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
          */
         public void clear() {
 
-            m_stream = new java.io.ByteArrayOutputStream(1024);
+            clear(1024);
+        }
+
+        /**
+         * Clears the buffer by initializing the buffer with a new stream of the given capacity.<p>
+         *
+         * @param size the initial capacity of the new buffer
+         */
+        public void clear(int size) {
+
+            m_stream = new CmsFlexByteBuffer(Math.max(size, 32));
         }
 
         /**
@@ -150,6 +224,38 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
             return m_stream.toByteArray();
         }
 
+        /**
+         * Provides direct access to the internal array of the buffer, without copying it.<p>
+         *
+         * Only the first {@link #getSize()} bytes of the array are valid.<p>
+         *
+         * @return the internal array of the buffer
+         */
+        public byte[] getBuffer() {
+
+            return m_stream.getBuffer();
+        }
+
+        /**
+         * Provides read-only access to the bytes cached in the buffer, avoiding a copy where possible.<p>
+         *
+         * @return the cached bytes from the buffer, which must not be modified
+         */
+        public byte[] getSharedBytes() {
+
+            return m_stream.getSharedBytes();
+        }
+
+        /**
+         * Returns the number of bytes in the buffer.<p>
+         *
+         * @return the number of bytes in the buffer
+         */
+        public int getSize() {
+
+            return m_stream.size();
+        }
+
         /**
          * @see java.io.OutputStream#write(byte[], int, int)
          */
@@ -584,23 +690,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
      */
     public byte[] getWriterBytes() {
 
-        if (isSuspended()) {
-            // No output whatsoever if the response is suspended
-            return new byte[0];
-        }
-        if (m_cacheBytes != null) {
-            // Optimization for cached "leaf" nodes, here I re-use the array from the cache
-            return m_cacheBytes;
-        }
-        if (m_out == null) {
-            // No output was written so far, just return an empty array
-            return new byte[0];
-        }
-        if (m_writer != null) {
-            // Flush the writer in case something was written on it
-            m_writer.flush();
-        }
-        return m_out.getBytes();
+        return getWriterBytes(false);
     }
 
     /**
@@ -849,6 +939,19 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         return m_key;
     }
 
+    /**
+     * Returns the bytes that have been written on the current writers output stream for read-only use.<p>
+     *
+     * In contrast to {@link #getWriterBytes()}, the internal buffer array may be returned without copying it,
+     * so the result must not be modified.<p>
+     *
+     * @return the bytes that have been written on the current writers output stream, which must not be modified
+     */
+    byte[] getSharedWriterBytes() {
+
+        return getWriterBytes(true);
+    }
+
     /**
      * Is used to check if the response has an include list,
      * which indicates a) it is probably processing a JSP element
@@ -912,11 +1015,13 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
                 sendRedirect(m_bufferRedirect, m_redirectPermanent);
             } else {
                 // process the output
+                List<byte[]> parts = getCachedResultParts();
                 if (m_parentWritesOnlyToBuffer) {
                     // write results back to own stream, headers are already in buffer
                     if (m_out != null) {
                         try {
-                            m_out.clear();
+                            // size the buffer exactly, so the parent can use the array without copying it
+                            m_out.clear(getCachedResultSize(parts));
                         } catch (Exception e) {
                             if (LOG.isDebugEnabled()) {
                                 LOG.debug(
@@ -931,12 +1036,14 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
                                 Messages.get().getBundle().key(Messages.LOG_FLEXRESPONSE_ERROR_OUTPUT_STREAM_NULL_0));
                         }
                     }
-                    writeCachedResultToStream(this);
+                    writeCachedResultToStream(this, parts);
                 } else {
                     // we can use the parent stream
                     processHeaders(m_headers, m_res);
-                    writeCachedResultToStream(m_res);
+                    writeCachedResultToStream(m_res, parts);
                 }
+                // the include results are now part of the output, release them early
+                m_includeResults = null;
             }
         }
         return m_cachedEntry;
@@ -1074,6 +1181,83 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         values.add(value);
     }
 
+    /**
+     * Returns the parts of the cached result in output order, with the include calls
+     * replaced by the results of the include calls.<p>
+     *
+     * @return the parts of the cached result
+     */
+    private List<byte[]> getCachedResultParts() {
+
+        List<Object> elements = m_cachedEntry.elements();
+        if (elements == null) {
+            return Collections.emptyList();
+        }
+        List<byte[]> result = new ArrayList<byte[]>(elements.size());
+        int count = 0;
+        for (int i = 0; i < elements.size(); i++) {
+            Object o = elements.get(i);
+            if (o instanceof byte[]) {
+                result.add((byte[])o);
+            } else {
+                if ((m_includeResults != null) && (m_includeResults.size() > count)) {
+                    // make sure that we don't run behind end of list (should never happen, though)
+                    result.add(m_includeResults.get(count));
+                    count++;
+                }
+                // skip next entry, which is the parameter map for this include call
+                i++;
+                // skip next entry, which is the attribute map for this include call
+                i++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total size of the given cached result parts.<p>
+     *
+     * @param parts the cached result parts, as returned by {@link #getCachedResultParts()}
+     *
+     * @return the total size of the cached result
+     */
+    private int getCachedResultSize(List<byte[]> parts) {
+
+        int size = 0;
+        for (byte[] part : parts) {
+            size += part.length;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the bytes that have been written on the current writers output stream.<p>
+     *
+     * @param shared if <code>true</code>, the internal buffer array may be returned for read-only use
+     *
+     * @return the bytes that have been written on the current writers output stream
+     */
+    private byte[] getWriterBytes(boolean shared) {
+
+        if (isSuspended()) {
+            // No output whatsoever if the response is suspended
+            return new byte[0];
+        }
+        if (m_cacheBytes != null) {
+            // Optimization for cached "leaf" nodes, here I re-use the array from the cache
+            return m_cacheBytes;
+        }
+        if (m_out == null) {
+            // No output was written so far, just return an empty array
+            return new byte[0];
+        }
+        if (m_writer != null) {
+            // Flush the writer in case something was written on it
+            m_writer.flush();
+        }
+        return shared ? m_out.getSharedBytes() : m_out.getBytes();
+    }
+
     /**
      * Initializes the current responses output stream
      * and the corresponding print writer.<p>
@@ -1125,13 +1309,25 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
      */
     private void processIncludeList() {
 
-        byte[] result = getWriterBytes();
         if (!hasIncludeList()) {
             // no include list, so no includes and we just use the bytes as they are in one block
-            m_cachedEntry.add(result);
+            // the cache entry only reads the bytes, so the buffer array can be shared
+            m_cachedEntry.add(getSharedWriterBytes());
         } else {
+            byte[] result;
+            int max;
+            if (!isSuspended() && (m_cacheBytes == null) && (m_out != null)) {
+                // read the buffer directly, the pieces are copied anyway
+                if (m_writer != null) {
+                    m_writer.flush();
+                }
+                result = m_out.getBuffer();
+                max = m_out.getSize();
+            } else {
+                result = getWriterBytes();
+                max = result.length;
+            }
             // process the include list
-            int max = result.length;
             int pos = 0;
             int last = 0;
             int size = 0;
@@ -1207,29 +1403,16 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
      * Needed to overcome JSP buffering.<p>
      *
      * @param res the response to write the cached results to
+     * @param parts the cached result parts, as returned by {@link #getCachedResultParts()}
      *
      * @throws IOException in case something goes wrong writing to the responses output stream
      */
-    private void writeCachedResultToStream(HttpServletResponse res) throws IOException {
+    private void writeCachedResultToStream(HttpServletResponse res, List<byte[]> parts) throws IOException {
 
-        List<Object> elements = m_cachedEntry.elements();
-        int count = 0;
-        if (elements != null) {
-            for (int i = 0; i < elements.size(); i++) {
-                Object o = elements.get(i);
-                if (o instanceof byte[]) {
-                    res.getOutputStream().write((byte[])o);
-                } else {
-                    if ((m_includeResults != null) && (m_includeResults.size() > count)) {
-                        // make sure that we don't run behind end of list (should never happen, though)
-                        res.getOutputStream().write(m_includeResults.get(count));
-                        count++;
-                    }
-                    // skip next entry, which is the parameter map for this include call
-                    i++;
-                    // skip next entry, which is the attribute map for this include call
-                    i++;
-                }
+        if (!parts.isEmpty()) {
+            ServletOutputStream out = res.getOutputStream();
+            for (byte[] part : parts) {
+                out.write(part);
             }
         }
     }
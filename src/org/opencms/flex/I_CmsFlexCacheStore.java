@@ -0,0 +1,104 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A second level store for the entries of the Flex cache.<p>
+ *
+ * The store is consulted when an entry is not found in the memory of the Flex cache,
+ * and every entry added to the Flex cache is also written to the store.
+ * Entries are identified by the resource name of the Flex cache key
+ * (including the online suffix) and the variation string.<p>
+ *
+ * Only completed entries of the online project are passed to the store.
+ * A store may ignore entries it can not persist, for example entries that contain include calls.<p>
+ *
+ * The Flex cache removes the entries from the store on publish and clear events,
+ * so an implementation shared by several servers must only make sure that removals
+ * are visible to all of them.<p>
+ *
+ * @since 17.0
+ */
+public interface I_CmsFlexCacheStore {
+
+    /**
+     * Removes all entries from the store.<p>
+     */
+    void clear();
+
+    /**
+     * Reads an entry from the store.<p>
+     *
+     * @param resource the resource name of the Flex cache key
+     * @param variation the variation of the entry
+     *
+     * @return the completed entry, or <code>null</code> if the store does not contain a matching entry
+     */
+    CmsFlexCacheEntry get(String resource, String variation);
+
+    /**
+     * Initializes the store.<p>
+     *
+     * Entries written before the given publish date must not be returned anymore,
+     * since the resources they were built from may have changed.<p>
+     *
+     * @param dateLastPublished the time the last publish job finished, or 0 if unknown
+     *
+     * @throws IOException if the store can not be opened
+     */
+    void initialize(long dateLastPublished) throws IOException;
+
+    /**
+     * Writes an entry to the store.<p>
+     *
+     * @param resource the resource name of the Flex cache key
+     * @param variation the variation of the entry
+     * @param entry the completed entry
+     */
+    void put(String resource, String variation, CmsFlexCacheEntry entry);
+
+    /**
+     * Removes all entries which depend on one of the given resources.<p>
+     *
+     * Entries for which the used resources are unknown must be removed as well.<p>
+     *
+     * @param resourceIds the resource ids of the changed resources
+     */
+    void remove(Set<CmsUUID> resourceIds);
+
+    /**
+     * Releases the resources held by this store.<p>
+     */
+    void shutDown();
+}
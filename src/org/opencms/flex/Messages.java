@@ -127,6 +127,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0 = "LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_STORE_FULL_1 = "LOG_FLEXCACHE_STORE_FULL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_STORE_INIT_FAILED_1 = "LOG_FLEXCACHE_STORE_INIT_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_STORE_INITIALIZED_1 = "LOG_FLEXCACHE_STORE_INITIALIZED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_STORE_OPENED_3 = "LOG_FLEXCACHE_STORE_OPENED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0 = "LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0";
 
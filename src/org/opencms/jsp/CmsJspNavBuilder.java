@@ -553,6 +553,7 @@ public class CmsJspNavBuilder {
         if (resources == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
+        prefetchProperties(resources);
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
         for (CmsResource r : resources) {
@@ -810,6 +811,7 @@ public class CmsJspNavBuilder {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
+        prefetchProperties(resources);
         for (CmsResource r : resources) {
             CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
@@ -883,4 +885,23 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Reads the properties of all given resources with a single batched read.<p>
+     *
+     * This fills the property cache, so building the navigation elements for the resources
+     * does not need a database query per resource.<p>
+     *
+     * @param resources the resources to read the properties for
+     */
+    private void prefetchProperties(List<CmsResource> resources) {
+
+        if (resources.size() > 1) {
+            try {
+                m_cms.readPropertyObjects(resources, false);
+            } catch (CmsException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+    }
 }
@@ -575,6 +575,11 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
                 } else {
                     allElements.addAll(container.getElements());
                 }
+                try {
+                    CmsContainerElementBean.prefetchResources(cms, allElements);
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
                 // iterate over elements to render
                 int numRenderedElements = 0;
                 boolean first = true;
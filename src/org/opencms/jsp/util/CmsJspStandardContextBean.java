@@ -1449,6 +1449,7 @@ public final class CmsJspStandardContextBean {
                 List<CmsJspResourceWrapper> elements = new ArrayList<>();
                 CmsContainerBean container = getPage().getContainers().get(obj);
                 if (container != null) {
+                    prefetchResources(container.getElements());
                     for (CmsContainerElementBean element : container.getElements()) {
                         try {
                             element.initResource(m_cms);
@@ -1481,6 +1482,13 @@ public final class CmsJspStandardContextBean {
         return CmsCollectionsGenericWrapper.createLazyMap(obj -> {
             if (obj instanceof String) {
                 List<CmsJspResourceWrapper> elements = new ArrayList<>();
+                List<CmsContainerElementBean> elementBeans = new ArrayList<>();
+                for (CmsContainerBean container : getPage().getContainers().values()) {
+                    if (container.getName().endsWith("-" + obj)) {
+                        elementBeans.addAll(container.getElements());
+                    }
+                }
+                prefetchResources(elementBeans);
                 for (CmsContainerBean container : getPage().getContainers().values()) {
                     if (container.getName().endsWith("-" + obj)) {
                         for (CmsContainerElementBean element : container.getElements()) {
@@ -3236,6 +3244,8 @@ public final class CmsJspStandardContextBean {
         m_elementInstances = new HashMap<String, CmsContainerElementBean>();
         m_parentContainers = new HashMap<String, CmsContainerBean>();
         if (m_page != null) {
+            // the group and inheritance container checks below read the element resources
+            prefetchResources(m_page.getElements());
             for (CmsContainerBean container : m_page.getContainers().values()) {
                 for (CmsContainerElementBean element : container.getElements()) {
                     m_elementInstances.put(element.getInstanceId(), element);
@@ -3274,4 +3284,19 @@ public final class CmsJspStandardContextBean {
         }
     }
 
+    /**
+     * Reads the resources of the given elements with a single batched read, so that initializing
+     * the resources of the elements one by one does not need a database query per element.<p>
+     *
+     * @param elements the container elements
+     */
+    private void prefetchResources(Collection<CmsContainerElementBean> elements) {
+
+        try {
+            CmsContainerElementBean.prefetchResources(m_cms, elements);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
 }
\ No newline at end of file
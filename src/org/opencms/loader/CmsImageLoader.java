@@ -28,11 +28,18 @@
 package org.opencms.loader;
 
 import org.opencms.ade.galleries.CmsPreviewService;
+import org.opencms.cache.CmsVfsMappedDiskCache;
+import org.opencms.cache.CmsVfsMappedDiskCache.CmsCachedContent;
 import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.configuration.I_CmsNeedsAdminCmsObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
@@ -40,10 +47,18 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -61,7 +76,13 @@ import org.apache.commons.logging.Log;
  *
  * @since 6.2.0
  */
-public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener {
+public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener, I_CmsNeedsAdminCmsObject {
+
+    /** The configuration parameter for the OpenCms XML configuration to keep the image cache in memory mapped segment files. */
+    public static final String CONFIGURATION_CACHE_MAPPED = "image.cache.mapped";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum size of the mapped image cache in megabytes. */
+    public static final String CONFIGURATION_CACHE_MAX_SIZE = "image.cache.maxsize";
 
     /** The configuration parameter for the OpenCms XML configuration to set the image down scale operation. */
     public static final String CONFIGURATION_DOWNSCALE = "image.scaling.downscale";
@@ -75,9 +96,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to set the maximum image scale size. */
     public static final String CONFIGURATION_MAX_SCALE_SIZE = "image.scaling.maxsize";
 
+    /** The configuration parameter for the OpenCms XML configuration to add scale parameters of a variant that is generated for published images, can be repeated. */
+    public static final String CONFIGURATION_PREGENERATE = "image.scaling.pregenerate";
+
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the number of scale operations waiting for a worker thread. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of worker threads for scaling images. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -90,6 +120,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
+    /** Request attribute for the end offset of the file to send. */
+    private static final String ATTR_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Request attribute for the name of the file to send. */
+    private static final String ATTR_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    /** Request attribute for the start offset of the file to send. */
+    private static final String ATTR_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    /** Request attribute set by the servlet container if it supports sending files directly. */
+    private static final String ATTR_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    /** The default maximum size of the mapped image cache in megabytes. */
+    private static final long DEFAULT_CACHE_MAX_SIZE = 1024;
+
+    /** The default number of scale operations waiting for a worker thread. */
+    private static final int DEFAULT_SCALING_QUEUE_SIZE = 100;
+
     /** The (optional) image down scale parameters for image write operations. */
     protected static String m_downScaleParams;
 
@@ -99,6 +147,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The service executing the scale operations. */
+    protected static CmsImageScalingService m_scalingService;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
@@ -139,6 +190,28 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_maxBlurSize;
     }
 
+    /**
+     * Returns the service executing the image scale operations.<p>
+     *
+     * The service provides the queue length and scale time metrics.<p>
+     *
+     * @return the image scaling service, or <code>null</code> if the loader has not been initialized
+     */
+    public static CmsImageScalingService getScalingService() {
+
+        return m_scalingService;
+    }
+
+    /**
+     * Returns the disk cache used for saving scaled image versions.<p>
+     *
+     * @return the disk cache used for saving scaled image versions
+     */
+    public static CmsVfsNameBasedDiskCache getVfsDiskCache() {
+
+        return m_vfsDiskCache;
+    }
+
     /**
      * Returns <code>true</code> if the image scaling and processing capabilities for the
      * OpenCms VFS images have been enabled, <code>false</code> if not.<p>
@@ -159,12 +232,30 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_enabled;
     }
 
+    /** The admin CmsObject used to pre-generate scaled versions of published images. */
+    protected CmsObject m_adminCms;
+
+    /** Indicates if the image cache is kept in memory mapped segment files. */
+    protected boolean m_cacheMapped;
+
+    /** The maximum size of the mapped image cache in megabytes. */
+    protected long m_cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+
     /** The name of the configured image cache repository. */
     protected String m_imageRepositoryFolder;
 
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The scale parameters of the variants generated for published images. */
+    protected List<String> m_pregenerateParams = new ArrayList<String>();
+
+    /** The number of scale operations waiting for a worker thread, 0 for the default. */
+    protected int m_scalingQueueSize;
+
+    /** The number of worker threads for scaling images, 0 for the default. */
+    protected int m_scalingThreads;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -201,6 +292,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_CACHE_MAPPED.equals(paramName)) {
+                m_cacheMapped = Boolean.valueOf(paramValue).booleanValue();
+            }
+            if (CONFIGURATION_CACHE_MAX_SIZE.equals(paramName)) {
+                m_cacheMaxSize = CmsStringUtil.getIntValue(paramValue, (int)DEFAULT_CACHE_MAX_SIZE, paramName);
+            }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(paramValue, 0, paramName);
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(paramValue, 0, paramName);
+            }
+            if (CONFIGURATION_PREGENERATE.equals(paramName)) {
+                m_pregenerateParams.add(paramValue.trim());
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -213,16 +319,20 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
+        Map<String, ?> data = event.getData();
+        if (data == null) {
+            return;
+        }
         int type = event.getType();
-        if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            pregenerateScaledImages(data);
             return;
         }
-        // only react if the clear images cache parameter is set
-        Map<String, ?> data = event.getData();
-        if (data == null) {
+        // otherwise only react on the clear caches event
+        if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
+        // only react if the clear images cache parameter is set
         Object param = data.get(PARAM_CLEAR_IMAGES_CACHE);
         if (param == null) {
             return;
@@ -236,6 +346,50 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         CmsImageCacheCleanupJob.cleanImageCache(age);
     }
 
+    /**
+     * Creates the operation that reads an image from the VFS, scales it and saves the result in the image cache.<p>
+     *
+     * @param cms the OpenCms user context used to read the image
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the scaled version in the image cache
+     *
+     * @return the scale operation, which returns the scaled image content
+     */
+    protected Callable<byte[]> createScaleOperation(
+        final CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName) {
+
+        final CmsVfsNameBasedDiskCache cache = m_vfsDiskCache;
+        return new Callable<byte[]>() {
+
+            public byte[] call() throws IOException, CmsException {
+
+                // the scaled version may have been created since the caller checked the cache
+                byte[] content = cache.getCacheContent(cacheName);
+                if (content != null) {
+                    return content;
+                }
+                // we must read the content from the VFS (if this has not been done yet)
+                CmsFile file = cms.readFile(resource);
+                content = file.getContents();
+                if (scaler.isValid()) {
+                    if (scaler.getType() == 8) {
+                        // only need the focal point for mode 8
+                        scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
+                    }
+                    // valid scaling parameters found, scale the content
+                    content = scaler.scaleImage(file);
+                }
+                // save the content in the cache
+                cache.saveCacheFile(cacheName, content);
+                return content;
+            }
+        };
+    }
+
     /**
      * @see org.opencms.loader.I_CmsResourceLoader#destroy()
      */
@@ -244,7 +398,14 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
 
         m_enabled = false;
         m_imageRepositoryFolder = null;
+        if (m_vfsDiskCache instanceof CmsVfsMappedDiskCache) {
+            ((CmsVfsMappedDiskCache)m_vfsDiskCache).shutDown();
+        }
         m_vfsDiskCache = null;
+        if (m_scalingService != null) {
+            m_scalingService.shutDown();
+            m_scalingService = null;
+        }
     }
 
     /**
@@ -260,6 +421,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         result.put(CONFIGURATION_SCALING_ENABLED, String.valueOf(m_enabled));
         result.put(CONFIGURATION_IMAGE_FOLDER, m_imageRepositoryFolder);
+        if (m_cacheMapped) {
+            result.put(CONFIGURATION_CACHE_MAPPED, String.valueOf(m_cacheMapped));
+            result.put(CONFIGURATION_CACHE_MAX_SIZE, String.valueOf(m_cacheMaxSize));
+        }
+        if (m_scalingThreads > 0) {
+            result.put(CONFIGURATION_SCALING_THREADS, String.valueOf(m_scalingThreads));
+        }
+        if (m_scalingQueueSize > 0) {
+            result.put(CONFIGURATION_SCALING_QUEUE_SIZE, String.valueOf(m_scalingQueueSize));
+        }
+        // the inherited configuration only keeps a single value
+        result.remove(CONFIGURATION_PREGENERATE);
+        for (String params : m_pregenerateParams) {
+            result.add(CONFIGURATION_PREGENERATE, params);
+        }
         return result;
     }
 
@@ -276,7 +452,8 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
      * Returns a scaled version of the given OpenCms VFS image resource.<p>
      *
      * All results are cached in disk.
-     * If the scaled version does not exist in the cache, it is created.
+     * If the scaled version does not exist in the cache, it is created by the image scaling service.
+     * Concurrent requests for the same scaled version wait for a single scale operation.
      * Unscaled versions of the images are also stored in the cache.<p>
      *
      * @param cms the current users OpenCms context
@@ -295,34 +472,20 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
 
+        if (content == null) {
+            // scale the image once, even if it is requested by many threads at the same time
+            content = m_scalingService.scale(cacheName, createScaleOperation(cms, resource, scaler, cacheName));
+        }
         CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
         } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                if (scaler.getType() == 8) {
-                    // only need the focal point for mode 8
-                    scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
-                }
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
-            }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
         }
+        // save the content in the file
+        file.setContents(content);
         return file;
     }
 
@@ -337,9 +500,31 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         // initialize the image cache
         if (m_vfsDiskCache == null) {
-            m_vfsDiskCache = new CmsVfsNameBasedDiskCache(
-                OpenCms.getSystemInfo().getWebApplicationRfsPath(),
-                m_imageRepositoryFolder);
+            if (m_cacheMapped) {
+                m_vfsDiskCache = new CmsVfsMappedDiskCache(
+                    OpenCms.getSystemInfo().getWebApplicationRfsPath(),
+                    m_imageRepositoryFolder,
+                    m_cacheMaxSize * 1024 * 1024,
+                    CmsVfsMappedDiskCache.DEFAULT_SEGMENT_SIZE);
+            } else {
+                m_vfsDiskCache = new CmsVfsNameBasedDiskCache(
+                    OpenCms.getSystemInfo().getWebApplicationRfsPath(),
+                    m_imageRepositoryFolder);
+            }
+        }
+        if (m_scalingService == null) {
+            int threads = m_scalingThreads > 0
+            ? m_scalingThreads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            int queueSize = m_scalingQueueSize > 0 ? m_scalingQueueSize : DEFAULT_SCALING_QUEUE_SIZE;
+            m_scalingService = new CmsImageScalingService(threads, queueSize);
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_IMAGE_SCALING_POOL_2,
+                        Integer.valueOf(threads),
+                        Integer.valueOf(queueSize)));
+            }
         }
         OpenCms.addCmsEventListener(this);
         // output setup information
@@ -367,6 +552,16 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if ((m_vfsDiskCache instanceof CmsVfsMappedDiskCache) && !(resource instanceof CmsFile)) {
+                // files are passed during static export, their content must be replaced with the scaled version
+                String cacheName = m_vfsDiskCache.getCacheName(resource, scaler.isValid() ? scaler.toString() : null);
+                CmsCachedContent content = ((CmsVfsMappedDiskCache)m_vfsDiskCache).getCachedContent(cacheName);
+                if (content != null) {
+                    setResponseHeaders(resource, content.getLength(), req, res);
+                    sendCachedContent(content, req, res);
+                    return;
+                }
+            }
             // load the file from the cache
             CmsFile file = getScaledImage(cms, resource, scaler);
             // now perform standard load operation inherited from dump loader
@@ -376,4 +571,108 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             super.load(cms, resource, req, res);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @see org.opencms.configuration.I_CmsNeedsAdminCmsObject#setAdminCmsObject(org.opencms.file.CmsObject)
+     */
+    public void setAdminCmsObject(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+    }
+
+    /**
+     * Queues the configured scaled versions of all images in a publish list for creation in the background.<p>
+     *
+     * @param data the data of the publish event
+     */
+    private void pregenerateScaledImages(Map<String, ?> data) {
+
+        CmsVfsNameBasedDiskCache cache = m_vfsDiskCache;
+        CmsImageScalingService service = m_scalingService;
+        Object publishId = data.get(I_CmsEventListener.KEY_PUBLISHID);
+        if (!m_enabled
+            || m_pregenerateParams.isEmpty()
+            || (m_adminCms == null)
+            || (cache == null)
+            || (service == null)
+            || !(publishId instanceof String)) {
+            return;
+        }
+        int count = 0;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+            cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            cms.getRequestContext().setSiteRoot("");
+            List<CmsPublishedResource> publishedResources = cms.readPublishedResources(
+                new CmsUUID((String)publishId));
+            for (CmsPublishedResource published : publishedResources) {
+                if (published.isFolder()
+                    || published.getState().isDeleted()
+                    || (published.getType() != CmsResourceTypeImage.getStaticTypeId())) {
+                    continue;
+                }
+                CmsResource resource;
+                try {
+                    resource = cms.readResource(published.getStructureId(), CmsResourceFilter.DEFAULT);
+                } catch (CmsException e) {
+                    // the image may have been deleted or moved in the meantime
+                    LOG.debug(e.getLocalizedMessage(), e);
+                    continue;
+                }
+                for (String params : m_pregenerateParams) {
+                    CmsImageScaler scaler = new CmsImageScaler(params);
+                    if (!scaler.isValid()
+                        || (scaler.getWidth() > m_maxScaleSize)
+                        || (scaler.getHeight() > m_maxScaleSize)) {
+                        continue;
+                    }
+                    scaler.setMaxBlurSize(m_maxBlurSize);
+                    String cacheName = cache.getCacheName(resource, scaler.toString());
+                    if (!cache.hasCacheContent(cacheName)
+                        && service.submit(
+                            cacheName,
+                            createScaleOperation(OpenCms.initCmsObject(cms), resource, scaler, cacheName))) {
+                        count++;
+                    }
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_IMAGE_PREGENERATE_FAILED_1, publishId), e);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_PREGENERATE_SUBMITTED_2,
+                    Integer.valueOf(count),
+                    publishId));
+        }
+    }
+
+    /**
+     * Writes a cached image version from the mapped disk cache to the response without copying it to the heap.<p>
+     *
+     * If the servlet container supports it, the content is sent directly from the segment file.<p>
+     *
+     * @param content the cached content
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException in case writing to the response fails
+     */
+    private void sendCachedContent(CmsCachedContent content, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        if (Boolean.TRUE.equals(req.getAttribute(ATTR_SENDFILE_SUPPORT))
+            && !(res instanceof ServletResponseWrapper)) {
+            req.setAttribute(ATTR_SENDFILE_FILENAME, content.getFile().getAbsolutePath());
+            req.setAttribute(ATTR_SENDFILE_START, Long.valueOf(content.getOffset()));
+            req.setAttribute(ATTR_SENDFILE_END, Long.valueOf(content.getOffset() + content.getLength()));
+        } else {
+            WritableByteChannel channel = Channels.newChannel(res.getOutputStream());
+            ByteBuffer buffer = content.getBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
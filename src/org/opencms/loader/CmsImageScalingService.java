@@ -0,0 +1,300 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs image scaling operations on a bounded pool of worker threads.<p>
+ *
+ * Scaling operations are identified by a key, usually the name of the scaled version in the image cache.
+ * While an operation for a key is running, all further requests for the same key wait for its result
+ * instead of scaling the same image again.<p>
+ *
+ * If the queue of the pool is full, the operation is executed on the calling thread.
+ * Background operations, e.g. pre-generating scaled versions after publishing, are dropped in this case.<p>
+ *
+ * @since 17.0
+ */
+public class CmsImageScalingService {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImageScalingService.class);
+
+    /** The number of requests that waited for a scaling operation already running for the same key. */
+    private LongAdder m_deduplicatedCount = new LongAdder();
+
+    /** The executor running the scaling operations. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The scaling operations currently queued or running, by key. */
+    private ConcurrentHashMap<String, FutureTask<byte[]>> m_inFlight = new ConcurrentHashMap<>();
+
+    /** The longest time a single scaling operation took, in milliseconds. */
+    private AtomicLong m_maxScaleTime = new AtomicLong();
+
+    /** The number of operations that were not accepted by the pool because the queue was full. */
+    private LongAdder m_rejectedCount = new LongAdder();
+
+    /** The number of completed scaling operations. */
+    private LongAdder m_scaledCount = new LongAdder();
+
+    /** The total time spent in scaling operations, in milliseconds. */
+    private LongAdder m_totalScaleTime = new LongAdder();
+
+    /**
+     * Creates a new image scaling service.<p>
+     *
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of operations waiting for a worker thread
+     */
+    public CmsImageScalingService(int threads, int queueSize) {
+
+        int poolSize = Math.max(1, threads);
+        m_executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Image scaler %d").setDaemon(true).build());
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of worker threads currently executing a scaling operation.<p>
+     *
+     * @return the number of active worker threads
+     */
+    public int getActiveCount() {
+
+        return m_executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of requests that reused a scaling operation already running for the same key.<p>
+     *
+     * @return the number of de-duplicated requests
+     */
+    public long getDeduplicatedCount() {
+
+        return m_deduplicatedCount.sum();
+    }
+
+    /**
+     * Returns the longest time a single scaling operation took, in milliseconds.<p>
+     *
+     * @return the maximum scale time
+     */
+    public long getMaxScaleTime() {
+
+        return m_maxScaleTime.get();
+    }
+
+    /**
+     * Returns the number of scaling operations waiting for a worker thread.<p>
+     *
+     * @return the queue length
+     */
+    public int getQueueLength() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of operations not accepted by the pool because its queue was full.<p>
+     *
+     * @return the number of rejected operations
+     */
+    public long getRejectedCount() {
+
+        return m_rejectedCount.sum();
+    }
+
+    /**
+     * Returns the number of completed scaling operations.<p>
+     *
+     * @return the number of completed scaling operations
+     */
+    public long getScaledCount() {
+
+        return m_scaledCount.sum();
+    }
+
+    /**
+     * Returns the total time spent in scaling operations, in milliseconds.<p>
+     *
+     * @return the total scale time
+     */
+    public long getTotalScaleTime() {
+
+        return m_totalScaleTime.sum();
+    }
+
+    /**
+     * Executes the given scaling operation and waits for its result.<p>
+     *
+     * If an operation with the same key is already queued or running, its result is returned instead.<p>
+     *
+     * @param key the key identifying the operation
+     * @param operation the scaling operation
+     *
+     * @return the result of the scaling operation
+     *
+     * @throws IOException in case the operation failed with an I/O error
+     * @throws CmsException in case the operation failed with an OpenCms error
+     */
+    public byte[] scale(String key, Callable<byte[]> operation) throws IOException, CmsException {
+
+        FutureTask<byte[]> task = createTask(key, operation);
+        FutureTask<byte[]> running = m_inFlight.putIfAbsent(key, task);
+        if (running != null) {
+            m_deduplicatedCount.increment();
+            task = running;
+        } else {
+            try {
+                m_executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                m_rejectedCount.increment();
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_REJECTED_1, key));
+                // run on the calling thread, other requests for the same key still wait for this task
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Shuts down the worker pool.<p>
+     *
+     * Operations already queued are still executed.<p>
+     */
+    public void shutDown() {
+
+        m_executor.shutdown();
+    }
+
+    /**
+     * Queues the given scaling operation without waiting for its result.<p>
+     *
+     * The operation is skipped if an operation with the same key is already queued or running,
+     * or if the queue of the pool is full.<p>
+     *
+     * @param key the key identifying the operation
+     * @param operation the scaling operation
+     *
+     * @return <code>true</code> if the operation was queued
+     */
+    public boolean submit(String key, Callable<byte[]> operation) {
+
+        FutureTask<byte[]> task = createTask(key, operation);
+        if (m_inFlight.putIfAbsent(key, task) != null) {
+            return false;
+        }
+        try {
+            m_executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            m_rejectedCount.increment();
+            m_inFlight.remove(key, task);
+            return false;
+        }
+    }
+
+    /**
+     * Wraps the given operation in a task that records the metrics and removes itself from the in-flight operations.<p>
+     *
+     * @param key the key identifying the operation
+     * @param operation the scaling operation
+     *
+     * @return the task
+     */
+    private FutureTask<byte[]> createTask(final String key, final Callable<byte[]> operation) {
+
+        return new FutureTask<byte[]>(new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                long start = System.currentTimeMillis();
+                try {
+                    return operation.call();
+                } finally {
+                    long time = System.currentTimeMillis() - start;
+                    m_scaledCount.increment();
+                    m_totalScaleTime.add(time);
+                    m_maxScaleTime.accumulateAndGet(time, Math::max);
+                }
+            }
+        }) {
+
+            @Override
+            protected void done() {
+
+                m_inFlight.remove(key, this);
+            }
+        };
+    }
+}
@@ -30,6 +30,7 @@ package org.opencms.loader;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsVfsConfiguration;
+import org.opencms.configuration.I_CmsNeedsAdminCmsObject;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
@@ -1170,6 +1171,13 @@ public class CmsResourceManager {
         // This only sets the CmsObject the first time it's called
         m_nameGenerator.setAdminCms(cms);
 
+        // pass the admin CmsObject to all loaders which need it
+        for (I_CmsResourceLoader loader : getLoaders()) {
+            if (loader instanceof I_CmsNeedsAdminCmsObject) {
+                ((I_CmsNeedsAdminCmsObject)loader).setAdminCmsObject(cms);
+            }
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_LOADER_CONFIG_FINISHED_0));
         }
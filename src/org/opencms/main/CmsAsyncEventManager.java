@@ -0,0 +1,558 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Event manager that delivers events asynchronously to the listeners that allow it.<p>
+ *
+ * Listeners that return <code>true</code> from {@link I_CmsEventListener#requiresSynchronousDelivery()},
+ * which is the default, are still called on the thread that fires the event.
+ * All other listeners get their own queue. The events in a queue are delivered in the order they were fired,
+ * and one at a time, by a shared pool of dispatcher threads.<p>
+ *
+ * If the queue of a listener is full, the thread firing the event waits a short time for the listener to catch up.
+ * After that, the event is queued anyway, so a listener that needs a lock held by the firing thread
+ * can not block the firing thread forever.<p>
+ *
+ * To use this event manager, configure it in <code>opencms-system.xml</code>:
+ * <pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.main.CmsAsyncEventManager" /&gt;
+ * &lt;/events&gt;
+ * </pre>
+ * The number of dispatcher threads and the queue size are read from the runtime properties
+ * {@link #PARAM_THREADS} and {@link #PARAM_QUEUE_SIZE}. The delivery statistics and queue depths
+ * are logged every {@link #PARAM_STATISTICS_INTERVAL} seconds, and at shutdown.<p>
+ *
+ * @since 17.0
+ */
+public class CmsAsyncEventManager extends CmsEventManager {
+
+    /**
+     * Statistics about the delivery of events of one type.<p>
+     */
+    public static class CmsEventStatistics {
+
+        /** The number of asynchronous listener calls. */
+        private final AtomicLong m_asyncCount = new AtomicLong();
+
+        /** The longest asynchronous listener call, in nanoseconds. */
+        private final AtomicLong m_asyncMaxTime = new AtomicLong();
+
+        /** The total time of the asynchronous listener calls, in nanoseconds. */
+        private final AtomicLong m_asyncTime = new AtomicLong();
+
+        /** The number of synchronous deliveries. */
+        private final AtomicLong m_syncCount = new AtomicLong();
+
+        /** The total time of the synchronous deliveries, in nanoseconds. */
+        private final AtomicLong m_syncTime = new AtomicLong();
+
+        /**
+         * Returns the average time of an asynchronous listener call in milliseconds.<p>
+         *
+         * @return the average time of an asynchronous listener call
+         */
+        public double getAsyncAverageMillis() {
+
+            long count = m_asyncCount.get();
+            return count == 0 ? 0 : (m_asyncTime.get() / (double)count) / 1000000;
+        }
+
+        /**
+         * Returns the number of asynchronous listener calls.<p>
+         *
+         * @return the number of asynchronous listener calls
+         */
+        public long getAsyncCount() {
+
+            return m_asyncCount.get();
+        }
+
+        /**
+         * Returns the longest asynchronous listener call in milliseconds.<p>
+         *
+         * @return the longest asynchronous listener call
+         */
+        public double getAsyncMaxMillis() {
+
+            return m_asyncMaxTime.get() / 1000000d;
+        }
+
+        /**
+         * Returns the average time the firing thread spent in the synchronous listeners, in milliseconds.<p>
+         *
+         * @return the average time of a synchronous delivery
+         */
+        public double getSyncAverageMillis() {
+
+            long count = m_syncCount.get();
+            return count == 0 ? 0 : (m_syncTime.get() / (double)count) / 1000000;
+        }
+
+        /**
+         * Returns the number of synchronous deliveries.<p>
+         *
+         * @return the number of synchronous deliveries
+         */
+        public long getSyncCount() {
+
+            return m_syncCount.get();
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+
+            return String.format(
+                "sync: %d calls, avg %.2f ms; async: %d calls, avg %.2f ms, max %.2f ms",
+                Long.valueOf(getSyncCount()),
+                Double.valueOf(getSyncAverageMillis()),
+                Long.valueOf(getAsyncCount()),
+                Double.valueOf(getAsyncAverageMillis()),
+                Double.valueOf(getAsyncMaxMillis()));
+        }
+
+        /**
+         * Records an asynchronous listener call.<p>
+         *
+         * @param nanos the duration of the call in nanoseconds
+         */
+        void addAsync(long nanos) {
+
+            m_asyncCount.incrementAndGet();
+            m_asyncTime.addAndGet(nanos);
+            m_asyncMaxTime.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Records a synchronous delivery.<p>
+         *
+         * @param nanos the duration of the delivery in nanoseconds
+         */
+        void addSync(long nanos) {
+
+            m_syncCount.incrementAndGet();
+            m_syncTime.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * The ordered event queue of a single asynchronous listener.<p>
+     */
+    private class CmsListenerQueue implements Runnable {
+
+        /** The waiting events. */
+        private final ArrayDeque<CmsEvent> m_events = new ArrayDeque<CmsEvent>();
+
+        /** The listener. */
+        private final I_CmsEventListener m_listener;
+
+        /** Flag indicating that the queue is scheduled for delivery on the executor. */
+        private boolean m_scheduled;
+
+        /**
+         * Creates a new queue for the given listener.<p>
+         *
+         * @param listener the listener
+         */
+        CmsListenerQueue(I_CmsEventListener listener) {
+
+            m_listener = listener;
+        }
+
+        /**
+         * Adds an event to the queue.<p>
+         *
+         * If the queue is full, waits at most {@link CmsAsyncEventManager#QUEUE_WAIT_MILLIS} for the listener to catch up,
+         * then adds the event anyway.<p>
+         *
+         * @param event the event to add
+         */
+        public void add(CmsEvent event) {
+
+            synchronized (this) {
+                // a listener firing events from a dispatcher thread must not wait for itself
+                if ((m_events.size() >= m_queueSize) && !DISPATCHER_THREAD.get().booleanValue()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_EVENT_QUEUE_FULL_2,
+                            m_listener.getClass().getName(),
+                            Integer.valueOf(m_events.size())));
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUEUE_WAIT_MILLIS);
+                    long remaining;
+                    while ((m_events.size() >= m_queueSize) && ((remaining = deadline - System.nanoTime()) > 0)) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                    if (m_events.size() >= m_queueSize) {
+                        LOG.warn(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_EVENT_QUEUE_OVERFLOW_2,
+                                m_listener.getClass().getName(),
+                                Integer.valueOf(m_events.size())));
+                    }
+                }
+                m_events.add(event);
+                if (m_scheduled) {
+                    return;
+                }
+                m_scheduled = true;
+            }
+            schedule();
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            if (deliver(MAX_EVENTS_PER_RUN)) {
+                // give the other listeners a chance, then continue with the remaining events
+                schedule();
+            }
+        }
+
+        /**
+         * Returns the number of waiting events.<p>
+         *
+         * @return the number of waiting events
+         */
+        public synchronized int size() {
+
+            return m_events.size();
+        }
+
+        /**
+         * Delivers the waiting events to the listener.<p>
+         *
+         * @param maxEvents the maximum number of events to deliver
+         *
+         * @return <code>true</code> if there are events left in the queue
+         */
+        private boolean deliver(int maxEvents) {
+
+            Boolean dispatcher = DISPATCHER_THREAD.get();
+            DISPATCHER_THREAD.set(Boolean.TRUE);
+            try {
+                for (int i = 0; i < maxEvents; i++) {
+                    CmsEvent event;
+                    synchronized (this) {
+                        event = m_events.poll();
+                        if (event == null) {
+                            m_scheduled = false;
+                            return false;
+                        }
+                        // wake up the threads waiting for space in the queue
+                        notifyAll();
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        m_listener.cmsEvent(event);
+                    } catch (Throwable t) {
+                        LOG.error(
+                            Messages.get().getBundle().key(
+                                Messages.ERR_CALLING_EVENT_LISTENER_FAILED_2,
+                                m_listener.getClass().getName(),
+                                event.toString()),
+                            t);
+                    }
+                    getStatistics(event.getTypeInteger()).addAsync(System.nanoTime() - start);
+                }
+                return true;
+            } finally {
+                DISPATCHER_THREAD.set(dispatcher);
+            }
+        }
+
+        /**
+         * Schedules the delivery of the queued events on the executor.<p>
+         *
+         * If the executor has been shut down, all queued events are delivered on the current thread.<p>
+         */
+        private void schedule() {
+
+            ExecutorService executor = m_executor;
+            if (executor != null) {
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // executor has been shut down, deliver on the current thread
+                }
+            }
+            deliver(Integer.MAX_VALUE);
+        }
+    }
+
+    /** The default size of a listener queue. */
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /** The default number of dispatcher threads. */
+    public static final int DEFAULT_THREADS = 2;
+
+    /** The default interval for logging the delivery statistics, in seconds. */
+    public static final int DEFAULT_STATISTICS_INTERVAL = 600;
+
+    /** Name of the runtime property for the size of a listener queue. */
+    public static final String PARAM_QUEUE_SIZE = "events.async.queuesize";
+
+    /** Name of the runtime property for the interval for logging the delivery statistics, in seconds. */
+    public static final String PARAM_STATISTICS_INTERVAL = "events.async.statisticsinterval";
+
+    /** Name of the runtime property for the number of dispatcher threads. */
+    public static final String PARAM_THREADS = "events.async.threads";
+
+    /** Marks the dispatcher threads while they deliver events. */
+    static final ThreadLocal<Boolean> DISPATCHER_THREAD = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /** The maximum time to wait for space in a full queue. */
+    static final long QUEUE_WAIT_MILLIS = 1000;
+
+    /** The maximum number of events delivered to one listener before the dispatcher thread moves on. */
+    private static final int MAX_EVENTS_PER_RUN = 100;
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsAsyncEventManager.class);
+
+    /** The executor delivering the asynchronous events. */
+    volatile ExecutorService m_executor;
+
+    /** The size of a listener queue. */
+    int m_queueSize = DEFAULT_QUEUE_SIZE;
+
+    /** The interval for logging the delivery statistics, in milliseconds. */
+    long m_statisticsInterval = TimeUnit.SECONDS.toMillis(DEFAULT_STATISTICS_INTERVAL);
+
+    /** The time when the delivery statistics are logged next. */
+    private final AtomicLong m_nextStatisticsTime = new AtomicLong(Long.MAX_VALUE);
+
+    /** The queues of the asynchronous listeners. */
+    private final Map<I_CmsEventListener, CmsListenerQueue> m_queues = new ConcurrentHashMap<>();
+
+    /** The delivery statistics, by event type. */
+    private final Map<Integer, CmsEventStatistics> m_statistics = new ConcurrentHashMap<Integer, CmsEventStatistics>();
+
+    /**
+     * Returns the number of waiting events for each asynchronous listener.<p>
+     *
+     * @return the queue depths, by listener class name
+     */
+    public Map<String, Integer> getQueueDepths() {
+
+        Map<String, Integer> result = new TreeMap<String, Integer>();
+        for (CmsListenerQueue queue : m_queues.values()) {
+            result.merge(
+                queue.m_listener.getClass().getName(),
+                Integer.valueOf(queue.size()),
+                (a, b) -> Integer.valueOf(a.intValue() + b.intValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the delivery statistics for each event type.<p>
+     *
+     * @return the delivery statistics, by event type
+     */
+    public Map<Integer, CmsEventStatistics> getStatistics() {
+
+        return Collections.unmodifiableMap(new TreeMap<Integer, CmsEventStatistics>(m_statistics));
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#removeCmsEventListener(org.opencms.main.I_CmsEventListener)
+     */
+    @Override
+    public void removeCmsEventListener(I_CmsEventListener listener) {
+
+        super.removeCmsEventListener(listener);
+        m_queues.remove(listener);
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        ExecutorService executor = m_executor;
+        m_executor = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            for (Map.Entry<Integer, CmsEventStatistics> entry : getStatistics().entrySet()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_EVENT_STATISTICS_2,
+                        entry.getKey(),
+                        entry.getValue().toString()));
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEventHandler(java.util.List, org.opencms.main.CmsEvent)
+     */
+    @Override
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+
+        if ((listeners == null) || listeners.isEmpty() || (m_executor == null)) {
+            super.fireEventHandler(listeners, event);
+            return;
+        }
+        I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
+        List<I_CmsEventListener> syncListeners = new ArrayList<I_CmsEventListener>(list.length);
+        for (I_CmsEventListener listener : list) {
+            if (listener.requiresSynchronousDelivery()) {
+                syncListeners.add(listener);
+            } else {
+                m_queues.computeIfAbsent(listener, l -> new CmsListenerQueue(l)).add(event);
+            }
+        }
+        if (!syncListeners.isEmpty()) {
+            long start = System.nanoTime();
+            super.fireEventHandler(syncListeners, event);
+            getStatistics(event.getTypeInteger()).addSync(System.nanoTime() - start);
+        }
+        long now = System.currentTimeMillis();
+        long next = m_nextStatisticsTime.get();
+        if ((now >= next) && m_nextStatisticsTime.compareAndSet(next, now + m_statisticsInterval)) {
+            logStatistics();
+        }
+    }
+
+    /**
+     * Returns the statistics for the given event type.<p>
+     *
+     * @param type the event type
+     *
+     * @return the statistics for the event type
+     */
+    protected CmsEventStatistics getStatistics(Integer type) {
+
+        return m_statistics.computeIfAbsent(type, t -> new CmsEventStatistics());
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#initialize(org.opencms.main.CmsEventManager)
+     */
+    @Override
+    protected void initialize(CmsEventManager base) {
+
+        super.initialize(base);
+        int threads = getIntProperty(PARAM_THREADS, DEFAULT_THREADS);
+        m_queueSize = getIntProperty(PARAM_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        m_statisticsInterval = TimeUnit.SECONDS.toMillis(
+            getIntProperty(PARAM_STATISTICS_INTERVAL, DEFAULT_STATISTICS_INTERVAL));
+        m_nextStatisticsTime.set(System.currentTimeMillis() + m_statisticsInterval);
+        m_executor = Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Event dispatcher %d").setDaemon(true).build());
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_ASYNC_EVENT_MANAGER_2,
+                    Integer.valueOf(threads),
+                    Integer.valueOf(m_queueSize)));
+        }
+    }
+
+    /**
+     * Logs the delivery statistics and the queue depths.<p>
+     */
+    protected void logStatistics() {
+
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        for (Map.Entry<Integer, CmsEventStatistics> entry : getStatistics().entrySet()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EVENT_STATISTICS_2,
+                    entry.getKey(),
+                    entry.getValue().toString()));
+        }
+        for (Map.Entry<String, Integer> entry : getQueueDepths().entrySet()) {
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EVENT_QUEUE_DEPTH_2, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Reads a positive integer runtime property.<p>
+     *
+     * @param name the name of the runtime property
+     * @param defaultValue the default value
+     *
+     * @return the value of the runtime property, or the default value if it is not set or invalid
+     */
+    private int getIntProperty(String name, int defaultValue) {
+
+        Object value = OpenCms.getRuntimeProperty(name);
+        if (value != null) {
+            try {
+                int result = Integer.parseInt(value.toString().trim());
+                if (result > 0) {
+                    return result;
+                }
+            } catch (NumberFormatException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+        return defaultValue;
+    }
+}
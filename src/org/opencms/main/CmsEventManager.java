@@ -155,6 +155,16 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     *
+     * Events are delivered synchronously by this implementation, so there is nothing to do here.<p>
+     */
+    public void shutDown() {
+
+        // noop
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      *
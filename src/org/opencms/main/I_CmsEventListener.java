@@ -500,4 +500,19 @@ public interface I_CmsEventListener {
      * @param event CmsEvent that has occurred
      */
     void cmsEvent(CmsEvent event);
+
+    /**
+     * Returns if this listener must be called on the thread that fires the event.<p>
+     *
+     * Only an event manager that supports asynchronous delivery, like the {@link CmsAsyncEventManager},
+     * makes use of this. Asynchronous listeners receive their events in the order they were fired,
+     * but possibly after the firing thread has moved on. Objects in the event data, like the
+     * database context or the report of a publish event, may no longer be usable then.<p>
+     *
+     * @return <code>true</code> if this listener must be called synchronously, which is the default
+     */
+    default boolean requiresSynchronousDelivery() {
+
+        return true;
+    }
 }
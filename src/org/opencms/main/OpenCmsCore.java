@@ -29,6 +29,7 @@ package org.opencms.main;
 
 import org.opencms.ade.configuration.CmsADEManager;
 import org.opencms.ade.containerpage.CmsContainerpageService;
+import org.opencms.cache.CmsCacheWarmer;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsConfigurationManager;
@@ -223,6 +224,9 @@ public final class OpenCmsCore {
     /** The configured authorization handler. */
     private I_CmsAuthorizationHandler m_authorizationHandler;
 
+    /** The cache warmer, or <code>null</code> if it is not enabled. */
+    private CmsCacheWarmer m_cacheWarmer;
+
     /** Admin CMS object. */
     private CmsObject m_configAdminCms;
 
@@ -1768,6 +1772,17 @@ public final class OpenCmsCore {
             m_publishManager.setPublishListRemoveMode(systemConfiguration.getPublishListRemoveMode());
             m_publishManager.initialize(initCmsObject(adminCms));
 
+            // the second level store of the Flex cache needs the publish history
+            if (flexCache != null) {
+                flexCache.initializeStore();
+            }
+
+            // initialize the cache warmer, it needs the publish history and the sites
+            if (CmsCacheWarmer.isEnabled()) {
+                m_cacheWarmer = new CmsCacheWarmer();
+                m_cacheWarmer.initialize(initCmsObject(adminCms));
+            }
+
             // initialize the search manager
             m_searchManager.initialize(initCmsObject(adminCms));
 
@@ -2285,6 +2300,9 @@ public final class OpenCmsCore {
 
                     // a file was read, go on process it
                     m_resourceManager.loadResource(cmsForLoad, resource, req, res);
+                    if (m_cacheWarmer != null) {
+                        m_cacheWarmer.record(cmsForLoad, resource, req);
+                    }
                     if (cmsForLoad == cms) {
                         // if we used a different CmsObject, we don't want to update the session with either
                         // CmsObject - it's not necessary to do it for the original CmsObject, and using the alternative CmsObject
@@ -2357,6 +2375,16 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // deliver the pending asynchronous events while the other managers are still available
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
@@ -2444,6 +2472,22 @@ public final class OpenCmsCore {
                     CmsLog.INIT.error(e.getLocalizedMessage(), e);
                 }
 
+                try {
+                    if (m_cacheWarmer != null) {
+                        m_cacheWarmer.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(e.getLocalizedMessage(), e);
+                }
+
+                try {
+                    if (m_flexCache != null) {
+                        m_flexCache.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(e.getLocalizedMessage(), e);
+                }
+
                 try {
                     // has to be stopped before the security manager, since this thread uses it
                     if (m_threadStore != null) {
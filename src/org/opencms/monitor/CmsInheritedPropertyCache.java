@@ -0,0 +1,252 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsProperty;
+import org.opencms.main.CmsLog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache for the effective (inherited) properties of resources, organized as a path tree.<p>
+ *
+ * There is one tree for the Online project and one for all offline projects. Every node of a tree
+ * stores the complete list of properties which apply to the resource at that path, including the properties
+ * inherited from the parent folders. A lookup is a walk along the path components.<p>
+ *
+ * When a property changes, only the subtree below the changed resource has to be removed.<p>
+ *
+ * To avoid caching values which were read before a concurrent invalidation, callers read the
+ * {@link #getGeneration() generation} before computing a value and pass it to {@link #put(boolean, String, List, long)}.<p>
+ */
+public class CmsInheritedPropertyCache implements I_CmsMemoryMonitorable {
+
+    /**
+     * A node of the path tree.<p>
+     */
+    private static class Node {
+
+        /** The child nodes by path component. */
+        Map<String, Node> m_children = new ConcurrentHashMap<>();
+
+        /** The effective properties for the path of this node, may be null. */
+        volatile List<CmsProperty> m_properties;
+    }
+
+    /** Log instance for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsInheritedPropertyCache.class);
+
+    /** The generation, incremented by every invalidation. */
+    private volatile long m_generation;
+
+    /** The maximum number of cached property lists. */
+    private int m_maxSize;
+
+    /** The root of the tree for the offline projects. */
+    private volatile Node m_offlineRoot = new Node();
+
+    /** The root of the tree for the Online project. */
+    private volatile Node m_onlineRoot = new Node();
+
+    /** The number of cached property lists. */
+    private AtomicInteger m_size = new AtomicInteger();
+
+    /**
+     * Creates a new cache instance.<p>
+     *
+     * @param maxSize the maximum number of cached property lists, the cache is cleared when it is exceeded
+     */
+    public CmsInheritedPropertyCache(int maxSize) {
+
+        m_maxSize = maxSize;
+    }
+
+    /**
+     * Removes all cache entries.<p>
+     */
+    public synchronized void clear() {
+
+        m_generation++;
+        m_onlineRoot = new Node();
+        m_offlineRoot = new Node();
+        m_size.set(0);
+    }
+
+    /**
+     * Returns the cached effective properties for the given root path, or null if nothing is cached.<p>
+     *
+     * @param online true for the Online project
+     * @param rootPath the root path of the resource
+     *
+     * @return the cached properties
+     */
+    public List<CmsProperty> get(boolean online, String rootPath) {
+
+        Node node = online ? m_onlineRoot : m_offlineRoot;
+        int start = 1;
+        int length = rootPath.length();
+        while ((node != null) && (start < length)) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = node.m_children.get(rootPath.substring(start, end));
+            start = end + 1;
+        }
+        return node != null ? node.m_properties : null;
+    }
+
+    /**
+     * Returns the current generation, which must be passed to {@link #put(boolean, String, List, long)}.<p>
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+
+        return m_generation;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // rough estimate per node and property list
+        return size() * 1024;
+    }
+
+    /**
+     * Caches the effective properties for the given root path.<p>
+     *
+     * The properties are not cached if the cache has been invalidated since the given generation was read.<p>
+     *
+     * @param online true for the Online project
+     * @param rootPath the root path of the resource
+     * @param properties the frozen list of properties
+     * @param generation the generation read before the properties were computed
+     */
+    public synchronized void put(boolean online, String rootPath, List<CmsProperty> properties, long generation) {
+
+        if (generation != m_generation) {
+            return;
+        }
+        if (m_size.get() >= m_maxSize) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("CmsInheritedPropertyCache exceeded " + m_maxSize + " entries, clearing");
+            }
+            clear();
+            return;
+        }
+        Node node = online ? m_onlineRoot : m_offlineRoot;
+        int start = 1;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = node.m_children.computeIfAbsent(rootPath.substring(start, end), k -> new Node());
+            start = end + 1;
+        }
+        if (node.m_properties == null) {
+            m_size.incrementAndGet();
+        }
+        node.m_properties = properties;
+    }
+
+    /**
+     * Removes the cache entries for the given root path and all paths below it.<p>
+     *
+     * @param online true for the Online project
+     * @param rootPath the root path of the changed resource
+     */
+    public synchronized void remove(boolean online, String rootPath) {
+
+        m_generation++;
+        Node parent = null;
+        Node node = online ? m_onlineRoot : m_offlineRoot;
+        String name = null;
+        int start = 1;
+        int length = rootPath.length();
+        while ((node != null) && (start < length)) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            parent = node;
+            name = rootPath.substring(start, end);
+            node = node.m_children.get(name);
+            start = end + 1;
+        }
+        if (node == null) {
+            return;
+        }
+        if (parent == null) {
+            // the root folder has changed
+            if (online) {
+                m_onlineRoot = new Node();
+            } else {
+                m_offlineRoot = new Node();
+            }
+        } else {
+            parent.m_children.remove(name);
+        }
+        m_size.addAndGet(-countEntries(node));
+    }
+
+    /**
+     * Returns the number of cached property lists.<p>
+     *
+     * @return the number of cached property lists
+     */
+    public int size() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Counts the property lists stored in the subtree of the given node.<p>
+     *
+     * @param node the node
+     *
+     * @return the number of property lists
+     */
+    private int countEntries(Node node) {
+
+        int result = node.m_properties != null ? 1 : 0;
+        for (Node child : node.m_children.values()) {
+            result += countEntries(child);
+        }
+        return result;
+    }
+}
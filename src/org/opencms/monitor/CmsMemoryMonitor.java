@@ -71,6 +71,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.content.CmsXmlContent;
+import org.opencms.xml.content.CmsXmlContentFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -81,6 +83,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -152,6 +155,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         USERGROUPS,
         /** VFS Object cache. */
         VFS_OBJECT,
+        /** Parsed online XML content cache. */
+        XML_CONTENT,
         /** XML Entity Permanent cache. */
         XML_ENTITY_PERM,
         /** XML Entity Temporary cache. */
@@ -173,8 +178,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** Maximum number of parsed online XML contents to cache. */
+    private static final int XML_CONTENT_CACHE_SIZE = 512;
+
     /** Cache for access control lists. */
-    private Map<String, CmsAccessControlList> m_cacheAccessControlList;
+    private Map<Object, CmsAccessControlList> m_cacheAccessControlList;
 
     /** A temporary cache for XML content definitions. */
     private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
@@ -198,7 +206,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -207,19 +215,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, List<CmsResource>> m_cacheProjectResources;
 
     /** Cache for properties. */
-    private Map<String, CmsProperty> m_cacheProperty;
+    private Map<Object, CmsProperty> m_cacheProperty;
 
     /** Cache for property lists. */
-    private Map<String, List<CmsProperty>> m_cachePropertyList;
+    private Map<Object, List<CmsProperty>> m_cachePropertyList;
+
+    /** Cache for inherited property lists. */
+    private CmsInheritedPropertyCache m_cacheInheritedProperties;
 
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
 
     /** Cache for resources. */
-    private Map<String, CmsResource> m_cacheResource;
+    private Map<Object, CmsResource> m_cacheResource;
 
     /** Cache for resource lists. */
-    private Map<String, List<CmsResource>> m_cacheResourceList;
+    private Map<Object, List<CmsResource>> m_cacheResourceList;
 
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
@@ -236,6 +247,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The vfs memory cache map. */
     private Map<String, Object> m_cacheVfsObject;
 
+    /** Cache for parsed online XML contents. */
+    private Map<String, CmsXmlContent> m_cacheXmlContent;
+
     /** A permanent cache to avoid multiple readings of often used files from the VFS. */
     private Map<String, byte[]> m_cacheXmlPermanentEntity;
 
@@ -570,7 +584,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param acl the acl to cache
      */
-    public void cacheACL(String key, CmsAccessControlList acl) {
+    public void cacheACL(Object key, CmsAccessControlList acl) {
 
         if (m_disabled.get(CacheType.ACL) != null) {
             return;
@@ -672,7 +686,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
@@ -714,7 +728,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param property the property to cache
      */
-    public void cacheProperty(String key, CmsProperty property) {
+    public void cacheProperty(Object key, CmsProperty property) {
 
         if (m_disabled.get(CacheType.PROPERTY) != null) {
             return;
@@ -728,7 +742,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param propertyList the property list to cache
      */
-    public void cachePropertyList(String key, List<CmsProperty> propertyList) {
+    public void cachePropertyList(Object key, List<CmsProperty> propertyList) {
 
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
@@ -788,7 +802,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param resource the resource to cache
      */
-    public void cacheResource(String key, CmsResource resource) {
+    public void cacheResource(Object key, CmsResource resource) {
 
         if (m_disabled.get(CacheType.RESOURCE) != null) {
             return;
@@ -802,7 +816,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param resourceList the resource list to cache
      */
-    public void cacheResourceList(String key, List<CmsResource> resourceList) {
+    public void cacheResourceList(Object key, List<CmsResource> resourceList) {
 
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
@@ -884,6 +898,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheVfsObject.put(key, obj);
     }
 
+    /**
+     * Caches the given parsed online XML content under the given cache key.<p>
+     *
+     * The cached instance must not be handed out to callers, only copies of it.<p>
+     *
+     * @param key the cache key
+     * @param content the XML content to cache
+     */
+    public void cacheXmlContent(String key, CmsXmlContent content) {
+
+        if (m_disabled.get(CacheType.XML_CONTENT) != null) {
+            return;
+        }
+        m_cacheXmlContent.put(key, content);
+    }
+
     /**
      * Caches the given xml entity under the given system id.<p>
      *
@@ -936,6 +966,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.PROPERTY_LIST);
         flushCache(CacheType.PROJECT_RESOURCES);
         flushCache(CacheType.PUBLISHED_RESOURCES);
+        flushCache(CacheType.XML_CONTENT);
     }
 
     /**
@@ -958,7 +989,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.PROPERTY_LIST);
         flushCache(CacheType.PROJECT_RESOURCES);
         flushCache(CacheType.PUBLISHED_RESOURCES);
-
+        flushCache(CacheType.XML_CONTENT);
     }
 
     /**
@@ -1092,6 +1123,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case PROPERTY_LIST:
                     m_cachePropertyList.clear();
+                    m_cacheInheritedProperties.clear();
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1124,6 +1156,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 case VFS_OBJECT:
                     m_cacheVfsObject.clear();
                     break;
+                case XML_CONTENT:
+                    m_cacheXmlContent.clear();
+                    break;
                 case XML_ENTITY_PERM:
                     m_cacheXmlPermanentEntity.clear();
                     break;
@@ -1461,7 +1496,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the ACL cached with the given cache key
      */
-    public CmsAccessControlList getCachedACL(String key) {
+    public CmsAccessControlList getCachedACL(Object key) {
 
         return m_cacheAccessControlList.get(key);
     }
@@ -1549,7 +1584,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
         return m_cachePermission.get(key);
     }
@@ -1585,7 +1620,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the property cached with the given cache key
      */
-    public CmsProperty getCachedProperty(String key) {
+    public CmsProperty getCachedProperty(Object key) {
 
         return m_cacheProperty.get(key);
     }
@@ -1597,7 +1632,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the property list cached with the given cache key
      */
-    public List<CmsProperty> getCachedPropertyList(String key) {
+    public List<CmsProperty> getCachedPropertyList(Object key) {
 
         return m_cachePropertyList.get(key);
     }
@@ -1660,7 +1695,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the resource cached with the given cache key
      */
-    public CmsResource getCachedResource(String key) {
+    public CmsResource getCachedResource(Object key) {
 
         return m_cacheResource.get(key);
     }
@@ -1672,7 +1707,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the resource list cached with the given cache key
      */
-    public List<CmsResource> getCachedResourceList(String key) {
+    public List<CmsResource> getCachedResourceList(Object key) {
 
         return m_cacheResourceList.get(key);
     }
@@ -1762,6 +1797,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheXmlPermanentEntity.get(systemId);
     }
 
+    /**
+     * Returns the parsed online XML content cached with the given cache key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the parsed online XML content cached with the given cache key
+     */
+    public CmsXmlContent getCachedXmlContent(String key) {
+
+        return m_cacheXmlContent.get(key);
+    }
+
     /**
      * Returns the xml temporary entity content cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1810,6 +1857,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheUserGroups;
     }
 
+    /**
+     * Gets the inherited property list cache.<p>
+     *
+     * @return the inherited property list cache
+     */
+    public CmsInheritedPropertyCache getInheritedPropertyCache() {
+
+        return m_cacheInheritedProperties;
+    }
+
     /**
      * Returns the log count.<p>
      *
@@ -1831,6 +1888,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_memoryCurrent;
     }
 
+    /**
+     * Returns the registered caches which record hit, miss and eviction statistics, sorted by name.<p>
+     *
+     * @return the monitored cache maps by name
+     */
+    public Map<String, CmsMonitoredCacheMap<?, ?>> getMonitoredCacheMaps() {
+
+        Map<String, CmsMonitoredCacheMap<?, ?>> result = new TreeMap<String, CmsMonitoredCacheMap<?, ?>>();
+        for (Map.Entry<String, Object> entry : m_monitoredObjects.entrySet()) {
+            if (entry.getValue() instanceof CmsMonitoredCacheMap) {
+                result.put(entry.getKey(), (CmsMonitoredCacheMap<?, ?>)entry.getValue());
+            }
+        }
+        return result;
+    }
+
     /**
      * Gets the cache for OU / resource associations.
      *
@@ -1907,15 +1980,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        m_cacheXmlTemporaryEntity = createLRUCacheMap(128);
+        m_cacheXmlTemporaryEntity = new CmsMonitoredCacheMap<>(128);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
         // permanent xml entities cache
         m_cacheXmlPermanentEntity = new ConcurrentHashMap<String, byte[]>(32);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
+        // parsed online xml contents cache
+        m_cacheXmlContent = new CmsMonitoredCacheMap<>(XML_CONTENT_CACHE_SIZE);
+        register(CmsXmlContentFactory.class.getName() + ".xmlContentCache", m_cacheXmlContent);
+
         // xml content definitions cache
-        m_cacheContentDefinitions = createLRUCacheMap(64);
+        m_cacheContentDefinitions = new CmsMonitoredCacheMap<>(64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
@@ -1927,23 +2004,23 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), m_cacheLocale);
 
         // permissions cache
-        m_cachePermission = createLRUCacheMap(cacheSettings.getPermissionCacheSize());
+        m_cachePermission = new CmsMonitoredCacheMap<>(cacheSettings.getPermissionCacheSize());
         register(CmsSecurityManager.class.getName(), m_cachePermission);
 
         // user cache
-        m_cacheUser = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUser = new CmsMonitoredCacheMap<>(cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userCache", m_cacheUser);
 
         // user list cache
-        m_cacheUserList = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUserList = new CmsMonitoredCacheMap<>(cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userListCache", m_cacheUserList);
 
         // group cache
-        m_cacheGroup = createLRUCacheMap(cacheSettings.getGroupCacheSize());
+        m_cacheGroup = new CmsMonitoredCacheMap<>(cacheSettings.getGroupCacheSize());
         register(CmsDriverManager.class.getName() + ".groupCache", m_cacheGroup);
 
         // organizational unit cache
-        m_cacheOrgUnit = createLRUCacheMap(cacheSettings.getOrgUnitCacheSize());
+        m_cacheOrgUnit = new CmsMonitoredCacheMap<>(cacheSettings.getOrgUnitCacheSize());
         register(CmsDriverManager.class.getName() + ".orgUnitCache", m_cacheOrgUnit);
 
         // user groups list cache
@@ -1951,11 +2028,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsDriverManager.class.getName() + ".userGroupsCache", m_cacheUserGroups);
 
         // project cache
-        m_cacheProject = createLRUCacheMap(cacheSettings.getProjectCacheSize());
+        m_cacheProject = new CmsMonitoredCacheMap<>(cacheSettings.getProjectCacheSize());
         register(CmsDriverManager.class.getName() + ".projectCache", m_cacheProject);
 
         // project resources cache cache
-        m_cacheProjectResources = createLRUCacheMap(cacheSettings.getProjectResourcesCacheSize());
+        m_cacheProjectResources = new CmsMonitoredCacheMap<>(cacheSettings.getProjectResourcesCacheSize());
         register(CmsDriverManager.class.getName() + ".projectResourcesCache", m_cacheProjectResources);
 
         // publish history
@@ -1970,35 +2047,39 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        m_cacheResource = createLRUCacheMap(cacheSettings.getResourceCacheSize());
+        m_cacheResource = new CmsMonitoredCacheMap<>(cacheSettings.getResourceCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceCache", m_cacheResource);
 
         // roles cache
-        m_cacheHasRoles = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheHasRoles = new CmsMonitoredCacheMap<>(cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".rolesCache", m_cacheHasRoles);
 
         // role lists cache
-        m_cacheRoleLists = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheRoleLists = new CmsMonitoredCacheMap<>(cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".roleListsCache", m_cacheRoleLists);
 
         // resource list cache
-        m_cacheResourceList = createLRUCacheMap(cacheSettings.getResourcelistCacheSize());
+        m_cacheResourceList = new CmsMonitoredCacheMap<>(cacheSettings.getResourcelistCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceListCache", m_cacheResourceList);
 
         // property cache
-        m_cacheProperty = createLRUCacheMap(cacheSettings.getPropertyCacheSize());
+        m_cacheProperty = new CmsMonitoredCacheMap<>(cacheSettings.getPropertyCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyCache", m_cacheProperty);
 
         // property list cache
-        m_cachePropertyList = createLRUCacheMap(cacheSettings.getPropertyListsCacheSize());
+        m_cachePropertyList = new CmsMonitoredCacheMap<>(cacheSettings.getPropertyListsCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyListCache", m_cachePropertyList);
 
+        // inherited property list cache
+        m_cacheInheritedProperties = new CmsInheritedPropertyCache(cacheSettings.getPropertyListsCacheSize());
+        register(CmsDriverManager.class.getName() + ".inheritedPropertyListCache", m_cacheInheritedProperties);
+
         // published resources list cache
-        m_cachePublishedResources = createLRUCacheMap(5);
+        m_cachePublishedResources = new CmsMonitoredCacheMap<>(5);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", m_cachePublishedResources);
 
         // acl cache
-        m_cacheAccessControlList = createLRUCacheMap(cacheSettings.getAclCacheSize());
+        m_cacheAccessControlList = new CmsMonitoredCacheMap<>(cacheSettings.getAclCacheSize());
         register(CmsDriverManager.class.getName() + ".accessControlListCache", m_cacheAccessControlList);
 
         // vfs object cache
@@ -2311,6 +2392,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheProject.remove(project.getName());
     }
 
+    /**
+     * Removes the property list cached with the given cache key.<p>
+     *
+     * @param key the cache key
+     */
+    public void uncachePropertyList(Object key) {
+
+        m_cachePropertyList.remove(key);
+    }
+
     /**
      * Removes the given publish job from the cache.<p>
      *
@@ -2426,6 +2517,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof CmsGroupListCache) {
             return "" + ((CmsGroupListCache)obj).size();
         }
+        if (obj instanceof CmsInheritedPropertyCache) {
+            return "" + ((CmsInheritedPropertyCache)obj).size();
+        }
         return "-";
     }
 
@@ -2463,6 +2557,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 if (obj instanceof String) {
                     String st = (String)obj;
                     keySize += (st.length() * 2);
+                } else if (obj instanceof I_CmsMemoryMonitorable) {
+                    keySize += ((I_CmsMemoryMonitorable)obj).getMemorySize();
                 }
             }
         } catch (ConcurrentModificationException e) {
@@ -2498,7 +2594,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap} or {@link CmsMonitoredCacheMap}.<p>
      *
      * @param obj the object
      *
@@ -2512,6 +2608,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsMonitoredCacheMap) {
+            return Integer.toString(((CmsMonitoredCacheMap<?, ?>)obj).getMaxSize());
+        }
 
         return "-";
     }
@@ -2624,6 +2723,20 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 + "Size: "
                 + form.sprintf(Long.toString(size))
                 + "\n";
+            if (obj instanceof CmsMonitoredCacheMap) {
+                CmsMonitoredCacheMap<?, ?> cacheMap = (CmsMonitoredCacheMap<?, ?>)obj;
+                content += new PrintfFormat("%-42.42s").sprintf("")
+                    + "  "
+                    + "Hits:    "
+                    + form.sprintf(Long.toString(cacheMap.getHitCount()))
+                    + "   "
+                    + "Misses:"
+                    + form.sprintf(Long.toString(cacheMap.getMissCount()))
+                    + "   "
+                    + "Evictions: "
+                    + form.sprintf(Long.toString(cacheMap.getEvictionCount()))
+                    + "\n";
+            }
         }
         content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
 
@@ -2734,6 +2847,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             form.sprintf(getItems(obj)),
                             form.sprintf(getLimit(obj)),
                             form.sprintf(Long.toString(size))}));
+                if (obj instanceof CmsMonitoredCacheMap) {
+                    CmsMonitoredCacheMap<?, ?> cacheMap = (CmsMonitoredCacheMap<?, ?>)obj;
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_MM_CACHE_STATS_5,
+                            new Object[] {
+                                name1.sprintf(key),
+                                form.sprintf(Long.toString(cacheMap.getHitCount())),
+                                form.sprintf(Long.toString(cacheMap.getMissCount())),
+                                form.sprintf(Long.toString(Math.round(cacheMap.getHitRate() * 100))),
+                                form.sprintf(Long.toString(cacheMap.getEvictionCount()))}));
+                }
             }
 
             LOG.info(
@@ -0,0 +1,271 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ForwardingConcurrentMap;
+
+/**
+ * Bounded, concurrent cache map that records hit, miss and eviction counts.<p>
+ *
+ * The map is backed by a Caffeine cache, so reads do not acquire locks and entries are evicted
+ * using the W-TinyLFU policy once the maximum size is reached. All lookups through {@link #get(Object)}
+ * are counted, the counters are shown by the memory monitor.<p>
+ *
+ * Because of the frequency based admission, a new entry may be rejected right away if the cache is full.
+ * Use this map only for pure caches, never for maps whose entries must stay available after they were put.
+ * The driver caches of the memory monitor, like the permission, user, group and project caches, are pure caches
+ * in this sense: every lookup that misses reads the value from the database again, so a rejected entry only costs
+ * another database read.<p>
+ *
+ * Like the <code>LRUMap</code> used before, the map accepts <code>null</code> keys and values, but does not store them.
+ * Putting a <code>null</code> value removes the key, so a later lookup returns <code>null</code> in both cases.
+ * Lookups with a <code>null</code> key always miss.
+ * Caches smaller than {@link #MIN_FREQUENCY_BASED_SIZE} entries would hardly admit new entries at all,
+ * so they use a strict LRU policy instead.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 17.0
+ */
+public class CmsMonitoredCacheMap<K, V> extends ForwardingConcurrentMap<K, V> {
+
+    /** The minimum maximum size for which the frequency based W-TinyLFU policy is used. */
+    public static final int MIN_FREQUENCY_BASED_SIZE = 100;
+
+    /** The Caffeine cache backing this map, or <code>null</code> if the map uses the LRU policy. */
+    private Cache<K, V> m_cache;
+
+    /** The LRU cache backing this map, or <code>null</code> if the map uses the W-TinyLFU policy. */
+    private com.google.common.cache.Cache<K, V> m_lruCache;
+
+    /** The map view of the cache. */
+    private ConcurrentMap<K, V> m_map;
+
+    /** The maximum number of entries. */
+    private int m_maxSize;
+
+    /**
+     * Creates a new cache map.<p>
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public CmsMonitoredCacheMap(int maxSize) {
+
+        m_maxSize = maxSize;
+        if (maxSize < MIN_FREQUENCY_BASED_SIZE) {
+            // a single segment keeps the eviction order strictly LRU
+            m_lruCache = CacheBuilder.newBuilder().maximumSize(maxSize).concurrencyLevel(
+                1).recordStats().<K, V> removalListener(notification -> {
+                    if (notification.wasEvicted()) {
+                        onEviction(notification.getKey(), notification.getValue());
+                    }
+                }).build();
+            m_map = m_lruCache.asMap();
+        } else {
+            // run the eviction in the calling thread, so the size limit is enforced like in the other caches
+            m_cache = Caffeine.newBuilder().maximumSize(maxSize).executor(
+                Runnable::run).recordStats().<K, V> removalListener((key, value, cause) -> {
+                    if (cause.wasEvicted()) {
+                        onEviction(key, value);
+                    }
+                }).build();
+            m_map = m_cache.asMap();
+        }
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return (key != null) && super.containsKey(key);
+    }
+
+    /**
+     * Returns the value for the given key, or <code>null</code> if it is not cached, and counts the lookup.<p>
+     *
+     * @see com.google.common.collect.ForwardingMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        return m_cache != null ? m_cache.getIfPresent(key) : m_lruCache.getIfPresent(key);
+    }
+
+    /**
+     * Returns the number of entries that were evicted because the maximum size was reached.<p>
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_cache != null ? m_cache.stats().evictionCount() : m_lruCache.stats().evictionCount();
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+
+        return m_cache != null ? m_cache.stats().hitCount() : m_lruCache.stats().hitCount();
+    }
+
+    /**
+     * Returns the ratio of lookups that found a cached value, 1.0 if there were no lookups yet.<p>
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+
+        return m_cache != null ? m_cache.stats().hitRate() : m_lruCache.stats().hitRate();
+    }
+
+    /**
+     * Returns the maximum number of entries.<p>
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+
+        return m_cache != null ? m_cache.stats().missCount() : m_lruCache.stats().missCount();
+    }
+
+    /**
+     * Checks if this map uses the frequency based W-TinyLFU policy, otherwise it uses a strict LRU policy.<p>
+     *
+     * @return <code>true</code> if this map uses the W-TinyLFU policy
+     */
+    public boolean isFrequencyBased() {
+
+        return m_cache != null;
+    }
+
+    /**
+     * Caches the given value, a <code>null</code> value removes the key, and a <code>null</code> key is ignored.<p>
+     *
+     * @see com.google.common.collect.ForwardingMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        if (key == null) {
+            return null;
+        }
+        if (value == null) {
+            return super.remove(key);
+        }
+        return super.put(key, value);
+    }
+
+    /**
+     * Caches all given values, with the same handling of <code>null</code> keys and values as
+     * {@link #put(Object, Object)}.<p>
+     *
+     * @see com.google.common.collect.ForwardingMap#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Caches the given value if the key is not cached yet, <code>null</code> keys and values are ignored.<p>
+     *
+     * @see com.google.common.collect.ForwardingConcurrentMap#putIfAbsent(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+
+        if (key == null) {
+            return null;
+        }
+        if (value == null) {
+            return delegate().get(key);
+        }
+        return super.putIfAbsent(key, value);
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        return key != null ? super.remove(key) : null;
+    }
+
+    /**
+     * Called after an entry was evicted because the maximum size was reached.<p>
+     *
+     * The default implementation does nothing, subclasses can override this to release resources held by the value.
+     * Entries removed explicitly, e.g. by {@link #remove(Object)} or {@link #clear()}, are not reported.<p>
+     *
+     * @param key the key of the evicted entry
+     * @param value the value of the evicted entry
+     */
+    protected void onEviction(K key, V value) {
+
+        // noop
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingConcurrentMap#delegate()
+     */
+    @Override
+    protected ConcurrentMap<K, V> delegate() {
+
+        return m_map;
+    }
+}
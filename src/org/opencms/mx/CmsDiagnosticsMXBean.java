@@ -27,11 +27,18 @@
 
 package org.opencms.mx;
 
+import org.opencms.db.timing.CmsQueryStatistics;
+import org.opencms.db.timing.CmsQueryStatistics.CmsQueryStats;
+import org.opencms.main.OpenCms;
 import org.opencms.main.OpenCmsServlet;
 import org.opencms.main.OpenCmsServlet.RequestInfo;
+import org.opencms.staticexport.CmsAfterPublishStaticExportHandler;
+import org.opencms.staticexport.CmsStaticExportManager;
+import org.opencms.staticexport.I_CmsStaticExportHandler;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.management.MBeanServer;
@@ -57,6 +64,27 @@ public class CmsDiagnosticsMXBean implements I_CmsDiagnosticsMXBean {
         mbs.registerMBean(INSTANCE, mxbeanName);
     }
 
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#getStaticExportProgress()
+     */
+    public String getStaticExportProgress() {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        I_CmsStaticExportHandler handler = manager != null ? manager.getHandler() : null;
+        if (handler instanceof CmsAfterPublishStaticExportHandler) {
+            return ((CmsAfterPublishStaticExportHandler)handler).getProgress().toString();
+        }
+        return "idle";
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#isQueryStatisticsEnabled()
+     */
+    public boolean isQueryStatisticsEnabled() {
+
+        return CmsQueryStatistics.INSTANCE.isEnabled();
+    }
+
     /**
      * @see org.opencms.mx.I_CmsDiagnosticsMXBean#listActiveRequests()
      */
@@ -74,4 +102,45 @@ public class CmsDiagnosticsMXBean implements I_CmsDiagnosticsMXBean {
         return result.toString();
     }
 
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#listQueryStatistics()
+     */
+    public String listQueryStatistics() {
+
+        StringBuilder result = new StringBuilder();
+        result.append("key count errors rows total(ms) avg(ms) max(ms) histogram(<");
+        result.append(Arrays.toString(CmsQueryStatistics.HISTOGRAM_LIMITS));
+        result.append("ms)\n");
+        for (CmsQueryStats stats : CmsQueryStatistics.INSTANCE.getStatistics()) {
+            result.append(
+                String.format(
+                    "%s %d %d %d %.1f %.2f %.1f %s\n",
+                    stats.getKey(),
+                    Long.valueOf(stats.getCount()),
+                    Long.valueOf(stats.getErrors()),
+                    Long.valueOf(stats.getRows()),
+                    Double.valueOf(stats.getTotalMillis()),
+                    Double.valueOf(stats.getAverageMillis()),
+                    Double.valueOf(stats.getMaxMillis()),
+                    Arrays.toString(stats.getHistogram())));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#resetQueryStatistics()
+     */
+    public void resetQueryStatistics() {
+
+        CmsQueryStatistics.INSTANCE.reset();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#setQueryStatisticsEnabled(boolean)
+     */
+    public void setQueryStatisticsEnabled(boolean enabled) {
+
+        CmsQueryStatistics.INSTANCE.setEnabled(enabled);
+    }
+
 }
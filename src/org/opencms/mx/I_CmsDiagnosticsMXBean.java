@@ -43,4 +43,43 @@ public interface I_CmsDiagnosticsMXBean {
      */
     public String listActiveRequests();
 
+    /**
+     * Returns true if execution statistics for the SQL queries of the database drivers are collected.
+     *
+     * @return true if query statistics are collected
+     */
+    public boolean isQueryStatisticsEnabled();
+
+    /**
+     * Contains a textual representation of the collected SQL query statistics, sorted by total execution time.
+     * <p>
+     * For each query key, a line of text containing the key, the number of executions, the number of errors, the number of rows fetched or updated,
+     * the total, average and maximum execution time in milliseconds, and the execution counts of the latency histogram is produced.
+     *
+     * @return a textual representation of the query statistics
+     */
+    public String listQueryStatistics();
+
+    /**
+     * Discards the collected SQL query statistics.
+     */
+    public void resetQueryStatistics();
+
+    /**
+     * Enables or disables the collection of SQL query statistics.
+     *
+     * @param enabled true if query statistics should be collected
+     */
+    public void setQueryStatisticsEnabled(boolean enabled);
+
+    /**
+     * Contains a textual representation of the progress of the currently running after publish static export.
+     * <p>
+     * The text contains the current phase, the number of exported and failed resources, and the runtime of the phase,
+     * or 'idle' if no export is running.
+     *
+     * @return a textual representation of the static export progress
+     */
+    public String getStaticExportProgress();
+
 }
@@ -34,6 +34,7 @@ import org.opencms.db.CmsUserSettings;
 import org.opencms.db.I_CmsDbContextFactory;
 import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
@@ -51,10 +52,15 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 
@@ -65,15 +71,90 @@ import org.apache.commons.logging.Log;
  */
 public final class CmsPublishEngine {
 
+    /**
+     * The resources touched by a publish job, used to check if two publish jobs can run concurrently.<p>
+     */
+    private static final class CmsPublishJobResources {
+
+        /** The parent folders of the published resources. */
+        private final Set<String> m_parentFolders = new HashSet<String>();
+
+        /** The root paths and resource ids of the published resources. */
+        private final Set<String> m_resources = new HashSet<String>();
+
+        /** Indicates that the resources are not fully known, so the publish job conflicts with every other job. */
+        private final boolean m_unknown;
+
+        /**
+         * Creates the resource information for the given publish job.<p>
+         *
+         * @param publishJob the publish job
+         * @param onlineResources the online versions of the published resources, which contain the old paths
+         *      of moved resources, or <code>null</code> if they could not be read
+         */
+        CmsPublishJobResources(CmsPublishJobInfoBean publishJob, List<CmsResource> onlineResources) {
+
+            m_unknown = onlineResources == null;
+            for (CmsResource resource : publishJob.getPublishList().getAllResources()) {
+                addResource(resource);
+            }
+            if (onlineResources != null) {
+                for (CmsResource resource : onlineResources) {
+                    // for moved resources, the online path is the old path
+                    addResource(resource);
+                }
+            }
+        }
+
+        /**
+         * Checks if the given publish job touches any of the resources of this publish job,
+         * or any of their parent folders.<p>
+         *
+         * @param other the resources of the other publish job
+         *
+         * @return <code>true</code> if the two publish jobs must not run concurrently
+         */
+        boolean conflicts(CmsPublishJobResources other) {
+
+            if (m_unknown || other.m_unknown) {
+                return true;
+            }
+            for (String resource : m_resources) {
+                if (other.m_resources.contains(resource) || other.m_parentFolders.contains(resource)) {
+                    return true;
+                }
+            }
+            for (String resource : other.m_resources) {
+                if (m_parentFolders.contains(resource)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds the given resource and its parent folders.<p>
+         *
+         * @param resource the resource to add
+         */
+        private void addResource(CmsResource resource) {
+
+            m_resources.add(resource.getRootPath());
+            // siblings share the resource entry
+            m_resources.add(resource.getResourceId().toString());
+            String parent = CmsResource.getParentFolder(resource.getRootPath());
+            while ((parent != null) && m_parentFolders.add(parent)) {
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsPublishEngine.class);
 
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -86,6 +167,9 @@ public final class CmsPublishEngine {
     /** The publish listeners. */
     private final CmsPublishListenerCollection m_listeners;
 
+    /** The number of publish jobs that can run concurrently. */
+    private int m_publishLanes = 1;
+
     /** The publish history list with already published jobs. */
     private final CmsPublishHistory m_publishHistory;
 
@@ -95,6 +179,18 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** Lock to deliver the publish project events of concurrently running publish jobs one at a time. */
+    private final Object m_publishEventLock = new Object();
+
+    /** The resources of the running publish jobs, by publish history id. */
+    private final Map<CmsUUID, CmsPublishJobResources> m_publishResources = new ConcurrentHashMap<>();
+
+    /** The resources of the waiting publish jobs, by publish history id. */
+    private final Map<CmsUUID, CmsPublishJobResources> m_queuedResources = new ConcurrentHashMap<>();
+
+    /** The running publish jobs, in the order they were started. */
+    private final List<CmsPublishThread> m_publishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -133,11 +229,24 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the oldest running publish thread.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread != null) {
+            abandonThread(publishThread);
+        }
+    }
+
+    /**
+     * Abandons the given publish thread.<p>
+     *
+     * @param publishThread the publish thread to abandon
+     */
+    protected void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
             // thread is dead
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
@@ -148,13 +257,13 @@ public final class CmsPublishEngine {
                 LOG.warn(
                     Messages.get().getBundle().key(
                         Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
+                        publishThread.getName(),
+                        publishThread.getUUID()));
             }
-            m_currentPublishThread.interrupt();
+            publishThread.interrupt();
         }
         // just throw it away
-        m_currentPublishThread = null;
+        removePublishThread(publishThread);
         // and try again
         checkCurrentPublishJobThread();
     }
@@ -187,31 +296,66 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
-                }
+        // clean up the dead threads
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (!publishThread.isAlive()) {
+                abandonThread(publishThread);
+                return;
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
+
+        // there is no free publish lane
+        if (m_publishThreads.size() >= m_publishLanes) {
             // normal running
             // wait until it is finished
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+            return;
+        }
+
+        // but something is waiting in the queue
+        if (m_publishQueue.isEmpty()) {
+            // nothing to do
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+            }
+            return;
+        }
+
+        if (m_publishLanes == 1) {
+            // start the next waiting publish job
+            startPublishThread(m_publishQueue.next(), null);
+            return;
+        }
+
+        // start the waiting publish jobs that do not overlap with a running job, or with a job enqueued before them
+        List<CmsPublishJobResources> blocked = new ArrayList<CmsPublishJobResources>(m_publishResources.values());
+        for (CmsPublishJobEnqueued enqueuedJob : m_publishQueue.asList()) {
+            if (m_publishThreads.size() >= m_publishLanes) {
+                break;
+            }
+            CmsPublishJobResources resources = m_queuedResources.computeIfAbsent(
+                enqueuedJob.getPublishHistoryId(),
+                id -> createPublishJobResources(enqueuedJob.m_publishJob));
+            boolean conflict = false;
+            for (CmsPublishJobResources other : blocked) {
+                if (resources.conflicts(other)) {
+                    conflict = true;
+                    break;
+                }
+            }
+            if (conflict) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_PUBLISH_ENGINE_JOB_WAITING_1,
+                            enqueuedJob.getPublishHistoryId()));
+                }
+            } else if (m_publishQueue.next(enqueuedJob.m_publishJob)) {
+                startPublishThread(enqueuedJob.m_publishJob, resources);
+            }
+            blocked.add(resources);
         }
     }
 
@@ -273,10 +417,10 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try running jobs
+        CmsPublishThread publishThread = getPublishThread(publishHistoryId);
+        if (publishThread != null) {
+            return new CmsPublishJobRunning(publishThread.getPublishJob());
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -338,7 +482,7 @@ public final class CmsPublishEngine {
         // if a job is currently running,
         // wait the specified amount of time,
         // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        if (!m_publishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -351,8 +495,8 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishThread publishThread : m_publishThreads) {
+                CmsPublishJobInfoBean publishJob = publishThread.getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -399,8 +543,8 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
+        CmsPublishThread publishThread = getPublishThread(publishJob.getPublishHistoryId());
+        if ((publishThread == null) || !publishJob.m_publishJob.equals(publishThread.getPublishJob())) {
             // engine is currently publishing another job or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
@@ -409,10 +553,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
+            publishThread.abort();
+        } else {
             // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -421,6 +565,7 @@ public final class CmsPublishEngine {
             report.println();
         }
 
+        m_queuedResources.remove(publishJob.getPublishHistoryId());
         // unlock all resources
         if (publishJob.getPublishList() != null) {
             unlockPublishList(publishJob.m_publishJob);
@@ -460,7 +605,7 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if ((m_publishThreads.size() < m_publishLanes) && !m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
@@ -468,11 +613,14 @@ public final class CmsPublishEngine {
     /**
      * Returns the current running publish job.<p>
      *
+     * If more than one publish job is running, the oldest running publish job is returned.<p>
+     *
      * @return the current running publish job
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> it = m_publishThreads.iterator();
+        return it.hasNext() ? it.next() : null;
     }
 
     /**
@@ -517,6 +665,33 @@ public final class CmsPublishEngine {
         return m_publishQueue;
     }
 
+    /**
+     * Returns the running publish thread for the given publish history id.<p>
+     *
+     * @param publishHistoryId the publish history id
+     *
+     * @return the running publish thread, or <code>null</code> if the publish job is not running
+     */
+    protected CmsPublishThread getPublishThread(CmsUUID publishHistoryId) {
+
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the running publish jobs, in the order they were started.<p>
+     *
+     * @return the running publish jobs
+     */
+    protected List<CmsPublishThread> getPublishThreads() {
+
+        return new ArrayList<CmsPublishThread>(m_publishThreads);
+    }
+
     /**
      * Returns the content of the publish report assigned to the given publish job.<p>
      *
@@ -568,10 +743,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishLanes the number of publish jobs that can run concurrently
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishLanes)
     throws CmsException {
 
         // check the driver manager
@@ -580,6 +760,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_publishLanes = Math.max(1, publishLanes);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -599,7 +780,7 @@ public final class CmsPublishEngine {
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !m_publishThreads.isEmpty());
     }
 
     /**
@@ -655,7 +836,10 @@ public final class CmsPublishEngine {
             eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
             eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
             CmsEvent afterPublishEvent = new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, eventData);
-            OpenCms.fireCmsEvent(afterPublishEvent);
+            // the listeners are not prepared for concurrent publish events of different publish lanes
+            synchronized (m_publishEventLock) {
+                OpenCms.fireCmsEvent(afterPublishEvent);
+            }
         } catch (Throwable t) {
             if (dbc != null) {
                 dbc.rollback();
@@ -694,9 +878,9 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
+        if (Thread.currentThread() instanceof CmsPublishThread) {
             // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
+            removePublishThread((CmsPublishThread)Thread.currentThread());
         }
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
@@ -729,6 +913,18 @@ public final class CmsPublishEngine {
         m_listeners.fireStart(new CmsPublishJobEnqueued(publishJob));
     }
 
+    /**
+     * Removes the given publish thread from the running publish jobs.<p>
+     *
+     * @param publishThread the publish thread to remove
+     */
+    protected void removePublishThread(CmsPublishThread publishThread) {
+
+        if (m_publishThreads.remove(publishThread)) {
+            m_publishResources.remove(publishThread.getPublishJob().getPublishHistoryId());
+        }
+    }
+
     /**
      * Removes the given publish listener.<p>
      *
@@ -772,7 +968,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if ((m_publishThreads.size() < m_publishLanes) && !m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -813,6 +1009,42 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Creates the resource information for the given publish job, used to check for overlapping publish jobs.<p>
+     *
+     * The online versions of the published resources are read as well, so that both the old and the new
+     * path of a moved resource are part of the information.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the resource information for the publish job
+     */
+    private CmsPublishJobResources createPublishJobResources(CmsPublishJobInfoBean publishJob) {
+
+        List<CmsUUID> structureIds = new ArrayList<CmsUUID>();
+        for (CmsResource resource : publishJob.getPublishList().getAllResources()) {
+            if (!resource.getState().isNew()) {
+                structureIds.add(resource.getStructureId());
+            }
+        }
+        List<CmsResource> onlineResources = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext();
+        try {
+            onlineResources = m_driverManager.getVfsDriver(dbc).readResources(
+                dbc,
+                CmsProject.ONLINE_PROJECT_ID,
+                structureIds,
+                true);
+        } catch (CmsDataAccessException e) {
+            // without the old paths, the publish job must not run concurrently with any other job
+            dbc.rollback();
+            LOG.error(e.getLocalizedMessage(), e);
+        } finally {
+            dbc.clear();
+        }
+        return new CmsPublishJobResources(publishJob, onlineResources);
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      *
@@ -832,4 +1064,21 @@ public final class CmsPublishEngine {
             return false;
         }
     }
+
+    /**
+     * Starts a new publish thread for the given publish job.<p>
+     *
+     * @param publishJob the publish job to start
+     * @param resources the resources of the publish job, or <code>null</code> if only one publish lane is used
+     */
+    private void startPublishThread(CmsPublishJobInfoBean publishJob, CmsPublishJobResources resources) {
+
+        CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+        m_queuedResources.remove(publishJob.getPublishHistoryId());
+        if (resources != null) {
+            m_publishResources.put(publishJob.getPublishHistoryId(), resources);
+        }
+        m_publishThreads.add(publishThread);
+        publishThread.start();
+    }
 }
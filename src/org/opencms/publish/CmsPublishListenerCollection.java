@@ -40,6 +40,9 @@ import org.apache.commons.logging.Log;
 /**
  * Publish job information bean.<p>
  *
+ * The events are fired one at a time, so listeners see the events of concurrently running publish jobs
+ * in the order they occurred and never receive two events at the same time.<p>
+ *
  * @since 6.5.5
  */
 public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEventListener> {
@@ -69,7 +72,7 @@ public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEvent
      * @param userId the id of the user that aborted the job
      * @param publishJob the publish job that is going to be aborted.
      */
-    protected void fireAbort(CmsUUID userId, CmsPublishJobEnqueued publishJob) {
+    protected synchronized void fireAbort(CmsUUID userId, CmsPublishJobEnqueued publishJob) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_JOB_ABORT_0));
@@ -109,7 +112,7 @@ public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEvent
      *
      * @param publishJob the publish job that is going to be enqueued.
      */
-    protected void fireEnqueued(CmsPublishJobBase publishJob) {
+    protected synchronized void fireEnqueued(CmsPublishJobBase publishJob) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_JOB_ENQUEUE_0));
@@ -139,7 +142,7 @@ public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEvent
      *
      * @param publishJob the publish job that has been finished.
      */
-    protected void fireFinish(CmsPublishJobRunning publishJob) {
+    protected synchronized void fireFinish(CmsPublishJobRunning publishJob) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_JOB_FINISH_0));
@@ -187,7 +190,7 @@ public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEvent
      *
      * @param publishJob the publish job that is going to be removed.
      */
-    protected void fireRemove(CmsPublishJobFinished publishJob) {
+    protected synchronized void fireRemove(CmsPublishJobFinished publishJob) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_JOB_REMOVE_0));
@@ -217,7 +220,7 @@ public final class CmsPublishListenerCollection extends Vector<I_CmsPublishEvent
      *
      * @param publishJob the publish job that is going to start.
      */
-    protected void fireStart(CmsPublishJobEnqueued publishJob) {
+    protected synchronized void fireStart(CmsPublishJobEnqueued publishJob) {
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_JOB_START_0));
@@ -80,6 +80,9 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of publish jobs that can run concurrently. */
+    public static final int DEFAULT_PUBLISH_LANES = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -104,6 +107,9 @@ public class CmsPublishManager {
     /** The maximum size of the publish history. */
     private int m_publishHistorySize;
 
+    /** The number of publish jobs that can run concurrently. */
+    private int m_publishLanes = DEFAULT_PUBLISH_LANES;
+
     /** The publish list remove mode. */
     private CmsPublishManager.PublishListRemoveMode m_publishListRemoveMode;
 
@@ -163,6 +169,19 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the publish thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        CmsPublishThread publishThread = m_publishEngine.getPublishThread(publishJob.getPublishHistoryId());
+        if (publishThread != null) {
+            m_publishEngine.abandonThread(publishThread);
+        }
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -279,10 +298,11 @@ public class CmsPublishManager {
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
 
-        if (m_publishEngine.getCurrentPublishJob() == null) {
+        CmsPublishThread publishThread = m_publishEngine.getCurrentPublishJob();
+        if (publishThread == null) {
             return null;
         }
-        return new CmsPublishJobRunning(m_publishEngine.getCurrentPublishJob().getPublishJob());
+        return new CmsPublishJobRunning(publishThread.getPublishJob());
     }
 
     /**
@@ -339,6 +359,18 @@ public class CmsPublishManager {
         return m_publishHistorySize;
     }
 
+    /**
+     * Returns the number of publish jobs that can run concurrently.<p>
+     *
+     * Publish jobs only run concurrently if their resources do not overlap.<p>
+     *
+     * @return the number of publish lanes
+     */
+    public int getPublishLanes() {
+
+        return m_publishLanes;
+    }
+
     /**
      * Returns a publish list with all new/changed/deleted resources of the current (offline)
      * project that actually get published.<p>
@@ -527,6 +559,20 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the running publish jobs, in the order they were started.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        for (CmsPublishThread publishThread : m_publishEngine.getPublishThreads()) {
+            result.add(new CmsPublishJobRunning(publishThread.getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -550,7 +596,7 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime, m_publishLanes);
         // Ensure publish history gets written to DB regularly,
         OpenCms.getExecutor().scheduleWithFixedDelay(new Runnable() {
 
@@ -792,6 +838,19 @@ public class CmsPublishManager {
         m_publishHistorySize = Integer.parseInt(publishHistorySize);
     }
 
+    /**
+     * Sets the number of publish jobs that can run concurrently.<p>
+     *
+     * @param publishLanes the number of publish lanes, parsed as <code>int</code>
+     */
+    public void setPublishLanes(String publishLanes) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishLanes = Math.max(1, Integer.parseInt(publishLanes.trim()));
+    }
+
     /**
      * Sets the publish list remove mode.<p>
      *
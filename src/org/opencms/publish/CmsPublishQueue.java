@@ -283,6 +283,23 @@ public class CmsPublishQueue {
         return publishJob;
     }
 
+    /**
+     * Removes the given publish job from the queue in order to publish it,
+     * even if it is not the first publish job in the queue.<p>
+     *
+     * @param publishJob the publish job to publish next
+     *
+     * @return <code>true</code> if the publish job was still waiting in the queue
+     */
+    protected boolean next(CmsPublishJobInfoBean publishJob) {
+
+        if (contains(publishJob)) {
+            OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Removes the given job from the list.<p>
      *
@@ -133,6 +133,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_ENGINE_INTERRUPTED_JOB_0 = "LOG_PUBLISH_ENGINE_INTERRUPTED_JOB_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_ENGINE_JOB_WAITING_1 = "LOG_PUBLISH_ENGINE_JOB_WAITING_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0 = "LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0";
 
@@ -0,0 +1,179 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Report that buffers all output and writes it to a delegate report only when {@link #flush()} is called.<p>
+ *
+ * Used by operations that run in parallel worker threads, so that the output produced for a single
+ * work item appears as one coherent block in the shared report instead of being interleaved
+ * with the output of the other workers.<p>
+ *
+ * @since 17.0
+ */
+public class CmsBufferedReport extends A_CmsReport {
+
+    /** The report the buffered output is written to. */
+    private I_CmsReport m_delegate;
+
+    /** The buffered report operations. */
+    private List<Consumer<I_CmsReport>> m_entries = new ArrayList<Consumer<I_CmsReport>>();
+
+    /**
+     * Creates a new buffered report for the given delegate.<p>
+     *
+     * @param delegate the report the buffered output is written to on {@link #flush()}
+     */
+    public CmsBufferedReport(I_CmsReport delegate) {
+
+        m_delegate = delegate;
+        init(delegate.getLocale(), delegate.getSiteRoot());
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addError(java.lang.Object)
+     */
+    @Override
+    public synchronized void addError(Object obj) {
+
+        super.addError(obj);
+        m_entries.add(report -> report.addError(obj));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addWarning(java.lang.Object)
+     */
+    @Override
+    public synchronized void addWarning(Object obj) {
+
+        super.addWarning(obj);
+        m_entries.add(report -> report.addWarning(obj));
+    }
+
+    /**
+     * Writes all buffered output to the delegate report and clears the buffer.<p>
+     *
+     * Must be called from the thread that owns the delegate report.<p>
+     */
+    public void flush() {
+
+        List<Consumer<I_CmsReport>> entries;
+        synchronized (this) {
+            entries = m_entries;
+            m_entries = new ArrayList<Consumer<I_CmsReport>>();
+        }
+        for (Consumer<I_CmsReport> entry : entries) {
+            entry.accept(m_delegate);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public synchronized void print(CmsMessageContainer container) {
+
+        m_entries.add(report -> report.print(container));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public synchronized void print(CmsMessageContainer container, int format) {
+
+        m_entries.add(report -> report.print(container, format));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public synchronized void println() {
+
+        m_entries.add(report -> report.println());
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public synchronized void println(CmsMessageContainer container) {
+
+        m_entries.add(report -> report.println(container));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public synchronized void println(CmsMessageContainer container, int format) {
+
+        m_entries.add(report -> report.println(container, format));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public synchronized void println(Throwable t) {
+
+        m_entries.add(report -> report.println(t));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#removeSiteRoot(java.lang.String)
+     */
+    @Override
+    public String removeSiteRoot(String resourcename) {
+
+        return m_delegate.removeSiteRoot(resourcename);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected synchronized void print(String value, int format) {
+
+        m_entries.add(report -> report.print(Messages.get().container(Messages.RPT_ARGUMENT_1, value), format));
+    }
+}
@@ -27,6 +27,8 @@
 
 package org.opencms.scheduler.jobs;
 
+import org.opencms.cache.CmsVfsMappedDiskCache;
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.file.CmsObject;
 import org.opencms.loader.CmsImageLoader;
 import org.opencms.main.CmsLog;
@@ -71,6 +73,11 @@ public class CmsImageCacheCleanupJob implements I_CmsScheduledJob {
 
         // calculate oldest possible date for the cache files
         long expireDate = System.currentTimeMillis() - (long)(maxAge * 60f * 60f * 1000f);
+        CmsVfsNameBasedDiskCache cache = CmsImageLoader.getVfsDiskCache();
+        if (cache instanceof CmsVfsMappedDiskCache) {
+            // the segment files are not deleted, their space is reused when a segment is evicted
+            return ((CmsVfsMappedDiskCache)cache).removeUnused(expireDate);
+        }
         File basedir = new File(CmsImageLoader.getImageRepositoryPath());
         // perform the cache cleanup
         return cleanImageCache(expireDate, basedir);
@@ -28,29 +28,114 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implements the management of indexing threads.<p>
  *
+ * By default, every resource is indexed in a new thread and the manager waits for this thread
+ * to finish before the next resource is processed. If the manager is created with more than one
+ * indexing thread, documents are extracted in parallel by a bounded pool of worker threads,
+ * while the results are written to the index writer in the order the resources were submitted
+ * by the thread that called {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)}.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A single resource submitted to the indexing worker pool.<p>
+     */
+    private static class CmsIndexingJob implements Runnable {
+
+        /** The future of the job, used to wait for the result and to interrupt the job. */
+        Future<?> m_future;
+
+        /** The indexer the job was created by. */
+        CmsVfsIndexer m_indexer;
+
+        /** The buffered report output of the job, or <code>null</code>. */
+        CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        CmsResource m_resource;
+
+        /** The time the job was started by a worker thread, 0 if it has not been started yet. */
+        volatile long m_startTime;
+
+        /** The indexing thread that does the actual work (it is executed by a worker, not started). */
+        CmsIndexingThread m_thread;
+
+        /** The index writer to write the result to. */
+        I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing job.<p>
+         *
+         * @param indexer the indexer the job was created by
+         * @param writer the index writer to write the result to
+         * @param resource the resource to index
+         * @param thread the indexing thread that does the actual work
+         * @param report the buffered report output of the job, or <code>null</code>
+         */
+        CmsIndexingJob(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsIndexingThread thread,
+            CmsBufferedReport report) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_thread = thread;
+            m_report = report;
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            m_startTime = System.currentTimeMillis();
+            m_thread.run();
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The worker pool used if more than one indexing thread is configured, created on demand. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The number of resources indexed in parallel, 1 for sequential indexing. */
+    private int m_indexingThreads;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,6 +145,9 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The jobs submitted to the worker pool whose results have not yet been written, in submission order. */
+    private Deque<CmsIndexingJob> m_pendingJobs = new ArrayDeque<CmsIndexingJob>();
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
@@ -77,8 +165,21 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param indexingThreads the number of resources that are indexed in parallel, 1 for sequential indexing
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int indexingThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_indexingThreads = Math.max(1, indexingThreads);
     }
 
     /**
@@ -89,12 +190,20 @@ public class CmsIndexingThreadManager {
      * value. If the timeout value is reached, the indexing thread is
      * aborted by an interrupt signal.<p>
      *
+     * If more than one indexing thread is configured, the resource is handed to the worker
+     * pool instead and this method only blocks if the maximum number of pending resources
+     * is reached. The document is then written by a later call of this method or by {@link #isRunning()}.<p>
+     *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        if (m_indexingThreads > 1) {
+            submitIndexingJob(indexer, writer, res);
+            return;
+        }
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
         CmsIndexingThread thread = new CmsIndexingThread(
@@ -160,6 +269,13 @@ public class CmsIndexingThreadManager {
      */
     public boolean isRunning() {
 
+        if (m_indexingThreads > 1) {
+            // write all pending results, afterwards all jobs are either returned or abandoned
+            while (!m_pendingJobs.isEmpty()) {
+                writePendingJob();
+            }
+            shutdownExecutor();
+        }
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -223,4 +339,147 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the worker pool, creating it if required.<p>
+     *
+     * @return the worker pool
+     */
+    private ThreadPoolExecutor getExecutor() {
+
+        if (m_executor == null) {
+            m_executor = new ThreadPoolExecutor(
+                m_indexingThreads,
+                m_indexingThreads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: Indexing worker %d").setDaemon(true).setPriority(
+                    Thread.MIN_PRIORITY).build());
+        }
+        return m_executor;
+    }
+
+    /**
+     * Shuts down the worker pool, if it has been created.<p>
+     *
+     * Abandoned jobs that are still running are not interrupted again, they will terminate on their own.<p>
+     */
+    private void shutdownExecutor() {
+
+        if (m_executor != null) {
+            m_executor.shutdown();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Hands a resource to the worker pool.<p>
+     *
+     * If the number of resources waiting to be written exceeds twice the number of indexing threads,
+     * the oldest pending results are written first, so memory consumption stays bounded.<p>
+     *
+     * @param indexer the VFS indexer to create the index job for
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     */
+    private void submitIndexingJob(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
+
+        while (m_pendingJobs.size() >= (2 * m_indexingThreads)) {
+            writePendingJob();
+        }
+        m_startedCounter++;
+        // each job needs its own user context, the request context is not thread safe
+        CmsObject cms = indexer.getCms();
+        try {
+            cms = OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        CmsBufferedReport report = indexer.getReport() != null ? new CmsBufferedReport(indexer.getReport()) : null;
+        CmsIndexingThread thread = new CmsIndexingThread(cms, res, indexer.getIndex(), m_startedCounter, report);
+        CmsIndexingJob job = new CmsIndexingJob(indexer, writer, res, thread, report);
+        job.m_future = getExecutor().submit(job);
+        m_pendingJobs.add(job);
+    }
+
+    /**
+     * Waits for the oldest pending job and writes its result to the index writer.<p>
+     *
+     * If the job has been running for longer than the timeout, or the calling thread is interrupted while waiting,
+     * the job is interrupted and counted as abandoned, like a sequential indexing thread would be.<p>
+     */
+    private void writePendingJob() {
+
+        CmsIndexingJob job = m_pendingJobs.poll();
+        boolean done = false;
+        while (!done) {
+            long startTime = job.m_startTime;
+            long wait = startTime > 0 ? (startTime + m_timeout) - System.currentTimeMillis() : m_timeout;
+            try {
+                job.m_future.get(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+                done = true;
+            } catch (TimeoutException e) {
+                // only abandon jobs that have exceeded the timeout after they were actually started
+                done = (job.m_startTime > 0) && ((System.currentTimeMillis() - job.m_startTime) >= m_timeout);
+            } catch (InterruptedException e) {
+                // the indexing is shut down or canceled, so stop waiting and abandon the job if it is not finished
+                Thread.currentThread().interrupt();
+                done = true;
+            } catch (ExecutionException e) {
+                // CmsIndexingThread handles all exceptions itself, so this should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+                done = true;
+            }
+        }
+        if (job.m_report != null) {
+            job.m_report.flush();
+        }
+        I_CmsReport report = job.m_indexer.getReport();
+        if (!job.m_future.isDone()) {
+            // the job has not finished - so it must be marked as abandoned
+            m_abandonedCounter++;
+            job.m_future.cancel(true);
+            // the stuck worker thread is lost for the pool, add a replacement so the parallelism is kept
+            m_executor.setMaximumPoolSize(m_executor.getMaximumPoolSize() + 1);
+            m_executor.setCorePoolSize(m_executor.getCorePoolSize() + 1);
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, job.m_resource.getRootPath()));
+            }
+            if (report != null) {
+                report.println();
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, job.m_resource.getRootPath()),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        } else {
+            // the job finished normally
+            m_returnedCounter++;
+        }
+        I_CmsSearchDocument doc = job.m_thread.getResult();
+        if (doc != null) {
+            // write the document to the index
+            job.m_indexer.updateResource(job.m_writer, job.m_resource.getRootPath(), doc);
+        } else {
+            job.m_indexer.deleteResource(job.m_writer, new CmsPublishedResource(job.m_resource));
+        }
+        if (((m_returnedCounter + m_abandonedCounter) % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                job.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            job.m_indexer.getIndex().getName(),
+                            job.m_indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+}
@@ -154,6 +154,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
     /** Constant for additional parameter to enable/disable language detection (default: false). */
     public static final String IGNORE_EXPIRATION = A_PARAM_PREFIX + ".ignoreExpiration";
 
+    /** Constant for additional parameter to set the number of resources indexed in parallel (default: 1). */
+    public static final String INDEXING_THREADS = A_PARAM_PREFIX + ".indexingThreads";
+
     /** Constant for additional parameter to enable/disable language detection (default: false). */
     public static final String LANGUAGEDETECTION = "search.solr.useLanguageDetection";
 
@@ -226,6 +229,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
      */
     private boolean m_ignoreExpiration;
 
+    /** The number of resources indexed in parallel. */
+    private int m_indexingThreads;
+
     /** The Lucene index searcher to use. */
     private transient IndexSearcher m_indexSearcher;
 
@@ -258,6 +264,7 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         m_createExcerpt = true;
         m_maxHits = MAX_HITS_DEFAULT;
         m_checkTimeRange = false;
+        m_indexingThreads = 1;
     }
 
     /**
@@ -466,6 +473,16 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
                 m_maxHits = MAX_HITS_DEFAULT;
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
             }
+        } else if (INDEXING_THREADS.equals(key)) {
+            try {
+                m_indexingThreads = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
+            if (m_indexingThreads < 1) {
+                m_indexingThreads = 1;
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
         } else if (TIME_RANGE.equals(key)) {
             m_checkTimeRange = Boolean.valueOf(value).booleanValue();
         } else if (CmsSearchIndex.EXCERPT.equals(key)) {
@@ -527,6 +544,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         if (getMaxHits() != MAX_HITS_DEFAULT) {
             result.put(MAX_HITS, String.valueOf(getMaxHits()));
         }
+        if (getIndexingThreads() > 1) {
+            result.put(INDEXING_THREADS, String.valueOf(getIndexingThreads()));
+        }
         if (!isCreatingExcerpt()) {
             result.put(EXCERPT, String.valueOf(m_createExcerpt));
         }
@@ -627,6 +647,18 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the number of resources that are indexed in parallel when this index is updated.<p>
+     *
+     * The default is 1, which means that resources are indexed one after another.<p>
+     *
+     * @return the number of resources that are indexed in parallel
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the language locale for the given resource in this index.<p>
      *
@@ -30,6 +30,7 @@ package org.opencms.search;
 import org.opencms.ade.containerpage.CmsDetailOnlyContainerUtil;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.CmsObject;
@@ -73,9 +74,11 @@ import org.opencms.search.fields.I_CmsSearchFieldConfiguration;
 import org.opencms.search.solr.CmsSolrConfiguration;
 import org.opencms.search.solr.CmsSolrFieldConfiguration;
 import org.opencms.search.solr.CmsSolrIndex;
+import org.opencms.search.solr.CmsSolrPermissionFilter;
 import org.opencms.search.solr.I_CmsSolrIndexWriter;
 import org.opencms.search.solr.spellchecking.CmsSolrSpellchecker;
 import org.opencms.search.solr.spellchecking.CmsSpellcheckDictionaryIndexer;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.A_CmsModeStringEnumeration;
@@ -101,6 +104,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -173,6 +177,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected class CmsSearchOfflineHandler implements I_CmsEventListener {
 
+        /** The root paths of the folders with changed access control entries. */
+        private Set<String> m_aclChangedFolders;
+
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
@@ -185,6 +192,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected CmsSearchOfflineHandler() {
 
             m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            m_aclChangedFolders = new HashSet<String>();
         }
 
         /**
@@ -214,6 +222,15 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     // a resource has been modified - offline indexes require (re)indexing
                     List<CmsResource> resources = Collections.singletonList(
                         (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
+                    if ((change instanceof Integer)
+                        && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) != 0)
+                        && resources.get(0).isFolder()
+                        && isPermissionPrefilterUsed()) {
+                        // the indexed permissions of all resources in the folder may have changed
+                        synchronized (this) {
+                            m_aclChangedFolders.add(resources.get(0).getRootPath());
+                        }
+                    }
                     reIndexResources(resources);
                     break;
                 case I_CmsEventListener.EVENT_RESOURCE_DELETED:
@@ -272,9 +289,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected List<CmsPublishedResource> getResourcesToIndex() {
 
             List<CmsPublishedResource> result;
+            Set<String> aclChangedFolders;
             synchronized (this) {
                 result = m_resourcesToIndex;
                 m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+                aclChangedFolders = m_aclChangedFolders;
+                m_aclChangedFolders = new HashSet<String>();
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -284,6 +304,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     cms = OpenCms.initCmsObject(m_adminCms);
                     cms.getRequestContext().setCurrentProject(offline);
                 }
+                addAccessControlAffectedResources(cms, aclChangedFolders, result);
                 addAdditionallyAffectedResources(cms, result);
             } catch (CmsException e) {
                 LOG.error(e.getLocalizedMessage(), e);
@@ -699,6 +720,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The thread used of offline indexing. */
     protected CmsSearchOfflineIndexThread m_offlineIndexThread;
 
+    /** The root paths of the folders with changed access control entries, by publish history id. */
+    private Map<CmsUUID, Set<String>> m_aclChangedFolders = new ConcurrentHashMap<CmsUUID, Set<String>>();
+
     /** Configured analyzers for languages using &lt;analyzer&gt;. */
     private HashMap<Locale, CmsSearchAnalyzer> m_analyzers;
 
@@ -1030,6 +1054,34 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
+                CmsSolrPermissionFilter.clearCache();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+            case I_CmsEventListener.EVENT_GROUP_MODIFIED:
+                CmsSolrPermissionFilter.clearCache();
+                break;
+            case I_CmsEventListener.EVENT_USER_MODIFIED:
+                Object userAction = event.getData().get(I_CmsEventListener.KEY_USER_ACTION);
+                if (I_CmsEventListener.VALUE_USER_MODIFIED_ACTION_ADD_USER_TO_GROUP.equals(userAction)
+                    || I_CmsEventListener.VALUE_USER_MODIFIED_ACTION_REMOVE_USER_FROM_GROUP.equals(userAction)
+                    || I_CmsEventListener.VALUE_USER_MODIFIED_ACTION_SET_OU.equals(userAction)
+                    || I_CmsEventListener.VALUE_USER_MODIFIED_ACTION_DELETE_USER.equals(userAction)) {
+                    // the groups or roles of a user have changed, other changes like the last login don't matter
+                    CmsSolrPermissionFilter.clearCache();
+                }
+                break;
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                if (isPermissionPrefilterUsed()) {
+                    // the online access control entries are overwritten while publishing, so compare them now
+                    CmsPublishList publishList = (CmsPublishList)event.getData().get(
+                        I_CmsEventListener.KEY_PUBLISHLIST);
+                    Set<String> folders = getAccessControlChangedFolders(
+                        (CmsUUID)event.getData().get(I_CmsEventListener.KEY_PROJECTID),
+                        publishList);
+                    if (!folders.isEmpty()) {
+                        m_aclChangedFolders.put(publishList.getPublishHistoryId(), folders);
+                    }
+                }
                 break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
@@ -1727,11 +1779,15 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         OpenCms.addCmsEventListener(
             this,
             new int[] {
+                I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+                I_CmsEventListener.EVENT_GROUP_MODIFIED,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES,
                 I_CmsEventListener.EVENT_REINDEX_OFFLINE,
-                I_CmsEventListener.EVENT_REINDEX_ONLINE});
+                I_CmsEventListener.EVENT_REINDEX_ONLINE,
+                I_CmsEventListener.EVENT_USER_MODIFIED});
     }
 
     /**
@@ -2630,6 +2686,41 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds the files below the given folders to the resources to re-index.<p>
+     *
+     * The indexed permissions of a resource include the access control entries inherited from its parent folders,
+     * so they are outdated if the access control entries of one of these folders have changed.<p>
+     *
+     * @param cms the OpenCms user context to read the files with, in the project of the index
+     * @param folders the root paths of the folders with changed access control entries
+     * @param updateResources the resources to be re-indexed
+     *
+     * @return the updated list of resource to re-index
+     */
+    protected List<CmsPublishedResource> addAccessControlAffectedResources(
+        CmsObject cms,
+        Collection<String> folders,
+        List<CmsPublishedResource> updateResources) {
+
+        if ((folders != null) && !folders.isEmpty()) {
+            Set<CmsPublishedResource> updateResourceSet = new HashSet<>(updateResources);
+            for (String folder : folders) {
+                try {
+                    for (CmsResource res : cms.readResources(folder, CmsResourceFilter.ALL, true)) {
+                        CmsPublishedResource pubRes = new CmsPublishedResource(res);
+                        if (res.isFile() && updateResourceSet.add(pubRes)) {
+                            updateResources.add(pubRes);
+                        }
+                    }
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return updateResources;
+    }
+
     /**
      * Collects the resources whose indexed document depends on one of the updated resources.<p>
      * We take transitive dependencies into account and handle cyclic dependencies correctly as well.
@@ -2813,6 +2904,27 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
     }
 
+    /**
+     * Returns a new thread manager for the indexing threads of the given index.<p>
+     *
+     * The number of resources indexed in parallel is read from the index configuration,
+     * see {@link CmsSearchIndex#INDEXING_THREADS}.<p>
+     *
+     * @param index the index that is updated
+     *
+     * @return a new thread manager for the indexing threads of the given index
+     */
+    protected CmsIndexingThreadManager getThreadManager(I_CmsSearchIndex index) {
+
+        if (index instanceof CmsSearchIndex) {
+            return new CmsIndexingThreadManager(
+                m_timeout,
+                m_maxModificationsBeforeCommit,
+                ((CmsSearchIndex)index).getIndexingThreads());
+        }
+        return getThreadManager();
+    }
+
     /**
      * Initializes the available Cms resource types to be indexed.<p>
      *
@@ -2943,6 +3055,23 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Checks if one of the configured indexes restricts searches by the indexed permissions.<p>
+     *
+     * Only in this case, the resources below a folder are re-indexed if the access control entries of the folder change.<p>
+     *
+     * @return <code>true</code> if one of the indexes restricts searches by the indexed permissions
+     */
+    protected boolean isPermissionPrefilterUsed() {
+
+        for (I_CmsSearchIndex index : m_indexes) {
+            if ((index instanceof CmsSolrIndex) && ((CmsSolrIndex)index).isPermissionPrefilter()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks, if the index should be rebuilt/updated at all by the search manager.
      * @param index the index to check.
@@ -3043,6 +3172,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            addAccessControlAffectedResources(
+                adminCms,
+                m_aclChangedFolders.remove(publishHistoryId),
+                updateResources);
             addAdditionallyAffectedResources(adminCms, updateResources);
             updateAllIndexes(adminCms, updateResources, report);
         } finally {
@@ -3155,7 +3288,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     throws CmsIndexException {
 
         // create a new thread manager for the indexing threads
-        CmsIndexingThreadManager threadManager = getThreadManager();
+        CmsIndexingThreadManager threadManager = getThreadManager(index);
 
         boolean isOfflineIndex = false;
         if (I_CmsSearchIndex.REBUILD_MODE_OFFLINE.equals(index.getRebuildMode())) {
@@ -3352,7 +3485,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
                     if (hasResourcesToUpdate) {
                         // create a new thread manager
-                        CmsIndexingThreadManager threadManager = getThreadManager();
+                        CmsIndexingThreadManager threadManager = getThreadManager(index);
 
                         Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
                         while (i.hasNext()) {
@@ -3519,6 +3652,50 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the root paths of the changed folders in the publish list whose access control entries differ
+     * between the offline and the online project.<p>
+     *
+     * @param projectId the id of the project the resources are published from
+     * @param publishList the publish list, before it is published
+     *
+     * @return the root paths of the folders with changed access control entries
+     */
+    private Set<String> getAccessControlChangedFolders(CmsUUID projectId, CmsPublishList publishList) {
+
+        Set<String> result = new HashSet<String>();
+        if ((projectId == null) || (publishList == null)) {
+            return result;
+        }
+        try {
+            CmsObject onlineCms = OpenCms.initCmsObject(m_adminCms);
+            onlineCms.getRequestContext().setCurrentProject(m_adminCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            CmsObject offlineCms = OpenCms.initCmsObject(m_adminCms);
+            offlineCms.getRequestContext().setCurrentProject(m_adminCms.readProject(projectId));
+            for (CmsResource folder : publishList.getFolderList()) {
+                if (!folder.getState().isChanged()) {
+                    // the resources in new or deleted folders are published as well
+                    continue;
+                }
+                try {
+                    Set<CmsAccessControlEntry> offlineEntries = new HashSet<CmsAccessControlEntry>(
+                        offlineCms.getAccessControlEntries(folder.getRootPath(), false));
+                    Set<CmsAccessControlEntry> onlineEntries = new HashSet<CmsAccessControlEntry>(
+                        onlineCms.getAccessControlEntries(folder.getRootPath(), false));
+                    if (!offlineEntries.equals(onlineEntries)) {
+                        result.add(folder.getRootPath());
+                    }
+                } catch (CmsException e) {
+                    // the folder may have been moved, in this case the resources in it are published as well
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        return result;
+    }
+
     /**
      * Returns the report in the given event data, if <code>null</code>
      * a new log report is used.<p>
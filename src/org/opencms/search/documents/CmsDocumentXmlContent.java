@@ -31,6 +31,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.search.CmsIndexException;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.I_CmsSearchIndex;
@@ -39,14 +40,20 @@ import org.opencms.search.extractors.I_CmsExtractionResult;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.A_CmsXmlDocument;
 import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.content.CmsXmlContentStreamReader;
 import org.opencms.xml.content.I_CmsXmlContentHandler;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
 
 /**
  * Lucene document factory class to extract index data from an OpenCms VFS resource
@@ -61,6 +68,9 @@ import java.util.Locale;
  */
 public class CmsDocumentXmlContent extends A_CmsVfsDocument {
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDocumentXmlContent.class);
+
     /**
      * Creates a new instance of this lucene document factory.<p>
      *
@@ -102,27 +112,22 @@ public class CmsDocumentXmlContent extends A_CmsVfsDocument {
         logContentExtraction(resource, index);
         try {
             CmsFile file = readFile(cms, resource);
+            I_CmsExtractionResult result = extractContentStreaming(cms, file, index);
+            if (result != null) {
+                return result;
+            }
             A_CmsXmlDocument xmlContent = CmsXmlContentFactory.unmarshal(cms, file);
             I_CmsXmlContentHandler handler = xmlContent.getHandler();
             Locale locale = index.getLocaleForResource(cms, resource, xmlContent.getLocales());
             List<String> elements = xmlContent.getNames(locale);
-            StringBuffer content = new StringBuffer();
             LinkedHashMap<String, String> items = new LinkedHashMap<String, String>();
             for (Iterator<String> i = elements.iterator(); i.hasNext();) {
                 String xpath = i.next();
                 // xpath will have the form "Text[1]" or "Nested[1]/Text[1]"
                 I_CmsXmlContentValue value = xmlContent.getValue(xpath, locale);
-                if (handler.isSearchable(value)) {
-                    // the content value is searchable
-                    String extracted = value.getPlainText(cms);
-                    if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
-                        items.put(xpath, extracted);
-                        content.append(extracted);
-                        content.append('\n');
-                    }
-                }
+                addSearchableValue(cms, handler, xpath, value, items);
             }
-            return new CmsExtractionResult(content.toString(), items);
+            return createExtractionResult(items);
         } catch (Exception e) {
             throw new CmsIndexException(
                 Messages.get().container(Messages.ERR_TEXT_EXTRACTION_1, resource.getRootPath()),
@@ -145,4 +150,84 @@ public class CmsDocumentXmlContent extends A_CmsVfsDocument {
 
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the plain text of the given value to the items if the value is searchable.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param handler the content handler of the XML content
+     * @param xpath the path of the value
+     * @param value the content value
+     * @param items the items to add the plain text to
+     */
+    private static void addSearchableValue(
+        CmsObject cms,
+        I_CmsXmlContentHandler handler,
+        String xpath,
+        I_CmsXmlContentValue value,
+        Map<String, String> items) {
+
+        if (handler.isSearchable(value)) {
+            // the content value is searchable
+            String extracted = value.getPlainText(cms);
+            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
+                items.put(xpath, extracted);
+            }
+        }
+    }
+
+    /**
+     * Creates the extraction result for the given items.<p>
+     *
+     * @param items the extracted items
+     *
+     * @return the extraction result
+     */
+    private static I_CmsExtractionResult createExtractionResult(LinkedHashMap<String, String> items) {
+
+        StringBuffer content = new StringBuffer();
+        for (String extracted : items.values()) {
+            content.append(extracted);
+            content.append('\n');
+        }
+        return new CmsExtractionResult(content.toString(), items);
+    }
+
+    /**
+     * Extracts the content by streaming over the XML data, without unmarshalling the content.<p>
+     *
+     * The searchable values of all locales are collected, since the locale to index
+     * is only known after all locales of the content have been read.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param file the file of the resource
+     * @param index the used index
+     *
+     * @return the extraction result, or <code>null</code> if the content can not be streamed
+     */
+    private static I_CmsExtractionResult extractContentStreaming(CmsObject cms, CmsFile file, I_CmsSearchIndex index) {
+
+        CmsXmlContentStreamReader reader = new CmsXmlContentStreamReader(cms, file);
+        Map<Locale, LinkedHashMap<String, String>> localeItems = new HashMap<Locale, LinkedHashMap<String, String>>();
+        try {
+            if (!reader.read(
+                null,
+                value -> addSearchableValue(
+                    cms,
+                    reader.getContent().getHandler(),
+                    value.getPath(),
+                    value,
+                    localeItems.computeIfAbsent(value.getLocale(), locale -> new LinkedHashMap<String, String>())))) {
+                return null;
+            }
+        } catch (CmsXmlException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_STREAMING_EXTRACTION_FAILED_1, file.getRootPath()),
+                e);
+            return null;
+        }
+        Locale locale = index.getLocaleForResource(cms, file, reader.getLocales());
+        LinkedHashMap<String, String> items = localeItems.get(locale);
+        return createExtractionResult(items != null ? items : new LinkedHashMap<String, String>());
+    }
+}
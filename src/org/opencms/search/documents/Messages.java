@@ -76,6 +76,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SKIPPING_CONTAINERPAGE_ELEMENT_WITH_UNREADABLE_RESOURCE_2 = "LOG_SKIPPING_CONTAINERPAGE_ELEMENT_WITH_UNREADABLE_RESOURCE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_STREAMING_EXTRACTION_FAILED_1 = "LOG_STREAMING_EXTRACTION_FAILED_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.documents.messages";
 
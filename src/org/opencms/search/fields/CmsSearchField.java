@@ -47,6 +47,18 @@ import org.apache.solr.uninverting.UninvertingReader.Type;
  */
 public class CmsSearchField implements Serializable {
 
+    /** Name of the field that contains the ids of the principals with allowed read permission on the resource. */
+    public static final String FIELD_ACL_ALLOW = "acl_allow";
+
+    /** Name of the field that contains the ids of the principals with denied read permission on the resource. */
+    public static final String FIELD_ACL_DENY = "acl_deny";
+
+    /** Name of the field that indicates if principals without an access control entry may read the resource. */
+    public static final String FIELD_ACL_OTHERS = "acl_others";
+
+    /** Name of the field that contains the ids of all principals with an access control entry for the resource. */
+    public static final String FIELD_ACL_PRINCIPALS = "acl_principals";
+
     /** Name of the field that contains the (optional) category of the document (hardcoded). */
     public static final String FIELD_CATEGORY = "category";
 
@@ -41,6 +41,7 @@ import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
 import org.opencms.search.CmsIndexException;
 import org.opencms.search.CmsSearchUtil;
@@ -55,14 +56,17 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.galleries.CmsGalleryNameMacroResolver;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
+import org.opencms.util.I_CmsMacroResolver;
 import org.opencms.widgets.serialdate.CmsSerialDateBeanFactory;
 import org.opencms.widgets.serialdate.CmsSerialDateValue;
 import org.opencms.widgets.serialdate.I_CmsSerialDateBean;
 import org.opencms.xml.A_CmsXmlDocument;
 import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
 import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.content.CmsXmlContentStreamReader;
 import org.opencms.xml.content.I_CmsXmlContentHandler;
 import org.opencms.xml.types.CmsXmlDateTimeValue;
 import org.opencms.xml.types.CmsXmlHtmlValue;
@@ -81,9 +85,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Sets;
 
 /**
@@ -103,8 +110,8 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
         /** CMS context for this instance. */
         private CmsObject m_cms;
 
-        /** Current XML content. */
-        private A_CmsXmlDocument m_content;
+        /** Provides the current XML content, which is only needed for resolving macros. */
+        private Supplier<A_CmsXmlDocument> m_content;
 
         /** Default value of field mapped to gallery name. */
         private String m_defaultGalleryNameValue;
@@ -112,6 +119,9 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
         /** Default value of field mapped to title. */
         private String m_defaultTitleValue;
 
+        /** The file of the current XML content. */
+        private CmsFile m_file;
+
         /** Current locale. */
         private Locale m_locale;
 
@@ -131,12 +141,14 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
          * Creates a new instance.<p>
          *
          * @param cms the CMS context
-         * @param content the XML content
+         * @param file the file of the XML content
+         * @param content provides the XML content
          * @param locale the locale in the XML content
          */
-        public GalleryNameChooser(CmsObject cms, A_CmsXmlDocument content, Locale locale) {
+        public GalleryNameChooser(CmsObject cms, CmsFile file, Supplier<A_CmsXmlDocument> content, Locale locale) {
 
             m_cms = cms;
+            m_file = file;
             m_content = content;
             m_locale = locale;
         }
@@ -173,13 +185,12 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
                 m_mappedGalleryDescriptionValue,
                 m_mappedDescriptionValue}) {
                 if (!CmsStringUtil.isEmptyOrWhitespaceOnly(resultCandidateWithMacros)) {
-                    CmsGalleryNameMacroResolver resolver = new CmsGalleryNameMacroResolver(m_cms, m_content, locale);
-                    result = resolver.resolveMacros(resultCandidateWithMacros);
+                    result = resolveMacros(resultCandidateWithMacros, locale);
                     return result;
                 }
             }
             result = m_cms.readPropertyObject(
-                m_content.getFile(),
+                m_file,
                 CmsPropertyDefinition.PROPERTY_DESCRIPTION,
                 false).getValue();
             return result;
@@ -220,13 +231,12 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
                 m_mappedTitleValue,
                 m_defaultTitleValue}) {
                 if (!CmsStringUtil.isEmptyOrWhitespaceOnly(resultCandidateWithMacros)) {
-                    CmsGalleryNameMacroResolver resolver = new CmsGalleryNameMacroResolver(m_cms, m_content, locale);
-                    result = resolver.resolveMacros(resultCandidateWithMacros);
+                    result = resolveMacros(resultCandidateWithMacros, locale);
                     return result;
                 }
             }
             result = m_cms.readPropertyObject(
-                m_content.getFile(),
+                m_file,
                 CmsPropertyDefinition.PROPERTY_TITLE,
                 false).getValue();
             return result;
@@ -291,6 +301,328 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
 
             m_mappedTitleValue = mappedTitleValue;
         }
+
+        /**
+         * Resolves the macros in the given value.<p>
+         *
+         * The XML content is only requested if the value contains a macro.<p>
+         *
+         * @param value the value to resolve the macros in
+         * @param locale the locale to resolve the macros for
+         *
+         * @return the value with the macros resolved
+         */
+        private String resolveMacros(String value, Locale locale) {
+
+            if ((value.indexOf(I_CmsMacroResolver.MACRO_DELIMITER) < 0)
+                && (value.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD) < 0)) {
+                return value;
+            }
+            CmsGalleryNameMacroResolver resolver = new CmsGalleryNameMacroResolver(m_cms, m_content.get(), locale);
+            return resolver.resolveMacros(value);
+        }
+    }
+
+    /**
+     * Collects the items, the textual content and the gallery name and description
+     * of a single locale of a XML content.<p>
+     */
+    private static class LocaleExtractor {
+
+        /** The ids of the contents which have already been extracted. */
+        private Set<CmsUUID> m_alreadyExtracted;
+
+        /** CMS context for this instance. */
+        private CmsObject m_cms;
+
+        /** The field mappings shared by all locales of the content. */
+        private Map<String, String> m_fieldMappings;
+
+        /** Selects the gallery name and description. */
+        private GalleryNameChooser m_galleryNameChooser;
+
+        /** The content handler of the XML content. */
+        private I_CmsXmlContentHandler m_handler;
+
+        /** The used index. */
+        private I_CmsSearchIndex m_index;
+
+        /** The extracted items. */
+        private LinkedHashMap<String, String> m_items;
+
+        /** The locale of the extracted values. */
+        private Locale m_locale;
+
+        /** The resource of the XML content. */
+        private CmsResource m_resource;
+
+        /** The textual content. */
+        private StringBuffer m_textContent;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param cms the CMS context
+         * @param resource the resource of the XML content
+         * @param index the used index
+         * @param locale the locale of the extracted values
+         * @param alreadyExtracted the ids of the contents which have already been extracted
+         * @param handler the content handler of the XML content
+         * @param galleryNameChooser selects the gallery name and description
+         * @param fieldMappings the field mappings shared by all locales of the content
+         */
+        LocaleExtractor(
+            CmsObject cms,
+            CmsResource resource,
+            I_CmsSearchIndex index,
+            Locale locale,
+            Set<CmsUUID> alreadyExtracted,
+            I_CmsXmlContentHandler handler,
+            GalleryNameChooser galleryNameChooser,
+            Map<String, String> fieldMappings) {
+
+            m_cms = cms;
+            m_resource = resource;
+            m_index = index;
+            m_locale = locale;
+            m_alreadyExtracted = alreadyExtracted;
+            m_handler = handler;
+            m_galleryNameChooser = galleryNameChooser;
+            m_fieldMappings = fieldMappings;
+            m_items = new LinkedHashMap<String, String>();
+            m_textContent = new StringBuffer();
+        }
+
+        /**
+         * Extracts the given content value.<p>
+         *
+         * @param xpath the path of the value
+         * @param value the content value
+         */
+        public void addValue(String xpath, I_CmsXmlContentValue value) {
+
+            // try to get the value extraction for the current element path
+            String extracted = null;
+            try {
+                //the new DatePointField.createField dose not support milliseconds
+                if (value instanceof CmsXmlDateTimeValue) {
+                    extracted = CmsSearchUtil.getDateAsIso8601(((CmsXmlDateTimeValue)value).getDateTimeValue());
+                } else {
+                    extracted = value.getPlainText(m_cms);
+                    if (CmsStringUtil.isEmptyOrWhitespaceOnly(extracted)
+                        && value.isSimpleType()
+                        && !(value instanceof CmsXmlHtmlValue)) {
+                        // no text value for simple type, so take the string value as item
+                        // prevent this for elements of type "OpenCmsHtml", since this causes problematic values
+                        // being indexed, e.g., <iframe ...></iframe>
+                        // TODO: Why is this special handling needed at all???
+                        extracted = value.getStringValue(m_cms);
+                    }
+                }
+            } catch (Exception e) {
+                // it can happen that a exception is thrown while extracting a single value
+                LOG.warn(Messages.get().container(Messages.LOG_EXTRACT_VALUE_2, xpath, m_resource), e);
+            }
+
+            // put the extraction to the items and to the textual content
+            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
+                m_items.put(xpath, extracted);
+            }
+            switch (m_handler.getSearchContentType(value)) {
+                case TRUE:
+                    if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
+                        m_textContent.append(extracted);
+                        m_textContent.append('\n');
+                    }
+                    break;
+                case CONTENT:
+                    // TODO: Potentially extend to allow for indexing of non-xml-contents as well.
+                    String potentialLinkValue = value.getStringValue(m_cms);
+                    try {
+                        if ((null != potentialLinkValue)
+                            && !potentialLinkValue.isEmpty()
+                            && m_cms.existsResource(potentialLinkValue)) {
+                            CmsResource linkedRes = m_cms.readResource(potentialLinkValue);
+                            if (CmsResourceTypeXmlContent.isXmlContent(linkedRes)
+                                && !m_alreadyExtracted.contains(linkedRes.getStructureId())) {
+                                Set<CmsUUID> newAlreadyExtracted = new HashSet<>(m_alreadyExtracted);
+                                newAlreadyExtracted.add(m_resource.getStructureId());
+                                I_CmsExtractionResult exRes = CmsSolrDocumentXmlContent.extractXmlContent(
+                                    m_cms,
+                                    linkedRes,
+                                    m_index,
+                                    m_locale,
+                                    newAlreadyExtracted);
+                                String exContent = exRes.getContent(m_locale);
+                                if ((exContent != null) && !exContent.trim().isEmpty()) {
+                                    m_textContent.append(exContent.trim());
+                                    m_textContent.append('\n');
+                                    break; // Success - we break here to not repeatedly programm a warning.
+                                }
+                            }
+                        }
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info(
+                                "When indexing resource "
+                                    + m_resource.getRootPath()
+                                    + ", the elements value "
+                                    + value.getPath()
+                                    + " in locale "
+                                    + m_locale
+                                    + " does not contain a link to an XML content. Hence, the linked element's content is not added to the content indexed for the resource itself.");
+                        }
+                    } catch (Throwable t) {
+                        LOG.error(
+                            "Failed to add content of resource (site path) "
+                                + potentialLinkValue
+                                + " to content of resource (root path) "
+                                + m_resource.getRootPath()
+                                + " when indexing the resource for locale "
+                                + m_locale
+                                + ". Skipping this content part.",
+                            t);
+                    }
+                    break;
+                default:
+                    // we do not index the content element for the content field.
+                    break;
+            }
+
+            List<String> mappings = m_handler.getMappings(value.getPath());
+            if (mappings.size() > 0) {
+                // mappings are defined, lets check if we have mappings that interest us
+                for (String mapping : mappings) {
+                    if (mapping.startsWith(I_CmsXmlContentHandler.MAPTO_PROPERTY)) {
+                        // this is a property mapping
+                        String propertyName = mapping.substring(mapping.lastIndexOf(':') + 1);
+                        if (CmsPropertyDefinition.PROPERTY_TITLE.equals(propertyName)
+                            || CmsPropertyDefinition.PROPERTY_DESCRIPTION.equals(propertyName)) {
+
+                            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
+                                if (CmsPropertyDefinition.PROPERTY_TITLE.equals(propertyName)) {
+                                    m_galleryNameChooser.setMappedTitleValue(extracted);
+                                } else {
+                                    // if field is not title, it must be description
+                                    m_galleryNameChooser.setMappedDescriptionValue(extracted);
+                                }
+                            }
+                        }
+                    } else if (mapping.equals(MAPPING_GALLERY_NAME)) {
+                        m_galleryNameChooser.setMappedGalleryNameValue(value.getPlainText(m_cms));
+                    } else if (mapping.equals(MAPPING_GALLERY_DESCRIPTION)) {
+                        m_galleryNameChooser.setMappedGalleryDescriptionValue(value.getPlainText(m_cms));
+                    }
+                }
+            }
+            if (value instanceof CmsXmlSerialDateValue) {
+                if ((null != extracted) && !extracted.isEmpty()) {
+                    I_CmsSerialDateValue serialDateValue = new CmsSerialDateValue(extracted);
+                    I_CmsSerialDateBean serialDateBean = CmsSerialDateBeanFactory.createSerialDateBean(
+                        serialDateValue);
+                    if (null != serialDateBean) {
+                        StringBuffer values = new StringBuffer();
+                        StringBuffer endValues = new StringBuffer();
+                        StringBuffer currentTillValues = new StringBuffer();
+                        for (Long eventDate : serialDateBean.getDatesAsLong()) {
+                            values.append("\n").append(eventDate.toString());
+                            long endDate = null != serialDateBean.getEventDuration()
+                            ? eventDate.longValue() + serialDateBean.getEventDuration().longValue()
+                            : eventDate.longValue();
+                            endValues.append("\n").append(Long.toString(endDate));
+                            // Special treatment for events that end at 00:00:
+                            // To not show them at the day after they ended, one millisecond is removed from the end time
+                            // for the "currenttill"-time
+                            currentTillValues.append("\n").append(
+                                serialDateValue.isCurrentTillEnd()
+                                ? Long.valueOf(
+                                    serialDateValue.endsAtMidNight() && (endDate > eventDate.longValue())
+                                    ? endDate - 1L
+                                    : endDate)
+                                : eventDate);
+                        }
+                        m_fieldMappings.put(CmsSearchField.FIELD_SERIESDATES, values.substring(1));
+                        m_fieldMappings.put(CmsSearchField.FIELD_SERIESDATES_END, endValues.substring(1));
+                        m_fieldMappings.put(
+                            CmsSearchField.FIELD_SERIESDATES_CURRENT_TILL,
+                            currentTillValues.substring(1));
+                        m_fieldMappings.put(
+                            CmsSearchField.FIELD_SERIESDATES_TYPE,
+                            serialDateValue.getDateType().toString());
+                    } else {
+                        LOG.warn(
+                            "Serial date value \""
+                                + value.getStringValue(m_cms)
+                                + "\" at element \""
+                                + value.getPath()
+                                + "\" is invalid. No dates are indexed for resource \""
+                                + m_resource.getRootPath()
+                                + "\".");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the default values, the gallery name and description and the textual content
+         * after all values of the locale have been extracted.<p>
+         *
+         * @param content the XML content, the values of the content are not accessed
+         *
+         * @return the extracted items of the locale
+         *
+         * @throws CmsException if reading the gallery name or description fails
+         */
+        public LinkedHashMap<String, String> finish(A_CmsXmlDocument content) throws CmsException {
+
+            Set<String> xpaths = Sets.newHashSet();
+            collectSchemaXpathsForSimpleValues(m_cms, content.getContentDefinition(), "", xpaths);
+            for (String xpath : xpaths) {
+                // mappings always are stored with indexes, so we add them to the xpath
+                List<String> mappings = m_handler.getMappings(CmsXmlUtils.createXpath(xpath, 1));
+                for (String mapping : mappings) {
+
+                    if (mapping.equals(MAPPING_GALLERY_NAME)
+                        || mapping.equals(
+                            I_CmsXmlContentHandler.MAPTO_PROPERTY + CmsPropertyDefinition.PROPERTY_TITLE)) {
+                        String defaultValue = m_handler.getDefault(m_cms, content.getFile(), null, xpath, m_locale);
+                        if (mapping.equals(MAPPING_GALLERY_NAME)) {
+                            m_galleryNameChooser.setDefaultGalleryNameValue(defaultValue);
+                        } else {
+                            m_galleryNameChooser.setDefaultTitleValue(defaultValue);
+                        }
+                    }
+                }
+            }
+
+            final String galleryTitleFieldKey = CmsSearchFieldConfiguration.getLocaleExtendedName(
+                CmsSearchField.FIELD_TITLE_UNSTORED,
+                m_locale) + "_s";
+            final String galleryNameValue = m_galleryNameChooser.getGalleryName();
+            m_fieldMappings.put(galleryTitleFieldKey, galleryNameValue);
+            m_fieldMappings.put(
+                CmsSearchFieldConfiguration.getLocaleExtendedName(CmsSearchField.FIELD_DESCRIPTION, m_locale) + "_s",
+                m_galleryNameChooser.getDescription());
+
+            // handle the textual content
+            if (m_textContent.length() > 0) {
+                // add the textual content with a localized key to the items
+                //String key = CmsSearchFieldConfiguration.getLocaleExtendedName(CmsSearchField.FIELD_CONTENT, locale);
+                //items.put(key, textContent.toString());
+                // use the default locale of this resource as general text content for the extraction result
+                m_items.put(I_CmsExtractionResult.ITEM_CONTENT, m_textContent.toString());
+            }
+            return m_items;
+        }
+
+        /**
+         * Returns the chooser for the gallery name and description.<p>
+         *
+         * @return the chooser for the gallery name and description
+         */
+        public GalleryNameChooser getGalleryNameChooser() {
+
+            return m_galleryNameChooser;
+        }
     }
 
     /** Mapping name used to indicate that the value should be used for the gallery description. */
@@ -403,7 +735,7 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
             index,
             forceLocale,
             alreadyExtracted,
-            content -> {/*do nothing with the content*/});
+            null);
 
     }
 
@@ -415,7 +747,8 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
      * @param index the used index
      * @param forceLocale if set, only the content values for the given locale will be extracted
      * @param alreadyExtracted keeps track of ids of contents which have already been extracted
-     * @param contentConsumer gets called with the unmarshalled content object
+     * @param contentConsumer gets called with the unmarshalled content object, if <code>null</code> the values
+     *      are read by streaming over the XML data where possible instead of unmarshalling the content
      *
      * @return the extraction result
      *
@@ -439,235 +772,88 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
             throw new CmsIndexNoContentException(
                 Messages.get().container(Messages.ERR_NO_CONTENT_1, resource.getRootPath()));
         }
+        if (contentConsumer == null) {
+            CmsExtractionResult result = extractXmlContentStreaming(cms, file, index, forceLocale, alreadyExtracted);
+            if (result != null) {
+                return result;
+            }
+        }
         A_CmsXmlDocument xmlContent = CmsXmlContentFactory.unmarshal(cms, file);
         if (contentConsumer != null) {
             contentConsumer.accept(xmlContent);
         }
 
         // initialize some variables
-        Map<Locale, LinkedHashMap<String, String>> items = new HashMap<Locale, LinkedHashMap<String, String>>();
         Map<String, String> fieldMappings = new HashMap<String, String>();
         List<Locale> contentLocales = forceLocale != null
         ? Collections.singletonList(forceLocale)
         : xmlContent.getLocales();
-        Locale resourceLocale = index.getLocaleForResource(cms, resource, contentLocales);
-
-        LinkedHashMap<String, String> localeItems = null;
-        GalleryNameChooser galleryNameChooser = null;
+        Map<Locale, LocaleExtractor> extractors = new HashMap<Locale, LocaleExtractor>();
         // loop over the locales of the content
         for (Locale locale : contentLocales) {
-            galleryNameChooser = new GalleryNameChooser(cms, xmlContent, locale);
-            localeItems = new LinkedHashMap<String, String>();
-            StringBuffer textContent = new StringBuffer();
-            // store the locales of the content as space separated field
+            LocaleExtractor extractor = new LocaleExtractor(
+                cms,
+                resource,
+                index,
+                locale,
+                alreadyExtracted,
+                xmlContent.getHandler(),
+                new GalleryNameChooser(cms, file, Suppliers.ofInstance(xmlContent), locale),
+                fieldMappings);
             // loop over the available element paths of the current content locale
             List<String> paths = xmlContent.getNames(locale);
             for (String xpath : paths) {
-
-                // try to get the value extraction for the current element path
-                String extracted = null;
-                I_CmsXmlContentValue value = xmlContent.getValue(xpath, locale);
-                try {
-                    //the new DatePointField.createField dose not support milliseconds
-                    if (value instanceof CmsXmlDateTimeValue) {
-                        extracted = CmsSearchUtil.getDateAsIso8601(((CmsXmlDateTimeValue)value).getDateTimeValue());
-                    } else {
-                        extracted = value.getPlainText(cms);
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(extracted)
-                            && value.isSimpleType()
-                            && !(value instanceof CmsXmlHtmlValue)) {
-                            // no text value for simple type, so take the string value as item
-                            // prevent this for elements of type "OpenCmsHtml", since this causes problematic values
-                            // being indexed, e.g., <iframe ...></iframe>
-                            // TODO: Why is this special handling needed at all???
-                            extracted = value.getStringValue(cms);
-                        }
-                    }
-                } catch (Exception e) {
-                    // it can happen that a exception is thrown while extracting a single value
-                    LOG.warn(Messages.get().container(Messages.LOG_EXTRACT_VALUE_2, xpath, resource), e);
-                }
-
-                // put the extraction to the items and to the textual content
-                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
-                    localeItems.put(xpath, extracted);
-                }
-                switch (xmlContent.getHandler().getSearchContentType(value)) {
-                    case TRUE:
-                        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
-                            textContent.append(extracted);
-                            textContent.append('\n');
-                        }
-                        break;
-                    case CONTENT:
-                        // TODO: Potentially extend to allow for indexing of non-xml-contents as well.
-                        String potentialLinkValue = value.getStringValue(cms);
-                        try {
-                            if ((null != potentialLinkValue)
-                                && !potentialLinkValue.isEmpty()
-                                && cms.existsResource(potentialLinkValue)) {
-                                CmsResource linkedRes = cms.readResource(potentialLinkValue);
-                                if (CmsResourceTypeXmlContent.isXmlContent(linkedRes)
-                                    && !alreadyExtracted.contains(linkedRes.getStructureId())) {
-                                    Set<CmsUUID> newAlreadyExtracted = new HashSet<>(alreadyExtracted);
-                                    newAlreadyExtracted.add(resource.getStructureId());
-                                    I_CmsExtractionResult exRes = CmsSolrDocumentXmlContent.extractXmlContent(
-                                        cms,
-                                        linkedRes,
-                                        index,
-                                        locale,
-                                        newAlreadyExtracted);
-                                    String exContent = exRes.getContent(locale);
-                                    if ((exContent != null) && !exContent.trim().isEmpty()) {
-                                        textContent.append(exContent.trim());
-                                        textContent.append('\n');
-                                        break; // Success - we break here to not repeatedly programm a warning.
-                                    }
-                                }
-                            }
-                            if (LOG.isInfoEnabled()) {
-                                LOG.info(
-                                    "When indexing resource "
-                                        + resource.getRootPath()
-                                        + ", the elements value "
-                                        + value.getPath()
-                                        + " in locale "
-                                        + locale
-                                        + " does not contain a link to an XML content. Hence, the linked element's content is not added to the content indexed for the resource itself.");
-                            }
-                        } catch (Throwable t) {
-                            LOG.error(
-                                "Failed to add content of resource (site path) "
-                                    + potentialLinkValue
-                                    + " to content of resource (root path) "
-                                    + resource.getRootPath()
-                                    + " when indexing the resource for locale "
-                                    + locale
-                                    + ". Skipping this content part.",
-                                t);
-                        }
-                        break;
-                    default:
-                        // we do not index the content element for the content field.
-                        break;
-                }
-
-                List<String> mappings = xmlContent.getHandler().getMappings(value.getPath());
-                if (mappings.size() > 0) {
-                    // mappings are defined, lets check if we have mappings that interest us
-                    for (String mapping : mappings) {
-                        if (mapping.startsWith(I_CmsXmlContentHandler.MAPTO_PROPERTY)) {
-                            // this is a property mapping
-                            String propertyName = mapping.substring(mapping.lastIndexOf(':') + 1);
-                            if (CmsPropertyDefinition.PROPERTY_TITLE.equals(propertyName)
-                                || CmsPropertyDefinition.PROPERTY_DESCRIPTION.equals(propertyName)) {
-
-                                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(extracted)) {
-                                    if (CmsPropertyDefinition.PROPERTY_TITLE.equals(propertyName)) {
-                                        galleryNameChooser.setMappedTitleValue(extracted);
-                                    } else {
-                                        // if field is not title, it must be description
-                                        galleryNameChooser.setMappedDescriptionValue(extracted);
-                                    }
-                                }
-                            }
-                        } else if (mapping.equals(MAPPING_GALLERY_NAME)) {
-                            galleryNameChooser.setMappedGalleryNameValue(value.getPlainText(cms));
-                        } else if (mapping.equals(MAPPING_GALLERY_DESCRIPTION)) {
-                            galleryNameChooser.setMappedGalleryDescriptionValue(value.getPlainText(cms));
-                        }
-                    }
-                }
-                if (value instanceof CmsXmlSerialDateValue) {
-                    if ((null != extracted) && !extracted.isEmpty()) {
-                        I_CmsSerialDateValue serialDateValue = new CmsSerialDateValue(extracted);
-                        I_CmsSerialDateBean serialDateBean = CmsSerialDateBeanFactory.createSerialDateBean(
-                            serialDateValue);
-                        if (null != serialDateBean) {
-                            StringBuffer values = new StringBuffer();
-                            StringBuffer endValues = new StringBuffer();
-                            StringBuffer currentTillValues = new StringBuffer();
-                            for (Long eventDate : serialDateBean.getDatesAsLong()) {
-                                values.append("\n").append(eventDate.toString());
-                                long endDate = null != serialDateBean.getEventDuration()
-                                ? eventDate.longValue() + serialDateBean.getEventDuration().longValue()
-                                : eventDate.longValue();
-                                endValues.append("\n").append(Long.toString(endDate));
-                                // Special treatment for events that end at 00:00:
-                                // To not show them at the day after they ended, one millisecond is removed from the end time
-                                // for the "currenttill"-time
-                                currentTillValues.append("\n").append(
-                                    serialDateValue.isCurrentTillEnd()
-                                    ? Long.valueOf(
-                                        serialDateValue.endsAtMidNight() && (endDate > eventDate.longValue())
-                                        ? endDate - 1L
-                                        : endDate)
-                                    : eventDate);
-                            }
-                            fieldMappings.put(CmsSearchField.FIELD_SERIESDATES, values.substring(1));
-                            fieldMappings.put(CmsSearchField.FIELD_SERIESDATES_END, endValues.substring(1));
-                            fieldMappings.put(
-                                CmsSearchField.FIELD_SERIESDATES_CURRENT_TILL,
-                                currentTillValues.substring(1));
-                            fieldMappings.put(
-                                CmsSearchField.FIELD_SERIESDATES_TYPE,
-                                serialDateValue.getDateType().toString());
-                        } else {
-                            LOG.warn(
-                                "Serial date value \""
-                                    + value.getStringValue(cms)
-                                    + "\" at element \""
-                                    + value.getPath()
-                                    + "\" is invalid. No dates are indexed for resource \""
-                                    + resource.getRootPath()
-                                    + "\".");
-                        }
-                    }
-                }
+                extractor.addValue(xpath, xmlContent.getValue(xpath, locale));
             }
+            extractors.put(locale, extractor);
+        }
+        return createExtractionResult(
+            cms,
+            resource,
+            index,
+            forceLocale,
+            xmlContent,
+            contentLocales,
+            extractors,
+            fieldMappings);
+    }
 
-            Set<String> xpaths = Sets.newHashSet();
-            collectSchemaXpathsForSimpleValues(cms, xmlContent.getContentDefinition(), "", xpaths);
-            for (String xpath : xpaths) {
-                // mappings always are stored with indexes, so we add them to the xpath
-                List<String> mappings = xmlContent.getHandler().getMappings(CmsXmlUtils.createXpath(xpath, 1));
-                for (String mapping : mappings) {
-
-                    if (mapping.equals(MAPPING_GALLERY_NAME)
-                        || mapping.equals(
-                            I_CmsXmlContentHandler.MAPTO_PROPERTY + CmsPropertyDefinition.PROPERTY_TITLE)) {
-                        String defaultValue = xmlContent.getHandler().getDefault(
-                            cms,
-                            xmlContent.getFile(),
-                            null,
-                            xpath,
-                            locale);
-                        if (mapping.equals(MAPPING_GALLERY_NAME)) {
-                            galleryNameChooser.setDefaultGalleryNameValue(defaultValue);
-                        } else {
-                            galleryNameChooser.setDefaultTitleValue(defaultValue);
-                        }
-                    }
-                }
-            }
+    /**
+     * Creates the extraction result after the values of all locales have been extracted.<p>
+     *
+     * @param cms the cms context
+     * @param resource the resource
+     * @param index the used index
+     * @param forceLocale if set, only the content values for the given locale have been extracted
+     * @param xmlContent the XML content, the values of the content are not accessed
+     * @param contentLocales the extracted locales
+     * @param extractors the extractors for the locales
+     * @param fieldMappings the field mappings
+     *
+     * @return the extraction result
+     *
+     * @throws CmsException in case reading the gallery name or description fails
+     */
+    private static CmsExtractionResult createExtractionResult(
+        CmsObject cms,
+        CmsResource resource,
+        I_CmsSearchIndex index,
+        Locale forceLocale,
+        A_CmsXmlDocument xmlContent,
+        List<Locale> contentLocales,
+        Map<Locale, LocaleExtractor> extractors,
+        Map<String, String> fieldMappings)
+    throws CmsException {
 
-            final String galleryTitleFieldKey = CmsSearchFieldConfiguration.getLocaleExtendedName(
-                CmsSearchField.FIELD_TITLE_UNSTORED,
-                locale) + "_s";
-            final String galleryNameValue = galleryNameChooser.getGalleryName();
-            fieldMappings.put(galleryTitleFieldKey, galleryNameValue);
-            fieldMappings.put(
-                CmsSearchFieldConfiguration.getLocaleExtendedName(CmsSearchField.FIELD_DESCRIPTION, locale) + "_s",
-                galleryNameChooser.getDescription());
+        Map<Locale, LinkedHashMap<String, String>> items = new HashMap<Locale, LinkedHashMap<String, String>>();
+        Locale resourceLocale = index.getLocaleForResource(cms, resource, contentLocales);
 
-            // handle the textual content
-            if (textContent.length() > 0) {
-                // add the textual content with a localized key to the items
-                //String key = CmsSearchFieldConfiguration.getLocaleExtendedName(CmsSearchField.FIELD_CONTENT, locale);
-                //items.put(key, textContent.toString());
-                // use the default locale of this resource as general text content for the extraction result
-                localeItems.put(I_CmsExtractionResult.ITEM_CONTENT, textContent.toString());
-            }
+        LinkedHashMap<String, String> localeItems = null;
+        GalleryNameChooser galleryNameChooser = null;
+        for (Locale locale : contentLocales) {
+            LocaleExtractor extractor = extractors.get(locale);
+            localeItems = extractor.finish(xmlContent);
+            galleryNameChooser = extractor.getGalleryNameChooser();
             items.put(locale, localeItems);
         }
         // if the content is locale independent, it should have only one content locale, but that should be indexed for all available locales.
@@ -695,7 +881,80 @@ public class CmsSolrDocumentXmlContent extends A_CmsVfsDocument {
         // add the locales that have been indexed for this document as item and return the extraction result
         // fieldMappings.put(CmsSearchField.FIELD_RESOURCE_LOCALES, locales.toString().trim());
         return new CmsExtractionResult(resourceLocale, items, fieldMappings);
+    }
+
+    /**
+     * Extracts the content of a single XML content resource by streaming over the XML data,
+     * without unmarshalling the content.<p>
+     *
+     * The content is only unmarshalled if macros in the gallery name or description have to be resolved.<p>
+     *
+     * @param cms the cms context
+     * @param file the file of the resource
+     * @param index the used index
+     * @param forceLocale if set, only the content values for the given locale will be extracted
+     * @param alreadyExtracted keeps track of ids of contents which have already been extracted
+     *
+     * @return the extraction result, or <code>null</code> if the content can not be streamed
+     *
+     * @throws CmsException in case reading the gallery name or description fails
+     */
+    private static CmsExtractionResult extractXmlContentStreaming(
+        CmsObject cms,
+        CmsFile file,
+        I_CmsSearchIndex index,
+        Locale forceLocale,
+        Set<CmsUUID> alreadyExtracted)
+    throws CmsException {
 
+        CmsXmlContentStreamReader reader = new CmsXmlContentStreamReader(cms, file);
+        Supplier<A_CmsXmlDocument> contentSupplier = Suppliers.memoize(() -> {
+            try {
+                return CmsXmlContentFactory.unmarshal(cms, file);
+            } catch (CmsXmlException e) {
+                throw new CmsRuntimeException(e.getMessageContainer(), e);
+            }
+        });
+        Map<String, String> fieldMappings = new HashMap<String, String>();
+        Map<Locale, LocaleExtractor> extractors = new HashMap<Locale, LocaleExtractor>();
+        Function<Locale, LocaleExtractor> createExtractor = locale -> new LocaleExtractor(
+            cms,
+            file,
+            index,
+            locale,
+            alreadyExtracted,
+            reader.getContent().getHandler(),
+            new GalleryNameChooser(cms, file, contentSupplier, locale),
+            fieldMappings);
+        try {
+            if (!reader.read(
+                forceLocale,
+                value -> extractors.computeIfAbsent(value.getLocale(), createExtractor).addValue(
+                    value.getPath(),
+                    value))) {
+                return null;
+            }
+        } catch (CmsXmlException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_STREAMING_EXTRACTION_FAILED_1, file.getRootPath()),
+                e);
+            return null;
+        }
+        List<Locale> contentLocales = forceLocale != null
+        ? Collections.singletonList(forceLocale)
+        : reader.getLocales();
+        for (Locale locale : contentLocales) {
+            extractors.computeIfAbsent(locale, createExtractor);
+        }
+        return createExtractionResult(
+            cms,
+            file,
+            index,
+            forceLocale,
+            reader.getContent(),
+            contentLocales,
+            extractors,
+            fieldMappings);
     }
 
     /**
@@ -56,7 +56,12 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -188,6 +193,8 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
 
         document = appendFieldsForListSortOptions(document);
 
+        appendAccessControlFields(document, cms, resource);
+
         if (resource.getRootPath().startsWith(OpenCms.getSiteManager().getSharedFolder())
             || (null != OpenCms.getSiteManager().getSiteRoot(resource.getRootPath()))) {
             appendSpellFields(document);
@@ -705,6 +712,15 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         sfield = new CmsSolrField(CmsSearchField.FIELD_SEARCH_CHANNEL, null, null, null);
         m_solrFields.put(sfield.getName(), sfield);
 
+        for (String aclField : new String[] {
+            CmsSearchField.FIELD_ACL_ALLOW,
+            CmsSearchField.FIELD_ACL_DENY,
+            CmsSearchField.FIELD_ACL_OTHERS,
+            CmsSearchField.FIELD_ACL_PRINCIPALS}) {
+            sfield = new CmsSolrField(aclField, null, null, null);
+            m_solrFields.put(sfield.getName(), sfield);
+        }
+
         /*
          * Fields with mapping
          */
@@ -743,6 +759,65 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
 
     }
 
+    /**
+     * Adds the principals with read permission on the resource to the document.<p>
+     *
+     * The fields are used by {@link CmsSolrPermissionFilter} to restrict searches to the documents
+     * the current user can read.<p>
+     *
+     * @param document the document to index
+     * @param cms the OpenCms context used for indexing
+     * @param resource the indexed resource
+     */
+    private void appendAccessControlFields(I_CmsSearchDocument document, CmsObject cms, CmsResource resource) {
+
+        CmsAccessControlList acl;
+        try {
+            acl = cms.getAccessControlList(cms.getSitePath(resource));
+        } catch (CmsException e) {
+            // without the fields, the document is found by all users and checked after the search
+            LOG.warn(e.getLocalizedMessage(), e);
+            return;
+        }
+        List<String> allowed = new ArrayList<String>();
+        List<String> denied = new ArrayList<String>();
+        List<String> principals = new ArrayList<String>();
+        boolean others = false;
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            CmsUUID principal = entry.getKey();
+            boolean allows = (entry.getValue().getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) != 0;
+            boolean denies = (entry.getValue().getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) != 0;
+            if (CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.equals(principal)) {
+                others = allows && !denies;
+            } else if (!CmsAccessControlEntry.PRINCIPAL_OVERWRITE_ALL_ID.equals(principal)) {
+                principals.add(principal.toString());
+                if (allows) {
+                    allowed.add(principal.toString());
+                }
+                if (denies) {
+                    denied.add(principal.toString());
+                }
+            }
+        }
+        // multiple values are separated by line breaks
+        if (!allowed.isEmpty()) {
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_ALLOW),
+                CmsStringUtil.listAsString(allowed, "\n"));
+        }
+        if (!denied.isEmpty()) {
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_DENY),
+                CmsStringUtil.listAsString(denied, "\n"));
+        }
+        if (!principals.isEmpty()) {
+            document.addSearchField(
+                m_solrFields.get(CmsSearchField.FIELD_ACL_PRINCIPALS),
+                CmsStringUtil.listAsString(principals, "\n"));
+        }
+        document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_ACL_OTHERS), String.valueOf(others));
+    }
+
     /**
      * Adds multiple fields to the document that are used for the sort options in the list app.
      *
@@ -130,6 +130,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
     **/
     public static final String SOLR_SEARCH_MAX_PROCESSED_RESULTS = "search.solr.maxProcessedResults";
 
+    /**
+     * Constant for additional parameter to restrict searches to the documents readable by the current user
+     * with a filter query on the indexed access control fields, see {@link CmsSolrPermissionFilter}.
+     **/
+    public static final String SOLR_SEARCH_PERMISSION_PREFILTER = "search.solr.permissionPrefilter";
+
     /** Constant for additional parameter to set the fields the select handler should return at maximum. */
     public static final String SOLR_HANDLER_ALLOWED_FIELDS = "handle.solr.allowedFields";
 
@@ -250,6 +256,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Server URL to use specific for the index. If set, it overwrites all other server settings. */
     private String m_serverUrl;
 
+    /** Flag, indicating if searches are pre-filtered by the permissions of the current user. */
+    private boolean m_permissionPrefilter;
+
     /**
      * Default constructor.<p>
      */
@@ -378,6 +387,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     m_serverUrl = value.trim();
                 }
                 break;
+            case SOLR_SEARCH_PERMISSION_PREFILTER:
+                m_permissionPrefilter = Boolean.parseBoolean(value.trim());
+                break;
             default:
                 super.addConfigurationParameter(key, value);
                 break;
@@ -401,7 +413,11 @@ public class CmsSolrIndex extends CmsSearchIndex {
     @Override
     public I_CmsIndexWriter createIndexWriter(boolean create, I_CmsReport report) {
 
-        return new CmsSolrIndexWriter(m_solr, this);
+        // send documents in batches if the index is built by several indexing threads
+        return new CmsSolrIndexWriter(
+            m_solr,
+            this,
+            getIndexingThreads() > 1 ? CmsSolrIndexWriter.DEFAULT_BATCH_SIZE : 1);
     }
 
     /**
@@ -513,6 +529,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (m_permissionPrefilter) {
+            result.put(SOLR_SEARCH_PERMISSION_PREFILTER, String.valueOf(m_permissionPrefilter));
+        }
         return result;
     }
 
@@ -657,6 +676,19 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null == m_solr;
     }
 
+    /**
+     * Returns a flag, indicating if searches are restricted to the documents readable by the current user
+     * with a filter query on the indexed access control fields.<p>
+     *
+     * @return <code>true</code> if searches are pre-filtered by the permissions of the current user
+     *
+     * @see #SOLR_SEARCH_PERMISSION_PREFILTER
+     */
+    public boolean isPermissionPrefilter() {
+
+        return m_permissionPrefilter;
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      *
@@ -892,6 +924,17 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     + ":\"true\"");
         }
 
+        boolean prefiltered = false;
+        if (m_permissionPrefilter && isCheckingPermissions()) {
+            // restrict the search to the documents the user can read, so the permission check rarely removes results
+            String fqPermissions = CmsSolrPermissionFilter.getFilterQuery(cms);
+            if (fqPermissions != null) {
+                query.removeFilterQuery(fqPermissions);
+                query.addFilterQuery(fqPermissions);
+                prefiltered = true;
+            }
+        }
+
         // get start parameter from the request
         int start = null == query.getStart() ? 0 : query.getStart().intValue();
 
@@ -974,6 +1017,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
             // Initialize rows, offset, end and the current page.
             int end = start + rows;
             int itemsToCheck = 0 == end ? 0 : Math.max(10, end + (end / 5)); // request 20 percent more, but at least 10 results if permissions are filtered
+            if (prefiltered) {
+                // the permission check is only a safety net, the results are already filtered by Solr
+                itemsToCheck = end;
+            }
             // use a set to prevent double entries if multiple check queries are performed.
             Set<String> resultSolrIds = new HashSet<>(rows); // rows are set before definitely.
 
@@ -40,9 +40,12 @@ import org.opencms.search.fields.CmsSearchField;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.SolrClient;
@@ -57,9 +60,15 @@ import org.apache.solr.common.SolrInputDocument;
  */
 public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
 
+    /** The default number of resources sent to the Solr server in one batch, if batching is enabled. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsSolrIndexWriter.class);
 
+    /** The maximal number of resources sent to the Solr server in one batch, 1 for no batching. */
+    private int m_batchSize;
+
     /** The time to wait before a commit is sent to the Solr index.  */
     private int m_commitMs = Long.valueOf(
         OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue();
@@ -67,6 +76,12 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     /** The Solr index. */
     private CmsSolrIndex m_index;
 
+    /** The documents waiting to be added in the next batch. */
+    private List<SolrInputDocument> m_pendingDocuments = new ArrayList<SolrInputDocument>();
+
+    /** The root paths of the resources whose old documents are deleted with the next batch. */
+    private Set<String> m_pendingPaths = new LinkedHashSet<String>();
+
     /** The Solr client. */
     private SolrClient m_server;
 
@@ -92,8 +107,23 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
      */
     public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index) {
 
+        this(client, index, 1);
+    }
+
+    /**
+     * Creates a new index writer that sends updated documents to the Solr server in batches.<p>
+     *
+     * Pending documents are sent when the batch is full, and before every commit, close or delete operation.<p>
+     *
+     * @param client the Solr client to use
+     * @param index the OpenCms search index instance this writer to supposed to write to
+     * @param batchSize the maximal number of resources sent in one batch, 1 for no batching
+     */
+    public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index, int batchSize) {
+
         m_index = index;
         m_server = client;
+        m_batchSize = Math.max(1, batchSize);
         if (m_index != null) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -106,9 +136,9 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     /**
      * @see org.opencms.search.I_CmsIndexWriter#close()
      */
-    public void close() {
+    public void close() throws IOException {
 
-        // nothing to do here
+        flushPendingDocuments();
     }
 
     /**
@@ -117,6 +147,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     public void commit() throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            flushPendingDocuments();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
@@ -136,6 +167,9 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     public void deleteAllDocuments() throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            // documents not sent yet would be deleted anyway
+            m_pendingDocuments.clear();
+            m_pendingPaths.clear();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
@@ -155,6 +189,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     public void deleteDocument(CmsPublishedResource resource) throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            flushPendingDocuments();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
@@ -203,10 +238,18 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
         if ((m_server != null) && (m_index != null)) {
 
             if (document.getDocument() != null) {
-                try {
-                    m_server.deleteByQuery(m_index.getCoreName(), "path:\"" + rootPath + "\"", m_commitMs);
-                } catch (Exception e1) {
-                    LOG.error(e1.getLocalizedMessage(), e1);
+                if (m_batchSize > 1) {
+                    if (m_pendingPaths.contains(rootPath)) {
+                        // the same path must not be deleted after its new document has been added
+                        flushPendingDocuments();
+                    }
+                    m_pendingPaths.add(rootPath);
+                } else {
+                    try {
+                        m_server.deleteByQuery(m_index.getCoreName(), "path:\"" + rootPath + "\"", m_commitMs);
+                    } catch (Exception e1) {
+                        LOG.error(e1.getLocalizedMessage(), e1);
+                    }
                 }
                 try {
                     LOG.info(
@@ -219,6 +262,51 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                 } catch (SolrServerException e) {
                     throw new IOException(e.getLocalizedMessage(), e);
                 }
+                if (m_pendingPaths.size() >= m_batchSize) {
+                    flushPendingDocuments();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the pending batch to the Solr server.<p>
+     *
+     * The old documents of all resources in the batch are deleted with a single query before
+     * the new documents are added with a single request.<p>
+     *
+     * @throws IOException thrown if adding the documents to the index fails
+     */
+    protected void flushPendingDocuments() throws IOException {
+
+        if (m_pendingPaths.isEmpty() && m_pendingDocuments.isEmpty()) {
+            return;
+        }
+        if (!m_pendingPaths.isEmpty()) {
+            StringBuffer query = new StringBuffer("path:(");
+            boolean first = true;
+            for (String path : m_pendingPaths) {
+                if (!first) {
+                    query.append(" OR ");
+                }
+                query.append('"').append(path).append('"');
+                first = false;
+            }
+            query.append(')');
+            m_pendingPaths.clear();
+            try {
+                m_server.deleteByQuery(m_index.getCoreName(), query.toString(), m_commitMs);
+            } catch (Exception e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        if (!m_pendingDocuments.isEmpty()) {
+            List<SolrInputDocument> documents = m_pendingDocuments;
+            m_pendingDocuments = new ArrayList<SolrInputDocument>();
+            try {
+                m_server.add(m_index.getCoreName(), documents, m_commitMs);
+            } catch (SolrServerException e) {
+                throw new IOException(e.getLocalizedMessage(), e);
             }
         }
     }
@@ -291,12 +379,30 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                 //remove fields that should not be part of the index, but were used to transport extra-information on date series
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_END);
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_CURRENT_TILL);
-                m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+                // the document instance is modified for the next date, so a batched document must be a copy
+                addInputDocument(m_batchSize > 1 ? inputDoc.deepCopy() : inputDoc);
             }
         } else {
             inputDoc.setField(CmsSearchField.FIELD_SOLR_ID, id);
-            m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+            addInputDocument(inputDoc);
         }
 
     }
+
+    /**
+     * Adds a single Solr document to the index, or to the pending batch if batching is enabled.<p>
+     *
+     * @param inputDoc the Solr document to add
+     *
+     * @throws SolrServerException thrown if adding the document to the index fails
+     * @throws IOException thrown if adding the document to the index fails
+     */
+    private void addInputDocument(SolrInputDocument inputDoc) throws SolrServerException, IOException {
+
+        if (m_batchSize > 1) {
+            m_pendingDocuments.add(inputDoc);
+        } else {
+            m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+        }
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsUser;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.solr.client.solrj.util.ClientUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Creates Solr filter queries that restrict a search to the documents the current user can read.<p>
+ *
+ * The filter works on the access control fields written at indexing time, see
+ * {@link CmsSearchField#FIELD_ACL_ALLOW}, {@link CmsSearchField#FIELD_ACL_DENY},
+ * {@link CmsSearchField#FIELD_ACL_PRINCIPALS} and {@link CmsSearchField#FIELD_ACL_OTHERS}.
+ * It follows the evaluation of {@link org.opencms.security.CmsAccessControlList#getPermissions(CmsUser, List, List)}:
+ * A document matches if one of the principals of the user allows reading and none denies it, or if
+ * no principal of the user has an entry and all others may read. Documents indexed without these fields always match.<p>
+ *
+ * The filter is only a pre-filter, the permissions of the found documents are still checked. This check can only remove
+ * documents, so the indexed fields must be current: The search manager re-indexes the resources below a folder
+ * if the access control entries of the folder change, and clears the cached filter queries if users, groups or their
+ * memberships change, see {@link #clearCache()}.<p>
+ *
+ * @since 17.0
+ */
+public final class CmsSolrPermissionFilter {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSolrPermissionFilter.class);
+
+    /** Cache value for users who can read all resources, regardless of the access control lists. */
+    private static final String NO_FILTER = "";
+
+    /** The cached filter queries by user id and cache generation. */
+    private static final Cache<String, String> FILTER_QUERIES = CacheBuilder.newBuilder().expireAfterWrite(
+        5,
+        TimeUnit.MINUTES).maximumSize(10000).build();
+
+    /** The cache generation, increased when the cache is cleared, so filter queries created concurrently are not used. */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * Hide constructor.<p>
+     */
+    private CmsSolrPermissionFilter() {
+
+        // empty
+    }
+
+    /**
+     * Removes all cached filter queries.<p>
+     *
+     * Called by the search manager if users, groups or group memberships change.<p>
+     */
+    public static void clearCache() {
+
+        GENERATION.incrementAndGet();
+        FILTER_QUERIES.invalidateAll();
+    }
+
+    /**
+     * Creates the filter query for the given principals.<p>
+     *
+     * @param principals the ids of the user, its groups and roles
+     *
+     * @return the filter query
+     */
+    public static String createFilterQuery(Collection<CmsUUID> principals) {
+
+        StringBuffer ids = new StringBuffer(principals.size() * 40);
+        for (CmsUUID principal : principals) {
+            if (ids.length() > 0) {
+                ids.append(" OR ");
+            }
+            ids.append(ClientUtils.escapeQueryChars(principal.toString()));
+        }
+        String idList = "(" + ids + ")";
+        StringBuffer result = new StringBuffer(idList.length() * 3 + 200);
+        // one of the principals may read and none is denied
+        result.append("(+").append(CmsSearchField.FIELD_ACL_ALLOW).append(':').append(idList);
+        result.append(" -").append(CmsSearchField.FIELD_ACL_DENY).append(':').append(idList).append(')');
+        // none of the principals has an entry, but all others may read
+        result.append(" OR (+").append(CmsSearchField.FIELD_ACL_OTHERS).append(":true");
+        result.append(" -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(':').append(idList).append(')');
+        // documents indexed without access control fields
+        result.append(" OR (*:* -").append(CmsSearchField.FIELD_ACL_OTHERS).append(":[* TO *])");
+        return result.toString();
+    }
+
+    /**
+     * Returns the filter query restricting a search to the documents the current user can read.<p>
+     *
+     * @param cms the current users OpenCms context
+     *
+     * @return the filter query, or <code>null</code> if the search should not be restricted
+     */
+    public static String getFilterQuery(CmsObject cms) {
+
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        String key = user.getId() + "_" + GENERATION.get();
+        String result = FILTER_QUERIES.getIfPresent(key);
+        if (result == null) {
+            try {
+                result = createFilterQuery(cms, user);
+            } catch (CmsException e) {
+                // search without pre-filter, the permissions of the results are checked anyway
+                LOG.warn(e.getLocalizedMessage(), e);
+                return null;
+            }
+            FILTER_QUERIES.put(key, result);
+        }
+        return NO_FILTER.equals(result) ? null : result;
+    }
+
+    /**
+     * Creates the filter query for the given user.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param user the user
+     *
+     * @return the filter query, or {@link #NO_FILTER} if the user can read all resources
+     *
+     * @throws CmsException if reading the groups or roles of the user fails
+     */
+    private static String createFilterQuery(CmsObject cms, CmsUser user) throws CmsException {
+
+        List<CmsRole> roles = user.isGuestUser()
+        ? Collections.<CmsRole> emptyList()
+        : OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false);
+        Set<CmsUUID> principals = new LinkedHashSet<CmsUUID>();
+        principals.add(user.getId());
+        for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+            principals.add(group.getId());
+        }
+        for (CmsRole role : roles) {
+            String roleName = role.getRoleName();
+            if (roleName.equals(CmsRole.VFS_MANAGER.getRoleName())
+                || roleName.equals(CmsRole.ADMINISTRATOR.getRoleName())
+                || roleName.equals(CmsRole.ROOT_ADMIN.getRoleName())) {
+                // these users may ignore the permissions, at least for some resources
+                return NO_FILTER;
+            }
+            // access control entries for roles don't refer to an organizational unit
+            principals.add(role.forOrgUnit(null).getId());
+        }
+        return createFilterQuery(principals);
+    }
+}
@@ -90,7 +90,11 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
         String lockCheckStr = checkLock.getCode();
         String keyPrefix = requireVisibleStr + lockCheckStr;
 
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(keyPrefix, dbc, resource, requiredPermissions);
+        Object cacheKey = m_keyGenerator.getCacheKeyObjectForUserPermissions(
+            keyPrefix,
+            dbc,
+            resource,
+            requiredPermissions);
         CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
         if (cacheResult != null) {
             return cacheResult;
@@ -50,6 +50,7 @@ import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsPath;
+import org.opencms.util.CmsPathMap;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
@@ -64,6 +65,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -95,6 +97,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         /** Map from site roots as strings to the corresponding alternative site roots. */
         private Map<CmsPath, CmsSite> m_alternativeSites = new HashMap<>();
 
+        /** The alternative sites indexed by their site roots, for fast lookups by root path. */
+        private CmsPathMap<CmsSite> m_pathIndex = new CmsPathMap<>();
+
         /** Site roots for the alternative site data. */
         private Set<String> m_siteRoots = new HashSet<>();
 
@@ -111,6 +116,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
                     CmsPath key = new CmsPath(extensionSite.getSiteRoot());
                     m_alternativeSites.put(key, extensionSite);
                     m_siteRoots.add(key.asString());
+                    m_pathIndex.add(key.asString(), extensionSite);
                 }
 
             }
@@ -124,13 +130,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
          */
         public CmsSite getSiteForRootPath(String path) {
 
-            for (Map.Entry<CmsPath, CmsSite> entry : m_alternativeSites.entrySet()) {
-                CmsPath key = entry.getKey();
-                if (key.isPrefixOfStr(path)) {
-                    return entry.getValue();
-                }
-            }
-            return null;
+            return m_pathIndex.getLongestPrefixValue(path);
         }
 
         /**
@@ -198,8 +198,8 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The length of the "/sites/" folder plus 1. */
     private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
 
-    /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
-    private List<String> m_additionalSiteRoots;
+    /** The additional site roots, that is site roots that are not below the "/sites/" folder, indexed by path. */
+    private volatile CmsPathMap<String> m_additionalSiteRoots;
 
     /** Data for the alternative site root rules. */
     private volatile AlternativeSiteData m_alternativeSiteData = new AlternativeSiteData(new ArrayList<>());
@@ -231,8 +231,8 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The shared folder name. */
     private String m_sharedFolder;
 
-    /** Contains all configured site matchers in a list for direct access. */
-    private List<CmsSiteMatcher> m_siteMatchers;
+    /** Contains all configured site matchers, indexed by scheme, lower case host name and port. */
+    private volatile Map<String, CmsSiteMatcher> m_siteMatchers;
 
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
@@ -257,7 +257,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
 
         m_siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
         m_siteRootSites = new HashMap<String, CmsSite>();
-        m_additionalSiteRoots = new ArrayList<String>();
+        m_additionalSiteRoots = new CmsPathMap<String>();
         m_workplaceServers = new LinkedHashMap<String, CmsSSLMode>();
         m_workplaceMatchers = new ArrayList<CmsSiteMatcher>();
         m_oldStyleSecureServer = true;
@@ -305,6 +305,24 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the key under which a site matcher is stored in the site matcher index.<p>
+     *
+     * Host names are compared case insensitive, like in {@link CmsSiteMatcher#equals(Object)}.<p>
+     *
+     * @param matcher the site matcher
+     *
+     * @return the index key for the site matcher
+     */
+    private static String getMatcherIndexKey(CmsSiteMatcher matcher) {
+
+        return matcher.getServerProtocol()
+            + "://"
+            + matcher.getServerName().toLowerCase(Locale.ENGLISH)
+            + ":"
+            + matcher.getServerPort();
+    }
+
     /**
      * Adds a site.<p>
      *
@@ -1342,11 +1360,13 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             setSiteMatcherSites(m_siteMatcherSites);
 
             // store additional site roots to optimize lookups later
+            CmsPathMap<String> additionalSiteRoots = new CmsPathMap<String>();
             for (String root : m_siteRootSites.keySet()) {
                 if (!root.startsWith(SITES_FOLDER) || (root.split("/").length >= 4)) {
-                    m_additionalSiteRoots.add(root);
+                    additionalSiteRoots.add(root, root);
                 }
             }
+            m_additionalSiteRoots = additionalSiteRoots;
 
             initExtensionSites();
 
@@ -1894,11 +1914,11 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
 
         CmsSiteMatcher matcher = new CmsSiteMatcher(req.getScheme(), req.getServerName(), req.getServerPort());
         // this is required to get the right configured time offset
-        int index = m_siteMatchers.indexOf(matcher);
-        if (index < 0) {
+        CmsSiteMatcher configuredMatcher = m_siteMatchers.get(getMatcherIndexKey(matcher));
+        if (configuredMatcher == null) {
             return matcher;
         }
-        return m_siteMatchers.get(index);
+        return configuredMatcher;
     }
 
     /**
@@ -1975,21 +1995,17 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     }
 
     /**
-     * Returns <code>true</code> if the given root path matches any of the stored additional sites.<p>
+     * Returns the additional site root matching the given root path, or <code>null</code> if there is none.<p>
      *
-     * @param rootPath the root path to check
+     * If several additional site roots match, the longest one is returned.<p>
+     *
+     * @param rootPath the root path to check, ending with a slash
      *
-     * @return <code>true</code> if the given root path matches any of the stored additional sites
+     * @return the additional site root matching the given root path, or <code>null</code>
      */
     private String lookupAdditionalSite(String rootPath) {
 
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot + "/")) {
-                return siteRoot;
-            }
-        }
-        return null;
+        return m_additionalSiteRoots.getLongestPrefixValue(rootPath);
     }
 
     /**
@@ -2020,7 +2036,11 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     private void setSiteMatcherSites(Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
 
+        Map<String, CmsSiteMatcher> siteMatchers = new HashMap<String, CmsSiteMatcher>();
+        for (CmsSiteMatcher matcher : siteMatcherSites.keySet()) {
+            siteMatchers.putIfAbsent(getMatcherIndexKey(matcher), matcher);
+        }
         m_siteMatcherSites = Collections.unmodifiableMap(siteMatcherSites);
-        m_siteMatchers = Collections.unmodifiableList(new ArrayList<CmsSiteMatcher>(m_siteMatcherSites.keySet()));
+        m_siteMatchers = Collections.unmodifiableMap(siteMatchers);
     }
 }
\ No newline at end of file
@@ -33,10 +33,14 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -57,12 +61,17 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implementation for the <code>{@link I_CmsStaticExportHandler}</code> interface.<p>
  *
@@ -74,18 +83,45 @@ import org.apache.commons.logging.Log;
  */
 public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler {
 
+    /** Runtime property to run the after publish export on a background thread instead of the publish thread. */
+    public static final String PARAM_EXPORT_BACKGROUND = "staticexport.background";
+
+    /** Runtime property to enable the relation based export of resources which match no export rule. */
+    public static final String PARAM_EXPORT_INCREMENTAL = "staticexport.incremental";
+
+    /** Runtime property for the number of threads used for the after publish export. */
+    public static final String PARAM_EXPORT_THREADS = "staticexport.threads";
+
+    /** The maximum time between setting the content of a file and writing it, in milliseconds. */
+    private static final long CONTENT_DATE_TOLERANCE = 1000;
+
     /** Header field set-cookie constant. */
     private static final String HEADER_FIELD_SET_COOKIE = "Set-Cookie";
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAfterPublishStaticExportHandler.class);
 
+    /** Progress phase name for the export of non-template resources. */
+    private static final String PHASE_NONTEMPLATE = "non-template resources";
+
+    /** Progress phase name for the export of template resources. */
+    private static final String PHASE_TEMPLATE = "template resources";
+
     /** Request method get constant. */
     private static final String REQUEST_METHOD_GET = "GET";
 
     /** Request property cookie constant. */
     private static final String REQUEST_PROPERTY_COOKIE = "Cookie";
 
+    /** The executor running the after publish exports in the background, created on first use. */
+    private ExecutorService m_backgroundExecutor;
+
+    /** The number of after publish exports waiting for or running on the background thread. */
+    private AtomicInteger m_pendingExports = new AtomicInteger();
+
+    /** The progress of the currently running export. */
+    private CmsStaticExportProgress m_progress = new CmsStaticExportProgress();
+
     /**
      * Does the actual static export.<p>
      *
@@ -211,24 +247,114 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return resources;
     }
 
+    /**
+     * Returns the progress of the currently running export.<p>
+     *
+     * @return the progress of the currently running export
+     */
+    public CmsStaticExportProgress getProgress() {
+
+        return m_progress;
+    }
+
+    /**
+     * @see org.opencms.staticexport.A_CmsStaticExportHandler#isBusy()
+     */
+    @Override
+    public boolean isBusy() {
+
+        return super.isBusy() || (m_pendingExports.get() > 0);
+    }
+
     /**
      * @see org.opencms.staticexport.I_CmsStaticExportHandler#performEventPublishProject(org.opencms.util.CmsUUID, org.opencms.report.I_CmsReport)
      */
     @Override
     public void performEventPublishProject(CmsUUID publishHistoryId, I_CmsReport report) {
 
+        if (!isBackgroundExport()) {
+            runExportAfterPublish(publishHistoryId, report);
+            return;
+        }
+        // the publish report is stored when the publish job is finished, so the background export writes to the log
+        if (report != null) {
+            report.println(Messages.get().container(Messages.RPT_STATICEXPORT_BACKGROUND_0), I_CmsReport.FORMAT_NOTE);
+        }
+        m_pendingExports.incrementAndGet();
         try {
-            m_busy = true;
-            exportAfterPublish(publishHistoryId, report);
-        } catch (Throwable t) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_ERROR_0), t);
-            }
-            if (report != null) {
-                report.addError(t);
+            getBackgroundExecutor().execute(() -> {
+                try {
+                    runExportAfterPublish(
+                        publishHistoryId,
+                        new CmsLogReport(CmsLocaleManager.getDefaultLocale(), getClass()));
+                } finally {
+                    m_pendingExports.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            m_pendingExports.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the non-internal resources depending on the given published resource, and their siblings,
+     * to the map of resources to export.<p>
+     *
+     * All resources linking to or embedding the published resource are added. The relations are then followed
+     * transitively from every resource that embeds a changed resource, since the output of that resource changes
+     * as well, up to the pages which are not embedded anywhere. Resources that only link to a changed resource
+     * are exported, but their relation sources are not followed.<p>
+     *
+     * @param cms the current cms object, in the root site
+     * @param pubResource the published resource
+     * @param resourceMap the map of resources to export, with the root paths as keys
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     */
+    protected void addRelationSources(
+        CmsObject cms,
+        CmsPublishedResource pubResource,
+        Map<String, CmsPublishedResource> resourceMap)
+    throws CmsException {
+
+        CmsExportFolderMatcher matcher = OpenCms.getStaticExportManager().getExportFolderMatcher();
+        Set<CmsUUID> visited = new HashSet<CmsUUID>();
+        visited.add(pubResource.getStructureId());
+        List<String> changed = new ArrayList<String>();
+        changed.add(pubResource.getRootPath());
+        int count = 0;
+        while (!changed.isEmpty()) {
+            String rootPath = changed.remove(changed.size() - 1);
+            for (CmsRelation relation : cms.getRelationsForResource(rootPath, CmsRelationFilter.SOURCES)) {
+                CmsResource source;
+                try {
+                    source = relation.getSource(cms, CmsResourceFilter.DEFAULT);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // broken or expired relation source, nothing to export
+                    LOG.debug(e.getLocalizedMessage(), e);
+                    continue;
+                }
+                if (relation.getType().isStrong() && visited.add(source.getStructureId())) {
+                    // the source embeds the changed resource, so the resources depending on it are changed too
+                    changed.add(source.getRootPath());
+                }
+                if (source.isInternal() || !matcher.match(source.getRootPath())) {
+                    continue;
+                }
+                for (CmsPublishedResource sibling : getSiblings(cms, new CmsPublishedResource(source))) {
+                    if (resourceMap.put(sibling.getRootPath(), sibling) == null) {
+                        count++;
+                    }
+                }
             }
-        } finally {
-            m_busy = false;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_RELATION_SOURCES_2,
+                    pubResource.getRootPath(),
+                    Integer.valueOf(count)));
         }
     }
 
@@ -307,68 +433,42 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     Integer.valueOf(publishedResources.size())));
         }
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
         int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, Integer.valueOf(size)));
         }
         // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    Integer.valueOf(count++),
-                    Integer.valueOf(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = -1;
-            try {
-                status = manager.export(null, null, cms, exportData);
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                }
-            } catch (CmsStaticExportException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
+        m_progress.start(PHASE_NONTEMPLATE, size);
+        CmsStaticExportTaskPool pool = new CmsStaticExportTaskPool(getExportThreads(), size, report);
+        try {
+            int count = 1;
+            for (CmsStaticExportData exportData : resourcesToExport) {
+                int number = count++;
+                // each worker needs its own context
+                CmsObject taskCms = pool.isParallel() ? OpenCms.initCmsObject(cms) : cms;
+                pool.submit(
+                    taskReport -> exportNonTemplateResource(taskCms, exportData, number, size, taskReport));
             }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    Integer.valueOf(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+            Throwable error = pool.waitForTasks();
+            if (error instanceof CmsException) {
+                throw (CmsException)error;
+            } else if (error instanceof IOException) {
+                throw (IOException)error;
+            } else if (error instanceof ServletException) {
+                throw (ServletException)error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException)error;
+            } else if (error instanceof Error) {
+                throw (Error)error;
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+        } finally {
+            pool.shutdown();
+            m_progress.finish();
         }
+        printProgress(report);
 
         resourcesToExport = null;
 
@@ -617,9 +717,7 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      */
     protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, Integer.valueOf(size)));
@@ -628,93 +726,50 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
+        m_progress.start(PHASE_TEMPLATE, size);
         StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
+        CmsStaticExportTaskPool pool = new CmsStaticExportTaskPool(getExportThreads(), size, report);
+        try {
+            int count = 1;
+            // now loop through all of them and request them from the server
+            for (String rfsName : publishedTemplateResources) {
+                CmsStaticExportData data = readTemplateExportData(cms, rfsName);
+                if (data == null) {
+                    // no valid resource found for rfs name (already deleted), skip it
+                    m_progress.resourceDone(false);
+                    continue;
                 }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
+                int number = count++;
+                if (!pool.isParallel() || (number == 1)) {
+                    // the first request is done synchronously to retrieve the session cookies used by the workers
+                    exportTemplateResource(cms, data, number, size, cookies, report);
+                    //don't lock up the CPU exclusively - allow other Threads to run as well
+                    Thread.yield();
+                } else {
+                    CmsObject taskCms;
+                    try {
+                        taskCms = OpenCms.initCmsObject(cms);
+                    } catch (CmsException e) {
+                        LOG.error(e.getLocalizedMessage(), e);
+                        report.println(e);
+                        m_progress.resourceDone(true);
+                        continue;
                     }
+                    StringBuffer taskCookies = new StringBuffer(cookies);
+                    pool.submit(
+                        taskReport -> exportTemplateResource(taskCms, data, number, size, taskCookies, taskReport));
                 }
             }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        Integer.valueOf(count++),
-                        Integer.valueOf(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
+            Throwable error = pool.waitForTasks();
+            if (error != null) {
+                LOG.error(error.getLocalizedMessage(), error);
+                report.println(error);
             }
-
-            try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
-                }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            Integer.valueOf(status)),
-                        I_CmsReport.FORMAT_OK);
-                }
-            } catch (IOException e) {
-                report.println(e);
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+        } finally {
+            pool.shutdown();
+            m_progress.finish();
         }
+        printProgress(report);
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -792,9 +847,13 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                             match = true;
                         }
                     }
-                    // if one res does not match any rule, then export all files
                     if (!match) {
-                        return getAllResources(cms);
+                        // if one res does not match any rule, then export all files, or only the resources
+                        // depending on it if the relation based export is enabled and only its content has changed
+                        if (!isIncrementalExport() || !isContentOnlyChange(cms, pubResource)) {
+                            return getAllResources(cms);
+                        }
+                        addRelationSources(cms, pubResource, resourceMap);
                     }
                 }
                 return new ArrayList<CmsPublishedResource>(resourceMap.values());
@@ -825,6 +884,32 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return siblings;
     }
 
+    /**
+     * Checks if only the content of the given published resource has changed.<p>
+     *
+     * New, deleted and moved resources as well as folders change the navigation. Writing properties
+     * or touching a resource updates the date of last modification, but not the date of the content.
+     * In all these cases the resources depending on the published resource can't be determined by its relations.<p>
+     *
+     * @param cms the current cms object, in the root site
+     * @param pubResource the published resource
+     *
+     * @return <code>true</code> if only the content of the given published resource has changed
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     */
+    protected boolean isContentOnlyChange(CmsObject cms, CmsPublishedResource pubResource) throws CmsException {
+
+        if (!pubResource.isFile()
+            || !pubResource.getState().isChanged()
+            || pubResource.isMoved()
+            || !cms.existsResource(pubResource.getRootPath())) {
+            return false;
+        }
+        CmsResource resource = cms.readResource(pubResource.getRootPath());
+        return (resource.getDateLastModified() - resource.getDateContent()) <= CONTENT_DATE_TOLERANCE;
+    }
+
     /**
      * Returns all non template resources found in a list of published resources.<p>
      *
@@ -906,4 +991,297 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Exports a single non-template resource and writes the result to the report.<p>
+     *
+     * @param cms the cms context to use
+     * @param exportData the export data of the resource
+     * @param number the number of the resource in the report
+     * @param size the total number of resources to export
+     * @param report the report to write to
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    private void exportNonTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData exportData,
+        int number,
+        int size,
+        I_CmsReport report)
+    throws CmsException, IOException, ServletException {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        boolean completed = false;
+        boolean failed = false;
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_EXPORT_FILE_2,
+                        exportData.getVfsName(),
+                        exportData.getRfsName()));
+            }
+
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    Integer.valueOf(number),
+                    Integer.valueOf(size)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    exportData.getVfsName()));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            int status = -1;
+            try {
+                status = manager.export(null, null, cms, exportData);
+                if (status == HttpServletResponse.SC_OK) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                        I_CmsReport.FORMAT_OK);
+                } else {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                        I_CmsReport.FORMAT_NOTE);
+                }
+            } catch (CmsStaticExportException e) {
+                failed = true;
+                LOG.warn(e.getLocalizedMessage(), e);
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            }
+
+            if (LOG.isInfoEnabled()) {
+                Object[] arguments = new Object[] {
+                    exportData.getVfsName(),
+                    exportData.getRfsName(),
+                    Integer.valueOf(status)};
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+            }
+            completed = true;
+        } finally {
+            m_progress.resourceDone(failed || !completed);
+        }
+    }
+
+    /**
+     * Exports a single template resource, including its detail pages, and writes the result to the report.<p>
+     *
+     * @param cms the cms context to use
+     * @param data the export data of the resource
+     * @param number the number of the resource in the report
+     * @param size the total number of resources to export
+     * @param cookies cookies to keep the session
+     * @param report the report to write to
+     *
+     * @return the status of the http request used to perform the export, or -1 if the request failed
+     */
+    private int exportTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData data,
+        int number,
+        int size,
+        StringBuffer cookies,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        String rfsName = data.getRfsName();
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                Integer.valueOf(number),
+                Integer.valueOf(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        int status = -1;
+        try {
+            CmsResource resource = data.getResource();
+            try {
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    exportTemplateResource(detailData, cookies);
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+
+            status = exportTemplateResource(data, cookies);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        Integer.valueOf(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        } finally {
+            m_progress.resourceDone(status == -1);
+        }
+        return status;
+    }
+
+    /**
+     * Returns the executor running the after publish exports in the background.<p>
+     *
+     * A single thread is used, so the exports of consecutive publish jobs are done in publish order.<p>
+     *
+     * @return the executor running the after publish exports in the background
+     */
+    private synchronized ExecutorService getBackgroundExecutor() {
+
+        if (m_backgroundExecutor == null) {
+            m_backgroundExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: After publish static export").setDaemon(true).build());
+        }
+        return m_backgroundExecutor;
+    }
+
+    /**
+     * Returns the number of threads used for the after publish export.<p>
+     *
+     * @return the number of export threads
+     */
+    private int getExportThreads() {
+
+        String value = (String)OpenCms.getRuntimeProperty(PARAM_EXPORT_THREADS);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return 1;
+        }
+    }
+
+    /**
+     * Checks if the after publish export should run on a background thread, so the publish job is finished
+     * without waiting for the export.<p>
+     *
+     * @return <code>true</code> if the after publish export should run on a background thread
+     */
+    private boolean isBackgroundExport() {
+
+        return Boolean.parseBoolean((String)OpenCms.getRuntimeProperty(PARAM_EXPORT_BACKGROUND));
+    }
+
+    /**
+     * Checks if published resources matching no export rule should only trigger the export of the resources
+     * depending on them, instead of a full export.<p>
+     *
+     * @return <code>true</code> if the relation based export is enabled
+     */
+    private boolean isIncrementalExport() {
+
+        return Boolean.parseBoolean((String)OpenCms.getRuntimeProperty(PARAM_EXPORT_INCREMENTAL));
+    }
+
+    /**
+     * Does the after publish export, and writes errors to the report.<p>
+     *
+     * @param publishHistoryId the publish history id of the published project
+     * @param report the report to write to, or <code>null</code> to write messages to the log file
+     */
+    private void runExportAfterPublish(CmsUUID publishHistoryId, I_CmsReport report) {
+
+        try {
+            m_busy = true;
+            exportAfterPublish(publishHistoryId, report);
+        } catch (Throwable t) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_ERROR_0), t);
+            }
+            if (report != null) {
+                report.addError(t);
+            }
+        } finally {
+            m_busy = false;
+        }
+    }
+
+    /**
+     * Writes the progress of the current export phase to the report.<p>
+     *
+     * @param report the report to write to
+     */
+    private void printProgress(I_CmsReport report) {
+
+        report.println(
+            Messages.get().container(
+                Messages.RPT_STATICEXPORT_PROGRESS_4,
+                new Object[] {
+                    Integer.valueOf(m_progress.getDone()),
+                    Integer.valueOf(m_progress.getTotal()),
+                    Integer.valueOf(m_progress.getFailed()),
+                    Long.valueOf(m_progress.getElapsed())}),
+            I_CmsReport.FORMAT_NOTE);
+    }
+
+    /**
+     * Reads the export data for a template resource.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the rfs name of the resource
+     *
+     * @return the export data, or <code>null</code> if no VFS resource exists for the rfs name
+     */
+    private CmsStaticExportData readTemplateExportData(CmsObject cms, String rfsName) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                            new String[] {rfsName}));
+                }
+            }
+        }
+        if (data != null) {
+            data.setRfsName(rfsName);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the progress of the phase currently running in an after publish static export.<p>
+ *
+ * The counters are updated concurrently by the export workers, and read by the report and the
+ * diagnostics MX bean.<p>
+ *
+ * @since 17.0
+ */
+public class CmsStaticExportProgress {
+
+    /** The number of resources already exported in the current phase. */
+    private AtomicInteger m_done = new AtomicInteger();
+
+    /** The number of resources which failed to export in the current phase. */
+    private AtomicInteger m_failed = new AtomicInteger();
+
+    /** The name of the current phase, or null if no export is running. */
+    private volatile String m_phase;
+
+    /** The start time of the current phase. */
+    private volatile long m_start;
+
+    /** The number of resources to export in the current phase. */
+    private volatile int m_total;
+
+    /**
+     * Marks the current phase as finished.<p>
+     */
+    public void finish() {
+
+        m_phase = null;
+    }
+
+    /**
+     * Returns the number of resources already exported in the current phase.<p>
+     *
+     * @return the number of resources already exported
+     */
+    public int getDone() {
+
+        return m_done.get();
+    }
+
+    /**
+     * Returns the time in milliseconds since the current phase has been started.<p>
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsed() {
+
+        return m_start == 0 ? 0 : System.currentTimeMillis() - m_start;
+    }
+
+    /**
+     * Returns the number of resources which failed to export in the current phase.<p>
+     *
+     * @return the number of failed resources
+     */
+    public int getFailed() {
+
+        return m_failed.get();
+    }
+
+    /**
+     * Returns the name of the current phase, or <code>null</code> if no export is running.<p>
+     *
+     * @return the name of the current phase
+     */
+    public String getPhase() {
+
+        return m_phase;
+    }
+
+    /**
+     * Returns the number of resources to export in the current phase.<p>
+     *
+     * @return the number of resources to export
+     */
+    public int getTotal() {
+
+        return m_total;
+    }
+
+    /**
+     * Increments the counter of exported resources.<p>
+     *
+     * @param failed <code>true</code> if the export of the resource failed
+     */
+    public void resourceDone(boolean failed) {
+
+        if (failed) {
+            m_failed.incrementAndGet();
+        }
+        m_done.incrementAndGet();
+    }
+
+    /**
+     * Starts a new phase and resets the counters.<p>
+     *
+     * @param phase the name of the phase
+     * @param total the number of resources to export in the phase
+     */
+    public void start(String phase, int total) {
+
+        m_done.set(0);
+        m_failed.set(0);
+        m_total = total;
+        m_start = System.currentTimeMillis();
+        m_phase = phase;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        String phase = m_phase;
+        if (phase == null) {
+            return "idle";
+        }
+        return phase
+            + ": "
+            + getDone()
+            + " / "
+            + getTotal()
+            + " exported, "
+            + getFailed()
+            + " failed, "
+            + getElapsed()
+            + " ms";
+    }
+}
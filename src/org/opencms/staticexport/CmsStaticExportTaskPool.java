@@ -0,0 +1,206 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.report.CmsBufferedReport;
+import org.opencms.report.I_CmsReport;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the export tasks of an after publish static export, either sequentially on the calling thread,
+ * or on a bounded pool of worker threads.<p>
+ *
+ * The report output of a worker is buffered, and written to the report of the calling thread as soon as
+ * the task is complete, so the lines of a single resource stay together.<p>
+ *
+ * @since 17.0
+ */
+public class CmsStaticExportTaskPool {
+
+    /**
+     * A single task of the static export.<p>
+     */
+    public interface I_CmsExportTask {
+
+        /**
+         * Runs the task.<p>
+         *
+         * @param report the report to write to
+         *
+         * @throws Exception in case the export fails
+         */
+        void run(I_CmsReport report) throws Exception;
+    }
+
+    /** The completion service of the worker threads, or null if the tasks are run sequentially. */
+    private CompletionService<Void> m_completionService;
+
+    /** The first error thrown by a task. */
+    private Throwable m_error;
+
+    /** The executor of the worker threads, or null if the tasks are run sequentially. */
+    private ExecutorService m_executor;
+
+    /** The report of the calling thread. */
+    private I_CmsReport m_report;
+
+    /** The buffered reports of the submitted tasks which are not complete yet. */
+    private Map<Future<Void>, CmsBufferedReport> m_reports = new HashMap<Future<Void>, CmsBufferedReport>();
+
+    /**
+     * Creates a new task pool.<p>
+     *
+     * @param threads the maximum number of worker threads, a value of 1 or less runs all tasks on the calling thread
+     * @param size the number of tasks to run
+     * @param report the report of the calling thread
+     */
+    public CmsStaticExportTaskPool(int threads, int size, I_CmsReport report) {
+
+        m_report = report;
+        int poolSize = Math.min(threads, size);
+        if (poolSize > 1) {
+            m_executor = Executors.newFixedThreadPool(
+                poolSize,
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: Static export worker %d").setDaemon(true).build());
+            m_completionService = new ExecutorCompletionService<Void>(m_executor);
+        }
+    }
+
+    /**
+     * Checks if the tasks are run on worker threads.<p>
+     *
+     * If so, each task needs its own context.<p>
+     *
+     * @return <code>true</code> if the tasks are run on worker threads
+     */
+    public boolean isParallel() {
+
+        return m_executor != null;
+    }
+
+    /**
+     * Stops all worker threads.<p>
+     *
+     * Must be called when the pool is no longer used, even if not all tasks have been submitted.<p>
+     */
+    public void shutdown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a task.<p>
+     *
+     * If the tasks are run sequentially, the task is run immediately, unless an earlier task has failed.
+     * Otherwise, the output of all tasks which are complete by now is written to the report.<p>
+     *
+     * @param task the task to submit
+     */
+    public void submit(I_CmsExportTask task) {
+
+        if (m_executor == null) {
+            if (m_error == null) {
+                try {
+                    task.run(m_report);
+                } catch (Throwable t) {
+                    m_error = t;
+                }
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
+            }
+            return;
+        }
+        Future<Void> result;
+        while ((result = m_completionService.poll()) != null) {
+            complete(result);
+        }
+        CmsBufferedReport taskReport = new CmsBufferedReport(m_report);
+        result = m_completionService.submit(() -> {
+            task.run(taskReport);
+            return null;
+        });
+        m_reports.put(result, taskReport);
+    }
+
+    /**
+     * Waits for all submitted tasks, and writes their output to the report as each task completes.<p>
+     *
+     * @return the first error thrown by a task, or <code>null</code> if all tasks finished normally
+     */
+    public Throwable waitForTasks() {
+
+        while (!m_reports.isEmpty()) {
+            try {
+                complete(m_completionService.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<Void> result : m_reports.keySet()) {
+                    result.cancel(true);
+                }
+                m_reports.clear();
+                return new CmsStaticExportException(Messages.get().container(Messages.ERR_EXPORT_INTERRUPTED_0), e);
+            }
+        }
+        return m_error;
+    }
+
+    /**
+     * Writes the output of a completed task to the report, and keeps its error.<p>
+     *
+     * @param result the result of the completed task
+     */
+    private void complete(Future<Void> result) {
+
+        CmsBufferedReport taskReport = m_reports.remove(result);
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            if (m_error == null) {
+                m_error = e.getCause();
+            }
+        } catch (InterruptedException e) {
+            // can't happen, the task is already complete
+            Thread.currentThread().interrupt();
+        } finally {
+            taskReport.flush();
+        }
+    }
+}
@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_EXPORT_FILE_FAILED_1 = "ERR_EXPORT_FILE_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EXPORT_INTERRUPTED_0 = "ERR_EXPORT_INTERRUPTED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_EXPORT_NOT_SUCCESSFUL_0 = "ERR_EXPORT_NOT_SUCCESSFUL_0";
 
@@ -166,6 +169,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_STATUS_3 = "LOG_EXPORT_FILE_STATUS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_RELATION_SOURCES_2 = "LOG_EXPORT_RELATION_SOURCES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_RFSNAME_1 = "LOG_EXPORT_RFSNAME_1";
 
@@ -319,6 +325,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORTING_0 = "RPT_EXPORTING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_BACKGROUND_0 = "RPT_STATICEXPORT_BACKGROUND_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_BEGIN_0 = "RPT_STATICEXPORT_BEGIN_0";
 
@@ -331,6 +340,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_PROGRESS_4 = "RPT_STATICEXPORT_PROGRESS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0";
 
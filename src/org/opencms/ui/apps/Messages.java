@@ -112,6 +112,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_CACHE_CORECACHE_CLEAN_ADMIN_TOOL_NAME_0 = "GUI_CACHE_CORECACHE_CLEAN_ADMIN_TOOL_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_CACHE_CORE_0 = "GUI_CACHE_CORE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_CACHE_CORE_STATS_4 = "GUI_CACHE_CORE_STATS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_CACHE_FLEX_0 = "GUI_CACHE_FLEX_0";
 
@@ -2876,6 +2882,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_SQLCONSOLE_QUERY_RESULTS_0 = "GUI_SQLCONSOLE_QUERY_RESULTS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLCONSOLE_STATISTICS_BUTTON_0 = "GUI_SQLCONSOLE_STATISTICS_BUTTON_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLCONSOLE_STATISTICS_DISABLED_0 = "GUI_SQLCONSOLE_STATISTICS_DISABLED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLCONSOLE_STATISTICS_ENABLED_0 = "GUI_SQLCONSOLE_STATISTICS_ENABLED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLCONSOLE_STATISTICS_RESET_0 = "GUI_SQLCONSOLE_STATISTICS_RESET_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_STATEXP_THREAD_NAME_0 = "GUI_STATEXP_THREAD_NAME_0";
 
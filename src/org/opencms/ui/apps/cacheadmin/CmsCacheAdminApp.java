@@ -140,6 +140,11 @@ public class CmsCacheAdminApp extends A_CmsWorkplaceApp {
 
         layout.addComponent(flex);
 
+        Panel core = new Panel();
+        core.setContent(CmsCacheViewApp.getCoreCacheStatisticButton().getInfoLayout());
+        core.setCaption(CmsVaadinUtils.getMessageText(Messages.GUI_CACHE_CORE_0));
+        layout.addComponent(core);
+
         outer.addComponent(flush);
         outer.addComponent(layout);
         outerouter.addStyleName("o-center");
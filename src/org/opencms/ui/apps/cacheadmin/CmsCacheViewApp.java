@@ -32,6 +32,7 @@ import org.opencms.flex.CmsFlexCache;
 import org.opencms.loader.CmsImageLoader;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryStatus;
+import org.opencms.monitor.CmsMonitoredCacheMap;
 import org.opencms.ui.A_CmsUI;
 import org.opencms.ui.CmsVaadinUtils;
 import org.opencms.ui.FontOpenCms;
@@ -213,6 +214,33 @@ public class CmsCacheViewApp extends A_CmsWorkplaceApp {
         return info;
     }
 
+    /**
+     * Creates in info button for the core cache statistics.<p>
+     *
+     * @return CmsInfoButton
+     */
+    protected static CmsInfoButton getCoreCacheStatisticButton() {
+
+        Map<String, String> infoMap = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, CmsMonitoredCacheMap<?, ?>> entry : OpenCms.getMemoryMonitor().getMonitoredCacheMaps().entrySet()) {
+            CmsMonitoredCacheMap<?, ?> cache = entry.getValue();
+            String name = entry.getKey();
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+            infoMap.put(
+                name,
+                CmsVaadinUtils.getMessageText(
+                    Messages.GUI_CACHE_CORE_STATS_4,
+                    String.valueOf(cache.getHitCount()),
+                    String.valueOf(cache.getMissCount()),
+                    String.valueOf(Math.round(cache.getHitRate() * 100)),
+                    String.valueOf(cache.getEvictionCount())));
+        }
+        CmsInfoButton info = new CmsInfoButton(infoMap);
+        info.setWindowCaption(CmsVaadinUtils.getMessageText(Messages.GUI_CACHE_CORE_0));
+        info.setDescription(CmsVaadinUtils.getMessageText(Messages.GUI_CACHE_CORE_0));
+        return info;
+    }
+
     /**
      * Creates in info button for image cache statistics.<p>
      *
@@ -28,6 +28,8 @@
 package org.opencms.ui.apps.dbmanager.sqlconsole;
 
 import org.opencms.db.CmsDbPoolV11;
+import org.opencms.db.timing.CmsQueryStatistics;
+import org.opencms.db.timing.CmsQueryStatistics.CmsQueryStats;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsStringBufferReport;
 import org.opencms.ui.A_CmsUI;
@@ -38,10 +40,12 @@ import org.opencms.ui.components.CmsBasicDialog.DialogWidth;
 import org.opencms.ui.components.CmsErrorDialog;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
 import com.vaadin.ui.Button;
+import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.ComboBox;
 import com.vaadin.ui.TextArea;
 import com.vaadin.ui.VerticalLayout;
@@ -64,6 +68,15 @@ public class CmsSqlConsoleLayout extends VerticalLayout {
     /** Text area containing the SQL statements. */
     protected TextArea m_script;
 
+    /** The button to show the query statistics. */
+    protected Button m_statistics;
+
+    /** Check box for enabling the query statistics. */
+    protected CheckBox m_statisticsEnabled;
+
+    /** The button to reset the query statistics. */
+    protected Button m_statisticsReset;
+
     /** The executor. */
     private CmsSqlConsoleExecutor m_console;
 
@@ -80,6 +93,11 @@ public class CmsSqlConsoleLayout extends VerticalLayout {
         m_pool.setItems(OpenCms.getDbPoolNames());
         m_pool.setValue(CmsDbPoolV11.getDefaultDbPoolName());
         m_pool.setEmptySelectionAllowed(false);
+        m_statisticsEnabled.setValue(Boolean.valueOf(CmsQueryStatistics.INSTANCE.isEnabled()));
+        m_statisticsEnabled.addValueChangeListener(
+            evt -> CmsQueryStatistics.INSTANCE.setEnabled(evt.getValue().booleanValue()));
+        m_statistics.addClickListener(evt -> showStatistics());
+        m_statisticsReset.addClickListener(evt -> CmsQueryStatistics.INSTANCE.reset());
     }
 
     /**
@@ -107,4 +125,42 @@ public class CmsSqlConsoleLayout extends VerticalLayout {
 
     }
 
+    /**
+     * Displays the collected query statistics.
+     */
+    protected void showStatistics() {
+
+        List<String> columns = new ArrayList<>(
+            Arrays.asList("Query", "Executions", "Errors", "Rows", "Total (ms)", "Average (ms)", "Max (ms)"));
+        long lower = 0;
+        for (long limit : CmsQueryStatistics.HISTOGRAM_LIMITS) {
+            columns.add(lower + "-" + limit + " ms");
+            lower = limit;
+        }
+        columns.add(">= " + lower + " ms");
+        List<List<Object>> data = new ArrayList<>();
+        for (CmsQueryStats stats : CmsQueryStatistics.INSTANCE.getStatistics()) {
+            List<Object> row = new ArrayList<>();
+            row.add(stats.getKey());
+            row.add(Long.valueOf(stats.getCount()));
+            row.add(Long.valueOf(stats.getErrors()));
+            row.add(Long.valueOf(stats.getRows()));
+            row.add(Double.valueOf(stats.getTotalMillis()));
+            row.add(Double.valueOf(stats.getAverageMillis()));
+            row.add(Double.valueOf(stats.getMaxMillis()));
+            for (long count : stats.getHistogram()) {
+                row.add(Long.valueOf(count));
+            }
+            data.add(row);
+        }
+        String message = CmsQueryStatistics.INSTANCE.isEnabled()
+        ? ""
+        : CmsVaadinUtils.getMessageText(Messages.GUI_SQLCONSOLE_STATISTICS_DISABLED_0);
+        Window window = CmsBasicDialog.prepareWindow(DialogWidth.max);
+        window.setCaption(CmsVaadinUtils.getMessageText(Messages.GUI_SQLCONSOLE_STATISTICS_BUTTON_0));
+        window.setContent(new CmsSqlConsoleResultsForm(new CmsSqlConsoleResults(columns, data), message));
+        A_CmsUI.get().addWindow(window);
+        window.center();
+    }
+
 }
@@ -73,6 +73,17 @@ public class CmsPathMap<V> {
         return m_tree.getDescendantValues(splitPath(path));
     }
 
+    /**
+     * Gets the value stored for the longest prefix of the given path, including the path itself.<p>
+     *
+     * @param path the path
+     * @return the value for the longest prefix of the path, or null if no prefix of the path has a value
+     */
+    public V getLongestPrefixValue(String path) {
+
+        return m_tree.getLongestPrefixValue(splitPath(path));
+    }
+
     /**
      * Converts a path into list form.<p>
      *
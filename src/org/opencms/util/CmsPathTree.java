@@ -146,6 +146,28 @@ public class CmsPathTree<P, V> {
         return result;
     }
 
+    /**
+     * Gets the value of the deepest node along the given path which has a value.<p>
+     *
+     * @param path the path
+     * @return the value for the longest prefix of the path which has a value, or null if there is none
+     */
+    public V getLongestPrefixValue(List<P> path) {
+
+        V result = m_value;
+        CmsPathTree<P, V> node = this;
+        for (P pathPart : path) {
+            node = node.m_children.get(pathPart);
+            if (node == null) {
+                break;
+            }
+            if (node.m_value != null) {
+                result = node.m_value;
+            }
+        }
+        return result;
+    }
+
     /**
      * Gets the value for this node (may be null).<p>
      *
@@ -456,6 +456,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public List<Locale> getLocales(String path) {
 
+        initLocaleValues();
         Set<Locale> locales = m_elementLocales.get(CmsXmlUtils.createXpath(path, 1));
         if (locales != null) {
             return new ArrayList<Locale>(locales);
@@ -468,6 +469,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public List<String> getNames(Locale locale) {
 
+        initLocaleValues(locale.toString());
         Set<String> names = m_elementNames.get(locale);
         if (names != null) {
             return new ArrayList<String>(names);
@@ -512,7 +514,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         if ((value != null) && !value.isSimpleType()) {
             // calculate level of current bookmark
             int depth = CmsResource.getPathLevel(bookmark) + 1;
-            Iterator<String> i = getBookmarks().iterator();
+            Iterator<String> i = getBookmarks(locale).iterator();
             while (i.hasNext()) {
                 String bm = i.next();
                 if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
@@ -556,6 +558,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     public List<I_CmsXmlContentValue> getValues(Locale locale) {
 
         List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
+        initLocaleValues(locale.toString());
 
         // bookmarks are stored with the locale as first prefix
         String prefix = '/' + locale.toString() + '/';
@@ -588,7 +591,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
                 // selected value belongs to a xsd:choice
                 String parent = CmsXmlUtils.removeLastXpathElement(bookmark);
                 int depth = CmsResource.getPathLevel(bookmark);
-                Iterator<String> i = getBookmarks().iterator();
+                Iterator<String> i = getBookmarks(locale).iterator();
                 while (i.hasNext()) {
                     String bm = i.next();
                     if (bm.startsWith(parent) && (CmsResource.getPathLevel(bm) == depth)) {
@@ -835,7 +838,15 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected I_CmsXmlContentValue getBookmark(String bookmark) {
 
-        return m_bookmarks.get(bookmark);
+        I_CmsXmlContentValue result = m_bookmarks.get(bookmark);
+        if (result == null) {
+            // the values of the locale in the bookmark may not have been initialized yet
+            int pos = bookmark.indexOf('/', 1);
+            if ((pos > 0) && initLocaleValues(bookmark.substring(1, pos))) {
+                result = m_bookmarks.get(bookmark);
+            }
+        }
+        return result;
     }
 
     /**
@@ -847,7 +858,12 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected I_CmsXmlContentValue getBookmark(String path, Locale locale) {
 
-        return m_bookmarks.get(getBookmarkName(path, locale));
+        String bookmark = getBookmarkName(path, locale);
+        I_CmsXmlContentValue result = m_bookmarks.get(bookmark);
+        if ((result == null) && initLocaleValues(locale.toString())) {
+            result = m_bookmarks.get(bookmark);
+        }
+        return result;
     }
 
     /**
@@ -857,9 +873,31 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected Set<String> getBookmarks() {
 
+        initLocaleValues();
         return m_bookmarks.keySet();
     }
 
+    /**
+     * Returns the names of all bookmarked elements of the given locale.<p>
+     *
+     * @param locale the locale to get the bookmark names for
+     *
+     * @return the names of all bookmarked elements of the given locale
+     */
+    protected List<String> getBookmarks(Locale locale) {
+
+        String localeName = locale.toString();
+        initLocaleValues(localeName);
+        String prefix = '/' + localeName + '/';
+        List<String> result = new ArrayList<String>();
+        for (String bookmark : m_bookmarks.keySet()) {
+            if (bookmark.startsWith(prefix)) {
+                result.add(bookmark);
+            }
+        }
+        return result;
+    }
+
     /**
      * Internal method to look up a value, requires that the name already has been
      * "normalized" for the bookmark lookup.
@@ -886,6 +924,32 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected abstract void initDocument(Document document, String encoding, CmsXmlContentDefinition contentDefinition);
 
+    /**
+     * Makes sure the values of all locales of this document are initialized.<p>
+     *
+     * Documents that initialize their values lazily must override this method,
+     * the default implementation does nothing since all values are initialized together with the document.<p>
+     */
+    protected void initLocaleValues() {
+
+        // noop
+    }
+
+    /**
+     * Makes sure the values of the given locale are initialized.<p>
+     *
+     * Documents that initialize their values lazily must override this method,
+     * the default implementation does nothing since all values are initialized together with the document.<p>
+     *
+     * @param localeName the name of the locale to initialize the values for
+     *
+     * @return <code>true</code> if values were initialized by this call
+     */
+    protected boolean initLocaleValues(String localeName) {
+
+        return false;
+    }
+
     /**
      * Returns <code>true</code> if the auto correction feature is enabled for saving this XML content.<p>
      *
@@ -920,6 +984,7 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected I_CmsXmlContentValue removeBookmark(String path, Locale locale) {
 
+        initLocaleValues(locale.toString());
         // remove mapping of element name to locale
         Set<Locale> sl;
         sl = m_elementLocales.get(path);
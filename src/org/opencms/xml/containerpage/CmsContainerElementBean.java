@@ -49,10 +49,13 @@ import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
 import org.opencms.xml.content.CmsXmlContentPropertyHelper;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletRequest;
 
@@ -340,6 +343,32 @@ public class CmsContainerElementBean implements Cloneable {
         return elementBean;
     }
 
+    /**
+     * Reads the resources of the given elements with a single batched read.<p>
+     *
+     * This warms the resource cache, so that the subsequent calls to {@link #initResource(CmsObject)}
+     * for the individual elements do not have to access the database one by one.
+     * Elements which are only held in memory are ignored.<p>
+     *
+     * @param cms the CMS context
+     * @param elements the elements for which the resources should be read
+     *
+     * @throws CmsException if something goes wrong reading the resources
+     */
+    public static void prefetchResources(CmsObject cms, Collection<CmsContainerElementBean> elements)
+    throws CmsException {
+
+        Set<CmsUUID> ids = new LinkedHashSet<CmsUUID>();
+        for (CmsContainerElementBean element : elements) {
+            if ((element.getId() != null) && ((element.m_resource == null) || !element.isInMemoryOnly())) {
+                ids.add(element.getId());
+            }
+        }
+        if (ids.size() > 1) {
+            cms.readResources(ids, CmsResourceFilter.IGNORE_EXPIRATION);
+        }
+    }
+
     /**
      * Gets the hash code for the element settings.<p>
      *
@@ -2004,8 +2004,8 @@ public class CmsDefaultXmlContentHandler implements I_CmsXmlContentHandler, I_Cm
             return;
         }
         boolean needReinitialization = false;
-        // iterate the locales
-        Iterator<Locale> itLocales = document.getLocales().iterator();
+        // iterate the locales, values of locales that are initialized later are checked then
+        Iterator<Locale> itLocales = document.getInitializedLocales().iterator();
         while (itLocales.hasNext()) {
             Locale locale = itLocales.next();
             List<String> removedNodes = new ArrayList<String>();
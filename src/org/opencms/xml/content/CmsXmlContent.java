@@ -123,6 +123,15 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     /** Indicates whether any broken links have been invalidated in the content. */
     protected boolean m_hasInvalidatedBrokenLinks;
 
+    /** Flag to control if the values of a locale are only initialized when the locale is accessed. */
+    private boolean m_lazyLocaleValues;
+
+    /** The context used to invalidate broken links of lazily initialized locales. */
+    private CmsObject m_linkCheckCms;
+
+    /** The locale nodes with values that have not been initialized yet, by locale name. */
+    private Map<String, Element> m_uninitializedLocaleNodes;
+
     /**
      * Hides the public constructor.<p>
      */
@@ -143,8 +152,34 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     protected CmsXmlContent(CmsObject cms, Document document, String encoding, EntityResolver resolver) {
 
+        this(cms, document, encoding, resolver, false);
+    }
+
+    /**
+     * Creates a new XML content based on the provided XML document.<p>
+     *
+     * The given encoding is used when marshalling the XML again later.<p>
+     *
+     * If the values are initialized lazily, the values of a locale are only created when
+     * the locale is accessed for the first time. Since this modifies the content on read access,
+     * such a content must not be shared between threads.<p>
+     *
+     * @param cms the cms context, if <code>null</code> no link validation is performed
+     * @param document the document to create the xml content from
+     * @param encoding the encoding of the xml content
+     * @param resolver the XML entitiy resolver to use
+     * @param lazyLocaleValues if <code>true</code>, the values of a locale are initialized on first access
+     */
+    protected CmsXmlContent(
+        CmsObject cms,
+        Document document,
+        String encoding,
+        EntityResolver resolver,
+        boolean lazyLocaleValues) {
+
         // must set document first to be able to get the content definition
         m_document = document;
+        m_lazyLocaleValues = lazyLocaleValues;
 
         // for the next line to work the document must already be available
         m_contentDefinition = getContentDefinition(resolver);
@@ -409,6 +444,8 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         clone.m_document = (Document)(m_document.clone());
         clone.m_encoding = m_encoding;
         clone.m_file = m_file;
+        clone.m_lazyLocaleValues = m_lazyLocaleValues;
+        clone.m_linkCheckCms = m_linkCheckCms;
         clone.initDocument();
         return clone;
     }
@@ -621,7 +658,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
         String bookmark = getBookmarkName(CmsXmlUtils.createXpath(path, 1), locale);
         int depth = CmsResource.getPathLevel(bookmark) + 1;
-        Iterator<String> i = getBookmarks().iterator();
+        Iterator<String> i = getBookmarks(locale).iterator();
         while (i.hasNext()) {
             String bm = i.next();
             if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
@@ -1001,6 +1038,25 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         }
     }
 
+    /**
+     * Returns the locales of this XML content for which the values have already been initialized.<p>
+     *
+     * @return the locales of this XML content for which the values have already been initialized
+     */
+    protected List<Locale> getInitializedLocales() {
+
+        List<Locale> result = getLocales();
+        if ((m_uninitializedLocaleNodes != null) && !m_uninitializedLocaleNodes.isEmpty()) {
+            Iterator<Locale> i = result.iterator();
+            while (i.hasNext()) {
+                if (m_uninitializedLocaleNodes.containsKey(i.next().toString())) {
+                    i.remove();
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Initializes an XML document based on the provided document, encoding and content definition.<p>
      *
@@ -1017,7 +1073,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         // check invalid links
         if (cms != null) {
             // this will remove all invalid links
-            getHandler().invalidateBrokenLinks(cms, this);
+            invalidateBrokenLinks(cms);
         }
     }
 
@@ -1033,6 +1089,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         m_elementLocales = new HashMap<String, Set<Locale>>();
         m_elementNames = new HashMap<Locale, Set<String>>();
         m_locales = new HashSet<Locale>();
+        m_uninitializedLocaleNodes = m_lazyLocaleValues ? new HashMap<String, Element>() : null;
         clearBookmarks();
 
         // initialize the bookmarks
@@ -1043,7 +1100,15 @@ public class CmsXmlContent extends A_CmsXmlDocument {
                     node.attribute(CmsXmlContentDefinition.XSD_ATTRIBUTE_VALUE_LANGUAGE).getValue());
 
                 addLocale(locale);
-                processSchemaNode(node, null, locale, definition);
+                if (m_uninitializedLocaleNodes == null) {
+                    processSchemaNode(node, null, locale, definition);
+                } else {
+                    Element previous = m_uninitializedLocaleNodes.put(locale.toString(), node);
+                    if (previous != null) {
+                        // the locale node occurs more than once, keep the document order for the bookmarks
+                        processSchemaNode(previous, null, locale, definition);
+                    }
+                }
             } catch (NullPointerException e) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_INIT_BOOKMARKS_0), e);
             }
@@ -1051,6 +1116,63 @@ public class CmsXmlContent extends A_CmsXmlDocument {
 
     }
 
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#initLocaleValues()
+     */
+    @Override
+    protected void initLocaleValues() {
+
+        // removing broken links may re-initialize the document, so check for uninitialized locales until none are left
+        while ((m_uninitializedLocaleNodes != null) && !m_uninitializedLocaleNodes.isEmpty()) {
+            initLocaleValues(m_uninitializedLocaleNodes.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * @see org.opencms.xml.A_CmsXmlDocument#initLocaleValues(java.lang.String)
+     */
+    @Override
+    protected boolean initLocaleValues(String localeName) {
+
+        if ((m_uninitializedLocaleNodes == null) || m_uninitializedLocaleNodes.isEmpty()) {
+            return false;
+        }
+        Element node = m_uninitializedLocaleNodes.remove(localeName);
+        if (node == null) {
+            return false;
+        }
+        try {
+            processSchemaNode(node, null, CmsLocaleManager.getLocale(localeName), m_contentDefinition);
+        } catch (NullPointerException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_INIT_BOOKMARKS_0), e);
+        }
+        if (m_linkCheckCms != null) {
+            // this will remove all invalid links from the initialized locales
+            getHandler().invalidateBrokenLinks(m_linkCheckCms, this);
+            // if links have been removed the document was re-initialized, so the locale values must be created again
+            initLocaleValues(localeName);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all invalid links from this XML content.<p>
+     *
+     * If the values of a locale are initialized lazily, the links of that locale are checked
+     * when its values are initialized.<p>
+     *
+     * @param cms the current users OpenCms context, if <code>null</code> no link validation is performed
+     */
+    protected void invalidateBrokenLinks(CmsObject cms) {
+
+        if (m_lazyLocaleValues) {
+            m_linkCheckCms = cms;
+        }
+        if (cms != null) {
+            getHandler().invalidateBrokenLinks(cms, this);
+        }
+    }
+
     /**
      * Processes a document node and extracts the values of the node according to the provided XML
      * content definition.<p>
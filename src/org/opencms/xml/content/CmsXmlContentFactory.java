@@ -31,6 +31,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlAdeConfiguration;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -209,68 +210,20 @@ public final class CmsXmlContentFactory {
      */
     public static CmsXmlContent unmarshal(CmsObject cms, CmsFile file, boolean keepEncoding) throws CmsXmlException {
 
-        byte[] contentBytes = file.getContents();
-        String filename = cms.getSitePath(file);
-
-        String encoding = null;
-        if (OpenCms.getResourceManager().hasResourceType(file.getTypeId())) {
-            if (OpenCms.getResourceManager().getResourceType(file) instanceof CmsResourceTypeXmlAdeConfiguration) {
-                encoding = "UTF-8";
-            }
-        }
-        if (encoding == null) {
-            try {
-                encoding = cms.readPropertyObject(
-                    file,
-                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
-                    true).getValue();
-            } catch (@SuppressWarnings("unused") CmsException e) {
-                // encoding will be null
-            }
-        }
-        if (encoding == null) {
-            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-        } else {
-            encoding = CmsEncoder.lookupEncoding(encoding, null);
-            if (encoding == null) {
-                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
-            }
-        }
-
-        CmsXmlContent content;
-        if (contentBytes.length > 0) {
-            // content is initialized
-            if (keepEncoding) {
-                // use the encoding from the content
-                content = unmarshal(cms, contentBytes, encoding, new CmsXmlEntityResolver(cms));
-            } else {
-                // use the encoding from the file property
-                // this usually only triggered by a save operation
-                try {
-                    String contentStr = new String(contentBytes, encoding);
-                    content = unmarshal(cms, contentStr, encoding, new CmsXmlEntityResolver(cms));
-                } catch (UnsupportedEncodingException e) {
-                    // this will not happen since the encodig has already been validated
-                    throw new CmsXmlException(
-                        Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename),
-                        e);
-                }
-            }
-        } else {
-            // content is empty
-            content = new CmsXmlContent(cms, DocumentHelper.createDocument(), encoding, new CmsXmlEntityResolver(cms));
-        }
-
-        // set the file
-        content.setFile(file);
-        // call prepare for use content handler and return the result
-        return content.getHandler().prepareForUse(cms, content);
+        return unmarshal(cms, file, keepEncoding, false);
     }
 
     /**
      * Factory method to unmarshal (read) a XML content instance from
      * a resource, using the request attributes as cache.<p>
      *
+     * In the online project, parsed contents are additionally kept in a cache shared between requests
+     * which is flushed on publish. Every request gets its own copy of the cached content, so changes
+     * made to the returned instance never affect other requests.<p>
+     *
+     * The values of a locale are only initialized when the locale is accessed for the first time,
+     * so the returned instance must not be shared between threads.<p>
+     *
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
      * @param req the current request
@@ -297,9 +250,15 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            // try to get a copy of the already parsed online content
+            content = getCachedContent(cms, resource);
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                // the content is only used by this request, so the values of a locale can be created on first access
+                content = unmarshal(cms, file, true, true);
+                setCachedContent(cms, content);
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -327,9 +286,7 @@ public final class CmsXmlContentFactory {
      */
     public static CmsXmlContent unmarshal(CmsObject cms, Document document, String encoding, EntityResolver resolver) {
 
-        CmsXmlContent content = new CmsXmlContent(cms, document, encoding, resolver);
-        // call prepare for use content handler and return the result
-        return content.getHandler().prepareForUse(cms, content);
+        return unmarshal(cms, document, encoding, resolver, false);
     }
 
     /**
@@ -385,4 +342,235 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the encoding to use for the XML content stored in the given file.<p>
+     *
+     * @param cms the current cms object
+     * @param file the file with the XML data
+     *
+     * @return the encoding to use for the XML content
+     *
+     * @throws CmsXmlException if the encoding set in the VFS file property is invalid
+     */
+    static String getEncoding(CmsObject cms, CmsFile file) throws CmsXmlException {
+
+        String encoding = null;
+        if (OpenCms.getResourceManager().hasResourceType(file.getTypeId())) {
+            if (OpenCms.getResourceManager().getResourceType(file) instanceof CmsResourceTypeXmlAdeConfiguration) {
+                encoding = "UTF-8";
+            }
+        }
+        if (encoding == null) {
+            try {
+                encoding = cms.readPropertyObject(
+                    file,
+                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                    true).getValue();
+            } catch (@SuppressWarnings("unused") CmsException e) {
+                // encoding will be null
+            }
+        }
+        if (encoding == null) {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+        } else {
+            encoding = CmsEncoder.lookupEncoding(encoding, null);
+            if (encoding == null) {
+                throw new CmsXmlException(
+                    Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, cms.getSitePath(file)));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Returns the key under which the parsed content of the given resource is cached.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the cache key
+     */
+    static String getCacheKey(CmsResource resource) {
+
+        // changing the contents of a file object also changes its content date
+        return resource.getStructureId() + "_" + resource.getDateLastModified() + "_" + resource.getDateContent();
+    }
+
+    /**
+     * Checks if the given content handler uses the default implementation of
+     * {@link I_CmsXmlContentHandler#prepareForUse(CmsObject, CmsXmlContent)}, which leaves the content unchanged.<p>
+     *
+     * Other implementations may adjust the content to the context it is read with.<p>
+     *
+     * @param handler the content handler to check
+     *
+     * @return <code>true</code> if the given content handler does not change the content when it is prepared for use
+     */
+    static boolean hasDefaultPrepareForUse(I_CmsXmlContentHandler handler) {
+
+        if (!(handler instanceof CmsDefaultXmlContentHandler)) {
+            return false;
+        }
+        try {
+            return handler.getClass().getMethod(
+                "prepareForUse",
+                CmsObject.class,
+                CmsXmlContent.class).getDeclaringClass() == CmsDefaultXmlContentHandler.class;
+        } catch (NoSuchMethodException e) {
+            // can not happen since the method is declared by the interface
+            return false;
+        }
+    }
+
+    /**
+     * Returns a private copy of the cached parsed online content for the given resource.<p>
+     *
+     * Since the cached content is shared between requests, broken links are invalidated again
+     * for the copy using the permissions and request time of the given context.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param resource the resource to look up
+     *
+     * @return a copy of the cached content, or <code>null</code> if the content is not cached
+     */
+    private static CmsXmlContent getCachedContent(CmsObject cms, CmsResource resource) {
+
+        if (!isCacheable(cms, resource)) {
+            return null;
+        }
+        CmsXmlContent cached = OpenCms.getMemoryMonitor().getCachedXmlContent(getCacheKey(resource));
+        if ((cached == null)
+            || ((resource instanceof CmsFile) && (resource.getLength() != cached.getFile().getLength()))) {
+            // not cached, or the given file has contents that differ from the cached ones
+            return null;
+        }
+        CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : (CmsFile)cached.getFile().clone();
+        CmsXmlContent content = cached.clone();
+        content.setFile(file);
+        content.invalidateBrokenLinks(cms);
+        return content;
+    }
+
+    /**
+     * Checks if the parsed content of the given resource can be shared between requests.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the parsed content of the given resource can be shared between requests
+     */
+    private static boolean isCacheable(CmsObject cms, CmsResource resource) {
+
+        return (OpenCms.getMemoryMonitor() != null)
+            && cms.getRequestContext().getCurrentProject().isOnlineProject()
+            && !(resource instanceof I_CmsHistoryResource);
+    }
+
+    /**
+     * Stores a copy of the given freshly parsed content in the cache shared between requests.<p>
+     *
+     * Contents which had broken links removed, needed a version transformation or were prepared for use
+     * by their content handler are not cached, since their state depends on the context they were read with.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param content the freshly parsed content
+     */
+    private static void setCachedContent(CmsObject cms, CmsXmlContent content) {
+
+        CmsFile file = content.getFile();
+        if ((file == null)
+            || !isCacheable(cms, file)
+            || content.hasInvalidatedBrokenLinks()
+            || content.isTransformedVersion()
+            || !hasDefaultPrepareForUse(content.getHandler())) {
+            return;
+        }
+        CmsXmlContent cached = content.clone();
+        cached.setFile((CmsFile)file.clone());
+        // links are checked for every copy handed out
+        cached.invalidateBrokenLinks(null);
+        OpenCms.getMemoryMonitor().cacheXmlContent(getCacheKey(file), cached);
+    }
+
+    /**
+     * Factory method to unmarshal (read) a XML content instance from a OpenCms VFS file
+     * that contains XML data, optionally initializing the values of a locale only on first access.<p>
+     *
+     * @param cms the current cms object
+     * @param file the file with the XML data to unmarshal
+     * @param keepEncoding if true, the encoding spefified in the XML header is used,
+     *    otherwise the encoding from the VFS file property is used
+     * @param lazyLocaleValues if <code>true</code>, the values of a locale are initialized on first access
+     *
+     * @return a XML content instance unmarshalled from the provided file
+     *
+     * @throws CmsXmlException if something goes wrong
+     */
+    private static CmsXmlContent unmarshal(
+        CmsObject cms,
+        CmsFile file,
+        boolean keepEncoding,
+        boolean lazyLocaleValues)
+    throws CmsXmlException {
+
+        byte[] contentBytes = file.getContents();
+        String filename = cms.getSitePath(file);
+        String encoding = getEncoding(cms, file);
+
+        CmsXmlContent content;
+        if (contentBytes.length > 0) {
+            // content is initialized
+            EntityResolver resolver = new CmsXmlEntityResolver(cms);
+            if (keepEncoding) {
+                // use the encoding from the content
+                Document document = CmsXmlUtils.unmarshalHelper(contentBytes, resolver);
+                content = unmarshal(cms, document, encoding, resolver, lazyLocaleValues);
+            } else {
+                // use the encoding from the file property
+                // this usually only triggered by a save operation
+                try {
+                    String contentStr = new String(contentBytes, encoding);
+                    Document document = CmsXmlUtils.unmarshalHelper(contentStr, resolver);
+                    content = unmarshal(cms, document, encoding, resolver, lazyLocaleValues);
+                } catch (UnsupportedEncodingException e) {
+                    // this will not happen since the encodig has already been validated
+                    throw new CmsXmlException(
+                        Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename),
+                        e);
+                }
+            }
+        } else {
+            // content is empty
+            content = new CmsXmlContent(cms, DocumentHelper.createDocument(), encoding, new CmsXmlEntityResolver(cms));
+        }
+
+        // set the file
+        content.setFile(file);
+        // call prepare for use content handler and return the result
+        return content.getHandler().prepareForUse(cms, content);
+    }
+
+    /**
+     * Factory method to unmarshal (generate) a XML content instance from a XML document,
+     * optionally initializing the values of a locale only on first access.<p>
+     *
+     * @param cms the cms context, if <code>null</code> no link validation is performed
+     * @param document the XML document to generate the XML content from
+     * @param encoding the encoding to use when marshalling the XML content later
+     * @param resolver the XML entitiy resolver to use
+     * @param lazyLocaleValues if <code>true</code>, the values of a locale are initialized on first access
+     *
+     * @return a XML content instance unmarshalled from the document
+     */
+    private static CmsXmlContent unmarshal(
+        CmsObject cms,
+        Document document,
+        String encoding,
+        EntityResolver resolver,
+        boolean lazyLocaleValues) {
+
+        CmsXmlContent content = new CmsXmlContent(cms, document, encoding, resolver, lazyLocaleValues);
+        // call prepare for use content handler and return the result
+        return content.getHandler().prepareForUse(cms, content);
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.main.CmsLog;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlException;
+import org.opencms.xml.types.CmsXmlNestedContentDefinition;
+import org.opencms.xml.types.I_CmsXmlSchemaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the values of a XML content by streaming over the raw XML data of the content file,
+ * without building the XML document and the bookmarks of the complete content.<p>
+ *
+ * Only the elements on the path from the root node to the value currently read are kept in memory,
+ * the elements of values that have already been visited are emptied. This makes the reader suitable
+ * for read only bulk operations like search indexing, where each value is only needed once.<p>
+ *
+ * The values passed to the visitor belong to a content that only provides the content definition,
+ * the encoding and the file, so they must not be used to access other values of the content.
+ * Since broken links are not removed and the content handler does not prepare the content for use,
+ * only contents with a content definition for which {@link #isStreamable(CmsXmlContentDefinition)}
+ * returns <code>true</code> are read.<p>
+ *
+ * @since 17.0
+ */
+public final class CmsXmlContentStreamReader {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlContentStreamReader.class);
+
+    /** The factory for the XML stream readers, DTDs and external entities are not supported. */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    /** The current users OpenCms context. */
+    private CmsObject m_cms;
+
+    /** The content the values are created for. */
+    private CmsXmlContent m_content;
+
+    /** The file with the XML data. */
+    private CmsFile m_file;
+
+    /** The locales found in the XML data. */
+    private List<Locale> m_locales;
+
+    /**
+     * Creates a new stream reader for the given file.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param file the file with the XML data to read
+     */
+    public CmsXmlContentStreamReader(CmsObject cms, CmsFile file) {
+
+        m_cms = cms;
+        m_file = file;
+        m_locales = new ArrayList<Locale>();
+    }
+
+    /**
+     * Checks if contents of the given content definition can be read with a stream reader.<p>
+     *
+     * This is the case if the content handler does not modify the content after unmarshalling,
+     * and if no links have to be checked for the content definition or any of its nested content definitions.<p>
+     *
+     * @param definition the content definition to check
+     *
+     * @return <code>true</code> if contents of the given content definition can be read with a stream reader
+     */
+    public static boolean isStreamable(CmsXmlContentDefinition definition) {
+
+        I_CmsXmlContentHandler handler = definition.getContentHandler();
+        if (!CmsXmlContentFactory.hasDefaultPrepareForUse(handler)
+            || !((CmsDefaultXmlContentHandler)handler).m_relationChecks.isEmpty()) {
+            return false;
+        }
+        return !hasInvalidRelationActions(definition, new HashSet<String>());
+    }
+
+    /**
+     * Creates the factory for the XML stream readers.<p>
+     *
+     * @return the factory for the XML stream readers
+     */
+    private static XMLInputFactory createInputFactory() {
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Checks if actions for invalid relations are configured for the given content definition
+     * or any of its nested content definitions.<p>
+     *
+     * @param definition the content definition to check
+     * @param checked the schema locations of the content definitions that have already been checked
+     *
+     * @return <code>true</code> if actions for invalid relations are configured
+     */
+    private static boolean hasInvalidRelationActions(CmsXmlContentDefinition definition, Set<String> checked) {
+
+        if (!checked.add(definition.getSchemaLocation())) {
+            return false;
+        }
+        I_CmsXmlContentHandler handler = definition.getContentHandler();
+        if ((handler instanceof CmsDefaultXmlContentHandler)
+            && !((CmsDefaultXmlContentHandler)handler).m_invalidRelationActions.isEmpty()) {
+            return true;
+        }
+        for (I_CmsXmlSchemaType type : definition.getTypeSequence()) {
+            if ((type instanceof CmsXmlNestedContentDefinition)
+                && hasInvalidRelationActions(
+                    ((CmsXmlNestedContentDefinition)type).getNestedContentDefinition(),
+                    checked)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content the values passed to the visitor belong to.<p>
+     *
+     * The content only provides the content definition, the encoding and the file,
+     * it does not contain any values.<p>
+     *
+     * @return the content the values belong to, or <code>null</code> if no values have been read
+     */
+    public CmsXmlContent getContent() {
+
+        return m_content;
+    }
+
+    /**
+     * Returns the locales found in the XML data, in document order.<p>
+     *
+     * If the values have been read for a single locale only, the other locales are contained as well.<p>
+     *
+     * @return the locales found in the XML data
+     */
+    public List<Locale> getLocales() {
+
+        return Collections.unmodifiableList(m_locales);
+    }
+
+    /**
+     * Reads the XML data and visits the values in document order.<p>
+     *
+     * Nested values are visited before the values they contain. If the XML data has been written
+     * for an older version of the content definition or the content definition is not streamable,
+     * no values are visited and <code>false</code> is returned, so the complete content has to be
+     * unmarshalled instead.<p>
+     *
+     * @param locale if set, only the values of this locale are visited
+     * @param visitor the visitor to call for every value
+     *
+     * @return <code>true</code> if the values have been read, <code>false</code> if the content can not be streamed
+     *
+     * @throws CmsXmlException if the XML data or the content definition can not be read
+     */
+    public boolean read(Locale locale, I_CmsXmlContentValueVisitor visitor) throws CmsXmlException {
+
+        m_locales.clear();
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(m_file.getContents()));
+            reader.nextTag();
+            CmsXmlContentDefinition definition = readContentDefinition(reader);
+            if (!isStreamable(definition) || (readSchemaVersion(reader) < definition.getVersion())) {
+                return false;
+            }
+            Document document = DocumentHelper.createDocument();
+            Element root = document.addElement(reader.getLocalName());
+            m_content = new CmsXmlContent();
+            m_content.initDocument(document, CmsXmlContentFactory.getEncoding(m_cms, m_file), definition);
+            m_content.setFile(m_file);
+            readLocales(reader, root, locale, visitor);
+            return true;
+        } catch (XMLStreamException e) {
+            throw new CmsXmlException(
+                org.opencms.xml.Messages.get().container(
+                    org.opencms.xml.Messages.ERR_UNMARSHALLING_XML_DOC_1,
+                    "(file = " + m_file.getRootPath() + ")"),
+                e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the attributes of the current start element of the stream to the given element.<p>
+     *
+     * @param reader the XML stream reader positioned at a start element
+     * @param element the element to add the attributes to
+     */
+    private void copyAttributes(XMLStreamReader reader, Element element) {
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String name = reader.getAttributeLocalName(i);
+            element.addAttribute(
+                (prefix == null) || prefix.isEmpty() ? name : prefix + ":" + name,
+                reader.getAttributeValue(i));
+        }
+    }
+
+    /**
+     * Reads the content definition referenced by the root element of the XML data.<p>
+     *
+     * @param reader the XML stream reader positioned at the root element
+     *
+     * @return the content definition
+     *
+     * @throws CmsXmlException if the content definition can not be read
+     */
+    private CmsXmlContentDefinition readContentDefinition(XMLStreamReader reader) throws CmsXmlException {
+
+        String schemaLocation = reader.getAttributeValue(
+            I_CmsXmlSchemaType.XSI_NAMESPACE.getURI(),
+            I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION.getName());
+        if (schemaLocation == null) {
+            throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_MISSING_SCHEMA_0));
+        }
+        try {
+            return CmsXmlContentDefinition.unmarshal(schemaLocation, new CmsXmlEntityResolver(m_cms));
+        } catch (SAXException e) {
+            throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_SCHEMA_PARSE_1, schemaLocation), e);
+        } catch (IOException e) {
+            throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_SCHEMA_IO_1, schemaLocation), e);
+        }
+    }
+
+    /**
+     * Reads the element at the current position of the stream, including all its sub elements,
+     * into the given element.<p>
+     *
+     * As when unmarshalling the complete content, text consisting of white space only is dropped.<p>
+     *
+     * @param reader the XML stream reader positioned at a start element
+     * @param element the element to read the data into
+     *
+     * @throws XMLStreamException if reading the XML data fails
+     */
+    private void readElement(XMLStreamReader reader, Element element) throws XMLStreamException {
+
+        copyAttributes(reader, element);
+        Element current = element;
+        StringBuffer text = new StringBuffer();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if ((event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.SPACE)) {
+                text.append(reader.getText());
+                continue;
+            }
+            if ((text.length() > 0) && !text.toString().trim().isEmpty()) {
+                current.addText(text.toString());
+            }
+            text.setLength(0);
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    current = current.addElement(reader.getLocalName());
+                    copyAttributes(reader, current);
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    current = current.getParent();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CDATA:
+                    current.addCDATA(reader.getText());
+                    break;
+                default:
+                    // comments and processing instructions are not part of the value
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the locale nodes below the root element and visits their values.<p>
+     *
+     * @param reader the XML stream reader positioned at the root element
+     * @param root the root element of the document the values are created in
+     * @param locale if set, only the values of this locale are visited
+     * @param visitor the visitor to call for every value
+     *
+     * @throws XMLStreamException if reading the XML data fails
+     */
+    private void readLocales(XMLStreamReader reader, Element root, Locale locale, I_CmsXmlContentValueVisitor visitor)
+    throws XMLStreamException {
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String language = reader.getAttributeValue(null, CmsXmlContentDefinition.XSD_ATTRIBUTE_VALUE_LANGUAGE);
+            if (language == null) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_INIT_BOOKMARKS_0));
+                skipElement(reader);
+                continue;
+            }
+            Locale nodeLocale = CmsLocaleManager.getLocale(language);
+            if (!m_locales.contains(nodeLocale)) {
+                m_locales.add(nodeLocale);
+            }
+            if ((locale != null) && !locale.equals(nodeLocale)) {
+                skipElement(reader);
+                continue;
+            }
+            Element node = root.addElement(reader.getLocalName());
+            copyAttributes(reader, node);
+            readValues(reader, node, nodeLocale, visitor);
+            // the locale node is not required for the paths of the values in other locale nodes
+            node.detach();
+        }
+    }
+
+    /**
+     * Reads the schema version the XML data has been written for.<p>
+     *
+     * @param reader the XML stream reader positioned at the root element
+     *
+     * @return the schema version
+     */
+    private int readSchemaVersion(XMLStreamReader reader) {
+
+        String version = reader.getAttributeValue(null, CmsXmlContent.A_VERSION);
+        if (version != null) {
+            try {
+                return Integer.parseInt(version);
+            } catch (NumberFormatException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the values below the locale node at the current position of the stream.<p>
+     *
+     * Elements are emptied after their values have been visited, but they are kept in the
+     * document so the paths of the following values get the correct indexes.<p>
+     *
+     * @param reader the XML stream reader positioned at a locale node
+     * @param localeNode the locale node element
+     * @param locale the locale of the locale node
+     * @param visitor the visitor to call for every value
+     *
+     * @throws XMLStreamException if reading the XML data fails
+     */
+    private void readValues(
+        XMLStreamReader reader,
+        Element localeNode,
+        Locale locale,
+        I_CmsXmlContentValueVisitor visitor)
+    throws XMLStreamException {
+
+        Deque<CmsXmlContentDefinition> definitions = new ArrayDeque<CmsXmlContentDefinition>();
+        definitions.push(m_content.getContentDefinition());
+        Element current = localeNode;
+        while (!definitions.isEmpty()) {
+            if (reader.nextTag() == XMLStreamConstants.END_ELEMENT) {
+                definitions.pop();
+                current.clearContent();
+                current = current.getParent();
+                continue;
+            }
+            String name = reader.getLocalName();
+            CmsXmlContentDefinition definition = definitions.peek();
+            I_CmsXmlSchemaType type = definition.getSchemaType(name);
+            if (type == null) {
+                // unknown XML node name according to schema
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_XMLCONTENT_INVALID_ELEM_2,
+                            name,
+                            definition.getSchemaLocation()));
+                }
+                skipElement(reader);
+                continue;
+            }
+            Element element = current.addElement(name);
+            if (type.isSimpleType()) {
+                readElement(reader, element);
+                visitor.visit(type.createValue(m_content, element, locale));
+                element.clearContent();
+            } else {
+                copyAttributes(reader, element);
+                visitor.visit(type.createValue(m_content, element, locale));
+                definitions.push(((CmsXmlNestedContentDefinition)type).getNestedContentDefinition());
+                current = element;
+            }
+        }
+    }
+
+    /**
+     * Skips the element at the current position of the stream, including all its sub elements.<p>
+     *
+     * @param reader the XML stream reader positioned at a start element
+     *
+     * @throws XMLStreamException if reading the XML data fails
+     */
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
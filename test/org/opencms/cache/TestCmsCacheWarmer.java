@@ -0,0 +1,246 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.cache;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsContextInfo;
+import org.opencms.main.OpenCms;
+import org.opencms.site.CmsSiteMatcher;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the cache warmer.<p>
+ */
+public class TestCmsCacheWarmer extends OpenCmsTestCase {
+
+    /**
+     * Request that only provides the values used by the cache warmer.<p>
+     */
+    private static class CmsWarmerTestRequest extends OpenCmsTestServletRequest {
+
+        /** The path info. */
+        private String m_pathInfo;
+
+        /**
+         * Creates a new anonymous GET request for the given path.<p>
+         *
+         * @param pathInfo the path info
+         */
+        CmsWarmerTestRequest(String pathInfo) {
+
+            m_pathInfo = pathInfo;
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getHeader(java.lang.String)
+         */
+        @Override
+        public String getHeader(String name) {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getMethod()
+         */
+        @Override
+        public String getMethod() {
+
+            return "GET";
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getPathInfo()
+         */
+        @Override
+        public String getPathInfo() {
+
+            return m_pathInfo;
+        }
+
+        /**
+         * @see org.opencms.test.OpenCmsTestServletRequest#getQueryString()
+         */
+        @Override
+        public String getQueryString() {
+
+            return null;
+        }
+    }
+
+    /** The site root of the default test site. */
+    private static final String SITE_ROOT = "/sites/default";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsCacheWarmer(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsCacheWarmer.class.getName());
+
+        suite.addTest(new TestCmsCacheWarmer("testAging"));
+        suite.addTest(new TestCmsCacheWarmer("testRecordOnlyConfiguredSites"));
+        suite.addTest(new TestCmsCacheWarmer("testUrlFromSiteConfiguration"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the request counts are halved and paths without requests are dropped.<p>
+     */
+    public void testAging() {
+
+        CmsCacheWarmer warmer = new CmsCacheWarmer(10, 1, 0, null);
+        try {
+            warmer.record(SITE_ROOT, "/a.html", 1);
+            warmer.record(SITE_ROOT, "/b.html", 8);
+            warmer.record(SITE_ROOT, "/c.html", 4);
+            assertEquals(Arrays.asList("/b.html", "/c.html", "/a.html"), warmer.getTopPaths(SITE_ROOT));
+
+            warmer.age();
+            assertEquals(Arrays.asList("/b.html", "/c.html"), warmer.getTopPaths(SITE_ROOT));
+
+            // a page that is requested now overtakes a page that was popular before
+            warmer.record(SITE_ROOT, "/a.html", 7);
+            warmer.age();
+            assertEquals(Arrays.asList("/a.html", "/b.html", "/c.html"), warmer.getTopPaths(SITE_ROOT));
+            warmer.age();
+            assertEquals(
+                new HashSet<String>(Arrays.asList("/a.html", "/b.html")),
+                new HashSet<String>(warmer.getTopPaths(SITE_ROOT)));
+            warmer.age();
+            assertTrue(warmer.getTopPaths(SITE_ROOT).isEmpty());
+        } finally {
+            warmer.shutDown();
+        }
+    }
+
+    /**
+     * Tests that only requests for the server of the configured site are recorded.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRecordOnlyConfiguredSites() throws Exception {
+
+        CmsCacheWarmer warmer = new CmsCacheWarmer(10, 1, 0, null);
+        try {
+            String path = "/folder1/page1.html";
+            CmsResource resource = getCmsObject().readResource(path);
+
+            warmer.record(getGuestCmsObject("http://evil.example.com"), resource, new CmsWarmerTestRequest(path));
+            assertTrue(warmer.getTopPaths(SITE_ROOT).isEmpty());
+
+            // the server of another configured site
+            warmer.record(getGuestCmsObject("http://localhost:8082"), resource, new CmsWarmerTestRequest(path));
+            assertTrue(warmer.getTopPaths(SITE_ROOT).isEmpty());
+
+            warmer.record(getGuestCmsObject("http://localhost:8080"), resource, new CmsWarmerTestRequest(path));
+            assertEquals(Arrays.asList(path), warmer.getTopPaths(SITE_ROOT));
+        } finally {
+            warmer.shutDown();
+        }
+    }
+
+    /**
+     * Tests that the requested URLs are built from the site configuration.<p>
+     */
+    public void testUrlFromSiteConfiguration() {
+
+        CmsCacheWarmer warmer = new CmsCacheWarmer(10, 1, 0, null);
+        try {
+            String context = OpenCms.getSystemInfo().getOpenCmsContext();
+            assertEquals(
+                "http://localhost:8080" + context + "/folder1/page%201.html",
+                warmer.getUrl(SITE_ROOT, "/folder1/page 1.html"));
+            assertEquals(
+                "http://localhost:8081" + context + "/index.html",
+                warmer.getUrl("/sites/default/folder1", "/index.html"));
+            assertNull(warmer.getUrl("/sites/unknown", "/index.html"));
+            assertNull(warmer.getUrl(SITE_ROOT, "@evil.example.com/index.html"));
+        } finally {
+            warmer.shutDown();
+        }
+    }
+
+    /**
+     * Returns a CmsObject for the guest user in the Online project of the default site,
+     * with a request for the given server.<p>
+     *
+     * @param server the server of the request
+     *
+     * @return the CmsObject
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getGuestCmsObject(String server) throws Exception {
+
+        CmsContextInfo info = new CmsContextInfo(OpenCms.getDefaultUsers().getUserGuest());
+        info.setSiteRoot(SITE_ROOT);
+        info.setRequestMatcher(new CmsSiteMatcher(server));
+        return OpenCms.initCmsObject(getCmsObject(), info);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the memory mapped disk cache.<p>
+ */
+public class TestCmsVfsMappedDiskCache extends TestCase {
+
+    /** The size of the segments used in the tests. */
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    /** The base folder of the cache. */
+    private File m_folder;
+
+    /**
+     * Tests that the oldest segment is evicted when the size limit is reached,
+     * and that versions read from the oldest segment are kept.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEviction() throws Exception {
+
+        CmsVfsMappedDiskCache cache = createCache();
+        byte[] content = new byte[1000];
+        cache.saveCacheFile("hot", content);
+        cache.saveCacheFile("cold", content);
+        for (int i = 0; i < 200; i++) {
+            if (!cache.hasCacheContent("cold") || !cache.hasCacheContent("hot")) {
+                break;
+            }
+            cache.saveCacheFile("v" + i, content);
+            // keep "hot" in use
+            assertNotNull(cache.getCacheContent("hot"));
+        }
+        assertFalse(cache.hasCacheContent("cold"));
+        for (int i = 0; i < 200; i++) {
+            cache.saveCacheFile("w" + i, content);
+            assertNotNull(cache.getCacheContent("hot"));
+        }
+        assertTrue(cache.hasCacheContent("hot"));
+        String[] segments = new File(cache.getRepositoryPath()).list();
+        // two segments in use and one retired segment
+        assertTrue(segments.length <= 3);
+    }
+
+    /**
+     * Tests that unused versions are removed from the index.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRemoveUnused() throws Exception {
+
+        CmsVfsMappedDiskCache cache = createCache();
+        cache.saveCacheFile("old", new byte[] {1});
+        assertEquals(0, cache.removeUnused(System.currentTimeMillis() - 1000));
+        assertEquals(1, cache.removeUnused(System.currentTimeMillis() + 1000));
+        assertFalse(cache.hasCacheContent("old"));
+    }
+
+    /**
+     * Tests saving and reading versions, also after the cache has been reopened.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSaveAndReopen() throws Exception {
+
+        CmsVfsMappedDiskCache cache = createCache();
+        assertNull(cache.getCacheContent("a"));
+        cache.saveCacheFile("a", "first".getBytes("UTF-8"));
+        cache.saveCacheFile("b", "second".getBytes("UTF-8"));
+        cache.saveCacheFile("a", "third".getBytes("UTF-8"));
+        assertEquals("third", new String(cache.getCacheContent("a"), "UTF-8"));
+        assertEquals(6, cache.getCachedContent("b").getLength());
+        cache.shutDown();
+
+        cache = createCache();
+        assertEquals(2, cache.getSize());
+        assertEquals("third", new String(cache.getCacheContent("a"), "UTF-8"));
+        assertEquals("second", new String(cache.getCacheContent("b"), "UTF-8"));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_folder = Files.createTempDirectory("mappedcache").toFile();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        File cacheFolder = new File(m_folder, "cache");
+        File[] files = cacheFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheFolder.delete();
+        m_folder.delete();
+    }
+
+    /**
+     * Creates a cache with room for two segments.<p>
+     *
+     * @return the cache
+     */
+    private CmsVfsMappedDiskCache createCache() {
+
+        return new CmsVfsMappedDiskCache(m_folder.getAbsolutePath() + "/", "cache", 2 * SEGMENT_SIZE, SEGMENT_SIZE);
+    }
+}
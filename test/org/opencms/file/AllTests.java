@@ -83,10 +83,12 @@ public final class AllTests {
         suite.addTest(TestProperty.suite());
         suite.addTest(TestPropertyDefinition.suite());
         suite.addTest(TestPublishing.suite());
+        suite.addTest(TestPublishingParallel.suite());
         suite.addTest(TestPublishIssues.suite());
         suite.addTest(TestReadResource.suite());
         suite.addTest(TestReadResourceTree.suite());
         suite.addTest(TestReplace.suite());
+        suite.addTest(TestRequestReadCache.suite());
         suite.addTest(TestResourceFilter.suite());
         suite.addTest(TestResourceOperations.suite());
         suite.addTest(TestRestoreFromHistory.suite());
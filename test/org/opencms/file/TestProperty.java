@@ -27,15 +27,19 @@
 
 package org.opencms.file;
 
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsInheritedPropertyCache;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -215,6 +219,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testPropertyMaps"));
         suite.addTest(new TestProperty("testWriteProperty"));
         suite.addTest(new TestProperty("testWriteProperties"));
+        suite.addTest(new TestProperty("testWritePropertiesBatch"));
         suite.addTest(new TestProperty("testRemoveProperty"));
         suite.addTest(new TestProperty("testRemoveProperties"));
         suite.addTest(new TestProperty("testCreateProperty"));
@@ -224,6 +229,10 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
         suite.addTest(new TestProperty("testReadLocalizedProperty"));
+        suite.addTest(new TestProperty("testReadPropertiesBulk"));
+        suite.addTest(new TestProperty("testInheritedPropertyCacheGeneration"));
+        suite.addTest(new TestProperty("testInheritedPropertyChange"));
+        suite.addTest(new TestProperty("testInheritedPropertyMove"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -487,6 +496,115 @@ public class TestProperty extends OpenCmsTestCase {
         assertTrue("Operation did not throw the required Exception", gotException);
     }
 
+    /**
+     * Tests that an inherited property list which was loaded before an invalidation is not cached.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testInheritedPropertyCacheGeneration() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the inherited property cache drops lists loaded before an invalidation");
+
+        CmsInheritedPropertyCache cache = OpenCms.getMemoryMonitor().getInheritedPropertyCache();
+        String folder = cms.getRequestContext().addSiteRoot("/folder1/");
+        String file = cms.getRequestContext().addSiteRoot("/folder1/page1.html");
+        List<CmsProperty> properties = Collections.singletonList(
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "cached", null));
+
+        // a load that started before an invalidation of its path must not be cached
+        long generation = cache.getGeneration();
+        cache.remove(false, folder);
+        cache.put(false, file, properties, generation);
+        assertNull(cache.get(false, file));
+
+        // the same for a load that started before the whole cache was cleared
+        generation = cache.getGeneration();
+        OpenCms.getMemoryMonitor().flushCache(CacheType.PROPERTY_LIST);
+        cache.put(false, file, properties, generation);
+        assertNull(cache.get(false, file));
+
+        // a load without an invalidation in between is cached, in the offline tree only
+        generation = cache.getGeneration();
+        cache.put(false, file, properties, generation);
+        assertEquals(properties, cache.get(false, file));
+        assertNull(cache.get(true, file));
+
+        // removing a folder removes the lists of the resources below it
+        cache.remove(false, folder);
+        assertNull(cache.get(false, file));
+    }
+
+    /**
+     * Tests that changing a property of a folder changes the inherited property of the resources below it.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testInheritedPropertyChange() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that a changed folder property is inherited by the resources below it");
+
+        String folder = "/folder1/subfolder11/";
+        String file = "/folder1/subfolder11/subsubfolder111/image.gif";
+        CmsInheritedPropertyCache cache = OpenCms.getMemoryMonitor().getInheritedPropertyCache();
+        String rootPath = cms.getRequestContext().addSiteRoot(file);
+
+        cms.lockResource(folder);
+        cms.writePropertyObject(folder, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "first", null));
+        assertEquals(
+            "first",
+            cms.readPropertyObject(file, CmsPropertyDefinition.PROPERTY_KEYWORDS, true).getValue());
+        assertNotNull(cache.get(false, rootPath));
+
+        cms.writePropertyObject(folder, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "second", null));
+        assertNull(cache.get(false, rootPath));
+        assertEquals(
+            "second",
+            cms.readPropertyObject(file, CmsPropertyDefinition.PROPERTY_KEYWORDS, true).getValue());
+
+        cms.writePropertyObject(folder, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "", null));
+        assertTrue(cms.readPropertyObject(file, CmsPropertyDefinition.PROPERTY_KEYWORDS, true).isNullProperty());
+        cms.unlockResource(folder);
+    }
+
+    /**
+     * Tests that a moved folder inherits the properties of its new parent folder.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testInheritedPropertyMove() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that a moved folder inherits the properties of its new parent folder");
+
+        cms.createResource("/inheritA/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/inheritB/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/inheritA/sub/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/inheritA/sub/file.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.writePropertyObject("/inheritA/", new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "A", null));
+        cms.writePropertyObject("/inheritB/", new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "B", null));
+
+        assertEquals(
+            "A",
+            cms.readPropertyObject("/inheritA/sub/file.txt", CmsPropertyDefinition.PROPERTY_KEYWORDS, true).getValue());
+
+        cms.moveResource("/inheritA/sub/", "/inheritB/sub/");
+
+        CmsInheritedPropertyCache cache = OpenCms.getMemoryMonitor().getInheritedPropertyCache();
+        assertNull(cache.get(false, cms.getRequestContext().addSiteRoot("/inheritA/sub/file.txt")));
+        assertEquals(
+            "B",
+            cms.readPropertyObject("/inheritB/sub/file.txt", CmsPropertyDefinition.PROPERTY_KEYWORDS, true).getValue());
+
+        // a new folder at the old path must not see the values of the moved folder
+        cms.createResource("/inheritA/sub/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.writePropertyObject("/inheritA/", new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "A2", null));
+        assertEquals(
+            "A2",
+            cms.readPropertyObject("/inheritA/sub/", CmsPropertyDefinition.PROPERTY_KEYWORDS, true).getValue());
+    }
+
     /**
      * Tests the NULL_PROPERTY.<p>
      *
@@ -696,6 +814,71 @@ public class TestProperty extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests reading the properties of many resources at once, compared to reading them resource by resource.<p>
+     *
+     * The resources include siblings, which share the resource values of the property but have
+     * their own structure values.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadPropertiesBulk() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of many resources at once");
+
+        String source = "/folder1/bulkprop.txt";
+        String sibling = "/folder1/bulkprop_sibling.txt";
+        cms.createResource(source, CmsResourceTypePlain.getStaticTypeId());
+        cms.createSibling(source, sibling, null);
+        cms.writePropertyObject(
+            source,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "Shared description"));
+        cms.writePropertyObject(source, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Source title", null));
+        cms.writePropertyObject(sibling, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Sibling title", null));
+
+        List<CmsResource> resources = new ArrayList<CmsResource>(
+            cms.readResources("/folder1/", CmsResourceFilter.ALL, true));
+        resources.add(cms.readResource("/"));
+        resources.add(cms.readResource("/index.html"));
+        assertTrue(resources.size() > 10);
+
+        for (boolean search : new boolean[] {false, true}) {
+            // make sure both ways read from the database
+            OpenCms.getMemoryMonitor().flushCache(CacheType.PROPERTY, CacheType.PROPERTY_LIST);
+            Map<CmsUUID, List<CmsProperty>> single = new HashMap<CmsUUID, List<CmsProperty>>();
+            for (CmsResource resource : resources) {
+                single.put(resource.getStructureId(), cms.readPropertyObjects(resource, search));
+            }
+            OpenCms.getMemoryMonitor().flushCache(CacheType.PROPERTY, CacheType.PROPERTY_LIST);
+            Map<CmsUUID, List<CmsProperty>> bulk = cms.readPropertyObjects(resources, search);
+
+            assertEquals(resources.size(), bulk.size());
+            for (CmsResource resource : resources) {
+                Map<String, CmsProperty> expected = CmsProperty.getPropertyMap(single.get(resource.getStructureId()));
+                Map<String, CmsProperty> result = CmsProperty.getPropertyMap(bulk.get(resource.getStructureId()));
+                assertEquals(resource.getRootPath(), expected.keySet(), result.keySet());
+                for (CmsProperty property : expected.values()) {
+                    assertTrue(
+                        resource.getRootPath() + ": " + property,
+                        property.isIdentical(result.get(property.getName())));
+                }
+            }
+
+            // the siblings share the resource value, but the structure values are their own
+            for (String path : new String[] {source, sibling}) {
+                Map<String, CmsProperty> props = CmsProperty.getPropertyMap(
+                    bulk.get(cms.readResource(path).getStructureId()));
+                assertEquals(
+                    "Shared description",
+                    props.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION).getResourceValue());
+                assertEquals(
+                    path.equals(source) ? "Source title" : "Sibling title",
+                    props.get(CmsPropertyDefinition.PROPERTY_TITLE).getStructureValue());
+            }
+        }
+    }
+
     /**
      * Tests the writePropertyObject method for writing of a property on a folder.<p>
      *
@@ -816,6 +999,67 @@ public class TestProperty extends OpenCmsTestCase {
         writeProperties(this, cms, "/folder1/page3.html", propertyList1);
     }
 
+    /**
+     * Tests the writeProperties method with inserts, updates and deletes of structure and resource values,
+     * which are written in one JDBC batch per statement type, and publishing the result.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testWritePropertiesBatch() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing writing multiple property values in one batch");
+
+        String resourcename = "/batchproperties.txt";
+        cms.createResource(resourcename, CmsResourceTypePlain.getStaticTypeId());
+
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title1", null));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "description1"));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "navtext1", "navtext1r"));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "keywords1", null));
+        cms.writePropertyObjects(resourcename, properties);
+
+        assertEquals("title1", cms.readPropertyObject(resourcename, "Title", false).getStructureValue());
+        assertEquals("description1", cms.readPropertyObject(resourcename, "Description", false).getResourceValue());
+        CmsProperty navText = cms.readPropertyObject(resourcename, "NavText", false);
+        assertEquals("navtext1", navText.getStructureValue());
+        assertEquals("navtext1r", navText.getResourceValue());
+
+        properties.clear();
+        // update
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title2", null));
+        // delete
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, CmsProperty.DELETE_VALUE));
+        // delete the structure value and update the resource value
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, CmsProperty.DELETE_VALUE, "navtext2r"));
+        // insert
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, null, "5"));
+        cms.writePropertyObjects(resourcename, properties);
+        cms.unlockResource(resourcename);
+
+        OpenCms.getPublishManager().publishResource(cms, resourcename);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        try {
+            for (CmsProject project : new CmsProject[] {
+                offlineProject,
+                cms.readProject(CmsProject.ONLINE_PROJECT_ID)}) {
+                cms.getRequestContext().setCurrentProject(project);
+                assertEquals("title2", cms.readPropertyObject(resourcename, "Title", false).getStructureValue());
+                assertTrue(cms.readPropertyObject(resourcename, "Description", false).isNullProperty());
+                navText = cms.readPropertyObject(resourcename, "NavText", false);
+                assertNull(navText.getStructureValue());
+                assertEquals("navtext2r", navText.getResourceValue());
+                assertEquals("5", cms.readPropertyObject(resourcename, "NavPos", false).getResourceValue());
+                assertEquals("keywords1", cms.readPropertyObject(resourcename, "Keywords", false).getStructureValue());
+            }
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+    }
+
     /**
      * Tests the writePropertyObject method.<p>
      *
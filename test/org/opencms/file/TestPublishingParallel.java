@@ -0,0 +1,227 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.file;
+
+import org.opencms.db.CmsDriverManager;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishJobFinished;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestResourceFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for publishing with more than one publish thread.<p>
+ */
+public class TestPublishingParallel extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishingParallel(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishingParallel.class.getName());
+
+        suite.addTest(new TestPublishingParallel("testPublishProjectParallel"));
+        suite.addTest(new TestPublishingParallel("testPublishDeletedMovedAndSiblingsParallel"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+                OpenCms.setRuntimeProperty(CmsDriverManager.PARAM_PUBLISH_THREADS, "4");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                OpenCms.setRuntimeProperty(CmsDriverManager.PARAM_PUBLISH_THREADS, "1");
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests publishing deleted, moved and new sibling resources with more than one publish thread.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishDeletedMovedAndSiblingsParallel() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing deleted, moved and sibling resources with more than one publish thread");
+
+        String deleted = "/folder1/subfolder11/page2.html";
+        String moveSource = "/folder1/subfolder12/page1.html";
+        String moveTarget = "/folder1/subfolder12/page1_moved.html";
+        String siblingSource = "/folder1/page2.html";
+        List<String> siblings = new ArrayList<String>();
+
+        cms.lockResource(deleted);
+        cms.deleteResource(deleted, CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.lockResource(moveSource);
+        cms.moveResource(moveSource, moveTarget);
+        for (int i = 0; i < 5; i++) {
+            String sibling = "/folder1/page2_sibling" + i + ".html";
+            cms.copyResource(siblingSource, sibling, CmsResource.COPY_AS_SIBLING);
+            cms.unlockResource(sibling);
+            siblings.add(sibling);
+        }
+        // changes the shared content of all siblings
+        cms.lockResource(siblingSource);
+        cms.setDateLastModified(siblingSource, System.currentTimeMillis(), false);
+        cms.writePropertyObject(siblingSource, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, null, "shared"));
+        cms.unlockResource(siblingSource);
+        cms.unlockProject(cms.getRequestContext().getCurrentProject().getUuid());
+
+        storeResources(cms, "/");
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsResource offlineSource = cms.readResource(siblingSource);
+        for (String sibling : siblings) {
+            assertFilter(cms, sibling, OpenCmsTestResourceFilter.FILTER_PUBLISHRESOURCE);
+            assertState(cms, sibling, CmsResource.STATE_UNCHANGED);
+            assertEquals(offlineSource.getVersion(), cms.readResource(sibling).getVersion());
+        }
+        assertFalse(cms.existsResource(deleted, CmsResourceFilter.ALL));
+        assertState(cms, moveTarget, CmsResource.STATE_UNCHANGED);
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            assertFalse(cms.existsResource(deleted, CmsResourceFilter.ALL));
+            assertFalse(cms.existsResource(moveSource, CmsResourceFilter.ALL));
+            assertTrue(cms.existsResource(moveTarget));
+            CmsResource onlineSource = cms.readResource(siblingSource);
+            assertEquals(offlineSource.getVersion(), onlineSource.getVersion());
+            for (String sibling : siblings) {
+                CmsResource onlineSibling = cms.readResource(sibling);
+                assertEquals(onlineSource.getResourceId(), onlineSibling.getResourceId());
+                assertEquals(onlineSource.getVersion(), onlineSibling.getVersion());
+                assertEquals(
+                    "shared",
+                    cms.readPropertyObject(sibling, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue());
+            }
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+    }
+
+    /**
+     * Tests publishing a project with new and changed resources with more than one publish thread.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishProjectParallel() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing a project with more than one publish thread");
+
+        String resourcename = "/";
+        cms.lockResource(resourcename);
+        cms.setDateLastModified(resourcename, System.currentTimeMillis(), true);
+
+        List<String> newResources = new ArrayList<String>();
+        String folder = "/parallel/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        newResources.add(folder);
+        for (int i = 0; i < 3; i++) {
+            folder += "sub" + i + "/";
+            cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+            newResources.add(folder);
+            for (int j = 0; j < 10; j++) {
+                String file = folder + "file" + j + ".txt";
+                cms.createResource(file, CmsResourceTypePlain.getStaticTypeId(), ("content " + j).getBytes(), null);
+                cms.writePropertyObject(file, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title " + j, null));
+                newResources.add(file);
+            }
+        }
+        cms.unlockResource(resourcename);
+
+        storeResources(cms, resourcename);
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        List<?> pubHistory = OpenCms.getPublishManager().getPublishHistory();
+        CmsPublishJobFinished pubJob = (CmsPublishJobFinished)pubHistory.get(pubHistory.size() - 1);
+        // folders + files + the new resources
+        assertEquals(13 + 51 + newResources.size(), pubJob.getSize());
+
+        for (CmsResource resource : cms.readResources(resourcename, CmsResourceFilter.ALL)) {
+            String path = cms.getSitePath(resource);
+            assertFilter(cms, path, OpenCmsTestResourceFilter.FILTER_PUBLISHRESOURCE);
+            assertState(cms, path, CmsResource.STATE_UNCHANGED);
+        }
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            for (String path : newResources) {
+                assertTrue(path, cms.existsResource(path));
+                if (path.endsWith(".txt")) {
+                    String j = path.substring(path.lastIndexOf("file") + 4, path.length() - 4);
+                    assertEquals("content " + j, new String(cms.readFile(path).getContents()));
+                    assertEquals(
+                        "title " + j,
+                        cms.readPropertyObject(path, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue());
+                }
+            }
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+    }
+}
@@ -29,10 +29,16 @@ package org.opencms.file;
 
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -74,6 +80,11 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
+        suite.addTest(new TestReadResource("testReadResourcesWithIds"));
+        suite.addTest(new TestReadResource("testReadResourcesWithIdsPermissions"));
+        suite.addTest(new TestReadResource("testReadWithResourceIDCache"));
+        suite.addTest(new TestReadResource("testReadWithResourceIDCacheCopy"));
+        suite.addTest(new TestReadResource("testReadResourcesWithIdsDeleted"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -373,4 +384,188 @@ public class TestReadResource extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Test reading several resources with their structure ids in one call.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesWithIds() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading resources with a list of structure ids");
+
+        String[] paths = {"/folder1/page3.html", "/index.html", "/folder1/subfolder12/", "/folder1/image1.gif"};
+        List<CmsUUID> ids = new ArrayList<CmsUUID>();
+        for (String path : paths) {
+            ids.add(cms.readResource(path).getStructureId());
+        }
+        // duplicates and ids that do not exist must be skipped
+        List<CmsUUID> request = new ArrayList<CmsUUID>(ids);
+        request.add(1, new CmsUUID());
+        request.add(ids.get(0));
+        List<CmsResource> result = cms.readResources(request, CmsResourceFilter.DEFAULT);
+        assertEquals(paths.length, result.size());
+        for (int i = 0; i < paths.length; i++) {
+            assertEquals(cms.getRequestContext().addSiteRoot(paths[i]), result.get(i).getRootPath());
+            assertEquals(cms.readResource(paths[i]), result.get(i));
+        }
+
+        // more ids than fit into a single IN list of the query
+        request = new ArrayList<CmsUUID>();
+        for (int i = 0; i < 1200; i++) {
+            request.add(new CmsUUID());
+        }
+        request.add(0, ids.get(3));
+        request.add(600, ids.get(2));
+        request.add(ids.get(1));
+        result = cms.readResources(request, CmsResourceFilter.DEFAULT);
+        assertEquals(3, result.size());
+        assertEquals(ids.get(3), result.get(0).getStructureId());
+        assertEquals(ids.get(2), result.get(1).getStructureId());
+        assertEquals(ids.get(1), result.get(2).getStructureId());
+
+        // the filter is applied to the result
+        result = cms.readResources(ids, CmsResourceFilter.DEFAULT_FILES);
+        assertEquals(3, result.size());
+        assertTrue(cms.readResources(Collections.<CmsUUID> emptyList(), CmsResourceFilter.ALL).isEmpty());
+    }
+
+    /**
+     * Test that reading deleted resources with their structure ids respects the filter,
+     * for the batched read as well as for the single read that shares its cache.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesWithIdsDeleted() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading deleted resources with a list of structure ids");
+
+        String path = "/folder1/subfolder12/page2.html";
+        CmsUUID id = cms.readResource(path).getStructureId();
+        cms.lockResource(path);
+        cms.deleteResource(path, CmsResource.DELETE_PRESERVE_SIBLINGS);
+
+        // this caches the deleted resource
+        List<CmsResource> result = cms.readResources(Arrays.asList(id), CmsResourceFilter.ALL);
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).getState().isDeleted());
+        assertTrue(cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).isEmpty());
+        try {
+            cms.readResource(id);
+            fail("Deleted resource " + path + " could be read with the default filter");
+        } catch (CmsException e) {
+            // expected
+        }
+        assertTrue(cms.readResource(id, CmsResourceFilter.ALL).getState().isDeleted());
+
+        cms.undeleteResource(path, false);
+        cms.unlockResource(path);
+        assertFalse(cms.readResource(id).getState().isDeleted());
+        assertEquals(1, cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).size());
+    }
+
+    /**
+     * Test that reading resources with their structure ids skips the resources the user may not read.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesWithIdsPermissions() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing permissions when reading resources with a list of structure ids");
+
+        String denied = "/folder1/page4.html";
+        String allowed = "/folder1/page3.html";
+        List<CmsUUID> ids = Arrays.asList(
+            cms.readResource(denied).getStructureId(),
+            cms.readResource(allowed).getStructureId());
+        cms.lockResource(denied);
+        cms.chacc(denied, I_CmsPrincipal.PRINCIPAL_USER, "test1", "-r");
+        cms.unlockResource(denied);
+
+        // warm the cache as admin, the cached resources must not bypass the permission check
+        assertEquals(2, cms.readResources(ids, CmsResourceFilter.DEFAULT).size());
+
+        cms.loginUser("test1", "test1");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        List<CmsResource> result = cms.readResources(ids, CmsResourceFilter.DEFAULT);
+        assertEquals(1, result.size());
+        assertEquals(cms.getRequestContext().addSiteRoot(allowed), result.get(0).getRootPath());
+        try {
+            cms.readResource(ids.get(0));
+            fail("Resource " + denied + " could be read without read permission");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the resources cached by structure id are refreshed after a change,
+     * and that online and offline versions are cached separately.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadWithResourceIDCache() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cache for resources read with their structure id");
+
+        String path = "/folder1/subfolder12/page1.html";
+        CmsUUID id = cms.readResource(path).getStructureId();
+        long onlineDate = cms.readResource(id).getDateLastModified();
+        long offlineDate = onlineDate - (24 * 60 * 60 * 1000);
+
+        cms.lockResource(path);
+        cms.setDateLastModified(path, offlineDate, false);
+        cms.unlockResource(path);
+        assertEquals(offlineDate, cms.readResource(id).getDateLastModified());
+        assertEquals(
+            offlineDate,
+            cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).get(0).getDateLastModified());
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertEquals(onlineDate, cms.readResource(id).getDateLastModified());
+        assertEquals(
+            onlineDate,
+            cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).get(0).getDateLastModified());
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        assertEquals(offlineDate, cms.readResource(id).getDateLastModified());
+
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertEquals(offlineDate, cms.readResource(id).getDateLastModified());
+    }
+
+    /**
+     * Test that changes to a resource read with its structure id do not affect the cached resource.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadWithResourceIDCacheCopy() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that resources read with their structure id are copies of the cached resources");
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsUUID id = cms.readResource("/folder1/page1.html").getStructureId();
+        CmsResource resource = cms.readResource(id);
+        long dateLastModified = resource.getDateLastModified();
+
+        // change the returned resources, as done before writing them
+        resource.setDateLastModified(dateLastModified + 1000);
+        CmsResource reread = cms.readResource(id);
+        assertNotSame(resource, reread);
+        assertEquals(dateLastModified, reread.getDateLastModified());
+
+        resource = cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).get(0);
+        resource.setDateLastModified(dateLastModified + 1000);
+        assertEquals(dateLastModified, cms.readResource(id).getDateLastModified());
+        assertEquals(
+            dateLastModified,
+            cms.readResources(Arrays.asList(id), CmsResourceFilter.DEFAULT).get(0).getDateLastModified());
+    }
+
 }
@@ -0,0 +1,223 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.file;
+
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsRequestUtil;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the request scoped read cache.<p>
+ */
+public class TestRequestReadCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestRequestReadCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestRequestReadCache.class.getName());
+
+        suite.addTest(new TestRequestReadCache("testCacheHitUpdatesContextInfo"));
+        suite.addTest(new TestRequestReadCache("testCacheHitUpdatesContextInfoForInheritedProperties"));
+        suite.addTest(new TestRequestReadCache("testCacheHitWithoutRecordedContextInfo"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that a resource read answered from the cache updates the Flex context info like a real read.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCacheHitUpdatesContextInfo() throws Throwable {
+
+        CmsObject cms = getOnlineCmsObject();
+        CmsRequestReadCache cache = attachCache(cms);
+        String path = "/folder1/page1.html";
+
+        CmsFlexRequestContextInfo first = setContextInfo(cms, true);
+        CmsResource resource = cms.readResource(path);
+        assertEquals(0, cache.getHits());
+        assertSame(first, cms.getRequestContext().getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED));
+        assertTrue(first.getResourceIds().contains(resource.getResourceId()));
+        assertEquals(resource.getDateLastModified(), first.getDateLastModified());
+
+        // a nested element with a new context info reads the same resource
+        CmsFlexRequestContextInfo second = setContextInfo(cms, true);
+        assertEquals(resource, cms.readResource(path));
+        assertEquals(1, cache.getHits());
+        assertEquals(first.getResourceIds(), second.getResourceIds());
+        assertEquals(first.getDateLastModified(), second.getDateLastModified());
+        assertEquals(first.getDateExpires(), second.getDateExpires());
+
+        // the same for reading by structure id
+        CmsFlexRequestContextInfo third = setContextInfo(cms, true);
+        cms.readResource(resource.getStructureId());
+        CmsFlexRequestContextInfo fourth = setContextInfo(cms, true);
+        cms.readResource(resource.getStructureId());
+        assertEquals(2, cache.getHits());
+        assertTrue(third.getResourceIds().contains(resource.getResourceId()));
+        assertEquals(third.getResourceIds(), fourth.getResourceIds());
+        assertEquals(third.getDateLastModified(), fourth.getDateLastModified());
+    }
+
+    /**
+     * Tests that an inherited property read answered from the cache tracks the parent folders like a real read.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCacheHitUpdatesContextInfoForInheritedProperties() throws Throwable {
+
+        CmsObject cms = getOnlineCmsObject();
+        CmsRequestReadCache cache = attachCache(cms);
+        CmsResource resource = cms.readResource("/folder1/subfolder11/page1.html");
+        CmsResource folder = cms.readResource("/folder1/");
+        int hits = cache.getHits();
+
+        CmsFlexRequestContextInfo first = setContextInfo(cms, true);
+        cms.readPropertyObject(resource, CmsPropertyDefinition.PROPERTY_TITLE, true);
+        CmsFlexRequestContextInfo second = setContextInfo(cms, true);
+        cms.readPropertyObject(resource, CmsPropertyDefinition.PROPERTY_TITLE, true);
+        assertTrue(cache.getHits() > hits);
+        assertTrue(first.getResourceIds().contains(folder.getResourceId()));
+        assertTrue(second.getResourceIds().contains(folder.getResourceId()));
+        assertEquals(first.getResourceIds(), second.getResourceIds());
+    }
+
+    /**
+     * Tests that a result cached while no resources were tracked is read again when they are.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCacheHitWithoutRecordedContextInfo() throws Throwable {
+
+        CmsObject cms = getOnlineCmsObject();
+        CmsRequestReadCache cache = attachCache(cms);
+        String path = "/folder1/page2.html";
+
+        cms.readResource(path);
+        CmsFlexRequestContextInfo untracked = setContextInfo(cms, false);
+        CmsResource resource = cms.readResource(path);
+        assertEquals(0, cache.getHits());
+        assertEquals(resource.getDateLastModified(), untracked.getDateLastModified());
+
+        CmsFlexRequestContextInfo tracked = setContextInfo(cms, true);
+        cms.readResource(path);
+        assertEquals(0, cache.getHits());
+        assertTrue(tracked.getResourceIds().contains(resource.getResourceId()));
+
+        // the result recorded with tracking also serves contexts without tracking
+        untracked = setContextInfo(cms, false);
+        cms.readResource(path);
+        assertEquals(1, cache.getHits());
+        assertEquals(resource.getDateLastModified(), untracked.getDateLastModified());
+
+        cms.getRequestContext().removeAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        cms.readResource(path);
+        assertEquals(2, cache.getHits());
+    }
+
+    /**
+     * Attaches a new read cache to the request context of the given CmsObject.<p>
+     *
+     * @param cms the CmsObject
+     *
+     * @return the read cache
+     */
+    private CmsRequestReadCache attachCache(CmsObject cms) {
+
+        CmsRequestReadCache cache = new CmsRequestReadCache();
+        cms.getRequestContext().setAttribute(CmsRequestReadCache.ATTRIBUTE_NAME, cache);
+        assertSame(cache, CmsRequestReadCache.get(cms.getRequestContext()));
+        return cache;
+    }
+
+    /**
+     * Returns a CmsObject in the Online project.<p>
+     *
+     * @return a CmsObject in the Online project
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCmsObject() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        return cms;
+    }
+
+    /**
+     * Sets a new Flex context info on the request context of the given CmsObject.<p>
+     *
+     * @param cms the CmsObject
+     * @param trackResources if the context info should track the resources read
+     *
+     * @return the context info
+     */
+    private CmsFlexRequestContextInfo setContextInfo(CmsObject cms, boolean trackResources) {
+
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(trackResources);
+        cms.getRequestContext().setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+        return info;
+    }
+}
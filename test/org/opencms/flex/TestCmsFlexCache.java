@@ -0,0 +1,229 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsRequestUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the concurrent key and variation maps of the Flex cache.<p>
+ */
+public class TestCmsFlexCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCache.class.getName());
+
+        suite.addTest(new TestCmsFlexCache("testConcurrentPutAndClear"));
+        suite.addTest(new TestCmsFlexCache("testInheritedPropertyTracking"));
+        suite.addTest(new TestCmsFlexCache("testKeyEviction"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Creates a Flex cache for the tests.<p>
+     *
+     * @param maxKeys the maximum number of keys
+     *
+     * @return the Flex cache
+     */
+    private static CmsFlexCache createCache(int maxKeys) {
+
+        CmsFlexCacheConfiguration config = new CmsFlexCacheConfiguration();
+        config.initialize("true", "true", "10000000", "5000000", "100000", String.valueOf(maxKeys));
+        return new CmsFlexCache(config);
+    }
+
+    /**
+     * Returns the number of entries that can be reached through the keys of the cache.<p>
+     *
+     * @param cache the Flex cache
+     *
+     * @return the number of reachable entries
+     */
+    private static int countReachableEntries(CmsFlexCache cache) {
+
+        StringBuffer buffer = new StringBuffer();
+        cache.dumpKeys(buffer);
+        int count = 0;
+        for (String line : buffer.toString().split("\n")) {
+            if (line.contains(" VAR ")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests that entries added while the cache is cleared are either removed or stay reachable.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentPutAndClear() throws Exception {
+
+        echo("Testing concurrent puts while the Flex cache is cleared");
+        CmsFlexCache cache = createCache(1000);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<Thread>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        CmsFlexCacheKey key = new CmsFlexCacheKey("/test" + (i % 10) + ".jsp", "always", true);
+                        cache.put(key, new CmsFlexCacheEntry(), "v" + thread + "_" + i, null);
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (int i = 0; i < 200; i++) {
+            if ((i % 2) == 0) {
+                cache.cmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+                        Collections.<String, Object> singletonMap(
+                            CmsFlexCache.CACHE_ACTION,
+                            Integer.valueOf(CmsFlexCache.CLEAR_ENTRIES))));
+            } else {
+                cache.cmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+                        Collections.<String, Object> singletonMap(
+                            CmsFlexCache.CACHE_ACTION,
+                            Integer.valueOf(CmsFlexCache.CLEAR_ONLINE_ALL))));
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        // every entry counted by the LRU cache must be reachable through a key
+        assertEquals(countReachableEntries(cache), cache.size());
+    }
+
+    /**
+     * Tests that reading an inherited property tracks the folders the property may be inherited from.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInheritedPropertyTracking() throws Exception {
+
+        echo("Testing the resource tracking of inherited property reads");
+        CmsObject cms = getCmsObject();
+        String path = "/folder1/page1.html";
+        // fill the inherited property cache, so the next read does not read the folders
+        cms.readPropertyObject(path, CmsPropertyDefinition.PROPERTY_TITLE, true);
+
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+        cms.getRequestContext().setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+        try {
+            cms.readPropertyObject(cms.readResource(path), CmsPropertyDefinition.PROPERTY_TITLE, true);
+        } finally {
+            cms.getRequestContext().removeAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        }
+        assertTrue(info.getResourceIds().contains(cms.readResource(path).getResourceId()));
+        assertTrue(info.getResourceIds().contains(cms.readResource("/folder1/").getResourceId()));
+        assertTrue(info.getResourceIds().contains(cms.readResource("/").getResourceId()));
+    }
+
+    /**
+     * Tests that the entries of an evicted key are removed from the LRU cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testKeyEviction() throws Exception {
+
+        echo("Testing the removal of entries when a Flex cache key is evicted");
+        CmsFlexCache cache = createCache(2);
+        for (int r = 0; r < 5; r++) {
+            CmsFlexCacheKey key = new CmsFlexCacheKey("/evict" + r + ".jsp", "always", true);
+            for (int i = 0; i < 3; i++) {
+                cache.put(key, new CmsFlexCacheEntry(), "v" + i, null);
+            }
+        }
+        assertEquals(2, cache.keySize());
+        assertEquals(6, cache.size());
+        assertEquals(cache.size(), countReachableEntries(cache));
+    }
+}
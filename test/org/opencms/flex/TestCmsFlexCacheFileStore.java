@@ -0,0 +1,216 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the memory mapped second level store of the Flex cache.<p>
+ */
+public class TestCmsFlexCacheFileStore extends TestCase {
+
+    /** The resource name used for the tests. */
+    private static final String RESOURCE = CmsFlexCacheKey.getKeyName("/sites/default/index.jsp", true);
+
+    /** The store file. */
+    private File m_file;
+
+    /**
+     * Tests that entries are removed when a resource they depend on changes.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRemoveForResourceIds() throws Exception {
+
+        CmsUUID used = new CmsUUID();
+        CmsFlexCacheFileStore store = openStore(0);
+        store.put(RESOURCE, "v1", createEntry("content", Collections.singleton(used)));
+        store.put("/other.jsp [online]", "v1", createEntry("other", Collections.singleton(new CmsUUID())));
+        store.remove(Collections.singleton(new CmsUUID()));
+        assertNotNull(store.get(RESOURCE, "v1"));
+        store.remove(Collections.singleton(used));
+        assertNull(store.get(RESOURCE, "v1"));
+        store.shutDown();
+
+        // the removal must survive a restart
+        store = openStore(0);
+        assertNull(store.get(RESOURCE, "v1"));
+        assertNotNull(store.get("/other.jsp [online]", "v1"));
+        store.shutDown();
+    }
+
+    /**
+     * Tests that the store is reset when it is full.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testResetWhenFull() throws Exception {
+
+        CmsFlexCacheFileStore store = new CmsFlexCacheFileStore();
+        store.open(m_file, 64 * 1024, 0);
+        String text = new String(new char[1000]).replace('\0', 'x');
+        for (int i = 0; i < 100; i++) {
+            store.put(RESOURCE, "v" + i, createEntry(text, null));
+        }
+        assertNull(store.get(RESOURCE, "v0"));
+        assertEquals(text, readContent(store.get(RESOURCE, "v99")));
+        store.shutDown();
+    }
+
+    /**
+     * Tests that stored entries survive a restart, unless a publish job finished after the last write.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStoreAndReopen() throws Exception {
+
+        CmsFlexCacheFileStore store = openStore(0);
+        store.put(RESOURCE, "v1", createEntry("content", null));
+        CmsFlexCacheEntry entry = store.get(RESOURCE, "v1");
+        assertEquals("content", readContent(entry));
+        assertEquals(Arrays.asList("text/html"), entry.getHeaders().get("Content-Type"));
+        assertNull(store.get(RESOURCE, "v2"));
+        store.shutDown();
+
+        store = openStore(0);
+        assertEquals("content", readContent(store.get(RESOURCE, "v1")));
+        store.shutDown();
+
+        store = openStore(System.currentTimeMillis() + 1000);
+        assertNull(store.get(RESOURCE, "v1"));
+        store.shutDown();
+    }
+
+    /**
+     * Tests that entries with include calls are not stored.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSkipIncludes() throws Exception {
+
+        CmsFlexCacheFileStore store = openStore(0);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add("before".getBytes("UTF-8"));
+        entry.add("/include.jsp", null, null);
+        entry.complete();
+        store.put(RESOURCE, "v1", entry);
+        assertNull(store.get(RESOURCE, "v1"));
+        store.shutDown();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_file = new File(Files.createTempDirectory("flexstore").toFile(), "flexcache.dat");
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        m_file.delete();
+        m_file.getParentFile().delete();
+    }
+
+    /**
+     * Creates a completed entry with the given content.<p>
+     *
+     * @param text the content
+     * @param resourceIds the resource ids the entry depends on
+     *
+     * @return the entry
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsFlexCacheEntry createEntry(String text, Set<CmsUUID> resourceIds) throws Exception {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        int middle = text.length() / 2;
+        entry.add(text.substring(0, middle).getBytes("UTF-8"));
+        entry.add(text.substring(middle).getBytes("UTF-8"));
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("Content-Type", new ArrayList<String>(Arrays.asList("text/html")));
+        entry.addHeaders(headers);
+        entry.setResourceIds(resourceIds);
+        entry.complete();
+        entry.setDateExpires(Long.MAX_VALUE);
+        return entry;
+    }
+
+    /**
+     * Opens the store file.<p>
+     *
+     * @param dateLastPublished the time the last publish job finished
+     *
+     * @return the opened store
+     *
+     * @throws Exception if the store can not be opened
+     */
+    private CmsFlexCacheFileStore openStore(long dateLastPublished) throws Exception {
+
+        CmsFlexCacheFileStore store = new CmsFlexCacheFileStore();
+        store.open(m_file, 1024 * 1024, dateLastPublished);
+        return store;
+    }
+
+    /**
+     * Concatenates the output segments of an entry.<p>
+     *
+     * @param entry the entry
+     *
+     * @return the content of the entry
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String readContent(CmsFlexCacheEntry entry) throws Exception {
+
+        StringBuffer result = new StringBuffer();
+        for (Object element : entry.elements()) {
+            result.append(new String((byte[])element, "UTF-8"));
+        }
+        return result.toString();
+    }
+}
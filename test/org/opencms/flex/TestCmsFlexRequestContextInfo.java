@@ -0,0 +1,126 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the resource tracking of the Flex request context info.<p>
+ */
+public class TestCmsFlexRequestContextInfo extends TestCase {
+
+    /**
+     * Creates a resource with the given resource id for the tests.<p>
+     *
+     * @param resourceId the resource id
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(CmsUUID resourceId) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            "/test.html",
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            null,
+            0,
+            null,
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that merging keeps the resource ids of the merged context.<p>
+     */
+    public void testMergeResourceIds() {
+
+        CmsUUID outerId = new CmsUUID();
+        CmsUUID innerId = new CmsUUID();
+        CmsFlexRequestContextInfo outer = new CmsFlexRequestContextInfo(true);
+        outer.updateFromResource(createResource(outerId));
+        CmsFlexRequestContextInfo inner = new CmsFlexRequestContextInfo(true);
+        inner.updateFromResource(createResource(innerId));
+
+        outer.merge(inner);
+        Set<CmsUUID> ids = outer.getResourceIds();
+        assertEquals(2, ids.size());
+        assertTrue(ids.contains(outerId));
+        assertTrue(ids.contains(innerId));
+    }
+
+    /**
+     * Tests that merging a context with unknown dependencies makes the dependencies unknown.<p>
+     */
+    public void testMergeUntracked() {
+
+        CmsFlexRequestContextInfo outer = new CmsFlexRequestContextInfo(true);
+        outer.updateFromResource(createResource(new CmsUUID()));
+        CmsFlexRequestContextInfo inner = new CmsFlexRequestContextInfo(true);
+        for (int i = 0; i <= CmsFlexRequestContextInfo.MAX_TRACKED_RESOURCES; i++) {
+            inner.updateFromResource(createResource(new CmsUUID()));
+        }
+        assertFalse(inner.isTrackingResources());
+
+        outer.merge(inner);
+        assertFalse(outer.isTrackingResources());
+        assertNull(outer.getResourceIds());
+    }
+
+    /**
+     * Tests that the merged resource ids count against the limit of tracked resources.<p>
+     */
+    public void testMergeLimit() {
+
+        CmsFlexRequestContextInfo outer = new CmsFlexRequestContextInfo(true);
+        CmsFlexRequestContextInfo inner = new CmsFlexRequestContextInfo(true);
+        for (int i = 0; i < CmsFlexRequestContextInfo.MAX_TRACKED_RESOURCES; i++) {
+            outer.updateFromResource(createResource(new CmsUUID()));
+            inner.updateFromResource(createResource(new CmsUUID()));
+        }
+        assertTrue(outer.isTrackingResources());
+        assertTrue(inner.isTrackingResources());
+
+        outer.merge(inner);
+        assertFalse(outer.isTrackingResources());
+    }
+}
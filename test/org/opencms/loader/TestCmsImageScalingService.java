@@ -0,0 +1,159 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the bounded image scaling service.<p>
+ */
+public class TestCmsImageScalingService extends TestCase {
+
+    /**
+     * Tests that concurrent requests for the same key are served by a single operation.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testDeduplication() throws Exception {
+
+        final CmsImageScalingService service = new CmsImageScalingService(2, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<byte[]> operation = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                calls.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[] {1, 2, 3};
+            }
+        };
+        final byte[][] results = new byte[4][];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        results[index] = service.scale("/image.jpg_w:100", operation);
+                    } catch (Exception e) {
+                        // result stays null
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        while (service.getDeduplicatedCount() < (threads.length - 1)) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        assertEquals(1, calls.get());
+        for (byte[] result : results) {
+            assertEquals(3, result.length);
+        }
+        assertEquals(1, service.getScaledCount());
+        assertEquals(0, service.getQueueLength());
+        // once finished, a new request for the same key runs a new operation
+        service.scale("/image.jpg_w:100", operation);
+        assertEquals(2, calls.get());
+        service.shutDown();
+    }
+
+    /**
+     * Tests that errors of an operation are passed to the caller.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testErrorPropagation() throws Exception {
+
+        CmsImageScalingService service = new CmsImageScalingService(1, 1);
+        try {
+            service.scale("/broken.jpg", new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    throw new IOException("broken");
+                }
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        service.shutDown();
+    }
+
+    /**
+     * Tests that operations are run on the calling thread if the queue is full,
+     * while background operations are dropped.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testFullQueue() throws Exception {
+
+        CmsImageScalingService service = new CmsImageScalingService(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<byte[]> blocking = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[0];
+            }
+        };
+        // occupy the worker thread and the queue
+        assertTrue(service.submit("/a.jpg", blocking));
+        assertTrue(service.submit("/b.jpg", blocking));
+        assertFalse(service.submit("/b.jpg", blocking));
+        assertFalse(service.submit("/c.jpg", blocking));
+        final String caller = Thread.currentThread().getName();
+        byte[] result = service.scale("/d.jpg", new Callable<byte[]>() {
+
+            public byte[] call() {
+
+                return caller.equals(Thread.currentThread().getName()) ? new byte[] {1} : new byte[0];
+            }
+        });
+        assertEquals(1, result.length);
+        assertEquals(2, service.getRejectedCount());
+        release.countDown();
+        service.shutDown();
+    }
+}
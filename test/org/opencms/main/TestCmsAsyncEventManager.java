@@ -0,0 +1,273 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.main;
+
+import org.opencms.cache.CmsCacheWarmer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the asynchronous event manager.<p>
+ */
+public class TestCmsAsyncEventManager extends TestCase {
+
+    /**
+     * Event listener that records the events it receives, and optionally waits for a latch before each event.<p>
+     */
+    private static class CmsRecordingListener implements I_CmsEventListener {
+
+        /** The received event types. */
+        final List<Integer> m_events = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** The latch to wait for before handling an event. */
+        final CountDownLatch m_latch;
+
+        /** The threads the events were delivered on. */
+        final List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /** Flag indicating if the listener must be called synchronously. */
+        private boolean m_synchronous;
+
+        /**
+         * Creates a new listener.<p>
+         *
+         * @param synchronous if the listener must be called synchronously
+         * @param latch the latch to wait for before handling an event, or <code>null</code>
+         */
+        CmsRecordingListener(boolean synchronous, CountDownLatch latch) {
+
+            m_synchronous = synchronous;
+            m_latch = latch;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            if (m_latch != null) {
+                try {
+                    m_latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            m_threads.add(Thread.currentThread());
+            m_events.add(event.getTypeInteger());
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#requiresSynchronousDelivery()
+         */
+        public boolean requiresSynchronousDelivery() {
+
+            return m_synchronous;
+        }
+    }
+
+    /** The event type used in the tests. */
+    private static final int EVENT_TYPE = 12345;
+
+    /** The event manager to test. */
+    private CmsAsyncEventManager m_manager;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsAsyncEventManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the asynchronous listeners receive their events in order on a dispatcher thread,
+     * while the synchronous listeners are called on the firing thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testAsyncDelivery() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CmsRecordingListener async = new CmsRecordingListener(false, latch);
+        CmsRecordingListener sync = new CmsRecordingListener(true, null);
+        m_manager.addCmsEventListener(async);
+        m_manager.addCmsEventListener(sync);
+        for (int i = 0; i < 250; i++) {
+            m_manager.fireEvent(EVENT_TYPE + i, null);
+        }
+        // the asynchronous listener is still waiting, but the firing thread is not held up by it
+        assertEquals(250, sync.m_events.size());
+        assertTrue(sync.m_threads.stream().allMatch(t -> t == Thread.currentThread()));
+        assertTrue(async.m_events.isEmpty());
+        latch.countDown();
+        waitFor(async, 250);
+        for (int i = 0; i < 250; i++) {
+            assertEquals(EVENT_TYPE + i, async.m_events.get(i).intValue());
+        }
+        assertTrue(async.m_threads.stream().noneMatch(t -> t == Thread.currentThread()));
+        assertEquals(250, m_manager.getStatistics().size());
+        assertEquals(1, m_manager.getStatistics().get(Integer.valueOf(EVENT_TYPE)).getAsyncCount());
+        assertEquals(1, m_manager.getStatistics().get(Integer.valueOf(EVENT_TYPE)).getSyncCount());
+    }
+
+    /**
+     * Tests that the cache warmer is delivered asynchronously.<p>
+     */
+    public void testCacheWarmerIsAsync() {
+
+        CmsCacheWarmer warmer = new CmsCacheWarmer(10, 1, 0, null);
+        try {
+            assertFalse(warmer.requiresSynchronousDelivery());
+        } finally {
+            warmer.shutDown();
+        }
+    }
+
+    /**
+     * Tests that a full queue holds up the firing thread only for a bounded time.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFullQueueWaitIsBounded() throws Exception {
+
+        m_manager.m_queueSize = 1;
+        CountDownLatch latch = new CountDownLatch(1);
+        CmsRecordingListener async = new CmsRecordingListener(false, latch);
+        m_manager.addCmsEventListener(async);
+        long start = System.nanoTime();
+        // the first event is taken by the blocked dispatcher, the second fills the queue,
+        // the third and fourth find the queue full and must not wait forever
+        for (int i = 0; i < 4; i++) {
+            m_manager.fireEvent(EVENT_TYPE + i, null);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Firing took " + millis + " ms", millis < (4 * CmsAsyncEventManager.QUEUE_WAIT_MILLIS));
+        latch.countDown();
+        waitFor(async, 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(EVENT_TYPE + i, async.m_events.get(i).intValue());
+        }
+    }
+
+    /**
+     * Tests that the events still queued at shutdown are delivered, and that the thread
+     * delivering them is marked as dispatcher thread only while it does so.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testShutDownDeliversQueuedEvents() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CmsRecordingListener async = new CmsRecordingListener(false, latch);
+        List<Boolean> dispatcher = Collections.synchronizedList(new ArrayList<Boolean>());
+        m_manager.addCmsEventListener(async);
+        m_manager.addCmsEventListener(new I_CmsEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                dispatcher.add(CmsAsyncEventManager.DISPATCHER_THREAD.get());
+            }
+
+            @Override
+            public boolean requiresSynchronousDelivery() {
+
+                return false;
+            }
+        });
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            m_manager.fireEvent(EVENT_TYPE + i, null);
+        }
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            latch.countDown();
+        });
+        releaser.start();
+        // the queue is drained in batches, the batches after the shutdown are delivered without the executor
+        m_manager.shutDown();
+        releaser.join();
+        waitFor(async, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(EVENT_TYPE + i, async.m_events.get(i).intValue());
+        }
+        assertEquals(count, dispatcher.size());
+        assertFalse(dispatcher.contains(Boolean.FALSE));
+        assertFalse(CmsAsyncEventManager.DISPATCHER_THREAD.get().booleanValue());
+        // after the shutdown, events are delivered synchronously
+        m_manager.fireEvent(EVENT_TYPE, null);
+        assertEquals(count + 1, async.m_events.size());
+        assertSame(Thread.currentThread(), async.m_threads.get(count));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() {
+
+        m_manager = new CmsAsyncEventManager();
+        m_manager.initialize(new CmsEventManager());
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        m_manager.shutDown();
+    }
+
+    /**
+     * Waits until the listener has received the given number of events.<p>
+     *
+     * @param listener the listener
+     * @param count the expected number of events
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void waitFor(CmsRecordingListener listener, int count) throws InterruptedException {
+
+        long end = System.currentTimeMillis() + 10000;
+        while ((listener.m_events.size() < count) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, listener.m_events.size());
+    }
+}
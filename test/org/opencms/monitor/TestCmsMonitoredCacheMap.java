@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the monitored cache map.<p>
+ */
+public class TestCmsMonitoredCacheMap extends TestCase {
+
+    /**
+     * Tests that large caches use the frequency based policy and stay bounded.<p>
+     */
+    public void testLargeCacheBounded() {
+
+        CmsMonitoredCacheMap<Integer, String> cache = new CmsMonitoredCacheMap<>(
+            CmsMonitoredCacheMap.MIN_FREQUENCY_BASED_SIZE);
+        assertTrue(cache.isFrequencyBased());
+        for (int i = 0; i < (10 * CmsMonitoredCacheMap.MIN_FREQUENCY_BASED_SIZE); i++) {
+            cache.put(Integer.valueOf(i), "v" + i);
+        }
+        assertTrue(cache.size() <= CmsMonitoredCacheMap.MIN_FREQUENCY_BASED_SIZE);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    /**
+     * Tests that <code>null</code> keys and values are accepted, but not stored, like in the LRU map used before.<p>
+     */
+    public void testNullKeysAndValues() {
+
+        for (int size : new int[] {5, CmsMonitoredCacheMap.MIN_FREQUENCY_BASED_SIZE}) {
+            CmsMonitoredCacheMap<String, String> cache = new CmsMonitoredCacheMap<>(size);
+            assertNull(cache.put(null, "value"));
+            assertNull(cache.get(null));
+            assertFalse(cache.containsKey(null));
+            assertNull(cache.remove(null));
+            assertNull(cache.putIfAbsent(null, "value"));
+
+            cache.put("key", "value");
+            assertEquals("value", cache.putIfAbsent("key", null));
+            assertEquals("value", cache.get("key"));
+            // putting a null value removes the cached value
+            assertEquals("value", cache.put("key", null));
+            assertNull(cache.get("key"));
+            assertFalse(cache.containsKey("key"));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    /**
+     * Tests that a small cache always admits a new entry and evicts the least recently used one.<p>
+     */
+    public void testSmallCacheUsesLru() {
+
+        List<Integer> evicted = new ArrayList<>();
+        CmsMonitoredCacheMap<Integer, String> cache = new CmsMonitoredCacheMap<Integer, String>(5) {
+
+            @Override
+            protected void onEviction(Integer key, String value) {
+
+                evicted.add(key);
+            }
+        };
+        assertFalse(cache.isFrequencyBased());
+        for (int i = 0; i < 5; i++) {
+            cache.put(Integer.valueOf(i), "v" + i);
+        }
+        // make the existing entries frequently used, a frequency based policy would now reject new entries
+        for (int n = 0; n < 20; n++) {
+            for (int i = 0; i < 5; i++) {
+                assertNotNull(cache.get(Integer.valueOf(i)));
+            }
+        }
+        for (int i = 5; i < 10; i++) {
+            cache.put(Integer.valueOf(i), "v" + i);
+            assertEquals("v" + i, cache.get(Integer.valueOf(i)));
+        }
+        assertEquals(5, cache.size());
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.get(Integer.valueOf(i)));
+        }
+        assertEquals(5, cache.getEvictionCount());
+        assertEquals(5, evicted.size());
+        assertEquals(Integer.valueOf(0), evicted.get(0));
+        assertEquals(105, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsShellReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for publishing with more than one publish lane.<p>
+ */
+public class TestPublishLanes extends OpenCmsTestCase {
+
+    /**
+     * Publish event listener that records the start and finish of publish jobs.<p>
+     */
+    static class CmsLaneEventListener extends CmsPublishEventAdapter {
+
+        /** The recorded events, as "start:" or "finish:" followed by the publish history id. */
+        private final List<String> m_events = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The highest number of running publish jobs seen. */
+        private int m_maxRunning;
+
+        /**
+         * Returns the recorded events.<p>
+         *
+         * @return the recorded events
+         */
+        List<String> getEvents() {
+
+            return new ArrayList<String>(m_events);
+        }
+
+        /**
+         * Returns the highest number of running publish jobs seen.<p>
+         *
+         * @return the highest number of running publish jobs seen
+         */
+        synchronized int getMaxRunning() {
+
+            return m_maxRunning;
+        }
+
+        /**
+         * @see org.opencms.publish.CmsPublishEventAdapter#onFinish(org.opencms.publish.CmsPublishJobRunning)
+         */
+        @Override
+        public void onFinish(CmsPublishJobRunning publishJob) {
+
+            updateRunning();
+            m_events.add("finish:" + publishJob.getPublishHistoryId());
+        }
+
+        /**
+         * @see org.opencms.publish.CmsPublishEventAdapter#onStart(org.opencms.publish.CmsPublishJobEnqueued)
+         */
+        @Override
+        public void onStart(CmsPublishJobEnqueued publishJob) {
+
+            m_events.add("start:" + publishJob.getPublishHistoryId());
+            updateRunning();
+        }
+
+        /**
+         * Updates the highest number of running publish jobs.<p>
+         */
+        private synchronized void updateRunning() {
+
+            m_maxRunning = Math.max(m_maxRunning, OpenCms.getPublishManager().getRunningPublishJobs().size());
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishLanes(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishLanes.class.getName());
+
+        suite.addTest(new TestPublishLanes("testIndependentJobsRunConcurrently"));
+        suite.addTest(new TestPublishLanes("testMovedResourceBlocksOldPath"));
+        suite.addTest(new TestPublishLanes("testOverlappingJobsRunInOrder"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that publish jobs with independent resources run in different publish lanes at the same time.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testIndependentJobsRunConcurrently() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that independent publish jobs run concurrently");
+
+        createAndPublish(cms, "/lanesC/", "c.txt");
+        createAndPublish(cms, "/lanesD/", "d.txt");
+        touch(cms, "/lanesC/c.txt");
+        touch(cms, "/lanesD/d.txt");
+
+        CmsLaneEventListener listener = new CmsLaneEventListener();
+        OpenCms.getPublishManager().addPublishListener(listener);
+        try {
+            setPublishLanes(cms, 2);
+            OpenCms.getPublishManager().stopPublishing();
+            publish(cms, "/lanesC/c.txt");
+            publish(cms, "/lanesD/d.txt");
+            OpenCms.getPublishManager().startPublishing();
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCms.getPublishManager().removePublishListener(listener);
+            setPublishLanes(cms, 1);
+        }
+
+        assertEquals(4, listener.getEvents().size());
+        assertEquals(2, listener.getMaxRunning());
+        assertState(cms, "/lanesC/c.txt", CmsResource.STATE_UNCHANGED);
+        assertState(cms, "/lanesD/d.txt", CmsResource.STATE_UNCHANGED);
+    }
+
+    /**
+     * Tests that a publish job with a moved resource conflicts with a publish job touching the old parent folder.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testMovedResourceBlocksOldPath() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the old path of a moved resource blocks other publish jobs");
+
+        createAndPublish(cms, "/lanesA/", "moved.txt");
+        createAndPublish(cms, "/lanesB/", null);
+
+        cms.lockResource("/lanesA/moved.txt");
+        cms.moveResource("/lanesA/moved.txt", "/lanesB/moved.txt");
+        cms.unlockResource("/lanesB/moved.txt");
+        touch(cms, "/lanesA/");
+
+        CmsLaneEventListener listener = new CmsLaneEventListener();
+        OpenCms.getPublishManager().addPublishListener(listener);
+        CmsUUID first;
+        CmsUUID second;
+        try {
+            setPublishLanes(cms, 2);
+            OpenCms.getPublishManager().stopPublishing();
+            // only the online path of the moved resource is below the folder of the second job
+            first = publish(cms, "/lanesB/moved.txt");
+            second = publish(cms, "/lanesA/");
+            OpenCms.getPublishManager().startPublishing();
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCms.getPublishManager().removePublishListener(listener);
+            setPublishLanes(cms, 1);
+        }
+
+        assertInOrder(listener, first, second);
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            assertTrue(cms.existsResource("/lanesB/moved.txt"));
+            assertFalse(cms.existsResource("/lanesA/moved.txt", CmsResourceFilter.ALL));
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+    }
+
+    /**
+     * Tests that publish jobs with overlapping resources run one after the other in queue order.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testOverlappingJobsRunInOrder() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that overlapping publish jobs run in queue order");
+
+        createAndPublish(cms, "/lanesE/", "e.txt");
+        touch(cms, "/lanesE/");
+        touch(cms, "/lanesE/e.txt");
+
+        CmsLaneEventListener listener = new CmsLaneEventListener();
+        OpenCms.getPublishManager().addPublishListener(listener);
+        CmsUUID first;
+        CmsUUID second;
+        try {
+            setPublishLanes(cms, 2);
+            OpenCms.getPublishManager().stopPublishing();
+            // the first job publishes the resource, the second one its parent folder
+            first = publish(cms, "/lanesE/e.txt");
+            second = publish(cms, "/lanesE/");
+            OpenCms.getPublishManager().startPublishing();
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCms.getPublishManager().removePublishListener(listener);
+            setPublishLanes(cms, 1);
+        }
+
+        assertInOrder(listener, first, second);
+        assertState(cms, "/lanesE/", CmsResource.STATE_UNCHANGED);
+        assertState(cms, "/lanesE/e.txt", CmsResource.STATE_UNCHANGED);
+    }
+
+    /**
+     * Asserts that the second publish job was started only after the first one had finished.<p>
+     *
+     * @param listener the listener that recorded the events
+     * @param first the publish history id of the first job
+     * @param second the publish history id of the second job
+     */
+    private void assertInOrder(CmsLaneEventListener listener, CmsUUID first, CmsUUID second) {
+
+        List<String> events = listener.getEvents();
+        int firstFinished = events.indexOf("finish:" + first);
+        int secondStarted = events.indexOf("start:" + second);
+        assertTrue(events.toString(), firstFinished >= 0);
+        assertTrue(events.toString(), secondStarted > firstFinished);
+        assertEquals(1, listener.getMaxRunning());
+    }
+
+    /**
+     * Creates and publishes a folder, optionally with a file in it.<p>
+     *
+     * @param cms the CMS context
+     * @param folder the folder to create
+     * @param file the name of the file to create in the folder, or <code>null</code>
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createAndPublish(CmsObject cms, String folder, String file) throws Exception {
+
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        if (file != null) {
+            cms.createResource(folder + file, CmsResourceTypePlain.getStaticTypeId(), "content".getBytes(), null);
+        }
+        cms.unlockResource(folder);
+        OpenCms.getPublishManager().publishResource(cms, folder);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+
+    /**
+     * Enqueues a publish job for the given resource only, without its sub resources.<p>
+     *
+     * @param cms the CMS context
+     * @param resourceName the resource to publish
+     *
+     * @return the publish history id of the publish job
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsUUID publish(CmsObject cms, String resourceName) throws Exception {
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(
+            cms,
+            Collections.singletonList(cms.readResource(resourceName)),
+            false,
+            false);
+        return OpenCms.getPublishManager().publishProject(
+            cms,
+            new CmsShellReport(cms.getRequestContext().getLocale()),
+            publishList);
+    }
+
+    /**
+     * Re-initializes the publish engine with the given number of publish lanes and starts it.<p>
+     *
+     * @param cms the CMS context
+     * @param lanes the number of publish lanes
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void setPublishLanes(CmsObject cms, int lanes) throws Exception {
+
+        CmsPublishManager manager = OpenCms.getPublishManager();
+        manager.getEngine().initialize(
+            cms,
+            manager.isPublishQueuePersistanceEnabled(),
+            manager.getPublishQueueShutdowntime(),
+            lanes);
+        manager.startPublishing();
+    }
+
+    /**
+     * Changes the date last modified of the given resource, so it has to be published.<p>
+     *
+     * @param cms the CMS context
+     * @param resourceName the resource to change
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void touch(CmsObject cms, String resourceName) throws Exception {
+
+        cms.lockResource(resourceName);
+        cms.setDateLastModified(resourceName, System.currentTimeMillis(), false);
+        cms.unlockResource(resourceName);
+    }
+}
@@ -27,7 +27,9 @@
 
 package org.opencms.search.solr;
 
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
@@ -40,8 +42,10 @@ import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchResource;
 import org.opencms.search.CmsSearchUtil;
+import org.opencms.search.I_CmsIndexWriter;
 import org.opencms.search.I_CmsSearchIndex;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.security.I_CmsPrincipal;
@@ -102,6 +106,7 @@ public class TestSolrSearch extends OpenCmsTestCase {
         suite.addTest(new TestSolrSearch("testFolderName"));
         suite.addTest(new TestSolrSearch("testIndexer"));
         suite.addTest(new TestSolrSearch("testIndexGeneration"));
+        suite.addTest(new TestSolrSearch("testIndexGenerationParallel"));
         suite.addTest(new TestSolrSearch("testIssueWithSpecialFoldernames"));
         suite.addTest(new TestSolrSearch("testLimitTimeRanges"));
         suite.addTest(new TestSolrSearch("testLimitTimeRangesOptimized"));
@@ -114,6 +119,7 @@ public class TestSolrSearch extends OpenCmsTestCase {
         suite.addTest(new TestSolrSearch("testAdvancedFacetting"));
         suite.addTest(new TestSolrSearch("testAdvancedHighlighting"));
         suite.addTest(new TestSolrSearch("testPermissionFilterAndLimits"));
+        suite.addTest(new TestSolrSearch("testPermissionPrefilter"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -396,6 +402,54 @@ public class TestSolrSearch extends OpenCmsTestCase {
         OpenCms.getSearchManager().removeSearchIndex(index);
     }
 
+    /**
+     * Tests the index generation with several indexing threads and batched Solr updates.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testIndexGenerationParallel() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing index generation with several indexing threads");
+
+        CmsSolrIndex index = new CmsSolrIndex(AllTests.INDEX_TEST);
+        index.setProject("Offline");
+        index.setLocale(Locale.GERMAN);
+        index.setRebuildMode(I_CmsSearchIndex.REBUILD_MODE_AUTO);
+        index.setFieldConfigurationName("solr_fields");
+        index.addSourceName("solr_source2");
+        index.addConfigurationParameter(CmsSearchIndex.INDEXING_THREADS, "4");
+        assertEquals(4, index.getIndexingThreads());
+
+        OpenCms.getSearchManager().addSearchIndex(index);
+
+        I_CmsReport report = new CmsShellReport(Locale.ENGLISH);
+        OpenCms.getSearchManager().rebuildIndex(AllTests.INDEX_TEST, report);
+
+        // the parallel build must find the same documents as the sequential one in testIndexGeneration
+        CmsSolrResultList results = index.search(cms, "q=*:*");
+        AllTests.printResults(cms, results, false);
+        assertEquals(4, results.size());
+
+        results = index.search(cms, "q=+text:\"SearchEgg1\"");
+        assertEquals(1, results.size());
+        assertEquals("/sites/default/xmlcontent/article_0001.html", results.get(0).getRootPath());
+
+        // a delete operation must not be overtaken by documents still waiting in the batch
+        CmsResource article = cms.readResource("/xmlcontent/article_0001.html");
+        I_CmsIndexWriter writer = index.createIndexWriter(false, report);
+        writer.deleteDocument(new CmsPublishedResource(article));
+        writer.commit();
+        writer.close();
+
+        results = index.search(cms, "q=+text:\"SearchEgg1\"");
+        assertEquals(0, results.size());
+        results = index.search(cms, "q=*:*");
+        assertEquals(3, results.size());
+
+        OpenCms.getSearchManager().removeSearchIndex(index);
+    }
+
     /**
      * Tests an issue where no results are found in folders that have names
      * like <code>/basisdienstleistungen_-_zka/</code>.<p>
@@ -815,6 +869,66 @@ public class TestSolrSearch extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests that the permission pre-filter uses current permissions after folder permissions or group memberships change.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPermissionPrefilter() throws Throwable {
+
+        echo("Testing the permission pre-filter");
+
+        CmsObject adminCms = OpenCms.initCmsObject(getCmsObject());
+        adminCms.getRequestContext().setSiteRoot("/sites/default/");
+        String folder = "prefilterfolder";
+        String user = "prefilterUser";
+        String group = "prefilterGroup";
+        adminCms.createResource(
+            folder,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeName()));
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeName());
+        adminCms.createResource(folder + "/a.txt", plainType);
+        adminCms.createResource(folder + "/b.txt", plainType);
+        adminCms.createUser(user, "password", "Test user for the permission pre-filter", null);
+        CmsGroup prefilterGroup = adminCms.createGroup(group, "Test group for the permission pre-filter", 0, null);
+        adminCms.chacc(folder, I_CmsPrincipal.PRINCIPAL_USER, user, "-r+i");
+        OpenCms.getPublishManager().publishProject(adminCms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        index.addConfigurationParameter(CmsSolrIndex.SOLR_SEARCH_PERMISSION_PREFILTER, "true");
+        try {
+            CmsObject userCms = OpenCms.initCmsObject(adminCms);
+            userCms.getRequestContext().setCurrentProject(userCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            userCms.loginUser(user, "password");
+            CmsSolrQuery query = new CmsSolrQuery(getCmsObject(), null);
+            query.addFilterQuery("parent-folders:\"/sites/default/" + folder + "/\"");
+            query.addFilterQuery(CmsSearchField.FIELD_TYPE + ":" + CmsResourceTypePlain.getStaticTypeName());
+            assertEquals(0, index.search(userCms, query).getNumFound());
+
+            echo("Allowing reading by an inherited permission of the folder, only the folder is published");
+            adminCms.lockResource(folder);
+            adminCms.chacc(folder, I_CmsPrincipal.PRINCIPAL_USER, user, "+r+i");
+            adminCms.unlockResource(folder);
+            OpenCms.getPublishManager().publishResource(adminCms, folder);
+            OpenCms.getPublishManager().waitWhileRunning();
+            assertEquals(2, index.search(userCms, query).getNumFound());
+
+            echo("Checking that a new group membership is used by the filter query");
+            String filterQuery = CmsSolrPermissionFilter.getFilterQuery(userCms);
+            assertFalse(filterQuery.contains(prefilterGroup.getId().toString()));
+            adminCms.addUserToGroup(user, group);
+            filterQuery = CmsSolrPermissionFilter.getFilterQuery(userCms);
+            assertTrue(filterQuery.contains(prefilterGroup.getId().toString()));
+            adminCms.removeUserFromGroup(user, group);
+            filterQuery = CmsSolrPermissionFilter.getFilterQuery(userCms);
+            assertFalse(filterQuery.contains(prefilterGroup.getId().toString()));
+        } finally {
+            index.addConfigurationParameter(CmsSolrIndex.SOLR_SEARCH_PERMISSION_PREFILTER, "false");
+        }
+    }
+
     /**
      * @throws Throwable
      */
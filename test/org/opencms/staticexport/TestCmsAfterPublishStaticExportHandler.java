@@ -0,0 +1,230 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.TestLinkValidation;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.CmsResourceTypeXmlPage;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the selection of the resources to export by the after publish static export handler.<p>
+ */
+public class TestCmsAfterPublishStaticExportHandler extends OpenCmsTestCase {
+
+    /** The folder used for the test resources. */
+    private static final String FOLDER = "/exportrelations/";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsAfterPublishStaticExportHandler(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsAfterPublishStaticExportHandler.class.getName());
+
+        suite.addTest(new TestCmsAfterPublishStaticExportHandler("testRelationSources"));
+        suite.addTest(new TestCmsAfterPublishStaticExportHandler("testContentOnlyChange"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests which changes of a published resource allow to export only the resources depending on it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testContentOnlyChange() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the detection of content only changes");
+
+        CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler();
+        CmsObject onlineCms = getOnlineCms(cms);
+        String target = FOLDER + "target.txt";
+        String rootTarget = cms.getRequestContext().addSiteRoot(target);
+
+        // changing the content
+        cms.lockResource(target);
+        CmsFile file = cms.readFile(target);
+        file.setContents("changed".getBytes());
+        cms.writeFile(file);
+        CmsPublishedResource pubResource = new CmsPublishedResource(cms.readResource(target));
+        publish(cms, target);
+        assertTrue(handler.isContentOnlyChange(onlineCms, pubResource));
+
+        // touching the resource, as done to force an export
+        cms.lockResource(target);
+        cms.setDateLastModified(target, onlineCms.readResource(rootTarget).getDateContent() + 60000, false);
+        pubResource = new CmsPublishedResource(cms.readResource(target));
+        publish(cms, target);
+        assertFalse(handler.isContentOnlyChange(onlineCms, pubResource));
+
+        // new resources and folders change the navigation
+        String created = FOLDER + "created.txt";
+        cms.createResource(created, CmsResourceTypePlain.getStaticTypeId(), "created".getBytes(), null);
+        pubResource = new CmsPublishedResource(cms.readResource(created));
+        publish(cms, created);
+        assertFalse(handler.isContentOnlyChange(onlineCms, pubResource));
+        pubResource = new CmsPublishedResource(onlineCms.readResource(cms.getRequestContext().addSiteRoot(FOLDER)));
+        assertFalse(handler.isContentOnlyChange(onlineCms, pubResource));
+    }
+
+    /**
+     * Tests that the relations of a published resource are followed up to the pages embedding it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRelationSources() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the export of the resources depending on a published resource");
+
+        cms.createResource(FOLDER, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        cms.createResource(
+            FOLDER + "target.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "target".getBytes(),
+            null);
+        // inner embeds the target, outer embeds inner
+        createPage(cms, FOLDER + "inner.html", "<img src='" + FOLDER + "target.txt'>");
+        createPage(cms, FOLDER + "outer.html", "<img src='" + FOLDER + "inner.html'>");
+        // link only links to inner, so the pages linking to it don't change
+        createPage(cms, FOLDER + "link.html", "<a href='" + FOLDER + "inner.html'>inner</a>");
+        createPage(cms, FOLDER + "link2.html", "<a href='" + FOLDER + "link.html'>link</a>");
+        createPage(cms, FOLDER + "unrelated.html", "<p>unrelated</p>");
+        publish(cms, FOLDER);
+
+        CmsObject onlineCms = getOnlineCms(cms);
+        String rootFolder = cms.getRequestContext().addSiteRoot(FOLDER);
+        Map<String, CmsPublishedResource> resourceMap = new HashMap<String, CmsPublishedResource>();
+        new CmsAfterPublishStaticExportHandler().addRelationSources(
+            onlineCms,
+            new CmsPublishedResource(onlineCms.readResource(rootFolder + "target.txt")),
+            resourceMap);
+
+        Set<String> expected = new HashSet<String>(
+            Arrays.asList(rootFolder + "inner.html", rootFolder + "outer.html", rootFolder + "link.html"));
+        assertEquals(expected, resourceMap.keySet());
+    }
+
+    /**
+     * Creates an XML page with the given body.<p>
+     *
+     * @param cms the cms context
+     * @param path the path of the page
+     * @param body the body of the page
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createPage(CmsObject cms, String path, String body) throws Exception {
+
+        cms.createResource(path, CmsResourceTypeXmlPage.getStaticTypeId());
+        TestLinkValidation.setContent(cms, path, body);
+    }
+
+    /**
+     * Returns a context for the online project in the root site, as used by the export.<p>
+     *
+     * @param cms the current cms context
+     *
+     * @return the online context
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCms(CmsObject cms) throws Exception {
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        onlineCms.getRequestContext().setSiteRoot("/");
+        return onlineCms;
+    }
+
+    /**
+     * Publishes the given resource and waits for the publish job.<p>
+     *
+     * @param cms the cms context
+     * @param path the path of the resource to publish
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void publish(CmsObject cms, String path) throws Exception {
+
+        cms.unlockResource(path);
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+}
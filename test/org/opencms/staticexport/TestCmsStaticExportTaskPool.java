@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the task pool of the after publish static export.<p>
+ */
+public class TestCmsStaticExportTaskPool extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportTaskPool(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that a failing task does not stop the other tasks run on worker threads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testErrorInWorker() throws Exception {
+
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsStaticExportTaskPool pool = new CmsStaticExportTaskPool(2, 3, report);
+        AtomicInteger count = new AtomicInteger();
+        IOException error = new IOException("failed");
+        try {
+            pool.submit(taskReport -> count.incrementAndGet());
+            pool.submit(taskReport -> {
+                count.incrementAndGet();
+                throw error;
+            });
+            pool.submit(taskReport -> count.incrementAndGet());
+            assertSame(error, pool.waitForTasks());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, count.get());
+    }
+
+    /**
+     * Tests that the output of a task is written to the report as soon as the task is complete,
+     * without waiting for tasks submitted earlier.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFlushOnCompletion() throws Exception {
+
+        CountDownLatch secondWritten = new CountDownLatch(1);
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH) {
+
+            @Override
+            public void print(String value, int format) {
+
+                super.print(value, format);
+                if (value.contains("second")) {
+                    secondWritten.countDown();
+                }
+            }
+        };
+        CmsStaticExportTaskPool pool = new CmsStaticExportTaskPool(2, 2, report);
+        assertTrue(pool.isParallel());
+        AtomicBoolean flushed = new AtomicBoolean();
+        try {
+            pool.submit(taskReport -> {
+                // only continues once the output of the second task has reached the report
+                flushed.set(secondWritten.await(10, TimeUnit.SECONDS));
+                printLine(taskReport, "first");
+            });
+            pool.submit(taskReport -> printLine(taskReport, "second"));
+            assertNull(pool.waitForTasks());
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(flushed.get());
+        String output = report.toString();
+        assertTrue(output.indexOf("second") < output.indexOf("first"));
+    }
+
+    /**
+     * Tests that a single thread runs all tasks sequentially on the calling thread, and stops after an error.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSequential() throws Exception {
+
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsStaticExportTaskPool pool = new CmsStaticExportTaskPool(1, 3, report);
+        assertFalse(pool.isParallel());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        IOException error = new IOException("failed");
+        try {
+            pool.submit(taskReport -> {
+                threads.add(Thread.currentThread());
+                printLine(taskReport, "first");
+            });
+            pool.submit(taskReport -> {
+                threads.add(Thread.currentThread());
+                throw error;
+            });
+            pool.submit(taskReport -> threads.add(Thread.currentThread()));
+            assertSame(error, pool.waitForTasks());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(2, threads.size());
+        for (Thread thread : threads) {
+            assertSame(Thread.currentThread(), thread);
+        }
+        assertTrue(report.toString().contains("first"));
+    }
+
+    /**
+     * Prints a line with the given text to the report.<p>
+     *
+     * @param report the report
+     * @param text the text
+     */
+    private static void printLine(I_CmsReport report, String text) {
+
+        report.println(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, text));
+    }
+}
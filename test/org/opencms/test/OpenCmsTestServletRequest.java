@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
@@ -56,6 +57,9 @@ import javax.servlet.http.Part;
  */
 public class OpenCmsTestServletRequest implements HttpServletRequest {
 
+    /** The request attributes. */
+    private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
     /**
      * Constructor for test implementation.<p>
      */
@@ -79,7 +83,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public Object getAttribute(String arg0) {
 
-        throw new RuntimeException("Not implemented");
+        return m_attributes.get(arg0);
     }
 
     /**
@@ -543,7 +547,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public void setAttribute(String arg0, Object arg1) {
 
-        throw new RuntimeException("Not implemented");
+        m_attributes.put(arg0, arg1);
     }
 
     /**
@@ -27,6 +27,9 @@
 
 package org.opencms.util;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.google.common.collect.Sets;
 
 import junit.framework.TestCase;
@@ -61,6 +64,50 @@ public class TestCmsPathMap extends TestCase {
 
     }
 
+    /**
+     * Tests the longest prefix lookup.<p>
+     */
+    public void testLongestPrefix() {
+
+        CmsPathMap<String> pm = new CmsPathMap<String>();
+        pm.add("/sites/a", "1");
+        pm.add("/sites/a/b/", "2");
+        pm.add("/shared", "3");
+        assertEquals("1", pm.getLongestPrefixValue("/sites/a/"));
+        assertEquals("1", pm.getLongestPrefixValue("/sites/a/c/index.html"));
+        assertEquals("2", pm.getLongestPrefixValue("/sites/a/b/c/"));
+        assertEquals("3", pm.getLongestPrefixValue("/shared/"));
+        assertNull(pm.getLongestPrefixValue("/sites/ab/"));
+        assertNull(pm.getLongestPrefixValue("/"));
+        pm.add("/", "4");
+        assertEquals("4", pm.getLongestPrefixValue("/system/"));
+    }
+
+    /**
+     * Compares the longest prefix lookup against a linear scan, using many synthetic site roots.<p>
+     */
+    public void testLongestPrefixManySites() {
+
+        int count = 2000;
+        CmsPathMap<String> pm = new CmsPathMap<String>();
+        List<String> siteRoots = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            String siteRoot = "/sites/group" + (i % 50) + "/site" + i;
+            siteRoots.add(siteRoot);
+            pm.add(siteRoot, siteRoot);
+        }
+        for (int i = 0; i < (2 * count); i++) {
+            String path = "/sites/group" + (i % 50) + "/site" + i + "/folder/index.html";
+            String expected = null;
+            for (String siteRoot : siteRoots) {
+                if (path.startsWith(siteRoot + "/")) {
+                    expected = siteRoot;
+                }
+            }
+            assertEquals(expected, pm.getLongestPrefixValue(path));
+        }
+    }
+
     /**
      * Basic tests.<p>
      */
@@ -30,6 +30,7 @@ package org.opencms.xml.content;
 import org.opencms.ade.contenteditor.CmsWidgetUtil;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -47,6 +48,7 @@ import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsCheckboxWidget;
 import org.opencms.widgets.CmsHtmlWidget;
@@ -63,9 +65,15 @@ import org.opencms.xml.types.I_CmsXmlContentValue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.dom4j.Document;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -156,6 +164,9 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testVarLinkResolver"));
         suite.addTest(new TestCmsXmlContentWithVfs("testEmptyLocale"));
         suite.addTest(new TestCmsXmlContentWithVfs("testCopyMoveRemoveLocale"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testLazyLocaleValues"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testStreamReader"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testOnlineContentCache"));
         suite.addTest(new TestCmsXmlContentWithVfs("testValidation"));
         suite.addTest(new TestCmsXmlContentWithVfs("testValidationExtended"));
         suite.addTest(new TestCmsXmlContentWithVfs("testValidationLocale"));
@@ -908,6 +919,65 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertEquals(Locale.ENGLISH, locales.get(0));
     }
 
+    /**
+     * Tests that lazily initialized locale values are the same as the eagerly initialized ones.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testLazyLocaleValues() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing lazy initialization of locale values in XML content");
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(cms);
+
+        String iso = "ISO-8859-1";
+
+        // unmarshal content definition
+        String content = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-8.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        // store content definition in entitiy resolver
+        CmsXmlEntityResolver.cacheSystemId(SCHEMA_SYSTEM_ID_8, content.getBytes(iso));
+
+        // create a content with a value in several locales
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-8.xml", iso);
+        CmsXmlContent eager = CmsXmlContentFactory.unmarshal(content, iso, resolver);
+        eager.addValue(cms, "String", Locale.ENGLISH, 0).setStringValue(cms, "Value en");
+        Locale[] locales = {Locale.GERMAN, Locale.FRENCH, Locale.ITALIAN, Locale.JAPANESE, Locale.CHINESE};
+        for (Locale locale : locales) {
+            eager.copyLocale(Locale.ENGLISH, locale);
+            eager.getValue("String", locale).setStringValue(cms, "Value " + locale);
+        }
+        content = eager.toString();
+        eager = CmsXmlContentFactory.unmarshal(content, iso, resolver);
+
+        Document document = CmsXmlUtils.unmarshalHelper(content, resolver);
+        CmsXmlContent lazy = new CmsXmlContent(null, document, iso, resolver, true);
+        assertEquals(eager.getLocales().size(), lazy.getLocales().size());
+        assertTrue(lazy.getInitializedLocales().isEmpty());
+
+        // accessing a single value must only initialize the values of its locale
+        assertEquals("Value de", lazy.getStringValue(cms, "String", Locale.GERMAN));
+        assertEquals(Collections.singletonList(Locale.GERMAN), lazy.getInitializedLocales());
+        assertTrue(lazy.hasValue("String", Locale.FRENCH));
+        assertEquals(2, lazy.getInitializedLocales().size());
+
+        // all values must be identical to the eagerly initialized values
+        for (Locale locale : eager.getLocales()) {
+            List<I_CmsXmlContentValue> eagerValues = eager.getValues(locale);
+            List<I_CmsXmlContentValue> lazyValues = lazy.getValues(locale);
+            assertEquals(eagerValues.size(), lazyValues.size());
+            for (int i = 0; i < eagerValues.size(); i++) {
+                assertEquals(eagerValues.get(i).getPath(), lazyValues.get(i).getPath());
+                assertEquals(eagerValues.get(i).getStringValue(cms), lazyValues.get(i).getStringValue(cms));
+            }
+            assertEquals(eager.getNames(locale).size(), lazy.getNames(locale).size());
+        }
+        assertEquals(eager.getLocales().size(), lazy.getInitializedLocales().size());
+        assertEquals(eager.toString(), lazy.toString());
+    }
+
     /**
      * Test using the GUI widget mapping appinfo nodes.<p>
      *
@@ -1665,6 +1735,57 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertSame(definition.getContentHandler().getClass().getName(), TestXmlContentHandler.class.getName());
     }
 
+    /**
+     * Tests that every request gets its own copy of an online XML content shared between requests.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testOnlineContentCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the copies of the online XML contents shared between requests");
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsResource resource = cms.readResource("/xmlcontent/article_0003.html");
+        CmsXmlContent first = CmsXmlContentFactory.unmarshal(cms, resource, new OpenCmsTestServletRequest());
+        CmsXmlContent cached = OpenCms.getMemoryMonitor().getCachedXmlContent(
+            CmsXmlContentFactory.getCacheKey(resource));
+        assertNotNull(cached);
+        assertNotSame(cached, first);
+
+        // the same request always gets the same content, other requests get a copy of their own
+        ServletRequest req = new OpenCmsTestServletRequest();
+        CmsXmlContent second = CmsXmlContentFactory.unmarshal(cms, resource, req);
+        assertSame(second, CmsXmlContentFactory.unmarshal(cms, resource, req));
+        assertNotSame(cached, second);
+        assertNotSame(first, second);
+        assertNotSame(first.getFile(), second.getFile());
+
+        // changes made by one request are not visible to other requests
+        String title = first.getStringValue(cms, "Title", Locale.ENGLISH);
+        first.getValue("Title", Locale.ENGLISH).setStringValue(cms, "Changed title");
+        first.addLocale(cms, Locale.GERMAN);
+        first.getFile().setContents(first.marshal());
+        CmsXmlContent third = CmsXmlContentFactory.unmarshal(cms, resource, new OpenCmsTestServletRequest());
+        for (CmsXmlContent content : new CmsXmlContent[] {second, third}) {
+            assertEquals(title, content.getStringValue(cms, "Title", Locale.ENGLISH));
+            assertFalse(content.hasLocale(Locale.GERMAN));
+            assertEquals(resource.getLength(), content.getFile().getLength());
+        }
+
+        // contents prepared for use by their handler depend on the context they are read with, so they are not cached
+        assertTrue(CmsXmlContentFactory.hasDefaultPrepareForUse(first.getHandler()));
+        assertTrue(CmsXmlContentFactory.hasDefaultPrepareForUse(new TestXmlContentHandler()));
+        assertFalse(CmsXmlContentFactory.hasDefaultPrepareForUse(new CmsDefaultXmlContentHandler() {
+
+            @Override
+            public CmsXmlContent prepareForUse(CmsObject userCms, CmsXmlContent content) {
+
+                return content;
+            }
+        }));
+    }
+
     /**
      * Test if the resource bundle in the schema definition is properly initialized.<p>
      *
@@ -1957,6 +2078,75 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertEquals("Der Autor ist JETZT", messagesDEde.key("label.newauthor"));
     }
 
+    /**
+     * Tests reading the values of a XML content by streaming over the XML data.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testStreamReader() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the values of a XML content by streaming over the XML data");
+
+        // the optional "Homepage" link of the article schema has a default check rule, so broken links
+        // would have to be removed when reading, which is not done by the stream reader
+        CmsFile file = cms.readFile("/xmlcontent/article_0001.html");
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(cms, file);
+        assertFalse(CmsXmlContentStreamReader.isStreamable(content.getContentDefinition()));
+        assertFalse(new CmsXmlContentStreamReader(cms, file).read(null, value -> fail()));
+
+        // without the link the schema has no check rules, use it for a content with several locales
+        String schema = new String(cms.readFile("/xmlcontent/article.xsd").getContents(), CmsEncoder.ENCODING_UTF_8);
+        schema = schema.replaceFirst("<xsd:element name=\"Homepage\"[^>]*/>", "");
+        cms.createResource(
+            "/xmlcontent/streamable.xsd",
+            OpenCms.getResourceManager().getResourceType("plain"),
+            schema.getBytes(CmsEncoder.ENCODING_UTF_8),
+            Collections.<CmsProperty> emptyList());
+        String xml = new String(file.getContents(), CmsEncoder.ENCODING_UTF_8);
+        content = CmsXmlContentFactory.unmarshal(
+            cms,
+            xml.replace("article.xsd", "streamable.xsd"),
+            CmsEncoder.ENCODING_UTF_8,
+            new CmsXmlEntityResolver(cms));
+        content.copyLocale(Locale.ENGLISH, Locale.GERMAN);
+        content.getValue("Title", Locale.GERMAN).setStringValue(cms, "Beispielartikel 1");
+        cms.createResource("/xmlcontent/streamable_0001.html", file.getTypeId(), content.marshal(), null);
+        file = cms.readFile("/xmlcontent/streamable_0001.html");
+        content = CmsXmlContentFactory.unmarshal(cms, file);
+        assertTrue(CmsXmlContentStreamReader.isStreamable(content.getContentDefinition()));
+        assertEquals(2, content.getLocales().size());
+
+        // all values must be identical to the values of the unmarshalled content
+        CmsXmlContentStreamReader reader = new CmsXmlContentStreamReader(cms, file);
+        Map<String, String> values = new HashMap<String, String>();
+        assertTrue(reader.read(null, value -> {
+            if (value.isSimpleType()) {
+                assertNull(values.put(value.getLocale() + "/" + value.getPath(), value.getStringValue(cms)));
+            }
+        }));
+        assertEquals(content.getLocales().size(), reader.getLocales().size());
+        int count = 0;
+        for (Locale locale : content.getLocales()) {
+            for (I_CmsXmlContentValue value : content.getValues(locale)) {
+                if (value.isSimpleType()) {
+                    assertEquals(value.getStringValue(cms), values.get(locale + "/" + value.getPath()));
+                    count++;
+                }
+            }
+        }
+        assertEquals(count, values.size());
+        assertEquals(content.getHandler(), reader.getContent().getHandler());
+
+        // only the values of the given locale must be visited
+        List<String> paths = new ArrayList<String>();
+        assertTrue(reader.read(Locale.ENGLISH, value -> {
+            assertEquals(Locale.ENGLISH, value.getLocale());
+            paths.add(value.getPath());
+        }));
+        assertEquals(content.getNames(Locale.ENGLISH).size(), paths.size());
+    }
+
     /**
      * Test the validation of the value elements.<p>
      *